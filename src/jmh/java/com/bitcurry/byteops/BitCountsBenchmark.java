@@ -0,0 +1,104 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hamming distance between one <code>bits</code>-bit fingerprint and 1024 others.
+ * {@link #isBitSetLoop()} is the per-bit comparison that {@link BitCounts} replaces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BitCountsBenchmark {
+
+    private static final int CANDIDATES = 1024;
+
+    @Param({ "256", "4096" })
+    private int bits;
+
+    private int len;
+    private byte[] query;
+    private byte[] candidates;
+    private int[] distances;
+
+    @Setup
+    public void setup() {
+        len = bits / 8;
+        Random random = new Random(bits);
+        query = new byte[len];
+        candidates = new byte[len * CANDIDATES];
+        random.nextBytes(query);
+        random.nextBytes(candidates);
+        distances = new int[CANDIDATES];
+    }
+
+    @Benchmark
+    public int[] isBitSetLoop() {
+        for (int c = 0; c < CANDIDATES; c++) {
+            int d = 0;
+            for (int i = 0; i < len; i++) {
+                for (int bit = 0; bit < 8; bit++) {
+                    if (ByteOps.isBitSet(query[i], bit)
+                            != ByteOps.isBitSet(candidates[c * len + i], bit)) {
+                        d++;
+                    }
+                }
+            }
+            distances[c] = d;
+        }
+        return distances;
+    }
+
+    @Benchmark
+    public int[] hammingDistances() {
+        BitCounts.hammingDistances(query, 0, candidates, 0, len, CANDIDATES, distances, 0);
+        return distances;
+    }
+
+    @Benchmark
+    public int nearest() {
+        return BitCounts.nearest(query, 0, candidates, 0, len, CANDIDATES);
+    }
+
+}
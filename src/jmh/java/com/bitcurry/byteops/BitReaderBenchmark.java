@@ -0,0 +1,93 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing a 1 KB frame of packed <code>width</code>-bit MSB-first fields. {@link #perBit()} is
+ * the loop that {@link BitReader} replaces, assembling each field from
+ * <code>ByteOps.isBitSet</code> calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BitReaderBenchmark {
+
+    @Param({ "3", "12", "33" })
+    private int width;
+
+    private byte[] frame;
+    private int fields;
+
+    @Setup
+    public void setup() {
+        frame = new byte[1024];
+        new Random(width).nextBytes(frame);
+        fields = 8 * frame.length / width;
+    }
+
+    @Benchmark
+    public long perBit() {
+        long sum = 0;
+        int bit = 0;
+        for (int f = 0; f < fields; f++) {
+            long value = 0;
+            for (int i = 0; i < width; i++, bit++) {
+                value = (value << 1) | (ByteOps.isBitSet(frame[bit >>> 3], 7 - (bit & 7)) ? 1 : 0);
+            }
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long reader() {
+        BitReader reader = new BitReader(frame, 0, frame.length, BitOrder.MSB_FIRST);
+        long sum = 0;
+        for (int f = 0; f < fields; f++) {
+            sum += reader.readBits(width);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,171 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk operations over sizes from 16 bytes to 64 MB. Each benchmark transforms
+ * <code>size</code> bytes starting <code>offset</code> bytes into the arrays, so that the word
+ * and vector loops also run against misaligned data. {@link #perByte()} is the loop that the
+ * bulk methods replace, calling a single-byte method for every element.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BulkOpsBenchmark {
+
+    @Param({ "and", "or", "xor", "not", "lshift", "rshift", "lrotate", "rrotate" })
+    private String op;
+
+    @Param({ "16", "256", "4096", "65536", "1048576", "67108864" })
+    private int size;
+
+    @Param({ "0", "1", "7" })
+    private int offset;
+
+    private OpCode code;
+    private int operand;
+    private BulkOp bulk;
+    private BulkOp parallel;
+    private ByteTransform table;
+    private TransformKernel kernel;
+    private BulkEngine vector;
+    private byte[] src;
+    private byte[] dst;
+    private ByteBuffer directSrc;
+    private ByteBuffer directDst;
+
+    @Setup
+    public void setup() {
+        code = OpCode.valueOf(op.toUpperCase(Locale.ROOT));
+        operand = code.ordinal() < OpCode.LSHIFT.ordinal() ? 0x5A : 3;
+        bulk = new BasicOp(code, operand);
+        parallel = bulk.parallel();
+        table = ByteTransform.identity().then(code, operand);
+        kernel = table.compile();
+        vector = BulkEngine.getDefault();
+        src = new byte[size + offset];
+        dst = new byte[size + offset];
+        new Random(size).nextBytes(src);
+        directSrc = ByteBuffer.allocateDirect(size + offset);
+        directSrc.put(src).position(offset);
+        directDst = ByteBuffer.allocateDirect(size + offset);
+        directDst.position(offset);
+    }
+
+    @Benchmark
+    public byte[] perByte() {
+        for (int i = offset; i < offset + size; i++) {
+            dst[i] = code.apply(src[i], operand);
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] scalarEngine() {
+        run(BulkEngine.scalar());
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] defaultEngine() {
+        run(vector);
+        return dst;
+    }
+
+    @Benchmark
+    public ByteBuffer directBuffer() {
+        bulk.apply(directSrc, directDst);
+        return directDst;
+    }
+
+    @Benchmark
+    public byte[] parallel() {
+        parallel.apply(src, offset, dst, offset, size);
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] table() {
+        table.apply(src, offset, dst, offset, size);
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] kernel() {
+        kernel.apply(src, offset, dst, offset, size);
+        return dst;
+    }
+
+    private void run(final BulkEngine engine) {
+        switch (code) {
+        case AND:
+            engine.and(src, offset, dst, offset, size, operand);
+            break;
+        case OR:
+            engine.or(src, offset, dst, offset, size, operand);
+            break;
+        case XOR:
+            engine.xor(src, offset, dst, offset, size, operand);
+            break;
+        case NOT:
+            engine.not(src, offset, dst, offset, size);
+            break;
+        case LSHIFT:
+            engine.lshift(src, offset, dst, offset, size, operand);
+            break;
+        case RSHIFT:
+            engine.rshift(src, offset, dst, offset, size, operand);
+            break;
+        case LROTATE:
+            engine.lrotate(src, offset, dst, offset, size, operand);
+            break;
+        case RROTATE:
+            engine.rrotate(src, offset, dst, offset, size, operand);
+            break;
+        }
+    }
+
+}
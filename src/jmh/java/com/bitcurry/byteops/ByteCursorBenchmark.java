@@ -0,0 +1,116 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding a 4 KB frame of 16-byte big-endian records, each a 16-bit type, a 24-bit length, a
+ * 32-bit id and a 48-bit timestamp followed by a pad byte. {@link #shifts()} assembles each
+ * field from masked bytes, the way call sites did before {@link ByteCursor}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ByteCursorBenchmark {
+
+    private static final int RECORD = 16;
+
+    private byte[] frame;
+    private ByteCursor array;
+    private ByteCursor direct;
+
+    @Setup
+    public void setup() {
+        frame = new byte[4096];
+        new Random(23).nextBytes(frame);
+        array = new ByteCursor(frame, ByteOrder.BIG_ENDIAN);
+        ByteBuffer buf = ByteBuffer.allocateDirect(frame.length);
+        buf.put(frame).flip();
+        direct = new ByteCursor(buf, ByteOrder.BIG_ENDIAN);
+    }
+
+    private static int u8(final byte[] b, final int i) {
+        return b[i] & 0xFF;
+    }
+
+    @Benchmark
+    public long shifts() {
+        final byte[] b = frame;
+        long sum = 0;
+        for (int i = 0; i + RECORD <= b.length; i += RECORD) {
+            sum += (u8(b, i) << 8) | u8(b, i + 1);
+            sum += (u8(b, i + 2) << 16) | (u8(b, i + 3) << 8) | u8(b, i + 4);
+            sum += ((long) u8(b, i + 5) << 24) | (u8(b, i + 6) << 16) | (u8(b, i + 7) << 8)
+                    | u8(b, i + 8);
+            sum += ((long) u8(b, i + 9) << 40) | ((long) u8(b, i + 10) << 32)
+                    | ((long) u8(b, i + 11) << 24) | (u8(b, i + 12) << 16)
+                    | (u8(b, i + 13) << 8) | u8(b, i + 14);
+        }
+        return sum;
+    }
+
+    private static long records(final ByteCursor c) {
+        long sum = 0;
+        c.position(0);
+        while (c.remaining() >= RECORD) {
+            sum += c.readU16();
+            sum += c.readU24();
+            sum += c.readU32();
+            sum += c.readU48();
+            c.skip(1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long cursorArray() {
+        return records(array);
+    }
+
+    @Benchmark
+    public long cursorDirect() {
+        return records(direct);
+    }
+
+}
@@ -0,0 +1,116 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scanning a <code>size</code> byte buffer for an HDLC flag byte that only occurs at the very
+ * end, and for a 16-byte sync sequence. {@link #loop()} and {@link #naiveSequence()} are the
+ * byte-at-a-time comparisons that {@link ByteSearch} and {@link BytePattern} replace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ByteSearchBenchmark {
+
+    @Param({ "65536" })
+    private int size;
+
+    private byte[] data;
+    private byte[] sync;
+    private BytePattern pattern;
+    private BytePatternSet patterns;
+
+    @Setup
+    public void setup() {
+        data = new byte[size];
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) random.nextInt(0x7E);
+        }
+        data[size - 1] = ByteOps.B0x7E;
+        sync = new byte[16];
+        System.arraycopy(data, size - 17, sync, 0, 16);
+        pattern = BytePattern.compile(sync);
+        patterns = BytePatternSet.of(sync, new byte[] { 1, 2, 3, 4 }, new byte[] { 5, 6, 7, 8 });
+    }
+
+    @Benchmark
+    public int loop() {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == ByteOps.B0x7E) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return ByteSearch.indexOf(data, 0, size, ByteOps.B0x7E);
+    }
+
+    @Benchmark
+    public int naiveSequence() {
+        outer: for (int i = 0; i + sync.length <= size; i++) {
+            for (int j = 0; j < sync.length; j++) {
+                if (data[i + j] != sync[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int horspool() {
+        return pattern.indexIn(data, 0, size);
+    }
+
+    @Benchmark
+    public int ahoCorasick() {
+        return patterns.indexIn(data, 0, size);
+    }
+
+}
@@ -0,0 +1,102 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Multiply-and-add of a <code>size</code> byte shard by a GF(2^8) coefficient, the inner loop
+ * of erasure coding. {@link #logExp()} is the per-byte log/exp table loop, {@link #scalar()}
+ * the 256-entry product row and {@link #vector()} the nibble-table shuffles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class GaloisFieldBenchmark {
+
+    private static final int COEFFICIENT = 0x8E;
+
+    @Param({ "4096", "65536" })
+    private int size;
+
+    private final GaloisField field = GaloisField.REED_SOLOMON;
+    private final GaloisField.Coefficient coefficient = new GaloisField.Coefficient();
+    private final BulkEngine scalar = BulkEngine.scalar();
+    private final BulkEngine vector = BulkEngine.getDefault();
+    private byte[] src;
+    private byte[] dst;
+
+    @Setup
+    public void setup() {
+        src = new byte[size];
+        dst = new byte[size];
+        new Random(size).nextBytes(src);
+        for (int b = 0; b < 256; b++) {
+            coefficient.products[b] = field.mul(COEFFICIENT, b);
+        }
+        for (int i = 0; i < coefficient.low.length; i++) {
+            coefficient.low[i] = coefficient.products[i & 0xF];
+            coefficient.high[i] = coefficient.products[(i & 0xF) << 4];
+        }
+    }
+
+    @Benchmark
+    public byte[] logExp() {
+        for (int i = 0; i < size; i++) {
+            dst[i] ^= field.mul(COEFFICIENT, src[i]);
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] scalar() {
+        scalar.gfMulAdd(coefficient, src, 0, dst, 0, size);
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] vector() {
+        vector.gfMulAdd(coefficient, src, 0, dst, 0, size);
+        return dst;
+    }
+
+}
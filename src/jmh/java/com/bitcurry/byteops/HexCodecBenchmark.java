@@ -0,0 +1,118 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hex encoding and decoding of a frame of <code>size</code> bytes. {@link #formatEncode()} and
+ * {@link #parseDecode()} are the <code>String.format</code> and <code>Integer.parseInt</code>
+ * loops that {@link HexCodec} replaces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class HexCodecBenchmark {
+
+    @Param({ "16", "256", "4096" })
+    private int size;
+
+    private final HexCodec codec = HexCodec.upperCase();
+    private byte[] bytes;
+    private String hex;
+    private byte[] ascii;
+    private char[] chars;
+    private byte[] decoded;
+
+    @Setup
+    public void setup() {
+        bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        hex = codec.encode(bytes);
+        ascii = hex.getBytes(StandardCharsets.US_ASCII);
+        chars = hex.toCharArray();
+        decoded = new byte[size];
+    }
+
+    @Benchmark
+    public String formatEncode() {
+        StringBuilder sb = new StringBuilder(2 * size);
+        for (byte b : bytes) {
+            sb.append(String.format("%02X", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public char[] encodeChars() {
+        codec.encode(bytes, 0, size, chars, 0);
+        return chars;
+    }
+
+    @Benchmark
+    public byte[] encodeAscii() {
+        codec.encode(bytes, 0, size, ascii, 0);
+        return ascii;
+    }
+
+    @Benchmark
+    public byte[] parseDecode() {
+        for (int i = 0; i < size; i++) {
+            decoded[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] decodeChars() {
+        codec.decode(chars, 0, chars.length, decoded, 0);
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] decodeAscii() {
+        codec.decode(ascii, 0, ascii.length, decoded, 0);
+        return decoded;
+    }
+
+}
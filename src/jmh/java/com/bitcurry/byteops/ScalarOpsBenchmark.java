@@ -0,0 +1,226 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-byte operations in each of their overload flavors. The <code>byte</code> flavors
+ * delegate to the <code>int, int</code> one, so any gap between them is the cost of that
+ * extra call. The hand-written expression in {@link #baseline()} is the floor to compare
+ * against. Operands are read from non-final fields so the JIT can't fold them away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalarOpsBenchmark {
+
+    private byte b1 = (byte) 0xA5;
+    private byte b2 = (byte) 0x3C;
+    private int i1 = 0xA5;
+    private int i2 = 0x3C;
+    private byte bn = 3;
+    private int in = 3;
+
+    @Benchmark
+    public byte baseline() {
+        return (byte) ((i1 ^ i2) & 0xFF);
+    }
+
+    @Benchmark
+    public byte andByteByte() {
+        return ByteOps.and(b1, b2);
+    }
+
+    @Benchmark
+    public byte andByteInt() {
+        return ByteOps.and(b1, i2);
+    }
+
+    @Benchmark
+    public byte andIntByte() {
+        return ByteOps.and(i1, b2);
+    }
+
+    @Benchmark
+    public byte andIntInt() {
+        return ByteOps.and(i1, i2);
+    }
+
+    @Benchmark
+    public byte orByteByte() {
+        return ByteOps.or(b1, b2);
+    }
+
+    @Benchmark
+    public byte orByteInt() {
+        return ByteOps.or(b1, i2);
+    }
+
+    @Benchmark
+    public byte orIntByte() {
+        return ByteOps.or(i1, b2);
+    }
+
+    @Benchmark
+    public byte orIntInt() {
+        return ByteOps.or(i1, i2);
+    }
+
+    @Benchmark
+    public byte xorByteByte() {
+        return ByteOps.xor(b1, b2);
+    }
+
+    @Benchmark
+    public byte xorByteInt() {
+        return ByteOps.xor(b1, i2);
+    }
+
+    @Benchmark
+    public byte xorIntByte() {
+        return ByteOps.xor(i1, b2);
+    }
+
+    @Benchmark
+    public byte xorIntInt() {
+        return ByteOps.xor(i1, i2);
+    }
+
+    @Benchmark
+    public byte lrotateByteByte() {
+        return ByteOps.lrotate(b1, bn);
+    }
+
+    @Benchmark
+    public byte lrotateByteInt() {
+        return ByteOps.lrotate(b1, in);
+    }
+
+    @Benchmark
+    public byte lrotateIntByte() {
+        return ByteOps.lrotate(i1, bn);
+    }
+
+    @Benchmark
+    public byte lrotateIntInt() {
+        return ByteOps.lrotate(i1, in);
+    }
+
+    @Benchmark
+    public byte lshiftByteByte() {
+        return ByteOps.lshift(b1, bn);
+    }
+
+    @Benchmark
+    public byte lshiftByteInt() {
+        return ByteOps.lshift(b1, in);
+    }
+
+    @Benchmark
+    public byte lshiftIntByte() {
+        return ByteOps.lshift(i1, bn);
+    }
+
+    @Benchmark
+    public byte lshiftIntInt() {
+        return ByteOps.lshift(i1, in);
+    }
+
+    @Benchmark
+    public byte rrotateByteByte() {
+        return ByteOps.rrotate(b1, bn);
+    }
+
+    @Benchmark
+    public byte rrotateByteInt() {
+        return ByteOps.rrotate(b1, in);
+    }
+
+    @Benchmark
+    public byte rrotateIntByte() {
+        return ByteOps.rrotate(i1, bn);
+    }
+
+    @Benchmark
+    public byte rrotateIntInt() {
+        return ByteOps.rrotate(i1, in);
+    }
+
+    @Benchmark
+    public byte rshiftByteByte() {
+        return ByteOps.rshift(b1, bn);
+    }
+
+    @Benchmark
+    public byte rshiftByteInt() {
+        return ByteOps.rshift(b1, in);
+    }
+
+    @Benchmark
+    public byte rshiftIntByte() {
+        return ByteOps.rshift(i1, bn);
+    }
+
+    @Benchmark
+    public byte rshiftIntInt() {
+        return ByteOps.rshift(i1, in);
+    }
+
+    @Benchmark
+    public byte notByte() {
+        return ByteOps.not(b1);
+    }
+
+    @Benchmark
+    public byte notInt() {
+        return ByteOps.not(i1);
+    }
+
+    @Benchmark
+    public boolean isBitSet() {
+        return ByteOps.isBitSet(b1, in);
+    }
+
+    @Benchmark
+    public boolean isBitClear() {
+        return ByteOps.isBitClear(b1, in);
+    }
+
+}
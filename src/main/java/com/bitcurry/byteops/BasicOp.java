@@ -0,0 +1,121 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * {@link BulkOp} for a single {@link OpCode} with a constant operand
+ */
+final class BasicOp implements BulkOp {
+
+    private final OpCode code;
+    private final int operand;
+
+    BasicOp(final OpCode code, final int operand) {
+        this.code = code;
+        this.operand = operand;
+    }
+
+    OpCode getCode() {
+        return code;
+    }
+
+    int getOperand() {
+        return operand;
+    }
+
+    @Override
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        BulkEngine engine = BulkEngine.getDefault();
+        switch (code) {
+        case AND:
+            engine.and(src, srcOff, dst, dstOff, len, operand);
+            break;
+        case OR:
+            engine.or(src, srcOff, dst, dstOff, len, operand);
+            break;
+        case XOR:
+            engine.xor(src, srcOff, dst, dstOff, len, operand);
+            break;
+        case NOT:
+            engine.not(src, srcOff, dst, dstOff, len);
+            break;
+        case LSHIFT:
+            engine.lshift(src, srcOff, dst, dstOff, len, operand);
+            break;
+        case RSHIFT:
+            engine.rshift(src, srcOff, dst, dstOff, len, operand);
+            break;
+        case LROTATE:
+            engine.lrotate(src, srcOff, dst, dstOff, len, operand);
+            break;
+        case RROTATE:
+            engine.rrotate(src, srcOff, dst, dstOff, len, operand);
+            break;
+        }
+    }
+
+    @Override
+    public void apply(ByteBuffer src, ByteBuffer dst) {
+        switch (code) {
+        case AND:
+            ByteOps.and(src, dst, operand);
+            break;
+        case OR:
+            ByteOps.or(src, dst, operand);
+            break;
+        case XOR:
+            ByteOps.xor(src, dst, operand);
+            break;
+        case NOT:
+            ByteOps.not(src, dst);
+            break;
+        case LSHIFT:
+            ByteOps.lshift(src, dst, operand);
+            break;
+        case RSHIFT:
+            ByteOps.rshift(src, dst, operand);
+            break;
+        case LROTATE:
+            ByteOps.lrotate(src, dst, operand);
+            break;
+        case RROTATE:
+            ByteOps.rrotate(src, dst, operand);
+            break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (code == OpCode.NOT) {
+            return "not";
+        }
+        return code.name().toLowerCase(Locale.ROOT) + "(" + operand + ")";
+    }
+
+}
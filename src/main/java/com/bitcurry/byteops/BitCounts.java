@@ -0,0 +1,280 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Bit counting over byte arrays treated as bit vectors, such as binary fingerprints and
+ * similarity hashes. Every method reads eight bytes at a time as a <code>long</code> and hands
+ * the word to <code>Long.bitCount</code>, which the JIT turns into a single popcount
+ * instruction. The main loops are unrolled four words deep into independent counters so that
+ * the popcounts of neighbouring words overlap instead of queuing behind one add chain.
+ * 
+ * The pairwise counts take two ranges of the same length <code>len</code>, one from each
+ * array. The one-vs-many methods compare a single query against candidates packed one after
+ * another in a flat array. The query stays in cache while the candidates stream past
+ * sequentially, which the hardware prefetcher handles well.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BitCounts {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private BitCounts() {
+    }
+
+    /**
+     * Returns the number of one bits in <code>len</code> bytes of <code>src</code> starting at
+     * <code>off</code>
+     */
+    public static long popcount(final byte[] src, final int off, final int len) {
+        ByteOps.checkRange(src, off, len);
+        long c0 = 0;
+        long c1 = 0;
+        long c2 = 0;
+        long c3 = 0;
+        int i = 0;
+        for (; i <= len - 32; i += 32) {
+            c0 += Long.bitCount((long) LONGS.get(src, off + i));
+            c1 += Long.bitCount((long) LONGS.get(src, off + i + 8));
+            c2 += Long.bitCount((long) LONGS.get(src, off + i + 16));
+            c3 += Long.bitCount((long) LONGS.get(src, off + i + 24));
+        }
+        for (; i <= len - 8; i += 8) {
+            c0 += Long.bitCount((long) LONGS.get(src, off + i));
+        }
+        for (; i < len; i++) {
+            c1 += Integer.bitCount(src[off + i] & BYTE_MASK);
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+    /**
+     * Returns the number of one bits between the position and limit of <code>buf</code>. The
+     * position is left untouched.
+     */
+    public static long popcount(final ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return popcount(buf.array(), BufferKernels.arrayIndex(buf), buf.remaining());
+        }
+        final int end = buf.limit();
+        long count = 0;
+        int i = buf.position();
+        for (; i <= end - 8; i += 8) {
+            count += Long.bitCount((long) BUFFER_LONGS.get(buf, i));
+        }
+        for (; i < end; i++) {
+            count += Integer.bitCount(buf.get(i) & BYTE_MASK);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of positions where both ranges have a one bit, the size of the
+     * intersection of two bit sets
+     */
+    public static long andCount(final byte[] a, final int aOff, final byte[] b, final int bOff,
+            final int len) {
+        ByteOps.checkRange(a, aOff, len);
+        ByteOps.checkRange(b, bOff, len);
+        long c0 = 0;
+        long c1 = 0;
+        long c2 = 0;
+        long c3 = 0;
+        int i = 0;
+        for (; i <= len - 32; i += 32) {
+            c0 += Long.bitCount((long) LONGS.get(a, aOff + i) & (long) LONGS.get(b, bOff + i));
+            c1 += Long.bitCount((long) LONGS.get(a, aOff + i + 8)
+                    & (long) LONGS.get(b, bOff + i + 8));
+            c2 += Long.bitCount((long) LONGS.get(a, aOff + i + 16)
+                    & (long) LONGS.get(b, bOff + i + 16));
+            c3 += Long.bitCount((long) LONGS.get(a, aOff + i + 24)
+                    & (long) LONGS.get(b, bOff + i + 24));
+        }
+        for (; i <= len - 8; i += 8) {
+            c0 += Long.bitCount((long) LONGS.get(a, aOff + i) & (long) LONGS.get(b, bOff + i));
+        }
+        for (; i < len; i++) {
+            c1 += Integer.bitCount(a[aOff + i] & b[bOff + i] & BYTE_MASK);
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+    /**
+     * Returns the number of positions where the ranges have different bits, the Hamming
+     * distance between them
+     */
+    public static long xorCount(final byte[] a, final int aOff, final byte[] b, final int bOff,
+            final int len) {
+        ByteOps.checkRange(a, aOff, len);
+        ByteOps.checkRange(b, bOff, len);
+        return distance(a, aOff, b, bOff, len);
+    }
+
+    /**
+     * Returns the Hamming distance between the two ranges, the number of bits that differ.
+     * This is the same as {@link #xorCount}.
+     */
+    public static long hammingDistance(final byte[] a, final int aOff, final byte[] b,
+            final int bOff, final int len) {
+        return xorCount(a, aOff, b, bOff, len);
+    }
+
+    /**
+     * Returns the Hamming distance between two arrays of the same length
+     * 
+     * @throws IllegalArgumentException if the lengths differ
+     */
+    public static long hammingDistance(final byte[] a, final byte[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException(
+                    "lengths differ: " + a.length + " and " + b.length);
+        }
+        return distance(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Returns the index of the first bit where the two ranges differ, counting from bit 0 of
+     * the ranges in the given order, or -1 if they are equal
+     */
+    public static long mismatch(final byte[] a, final int aOff, final byte[] b, final int bOff,
+            final int len, final BitOrder order) {
+        ByteOps.checkRange(a, aOff, len);
+        ByteOps.checkRange(b, bOff, len);
+        final int i = Arrays.mismatch(a, aOff, aOff + len, b, bOff, bOff + len);
+        if (i < 0) {
+            return -1;
+        }
+        final int diff = (a[aOff + i] ^ b[bOff + i]) & BYTE_MASK;
+        final int bit = order == BitOrder.MSB_FIRST ? Integer.numberOfLeadingZeros(diff) - 24
+                : Integer.numberOfTrailingZeros(diff);
+        return 8L * i + bit;
+    }
+
+    /**
+     * Compute the Hamming distance from <code>len</code> bytes of <code>query</code> starting at
+     * <code>queryOff</code> to each of <code>count</code> candidates of the same length packed
+     * back to back in <code>candidates</code> from <code>candidatesOff</code>, storing them into
+     * <code>distances</code> from <code>distancesOff</code>
+     */
+    public static void hammingDistances(final byte[] query, final int queryOff,
+            final byte[] candidates, final int candidatesOff, final int len, final int count,
+            final int[] distances, final int distancesOff) {
+        checkBatch(query, queryOff, candidates, candidatesOff, len, count);
+        Objects.checkFromIndexSize(distancesOff, count, distances.length);
+        for (int c = 0; c < count; c++) {
+            distances[distancesOff + c] =
+                    (int) distance(query, queryOff, candidates, candidatesOff + c * len, len);
+        }
+    }
+
+    /**
+     * Returns the index of the candidate with the smallest Hamming distance to the query, the
+     * first one if several tie, or -1 if <code>count</code> is zero. Candidates are laid out as
+     * for {@link #hammingDistances}. A candidate is abandoned as soon as its partial distance
+     * reaches the best found so far, so most of each losing candidate is never read.
+     */
+    public static int nearest(final byte[] query, final int queryOff, final byte[] candidates,
+            final int candidatesOff, final int len, final int count) {
+        checkBatch(query, queryOff, candidates, candidatesOff, len, count);
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int c = 0; c < count; c++) {
+            final int base = candidatesOff + c * len;
+            long d = 0;
+            int i = 0;
+            for (; i <= len - 32 && d < bestDistance; i += 32) {
+                d += Long.bitCount((long) LONGS.get(query, queryOff + i)
+                        ^ (long) LONGS.get(candidates, base + i))
+                        + Long.bitCount((long) LONGS.get(query, queryOff + i + 8)
+                                ^ (long) LONGS.get(candidates, base + i + 8))
+                        + Long.bitCount((long) LONGS.get(query, queryOff + i + 16)
+                                ^ (long) LONGS.get(candidates, base + i + 16))
+                        + Long.bitCount((long) LONGS.get(query, queryOff + i + 24)
+                                ^ (long) LONGS.get(candidates, base + i + 24));
+            }
+            if (d < bestDistance) {
+                d += distance(query, queryOff + i, candidates, base + i, len - i);
+                if (d < bestDistance) {
+                    best = c;
+                    bestDistance = d;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void checkBatch(final byte[] query, final int queryOff,
+            final byte[] candidates, final int candidatesOff, final int len, final int count) {
+        ByteOps.checkRange(query, queryOff, len);
+        if (count < 0) {
+            throw new IllegalArgumentException("negative count: " + count);
+        }
+        final long total = (long) len * count;
+        if (total > Integer.MAX_VALUE) {
+            throw new IndexOutOfBoundsException(count + " candidates of " + len + " bytes");
+        }
+        ByteOps.checkRange(candidates, candidatesOff, (int) total);
+    }
+
+    private static long distance(final byte[] a, final int aOff, final byte[] b, final int bOff,
+            final int len) {
+        long c0 = 0;
+        long c1 = 0;
+        long c2 = 0;
+        long c3 = 0;
+        int i = 0;
+        for (; i <= len - 32; i += 32) {
+            c0 += Long.bitCount((long) LONGS.get(a, aOff + i) ^ (long) LONGS.get(b, bOff + i));
+            c1 += Long.bitCount((long) LONGS.get(a, aOff + i + 8)
+                    ^ (long) LONGS.get(b, bOff + i + 8));
+            c2 += Long.bitCount((long) LONGS.get(a, aOff + i + 16)
+                    ^ (long) LONGS.get(b, bOff + i + 16));
+            c3 += Long.bitCount((long) LONGS.get(a, aOff + i + 24)
+                    ^ (long) LONGS.get(b, bOff + i + 24));
+        }
+        for (; i <= len - 8; i += 8) {
+            c0 += Long.bitCount((long) LONGS.get(a, aOff + i) ^ (long) LONGS.get(b, bOff + i));
+        }
+        for (; i < len; i++) {
+            c1 += Integer.bitCount((a[aOff + i] ^ b[bOff + i]) & BYTE_MASK);
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+}
@@ -0,0 +1,48 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+/**
+ * How the bits of a multi-byte bit string are laid out across its bytes.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public enum BitOrder {
+
+    /**
+     * The first byte holds the most significant bits, and within each byte bit 7 comes first.
+     * This is the order of big-endian integers and of most network protocols.
+     */
+    MSB_FIRST,
+
+    /**
+     * The first byte holds the least significant bits, and within each byte bit 0 comes first.
+     * This is the order of little-endian integers and of protocols such as CAN and UART framing
+     * that transmit the low bit first.
+     */
+    LSB_FIRST
+
+}
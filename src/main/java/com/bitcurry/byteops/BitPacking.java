@@ -0,0 +1,194 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Conversions between flags held one per element, as a <code>boolean[]</code> or as a list of
+ * the indices that are set, and flags packed eight to a byte. Flag <code>i</code> is bit
+ * <code>i % 8</code> of packed byte <code>i / 8</code>, the numbering
+ * {@link ByteOps#isBitSet(byte, int)} uses, and a packed range of <code>len</code> flags takes
+ * <code>(len + 7) / 8</code> bytes with any unused bits of the last byte cleared.
+ * 
+ * Packed data is processed 64 flags at a time as a little-endian <code>long</code>. Unpacking
+ * fills all-zero words in one go, and index lists are produced by jumping from one set bit to
+ * the next with <code>Long.numberOfTrailingZeros</code>, so sparse flags cost time in
+ * proportion to the bits that are set rather than to the length. See {@link ZeroRunCodec} for
+ * compressing packed flags.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BitPacking {
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private BitPacking() {
+    }
+
+    /**
+     * Returns the number of bytes needed to pack <code>len</code> flags
+     */
+    public static int packedLength(final int len) {
+        return (len >>> 3) + ((len & 7) == 0 ? 0 : 1);
+    }
+
+    /**
+     * Returns all of <code>flags</code> packed into a new array
+     */
+    public static byte[] pack(final boolean[] flags) {
+        final byte[] packed = new byte[packedLength(flags.length)];
+        pack(flags, 0, packed, 0, flags.length);
+        return packed;
+    }
+
+    /**
+     * Pack <code>len</code> flags of <code>src</code> starting at <code>srcOff</code> into
+     * <code>dst</code> starting at <code>dstOff</code>
+     */
+    public static void pack(final boolean[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        Objects.checkFromIndexSize(srcOff, len, src.length);
+        ByteOps.checkRange(dst, dstOff, packedLength(len));
+        int i = 0;
+        for (; i <= len - 64; i += 64) {
+            long w = 0;
+            for (int k = 0; k < 64; k++) {
+                w |= (src[srcOff + i + k] ? 1L : 0L) << k;
+            }
+            LONGS.set(dst, dstOff + (i >>> 3), w);
+        }
+        for (; i < len; i += 8) {
+            int b = 0;
+            for (int k = 0; k < 8 && i + k < len; k++) {
+                b |= (src[srcOff + i + k] ? 1 : 0) << k;
+            }
+            dst[dstOff + (i >>> 3)] = (byte) b;
+        }
+    }
+
+    /**
+     * Unpack <code>len</code> flags from <code>src</code> starting at <code>srcOff</code> into
+     * <code>dst</code> starting at <code>dstOff</code>
+     */
+    public static void unpack(final byte[] src, final int srcOff, final boolean[] dst,
+            final int dstOff, final int len) {
+        ByteOps.checkRange(src, srcOff, packedLength(len));
+        Objects.checkFromIndexSize(dstOff, len, dst.length);
+        int i = 0;
+        for (; i <= len - 64; i += 64) {
+            final long w = (long) LONGS.get(src, srcOff + (i >>> 3));
+            if (w == 0) {
+                Arrays.fill(dst, dstOff + i, dstOff + i + 64, false);
+            } else {
+                for (int k = 0; k < 64; k++) {
+                    dst[dstOff + i + k] = ((w >>> k) & 1) != 0;
+                }
+            }
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = ((src[srcOff + (i >>> 3)] >>> (i & 7)) & 1) != 0;
+        }
+    }
+
+    /**
+     * Returns the indices of the set flags among <code>len</code> flags packed in
+     * <code>src</code> from <code>srcOff</code>, in ascending order
+     */
+    public static int[] toIndices(final byte[] src, final int srcOff, final int len) {
+        final int[] indices =
+                new int[(int) BitCounts.popcount(src, srcOff, packedLength(len))];
+        final int count = toIndices(src, srcOff, len, indices, 0);
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Store the indices of the set flags among <code>len</code> flags packed in
+     * <code>src</code> from <code>srcOff</code> into <code>dst</code> from
+     * <code>dstOff</code>, in ascending order, and return how many there were. Bits of the last
+     * byte beyond <code>len</code> are ignored.
+     * 
+     * @throws IndexOutOfBoundsException if <code>dst</code> runs out of room
+     */
+    public static int toIndices(final byte[] src, final int srcOff, final int len,
+            final int[] dst, final int dstOff) {
+        ByteOps.checkRange(src, srcOff, packedLength(len));
+        int n = dstOff;
+        int i = 0;
+        for (; i <= len - 64; i += 64) {
+            long w = (long) LONGS.get(src, srcOff + (i >>> 3));
+            while (w != 0) {
+                dst[n++] = i + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+            }
+        }
+        for (; i < len; i += 8) {
+            int b = src[srcOff + (i >>> 3)] & 0xFF;
+            if (len - i < 8) {
+                b &= (1 << (len - i)) - 1;
+            }
+            while (b != 0) {
+                dst[n++] = i + Integer.numberOfTrailingZeros(b);
+                b &= b - 1;
+            }
+        }
+        return n - dstOff;
+    }
+
+    /**
+     * Set the flags named by <code>count</code> indices of <code>indices</code> from
+     * <code>off</code> in the <code>len</code> flags packed in <code>dst</code> from
+     * <code>dstOff</code>. Other flags are left as they are, so clear the range first to build
+     * a fresh bitmap.
+     * 
+     * @throws IndexOutOfBoundsException if an index is negative or not less than
+     *             <code>len</code>
+     */
+    public static void fromIndices(final int[] indices, final int off, final int count,
+            final byte[] dst, final int dstOff, final int len) {
+        Objects.checkFromIndexSize(off, count, indices.length);
+        ByteOps.checkRange(dst, dstOff, packedLength(len));
+        for (int i = off; i < off + count; i++) {
+            final int index = Objects.checkIndex(indices[i], len);
+            dst[dstOff + (index >>> 3)] |= (byte) (1 << (index & 7));
+        }
+    }
+
+    /**
+     * Returns <code>len</code> flags with the given indices set, packed into a new array
+     */
+    public static byte[] fromIndices(final int[] indices, final int len) {
+        final byte[] packed = new byte[packedLength(len)];
+        fromIndices(indices, 0, indices.length, packed, 0, len);
+        return packed;
+    }
+
+}
@@ -0,0 +1,171 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Bit-matrix transposes and bit-plane slicing. A <code>long</code> read from eight bytes is an
+ * 8x8 matrix of bits, byte <code>r</code> being row <code>r</code> and bit <code>c</code> of
+ * that byte being column <code>c</code>. {@link #transpose8x8(long)} flips it about its
+ * diagonal in three delta swaps, exchanging 1x1, then 2x2, then 4x4 blocks, which takes a
+ * dozen shifts and masks in place of 64 single-bit moves.
+ * 
+ * Transposing eight samples gives eight bytes that each hold one bit of every sample, so the
+ * same kernel splits samples into bit planes and joins them again. Plane <code>p</code> holds
+ * bit <code>p</code> of each sample, sample <code>i</code> landing in bit <code>i % 8</code> of
+ * byte <code>i / 8</code>, the numbering {@link ByteOps#isBitSet(byte, int)} uses. Each plane
+ * needs <code>(len + 7) / 8</code> bytes; a partial last group of samples fills the unused
+ * plane bits with zeros.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BitPlanes {
+
+    /* Byte i of each word is array element i, whatever the platform */
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private BitPlanes() {
+    }
+
+    /**
+     * Returns the transpose of the 8x8 bit matrix <code>x</code>, whose row <code>r</code> is
+     * byte <code>r</code> (bits <code>8r</code> to <code>8r + 7</code>). Bit <code>c</code> of
+     * row <code>r</code> becomes bit <code>r</code> of row <code>c</code>.
+     */
+    public static long transpose8x8(long x) {
+        long t = (x ^ (x >>> 7)) & 0x00AA00AA00AA00AAL;
+        x = x ^ t ^ (t << 7);
+        t = (x ^ (x >>> 14)) & 0x0000CCCC0000CCCCL;
+        x = x ^ t ^ (t << 14);
+        t = (x ^ (x >>> 28)) & 0x00000000F0F0F0F0L;
+        return x ^ t ^ (t << 28);
+    }
+
+    /**
+     * Transpose each of <code>blocks</code> consecutive 8-byte matrices in <code>src</code>,
+     * storing the results into <code>dst</code>. Row <code>r</code> of a block is its byte
+     * <code>r</code>.
+     */
+    public static void transpose8x8(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int blocks) {
+        final int len = Math.multiplyExact(blocks, 8);
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        for (int i = 0; i < len; i += 8) {
+            LONGS.set(dst, dstOff + i, transpose8x8((long) LONGS.get(src, srcOff + i)));
+        }
+    }
+
+    /**
+     * Split all of <code>samples</code> into the eight arrays of <code>planes</code>, which
+     * must each hold at least <code>(samples.length + 7) / 8</code> bytes
+     */
+    public static void toBitPlanes(final byte[] samples, final byte[][] planes) {
+        toBitPlanes(samples, 0, samples.length, planes, 0);
+    }
+
+    /**
+     * Split <code>len</code> samples starting at <code>off</code> into bit planes, writing
+     * byte <code>planeOff + j</code> of each of the eight arrays of <code>planes</code> for
+     * samples <code>8j</code> to <code>8j + 7</code>
+     */
+    public static void toBitPlanes(final byte[] samples, final int off, final int len,
+            final byte[][] planes, final int planeOff) {
+        ByteOps.checkRange(samples, off, len);
+        final int planeLen = checkPlanes(planes, planeOff, len);
+        final int whole = len >>> 3;
+        for (int j = 0; j < whole; j++) {
+            scatter(transpose8x8((long) LONGS.get(samples, off + 8 * j)), planes, planeOff + j);
+        }
+        if (whole < planeLen) {
+            long x = 0;
+            for (int k = 0; k < len - 8 * whole; k++) {
+                x |= (samples[off + 8 * whole + k] & 0xFFL) << (8 * k);
+            }
+            scatter(transpose8x8(x), planes, planeOff + whole);
+        }
+    }
+
+    /**
+     * Join the eight arrays of <code>planes</code> back into all of <code>samples</code>
+     */
+    public static void fromBitPlanes(final byte[][] planes, final byte[] samples) {
+        fromBitPlanes(planes, 0, samples, 0, samples.length);
+    }
+
+    /**
+     * Join bit planes back into <code>len</code> samples starting at <code>off</code>, reading
+     * byte <code>planeOff + j</code> of each plane for samples <code>8j</code> to
+     * <code>8j + 7</code>
+     */
+    public static void fromBitPlanes(final byte[][] planes, final int planeOff,
+            final byte[] samples, final int off, final int len) {
+        ByteOps.checkRange(samples, off, len);
+        final int planeLen = checkPlanes(planes, planeOff, len);
+        final int whole = len >>> 3;
+        for (int j = 0; j < whole; j++) {
+            LONGS.set(samples, off + 8 * j, transpose8x8(gather(planes, planeOff + j)));
+        }
+        if (whole < planeLen) {
+            final long x = transpose8x8(gather(planes, planeOff + whole));
+            for (int k = 0; k < len - 8 * whole; k++) {
+                samples[off + 8 * whole + k] = (byte) (x >>> (8 * k));
+            }
+        }
+    }
+
+    private static int checkPlanes(final byte[][] planes, final int planeOff, final int len) {
+        if (planes.length != 8) {
+            throw new IllegalArgumentException("need 8 planes, not " + planes.length);
+        }
+        final int planeLen = (len + 7) >>> 3;
+        for (byte[] plane : planes) {
+            Objects.checkFromIndexSize(planeOff, planeLen, plane.length);
+        }
+        return planeLen;
+    }
+
+    /* Row p of a transposed block is byte j of plane p */
+    private static void scatter(final long x, final byte[][] planes, final int j) {
+        for (int p = 0; p < 8; p++) {
+            planes[p][j] = (byte) (x >>> (8 * p));
+        }
+    }
+
+    private static long gather(final byte[][] planes, final int j) {
+        long x = 0;
+        for (int p = 0; p < 8; p++) {
+            x |= (planes[p][j] & 0xFFL) << (8 * p);
+        }
+        return x;
+    }
+
+}
@@ -0,0 +1,244 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads fields of 1 to 64 bits from a range of a <code>byte[]</code> or <code>ByteBuffer</code>,
+ * in either {@link BitOrder}. With {@link BitOrder#MSB_FIRST} fields are taken from the top of
+ * each byte down and the first bit read is the most significant bit of the field, as in network
+ * protocols. With {@link BitOrder#LSB_FIRST} fields are taken from the bottom of each byte up
+ * and the first bit read is the least significant.
+ * 
+ * Bits are served from a 64-bit register that is refilled with a single eight-byte load
+ * whenever fewer bits remain in it than a read needs, so a refill happens at most once every
+ * 56 bits and most reads are a shift and a mask. Only the last few bytes of the range are
+ * loaded one at a time. Nothing is allocated after construction. A <code>ByteBuffer</code> is
+ * read with absolute indices from its position to its limit, which are left untouched.
+ * 
+ * A reader is not thread safe.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BitReader {
+
+    private final static VarHandle BIG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle LITTLE =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buf;
+    private final BitOrder order;
+    private final int start;
+    private final int end;
+
+    /* Index of the next byte to load into the register */
+    private int next;
+
+    /*
+     * Unread bits. MSB_FIRST keeps them at the top of the register, LSB_FIRST at the bottom.
+     * Bits past the first count are the following bits of the input or zero.
+     */
+    private long bits;
+    private int count;
+
+    /**
+     * Create a reader over <code>len</code> bytes of <code>buf</code> starting at
+     * <code>off</code>
+     */
+    public BitReader(final byte[] buf, final int off, final int len, final BitOrder order) {
+        this(ByteBuffer.wrap(buf), checkedOffset(buf, off, len), off + len, order);
+    }
+
+    /**
+     * Create a reader over the remaining bytes of <code>buf</code>
+     */
+    public BitReader(final ByteBuffer buf, final BitOrder order) {
+        this(buf.duplicate(), buf.position(), buf.limit(), order);
+    }
+
+    private BitReader(final ByteBuffer buf, final int start, final int end,
+            final BitOrder order) {
+        if (order == null) {
+            throw new NullPointerException("order");
+        }
+        this.buf = buf;
+        this.order = order;
+        this.start = start;
+        this.end = end;
+        this.next = start;
+    }
+
+    private static int checkedOffset(final byte[] buf, final int off, final int len) {
+        ByteOps.checkRange(buf, off, len);
+        return off;
+    }
+
+    public BitOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the number of bits read or skipped so far
+     */
+    public long bitPosition() {
+        return 8L * (next - start) - count;
+    }
+
+    /**
+     * Returns the number of bits left to read
+     */
+    public long bitsRemaining() {
+        return 8L * (end - next) + count;
+    }
+
+    /**
+     * Read a single bit
+     */
+    public boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * Read a field of <code>width</code> bits, returned in the low bits of the result
+     * 
+     * @throws IllegalArgumentException if <code>width</code> is not between 1 and 64
+     * @throws BufferUnderflowException if fewer than <code>width</code> bits remain, in which
+     *             case nothing is consumed
+     */
+    public long readBits(final int width) {
+        if (width > 56) {
+            checkWidth(width);
+            if (bitsRemaining() < width) {
+                throw new BufferUnderflowException();
+            }
+            if (order == BitOrder.MSB_FIRST) {
+                long high = take(width - 32);
+                return (high << 32) | take(32);
+            }
+            long low = take(32);
+            return low | (take(width - 32) << 32);
+        }
+        checkWidth(width);
+        return take(width);
+    }
+
+    /**
+     * Read an unsigned field of <code>width</code> bits, where <code>width</code> is at most 32
+     */
+    public int readInt(final int width) {
+        if (width > 32) {
+            throw new IllegalArgumentException("width must be between 1 and 32: " + width);
+        }
+        return (int) readBits(width);
+    }
+
+    /**
+     * Skip <code>n</code> bits
+     * 
+     * @throws BufferUnderflowException if fewer than <code>n</code> bits remain
+     */
+    public void skip(final long n) {
+        if (n < 0 || n > bitsRemaining()) {
+            throw new BufferUnderflowException();
+        }
+        long target = bitPosition() + n;
+        long whole = target >>> 3;
+        next = start + (int) whole;
+        bits = 0;
+        count = 0;
+        int partial = (int) (target & 7);
+        if (partial != 0) {
+            take(partial);
+        }
+    }
+
+    /**
+     * Skip to the start of the next byte unless already at the start of one
+     */
+    public void alignToByte() {
+        take(count & 7);
+    }
+
+    /*
+     * Consume width bits, 0 to 56, refilling first if the register holds fewer
+     */
+    private long take(final int width) {
+        if (count < width) {
+            refill();
+            if (count < width) {
+                throw new BufferUnderflowException();
+            }
+        }
+        if (width == 0) {
+            return 0;
+        }
+        long value;
+        if (order == BitOrder.MSB_FIRST) {
+            value = bits >>> (64 - width);
+            bits <<= width;
+        } else {
+            value = bits & (-1L >>> (64 - width));
+            bits >>>= width;
+        }
+        count -= width;
+        return value;
+    }
+
+    /*
+     * Top the register up to at least 56 bits. The eight-byte load brings in more bits than
+     * are counted; they are the bits that follow, so the next refill simply loads them again.
+     */
+    private void refill() {
+        if (next <= end - 8) {
+            if (order == BitOrder.MSB_FIRST) {
+                bits |= (long) BIG.get(buf, next) >>> count;
+            } else {
+                bits |= (long) LITTLE.get(buf, next) << count;
+            }
+            next += (63 - count) >>> 3;
+            count |= 56;
+        } else {
+            while (count <= 56 && next < end) {
+                long b = buf.get(next++) & 0xFF;
+                bits |= order == BitOrder.MSB_FIRST ? b << (56 - count) : b << count;
+                count += 8;
+            }
+        }
+    }
+
+    private static void checkWidth(final int width) {
+        if (width < 1 || width > 64) {
+            throw new IllegalArgumentException("width must be between 1 and 64: " + width);
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Shifts and rotates that treat a range of a <code>byte[]</code> as a single bit string of
+ * <code>8 * len</code> bits rather than as separate bytes, carrying bits across byte
+ * boundaries. The {@link BitOrder} says which end of the range is most significant: with
+ * {@link BitOrder#MSB_FIRST} a left shift moves bits towards the start of the range, exactly as
+ * it would for a big-endian integer, while with {@link BitOrder#LSB_FIRST} it moves them towards
+ * the end.
+ * 
+ * As with the single-byte operations, shifting by a negative count or by at least the length of
+ * the bit string clears it, and rotate counts are taken modulo the length of the bit string.
+ * 
+ * Each operation comes in a form that writes a source range into a destination range, and an
+ * in-place form. Neither allocates. Ranges are processed eight bytes at a time as
+ * <code>long</code> words, each assembled from the source bytes in one load, so only the
+ * bytes at the ends of the range are handled individually. If the source and destination are
+ * the same array the two ranges must either be identical or not overlap.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BitStrings {
+
+    private final static int BYTE_MASK = 0x000000FF;
+
+    private final static VarHandle BIG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle LITTLE =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private BitStrings() {
+    }
+
+    /**
+     * Shift <code>len</code> bytes of <code>src</code> left by <code>n</code> bits as a single
+     * bit string, writing the result to <code>dst</code>
+     */
+    public static void lshift(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n, final BitOrder order) {
+        if (order == BitOrder.MSB_FIRST) {
+            shiftDown(src, srcOff, dst, dstOff, len, n, order);
+        } else {
+            shiftUp(src, srcOff, dst, dstOff, len, n, order);
+        }
+    }
+
+    /**
+     * Shift <code>len</code> bytes of <code>buf</code> left by <code>n</code> bits in place as
+     * a single bit string
+     */
+    public static void lshift(final byte[] buf, final int off, final int len, final int n,
+            final BitOrder order) {
+        lshift(buf, off, buf, off, len, n, order);
+    }
+
+    /**
+     * Shift <code>len</code> bytes of <code>src</code> right by <code>n</code> bits as a single
+     * bit string, writing the result to <code>dst</code>
+     */
+    public static void rshift(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n, final BitOrder order) {
+        if (order == BitOrder.MSB_FIRST) {
+            shiftUp(src, srcOff, dst, dstOff, len, n, order);
+        } else {
+            shiftDown(src, srcOff, dst, dstOff, len, n, order);
+        }
+    }
+
+    /**
+     * Shift <code>len</code> bytes of <code>buf</code> right by <code>n</code> bits in place as
+     * a single bit string
+     */
+    public static void rshift(final byte[] buf, final int off, final int len, final int n,
+            final BitOrder order) {
+        rshift(buf, off, buf, off, len, n, order);
+    }
+
+    /**
+     * Rotate <code>len</code> bytes of <code>src</code> left by <code>n</code> bits as a single
+     * bit string, writing the result to <code>dst</code>
+     */
+    public static void lrotate(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n, final BitOrder order) {
+        rotateDown(src, srcOff, dst, dstOff, len, order == BitOrder.MSB_FIRST ? n : -(long) n,
+                order);
+    }
+
+    /**
+     * Rotate <code>len</code> bytes of <code>buf</code> left by <code>n</code> bits in place as
+     * a single bit string
+     */
+    public static void lrotate(final byte[] buf, final int off, final int len, final int n,
+            final BitOrder order) {
+        lrotate(buf, off, buf, off, len, n, order);
+    }
+
+    /**
+     * Rotate <code>len</code> bytes of <code>src</code> right by <code>n</code> bits as a single
+     * bit string, writing the result to <code>dst</code>
+     */
+    public static void rrotate(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n, final BitOrder order) {
+        rotateDown(src, srcOff, dst, dstOff, len, order == BitOrder.MSB_FIRST ? -(long) n : n,
+                order);
+    }
+
+    /**
+     * Rotate <code>len</code> bytes of <code>buf</code> right by <code>n</code> bits in place as
+     * a single bit string
+     */
+    public static void rrotate(final byte[] buf, final int off, final int len, final int n,
+            final BitOrder order) {
+        rrotate(buf, off, buf, off, len, n, order);
+    }
+
+    /*
+     * In the helpers below "down" moves bits towards the start of the range and "up" moves them
+     * towards the end. Which of the two is a left shift depends on the bit order.
+     */
+
+    private static void shiftDown(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n, final BitOrder order) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        if (n < 0 || n >= 8L * len) {
+            Arrays.fill(dst, dstOff, dstOff + len, (byte) 0);
+        } else if (order == BitOrder.MSB_FIRST) {
+            downMsb(src, srcOff, dst, dstOff, len, n >>> 3, n & 7);
+        } else {
+            downLsb(src, srcOff, dst, dstOff, len, n >>> 3, n & 7);
+        }
+    }
+
+    private static void shiftUp(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n, final BitOrder order) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        if (n < 0 || n >= 8L * len) {
+            Arrays.fill(dst, dstOff, dstOff + len, (byte) 0);
+        } else if (order == BitOrder.MSB_FIRST) {
+            upMsb(src, srcOff, dst, dstOff, len, n >>> 3, n & 7);
+        } else {
+            upLsb(src, srcOff, dst, dstOff, len, n >>> 3, n & 7);
+        }
+    }
+
+    /*
+     * A rotation is done as a rotation of whole bytes followed by an in-place shift of the
+     * remaining 0-7 bits, with the bits shifted out of the first byte put back into the last
+     */
+    private static void rotateDown(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final long n, final BitOrder order) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        if (len == 0) {
+            return;
+        }
+        final int count = (int) Math.floorMod(n, 8L * len);
+        final int bytes = count >>> 3;
+        final int bits = count & 7;
+        if (src != dst || srcOff != dstOff) {
+            System.arraycopy(src, srcOff + bytes, dst, dstOff, len - bytes);
+            System.arraycopy(src, srcOff, dst, dstOff + len - bytes, bytes);
+        } else if (bytes != 0) {
+            reverse(dst, dstOff, dstOff + bytes);
+            reverse(dst, dstOff + bytes, dstOff + len);
+            reverse(dst, dstOff, dstOff + len);
+        }
+        if (bits != 0) {
+            final int first = dst[dstOff] & BYTE_MASK;
+            final int last = dstOff + len - 1;
+            if (order == BitOrder.MSB_FIRST) {
+                downMsb(dst, dstOff, dst, dstOff, len, 0, bits);
+                dst[last] |= first >>> (8 - bits);
+            } else {
+                downLsb(dst, dstOff, dst, dstOff, len, 0, bits);
+                dst[last] |= first << (8 - bits);
+            }
+        }
+    }
+
+    private static void reverse(final byte[] buf, int from, int to) {
+        while (from < --to) {
+            byte tmp = buf[from];
+            buf[from++] = buf[to];
+            buf[to] = tmp;
+        }
+    }
+
+    /*
+     * Each result byte combines two neighbouring source bytes, so a result word needs the eight
+     * source bytes under it plus one more past its far end. The word loops run while that extra
+     * byte is inside the range and the per-byte loops finish off the rest, reading anything
+     * outside the range as zero. Working away from the end being written keeps in-place shifts
+     * from reading bytes that have already been overwritten.
+     */
+
+    private static void downMsb(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int bytes, final int bits) {
+        final int right = 8 - bits;
+        int i = 0;
+        for (; i + bytes + 8 < len; i += 8) {
+            int p = srcOff + i + bytes;
+            long w = (long) BIG.get(src, p);
+            BIG.set(dst, dstOff + i, (w << bits) | ((src[p + 8] & BYTE_MASK) >>> right));
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) ((at(src, srcOff, len, i + bytes) << bits)
+                    | (at(src, srcOff, len, i + bytes + 1) >>> right));
+        }
+    }
+
+    private static void downLsb(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int bytes, final int bits) {
+        final int right = 8 - bits;
+        int i = 0;
+        for (; i + bytes + 8 < len; i += 8) {
+            int p = srcOff + i + bytes;
+            long w = (long) LITTLE.get(src, p);
+            long carry = (long) (src[p + 8] & BYTE_MASK) << 56 << right;
+            LITTLE.set(dst, dstOff + i, (w >>> bits) | carry);
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) ((at(src, srcOff, len, i + bytes) >>> bits)
+                    | (at(src, srcOff, len, i + bytes + 1) << right));
+        }
+    }
+
+    private static void upMsb(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int bytes, final int bits) {
+        final int right = 8 - bits;
+        int i = len;
+        for (; i - bytes - 9 >= 0; i -= 8) {
+            int p = srcOff + i - bytes - 8;
+            long w = (long) BIG.get(src, p);
+            long carry = (long) (src[p - 1] & BYTE_MASK) << 56 << right;
+            BIG.set(dst, dstOff + i - 8, (w >>> bits) | carry);
+        }
+        for (i--; i >= 0; i--) {
+            dst[dstOff + i] = (byte) ((at(src, srcOff, len, i - bytes) >>> bits)
+                    | (at(src, srcOff, len, i - bytes - 1) << right));
+        }
+    }
+
+    private static void upLsb(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int bytes, final int bits) {
+        final int right = 8 - bits;
+        int i = len;
+        for (; i - bytes - 9 >= 0; i -= 8) {
+            int p = srcOff + i - bytes - 8;
+            long w = (long) LITTLE.get(src, p);
+            LITTLE.set(dst, dstOff + i - 8, (w << bits) | ((src[p - 1] & BYTE_MASK) >>> right));
+        }
+        for (i--; i >= 0; i--) {
+            dst[dstOff + i] = (byte) ((at(src, srcOff, len, i - bytes) << bits)
+                    | (at(src, srcOff, len, i - bytes - 1) >>> right));
+        }
+    }
+
+    /* The unsigned value of byte i of the range, or zero outside it */
+    private static int at(final byte[] src, final int srcOff, final int len, final int i) {
+        return i >= 0 && i < len ? src[srcOff + i] & BYTE_MASK : 0;
+    }
+
+}
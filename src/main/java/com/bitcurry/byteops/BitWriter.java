@@ -0,0 +1,234 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * Writes fields of 1 to 64 bits into a range of a <code>byte[]</code> or
+ * <code>ByteBuffer</code>, in either {@link BitOrder}, producing exactly what a
+ * {@link BitReader} with the same order reads back.
+ * 
+ * Bits are collected in a 64-bit register and stored eight bytes at a time once it fills up,
+ * so most writes are a shift and an OR. The writer owns its range: bytes past the current
+ * position may be overwritten with zeros before they are reached, and {@link #finish()} pads a
+ * final partial byte with zero bits. Nothing is allocated after construction. A
+ * <code>ByteBuffer</code> is written with absolute indices from its position to its limit,
+ * which are left untouched.
+ * 
+ * A writer is not thread safe.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BitWriter {
+
+    private final static VarHandle BIG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle LITTLE =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buf;
+    private final BitOrder order;
+    private final int start;
+    private final int end;
+
+    /* Index of the byte that the register will be stored to */
+    private int next;
+
+    /*
+     * Bits not yet stored. MSB_FIRST keeps them at the top of the register, LSB_FIRST at the
+     * bottom, and all other bits are zero.
+     */
+    private long bits;
+    private int count;
+
+    /**
+     * Create a writer over <code>len</code> bytes of <code>buf</code> starting at
+     * <code>off</code>
+     */
+    public BitWriter(final byte[] buf, final int off, final int len, final BitOrder order) {
+        this(ByteBuffer.wrap(buf), checkedOffset(buf, off, len), off + len, order);
+    }
+
+    /**
+     * Create a writer over the remaining bytes of <code>buf</code>
+     */
+    public BitWriter(final ByteBuffer buf, final BitOrder order) {
+        this(buf.duplicate(), buf.position(), buf.limit(), order);
+    }
+
+    private BitWriter(final ByteBuffer buf, final int start, final int end,
+            final BitOrder order) {
+        if (order == null) {
+            throw new NullPointerException("order");
+        }
+        if (buf.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        this.buf = buf;
+        this.order = order;
+        this.start = start;
+        this.end = end;
+        this.next = start;
+    }
+
+    private static int checkedOffset(final byte[] buf, final int off, final int len) {
+        ByteOps.checkRange(buf, off, len);
+        return off;
+    }
+
+    public BitOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the number of bits written so far
+     */
+    public long bitPosition() {
+        return 8L * (next - start) + count;
+    }
+
+    /**
+     * Returns the number of bits that can still be written
+     */
+    public long bitsRemaining() {
+        return 8L * (end - next) - count;
+    }
+
+    /**
+     * Write a single bit
+     */
+    public void writeBit(final boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Write the low <code>width</code> bits of <code>value</code> as a field. Higher bits of
+     * <code>value</code> are ignored.
+     * 
+     * @throws IllegalArgumentException if <code>width</code> is not between 1 and 64
+     * @throws BufferOverflowException if fewer than <code>width</code> bits of room remain, in
+     *             which case nothing is written
+     */
+    public void writeBits(final long value, final int width) {
+        if (width < 1 || width > 64) {
+            throw new IllegalArgumentException("width must be between 1 and 64: " + width);
+        }
+        if (bitsRemaining() < width) {
+            throw new BufferOverflowException();
+        }
+        if (width > 56) {
+            if (order == BitOrder.MSB_FIRST) {
+                put(value >>> 32, width - 32);
+                put(value, 32);
+            } else {
+                put(value, 32);
+                put(value >>> 32, width - 32);
+            }
+        } else {
+            put(value, width);
+        }
+    }
+
+    /**
+     * Write zero bits up to the start of the next byte unless already at the start of one
+     */
+    public void alignToByte() {
+        count = (count + 7) & ~7;
+    }
+
+    /**
+     * Store everything written so far, padding a final partial byte with zero bits, and return
+     * the number of bytes written. Further writes start at the next byte.
+     */
+    public int finish() {
+        alignToByte();
+        while (count > 0) {
+            if (order == BitOrder.MSB_FIRST) {
+                buf.put(next++, (byte) (bits >>> 56));
+                bits <<= 8;
+            } else {
+                buf.put(next++, (byte) bits);
+                bits >>>= 8;
+            }
+            count -= 8;
+        }
+        return next - start;
+    }
+
+    /*
+     * Add width bits, 1 to 56, storing the whole bytes in the register first if there's no
+     * room for them
+     */
+    private void put(final long value, final int width) {
+        if (count + width > 64) {
+            store();
+        }
+        final long field = value & (-1L >>> (64 - width));
+        if (order == BitOrder.MSB_FIRST) {
+            bits |= field << (64 - count - width);
+        } else {
+            bits |= field << count;
+        }
+        count += width;
+    }
+
+    /*
+     * Store the whole bytes in the register. Where eight bytes of the range are left the
+     * register is stored in one go; the bytes beyond the whole ones are zero, and are written
+     * again with real data by the next store.
+     */
+    private void store() {
+        final int bytes = count >>> 3;
+        if (next <= end - 8) {
+            if (order == BitOrder.MSB_FIRST) {
+                BIG.set(buf, next, bits);
+            } else {
+                LITTLE.set(buf, next, bits);
+            }
+        } else {
+            for (int i = 0; i < bytes; i++) {
+                buf.put(next + i, (byte) (order == BitOrder.MSB_FIRST ? bits >>> (56 - 8 * i)
+                        : bits >>> (8 * i)));
+            }
+        }
+        next += bytes;
+        count -= bytes << 3;
+        if (bytes == 8) {
+            bits = 0;
+        } else if (order == BitOrder.MSB_FIRST) {
+            bits <<= bytes << 3;
+        } else {
+            bits >>>= bytes << 3;
+        }
+    }
+
+}
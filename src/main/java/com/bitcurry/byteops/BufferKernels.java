@@ -0,0 +1,241 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * Word-at-a-time kernels for buffers that don't expose a backing array, most importantly direct
+ * buffers. Buffers are addressed with absolute indices so positions and limits are never
+ * modified. Heads are processed byte by byte until the destination address is aligned to eight
+ * bytes so that the word loop does aligned loads and stores wherever the source allows it.
+ * 
+ * Every unary operation is expressed in the same form: each byte <code>b</code> becomes
+ * <code>((b << left) | (b >>> right)) & and ^ xor</code> where a shift count of 8 drops that
+ * half. This covers the shifts and rotates as well as AND, OR (as <code>b & ~c ^ c</code>), XOR
+ * and NOT. Bit reversal, byte order swaps and bit selection have kernels of their own.
+ */
+final class BufferKernels {
+
+    static final int AND = 0;
+    static final int OR = 1;
+    static final int XOR = 2;
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private BufferKernels() {
+    }
+
+    /**
+     * Check that <code>dst</code> is writable and has room for everything remaining in
+     * <code>src</code>
+     */
+    static void checkTarget(final ByteBuffer src, final ByteBuffer dst) {
+        if (dst.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        if (dst.remaining() < src.remaining()) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    /**
+     * Returns true if both buffers can be handed to the <code>byte[]</code> kernels
+     */
+    static boolean hasArrays(final ByteBuffer src, final ByteBuffer dst) {
+        return src.hasArray() && dst.hasArray();
+    }
+
+    /**
+     * Returns the index into <code>buf.array()</code> of the buffer's position
+     */
+    static int arrayIndex(final ByteBuffer buf) {
+        return buf.arrayOffset() + buf.position();
+    }
+
+    /**
+     * Map every remaining byte of <code>src</code> into <code>dst</code> using the unary form
+     * described above
+     */
+    static void map(final ByteBuffer src, final ByteBuffer dst, final int left, final int right,
+            final int and, final int xor) {
+        final int leftMask = (BYTE_MASK << left) & BYTE_MASK & and;
+        final int rightMask = (BYTE_MASK >>> right) & and;
+        final long leftLanes = ByteOps.broadcast(leftMask);
+        final long rightLanes = ByteOps.broadcast(rightMask);
+        final long xorLanes = ByteOps.broadcast(xor);
+        final int s = src.position();
+        final int d = dst.position();
+        final int len = src.remaining();
+        int i = 0;
+        for (final int head = alignment(dst, d, len); i < head; i++) {
+            int b = src.get(s + i) & BYTE_MASK;
+            dst.put(d + i, (byte) ((((b << left) & leftMask) | ((b >>> right) & rightMask)) ^ xor));
+        }
+        for (; i <= len - 8; i += 8) {
+            long w = (long) LONGS.get(src, s + i);
+            w = ((w << left) & leftLanes) | ((w >>> right) & rightLanes);
+            LONGS.set(dst, d + i, w ^ xorLanes);
+        }
+        for (; i < len; i++) {
+            int b = src.get(s + i) & BYTE_MASK;
+            dst.put(d + i, (byte) ((((b << left) & leftMask) | ((b >>> right) & rightMask)) ^ xor));
+        }
+    }
+
+    /**
+     * Reverse the bits of every remaining byte of <code>src</code> into <code>dst</code>
+     */
+    static void reverseBits(final ByteBuffer src, final ByteBuffer dst) {
+        final int s = src.position();
+        final int d = dst.position();
+        final int len = src.remaining();
+        int i = 0;
+        for (final int head = alignment(dst, d, len); i < head; i++) {
+            dst.put(d + i, ByteOps.reverseBits(src.get(s + i)));
+        }
+        for (; i <= len - 8; i += 8) {
+            LONGS.set(dst, d + i, ByteOps.reverseBitsWord((long) LONGS.get(src, s + i)));
+        }
+        for (; i < len; i++) {
+            dst.put(d + i, ByteOps.reverseBits(src.get(s + i)));
+        }
+    }
+
+    /**
+     * Reverse the bytes of every <code>width</code> byte lane remaining in <code>src</code>
+     * into <code>dst</code>. There is no aligned head here since it would have to be a whole
+     * number of lanes; plain view accesses don't need alignment anyway.
+     */
+    static void reverseBytes(final ByteBuffer src, final ByteBuffer dst, final int width) {
+        final int s = src.position();
+        final int d = dst.position();
+        final int len = src.remaining();
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            LONGS.set(dst, d + i, ByteOps.reverseBytesWord((long) LONGS.get(src, s + i), width));
+        }
+        for (; i < len; i += width) {
+            for (int lo = 0, hi = width - 1; lo < hi; lo++, hi--) {
+                byte a = src.get(s + i + lo);
+                byte b = src.get(s + i + hi);
+                dst.put(d + i + lo, b);
+                dst.put(d + i + hi, a);
+            }
+        }
+    }
+
+    /**
+     * Select bits of the remaining bytes of <code>a</code> where <code>mask</code> is one and
+     * of <code>b</code> where it is zero into <code>dst</code>. With four buffers there is no
+     * single alignment to aim for, so the words are read unaligned.
+     */
+    static void select(final ByteBuffer mask, final ByteBuffer a, final ByteBuffer b,
+            final ByteBuffer dst) {
+        final int m = mask.position();
+        final int x = a.position();
+        final int y = b.position();
+        final int d = dst.position();
+        final int len = a.remaining();
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            final long bits = (long) LONGS.get(mask, m + i);
+            final long from = (long) LONGS.get(b, y + i);
+            LONGS.set(dst, d + i, from ^ (((long) LONGS.get(a, x + i) ^ from) & bits));
+        }
+        for (; i < len; i++) {
+            dst.put(d + i, ByteOps.select(mask.get(m + i), a.get(x + i), b.get(y + i)));
+        }
+    }
+
+    /**
+     * Combine every remaining byte of <code>src</code> into the corresponding byte of
+     * <code>dst</code> using one of {@link #AND}, {@link #OR} or {@link #XOR}
+     */
+    static void combine(final ByteBuffer src, final ByteBuffer dst, final int op) {
+        final int s = src.position();
+        final int d = dst.position();
+        final int len = src.remaining();
+        int i = 0;
+        for (final int head = alignment(dst, d, len); i < head; i++) {
+            dst.put(d + i, combine(dst.get(d + i), src.get(s + i), op));
+        }
+        switch (op) {
+        case AND:
+            for (; i <= len - 8; i += 8) {
+                long w = (long) LONGS.get(src, s + i);
+                LONGS.set(dst, d + i, (long) LONGS.get(dst, d + i) & w);
+            }
+            break;
+        case OR:
+            for (; i <= len - 8; i += 8) {
+                long w = (long) LONGS.get(src, s + i);
+                LONGS.set(dst, d + i, (long) LONGS.get(dst, d + i) | w);
+            }
+            break;
+        default:
+            for (; i <= len - 8; i += 8) {
+                long w = (long) LONGS.get(src, s + i);
+                LONGS.set(dst, d + i, (long) LONGS.get(dst, d + i) ^ w);
+            }
+            break;
+        }
+        for (; i < len; i++) {
+            dst.put(d + i, combine(dst.get(d + i), src.get(s + i), op));
+        }
+    }
+
+    private static byte combine(final byte a, final byte b, final int op) {
+        switch (op) {
+        case AND:
+            return (byte) (a & b);
+        case OR:
+            return (byte) (a | b);
+        default:
+            return (byte) (a ^ b);
+        }
+    }
+
+    /*
+     * Number of bytes to handle one at a time before index in buf sits on an eight byte
+     * boundary. Only direct buffers have a meaningful address; heap buffers get no head.
+     */
+    private static int alignment(final ByteBuffer buf, final int index, final int len) {
+        if (!buf.isDirect() || len < 8) {
+            return 0;
+        }
+        return (8 - buf.alignmentOffset(index, 8)) & 7;
+    }
+
+}
@@ -0,0 +1,181 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+/**
+ * Backend for the bulk <code>byte[]</code> operations. The default engine is picked once at
+ * startup: when the <code>jdk.incubator.vector</code> module is present (for example when the
+ * JVM is started with <code>--add-modules jdk.incubator.vector</code>) the operations run on
+ * <code>ByteVector</code>s of the platform's preferred width, otherwise they fall back to the
+ * word-at-a-time kernels in {@link ByteOps}.
+ * 
+ * Setting the system property <code>com.bitcurry.byteops.engine</code> to <code>scalar</code>
+ * forces the fallback even when the vector module is available.
+ * 
+ * Every engine gives exactly the same results as the bulk methods in {@link ByteOps}. Those
+ * match the single-byte methods except for shift and rotate counts outside 0 to 7: rotates
+ * take the count modulo 8 and shifts by any other count clear every byte, where the single-byte
+ * methods follow Java's <code>int</code> shift rules.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public abstract class BulkEngine {
+
+    /**
+     * System property that selects the engine, either <code>vector</code> or <code>scalar</code>
+     */
+    public static final String ENGINE_PROPERTY = "com.bitcurry.byteops.engine";
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_ENGINE = "com.bitcurry.byteops.VectorBulkEngine";
+
+    private static final BulkEngine SCALAR = new ScalarBulkEngine();
+    private static final BulkEngine DEFAULT = select();
+
+    BulkEngine() {
+    }
+
+    /**
+     * Returns the fastest engine available in this JVM
+     */
+    public static BulkEngine getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the engine built on the word-at-a-time kernels in {@link ByteOps}, which is always
+     * available
+     */
+    public static BulkEngine scalar() {
+        return SCALAR;
+    }
+
+    private static BulkEngine select() {
+        if ("scalar".equals(System.getProperty(ENGINE_PROPERTY))
+                || !ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            return SCALAR;
+        }
+        try {
+            return (BulkEngine) Class.forName(VECTOR_ENGINE).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     * Returns a short name for this engine, either <code>vector</code> or <code>scalar</code>
+     */
+    public abstract String getName();
+
+    /**
+     * Perform bitwise AND of each byte in <code>dst</code> with the corresponding byte in
+     * <code>src</code>, storing the result back into <code>dst</code>
+     */
+    public abstract void and(byte[] src, int srcOff, byte[] dst, int dstOff, int len);
+
+    /**
+     * Perform bitwise AND of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public abstract void and(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2);
+
+    /**
+     * Perform bitwise OR of each byte in <code>dst</code> with the corresponding byte in
+     * <code>src</code>, storing the result back into <code>dst</code>
+     */
+    public abstract void or(byte[] src, int srcOff, byte[] dst, int dstOff, int len);
+
+    /**
+     * Perform bitwise OR of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public abstract void or(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2);
+
+    /**
+     * Perform bitwise XOR of each byte in <code>dst</code> with the corresponding byte in
+     * <code>src</code>, storing the result back into <code>dst</code>
+     */
+    public abstract void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len);
+
+    /**
+     * Perform bitwise XOR of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public abstract void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2);
+
+    /**
+     * Bitwise invert each byte in <code>src</code>, storing the results into <code>dst</code>
+     */
+    public abstract void not(byte[] src, int srcOff, byte[] dst, int dstOff, int len);
+
+    /**
+     * Shift each byte in <code>src</code> by <code>n</code> bits to the left, storing the results
+     * into <code>dst</code>. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public abstract void lshift(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n);
+
+    /**
+     * Shift each byte in <code>src</code> by <code>n</code> bits to the right, storing the results
+     * into <code>dst</code>. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public abstract void rshift(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n);
+
+    /**
+     * Rotate each byte in <code>src</code> by <code>n</code> bits to the left, storing the results
+     * into <code>dst</code>. The count is taken modulo 8, so a negative count rotates the other
+     * way.
+     */
+    public abstract void lrotate(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n);
+
+    /**
+     * Rotate each byte in <code>src</code> by <code>n</code> bits to the right, storing the results
+     * into <code>dst</code>. The count is taken modulo 8, so a negative count rotates the other
+     * way.
+     */
+    public abstract void rrotate(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n);
+
+    /**
+     * Multiply each byte in <code>src</code> by the {@link GaloisField} coefficient
+     * <code>c</code>, storing the results into <code>dst</code>. Ranges have already been
+     * checked by the caller.
+     */
+    abstract void gfMul(GaloisField.Coefficient c, byte[] src, int srcOff, byte[] dst, int dstOff,
+            int len);
+
+    /**
+     * Multiply each byte in <code>src</code> by the {@link GaloisField} coefficient
+     * <code>c</code>, adding (XORing) the results into <code>dst</code>. Ranges have already
+     * been checked by the caller.
+     */
+    abstract void gfMulAdd(GaloisField.Coefficient c, byte[] src, int srcOff, byte[] dst,
+            int dstOff, int len);
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+}
@@ -0,0 +1,200 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A byte-for-byte transform that can be applied in bulk to arrays and buffers. The factory
+ * methods wrap the bulk operations of {@link ByteOps} with a fixed second operand, so for
+ * example <code>BulkOp.xor(0x5A)</code> applies <code>ByteOps.xor(b, 0x5A)</code> to every
+ * byte. Array ranges are processed by {@link BulkEngine#getDefault()}.
+ * 
+ * Implementations must be stateless so that one instance can be shared between threads and
+ * applied to any part of a larger input in any order.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public interface BulkOp {
+
+    /**
+     * Default size in bytes below which {@link #parallel()} stays on the calling thread
+     */
+    int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
+
+    /**
+     * Size in bytes of the blocks {@link #applyMasked} transforms at a time
+     */
+    int MASKED_BLOCK_SIZE = 1024;
+
+    /**
+     * Transform <code>len</code> bytes of <code>src</code> into <code>dst</code>. If
+     * <code>src</code> and <code>dst</code> are the same array the two ranges must either be
+     * identical or not overlap.
+     */
+    void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int len);
+
+    /**
+     * Transform the remaining bytes of <code>src</code> into <code>dst</code> starting at its
+     * position. The positions and limits of both buffers are left untouched.
+     */
+    void apply(ByteBuffer src, ByteBuffer dst);
+
+    /**
+     * Transform <code>len</code> bytes of <code>buf</code> in place
+     */
+    default void apply(final byte[] buf, final int off, final int len) {
+        apply(buf, off, buf, off, len);
+    }
+
+    /**
+     * Transform the remaining bytes of <code>buf</code> in place
+     */
+    default void apply(final ByteBuffer buf) {
+        apply(buf, buf);
+    }
+
+    /**
+     * Transform <code>len</code> bytes of <code>buf</code> in place, changing only the bits
+     * where the corresponding byte of <code>mask</code> has a one bit. The default
+     * implementation transforms small blocks into a per-thread scratch buffer that stays in
+     * cache and {@link ByteOps#blend blends} them back, so the data is still only streamed once
+     * and nothing is allocated.
+     */
+    default void applyMasked(final byte[] mask, final int maskOff, final byte[] buf,
+            final int off, final int len) {
+        ByteOps.checkRange(mask, maskOff, len);
+        ByteOps.checkRange(buf, off, len);
+        final byte[] scratch = MaskedScratch.acquire();
+        try {
+            for (int i = 0; i < len; i += scratch.length) {
+                final int n = Math.min(scratch.length, len - i);
+                apply(buf, off + i, scratch, 0, n);
+                ByteOps.blend(scratch, 0, buf, off + i, n, mask, maskOff + i);
+            }
+        } finally {
+            MaskedScratch.release(scratch);
+        }
+    }
+
+    /**
+     * Returns a version of this operation that splits ranges of at least
+     * {@link #DEFAULT_PARALLEL_THRESHOLD} bytes across the common <code>ForkJoinPool</code>
+     */
+    default BulkOp parallel() {
+        return parallel(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Returns a version of this operation that splits ranges of at least
+     * {@link #DEFAULT_PARALLEL_THRESHOLD} bytes across <code>pool</code>
+     */
+    default BulkOp parallel(final ForkJoinPool pool) {
+        return parallel(pool, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Returns a version of this operation that splits ranges of at least <code>threshold</code>
+     * bytes across <code>pool</code> in pieces of at most <code>threshold</code> bytes. Pieces
+     * written to a direct buffer start on cache line boundaries; array ranges are split whole
+     * cache lines from the start of the range. Shorter ranges are processed on the calling
+     * thread. The threshold is raised to 128 bytes if it is smaller.
+     */
+    default BulkOp parallel(final ForkJoinPool pool, final int threshold) {
+        return new ParallelOp(this, pool, threshold);
+    }
+
+    /**
+     * Returns a version of this operation whose calls are counted under <code>name</code>
+     * when {@link Instrumentation#ENABLED instrumentation} is switched on, or this operation
+     * itself when it is off
+     */
+    default BulkOp instrumented(final String name) {
+        return Instrumentation.ENABLED ? new InstrumentedOp(this, name) : this;
+    }
+
+    /**
+     * Returns an operation that performs bitwise AND of each byte with <code>op2</code>
+     */
+    static BulkOp and(final int op2) {
+        return new BasicOp(OpCode.AND, op2);
+    }
+
+    /**
+     * Returns an operation that performs bitwise OR of each byte with <code>op2</code>
+     */
+    static BulkOp or(final int op2) {
+        return new BasicOp(OpCode.OR, op2);
+    }
+
+    /**
+     * Returns an operation that performs bitwise XOR of each byte with <code>op2</code>
+     */
+    static BulkOp xor(final int op2) {
+        return new BasicOp(OpCode.XOR, op2);
+    }
+
+    /**
+     * Returns an operation that bitwise inverts each byte
+     */
+    static BulkOp not() {
+        return new BasicOp(OpCode.NOT, 0);
+    }
+
+    /**
+     * Returns an operation that shifts each byte by <code>n</code> bits to the left. Counts outside
+     * 0 to 7, negative ones included, clear every byte.
+     */
+    static BulkOp lshift(final int n) {
+        return new BasicOp(OpCode.LSHIFT, n);
+    }
+
+    /**
+     * Returns an operation that shifts each byte by <code>n</code> bits to the right. Counts
+     * outside 0 to 7, negative ones included, clear every byte.
+     */
+    static BulkOp rshift(final int n) {
+        return new BasicOp(OpCode.RSHIFT, n);
+    }
+
+    /**
+     * Returns an operation that rotates each byte by <code>n</code> bits to the left. The count is
+     * taken modulo 8, so a negative count rotates the other way.
+     */
+    static BulkOp lrotate(final int n) {
+        return new BasicOp(OpCode.LROTATE, n);
+    }
+
+    /**
+     * Returns an operation that rotates each byte by <code>n</code> bits to the right. The count is
+     * taken modulo 8, so a negative count rotates the other way.
+     */
+    static BulkOp rrotate(final int n) {
+        return new BasicOp(OpCode.RROTATE, n);
+    }
+
+}
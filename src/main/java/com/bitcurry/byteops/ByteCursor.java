@@ -0,0 +1,563 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Reads and writes unsigned fields of 1 to 8 bytes in a range of a <code>byte[]</code> or
+ * <code>ByteBuffer</code>, in either byte order. Fields can be addressed by an index from the
+ * start of the range or relative to a cursor position that moves past each field read or
+ * written. Reads of 8, 16, 24 and 32 bits return an <code>int</code> or <code>long</code> that
+ * is never negative; 64-bit reads return the raw bits, to be treated with
+ * <code>Long.compareUnsigned</code> and friends. Writes store the low bits of the value and
+ * ignore the rest.
+ * 
+ * Fields of 2, 4 and 8 bytes are single loads and stores through a big-endian view
+ * <code>VarHandle</code>, byte swapped for little-endian cursors; 3 and 6 byte fields are a
+ * pair of them. Arrays and array-backed buffers go through the array view, other buffers
+ * through the buffer view. The range is checked once per field and nothing is allocated after
+ * construction. A <code>ByteBuffer</code> is addressed from its position to its limit, which
+ * are left untouched, and its own byte order is ignored.
+ * 
+ * A cursor is not thread safe.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ByteCursor {
+
+    private final static VarHandle ARRAY_SHORT =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle ARRAY_INT =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle ARRAY_LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle BUFFER_SHORT =
+            MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle BUFFER_INT =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle BUFFER_LONG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /* Exactly one of array and buffer is set; base is the index of the range start in it */
+    private final byte[] array;
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int length;
+    private final ByteOrder order;
+    private final boolean little;
+
+    private int position;
+
+    /**
+     * Create a cursor over all of <code>buf</code>
+     */
+    public ByteCursor(final byte[] buf, final ByteOrder order) {
+        this(buf, 0, buf.length, order);
+    }
+
+    /**
+     * Create a cursor over <code>len</code> bytes of <code>buf</code> starting at
+     * <code>off</code>
+     */
+    public ByteCursor(final byte[] buf, final int off, final int len, final ByteOrder order) {
+        ByteOps.checkRange(buf, off, len);
+        this.array = buf;
+        this.buffer = null;
+        this.base = off;
+        this.length = len;
+        this.order = Objects.requireNonNull(order, "order");
+        this.little = order == ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Create a cursor over the remaining bytes of <code>buf</code>
+     */
+    public ByteCursor(final ByteBuffer buf, final ByteOrder order) {
+        if (buf.hasArray()) {
+            this.array = buf.array();
+            this.buffer = null;
+            this.base = buf.arrayOffset() + buf.position();
+        } else {
+            this.array = null;
+            this.buffer = buf;
+            this.base = buf.position();
+        }
+        this.length = buf.remaining();
+        this.order = Objects.requireNonNull(order, "order");
+        this.little = order == ByteOrder.LITTLE_ENDIAN;
+    }
+
+    public ByteOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the number of bytes in the range
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the index of the next field read or written relative to the cursor
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Move the cursor to <code>index</code>, which may be the end of the range
+     */
+    public ByteCursor position(final int index) {
+        position = Objects.checkIndex(index, length + 1);
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes between the cursor and the end of the range
+     */
+    public int remaining() {
+        return length - position;
+    }
+
+    /**
+     * Skip <code>n</code> bytes
+     * 
+     * @throws BufferUnderflowException if fewer than <code>n</code> bytes remain
+     */
+    public ByteCursor skip(final int n) {
+        if (n < 0 || n > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        position += n;
+        return this;
+    }
+
+    /**
+     * Returns the byte at <code>index</code> as an unsigned value
+     */
+    public int getU8(final int index) {
+        return load8(check(index, 1));
+    }
+
+    /**
+     * Returns the 16-bit field at <code>index</code> as an unsigned value
+     */
+    public int getU16(final int index) {
+        return load16(check(index, 2));
+    }
+
+    /**
+     * Returns the 24-bit field at <code>index</code> as an unsigned value
+     */
+    public int getU24(final int index) {
+        return load24(check(index, 3));
+    }
+
+    /**
+     * Returns the 32-bit field at <code>index</code> as an unsigned value
+     */
+    public long getU32(final int index) {
+        return load32(check(index, 4)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns the 48-bit field at <code>index</code> as an unsigned value
+     */
+    public long getU48(final int index) {
+        return load48(check(index, 6));
+    }
+
+    /**
+     * Returns the 64-bit field at <code>index</code>
+     */
+    public long getU64(final int index) {
+        return load64(check(index, 8));
+    }
+
+    /**
+     * Returns the field of <code>bytes</code> bytes at <code>index</code> as an unsigned value
+     * 
+     * @throws IllegalArgumentException if <code>bytes</code> is not between 1 and 8
+     */
+    public long getUnsigned(final int index, final int bytes) {
+        return load(check(index, checkBytes(bytes)), bytes);
+    }
+
+    /**
+     * Store the low 8 bits of <code>value</code> at <code>index</code>
+     */
+    public ByteCursor putU8(final int index, final int value) {
+        store8(check(index, 1), value);
+        return this;
+    }
+
+    /**
+     * Store the low 16 bits of <code>value</code> at <code>index</code>
+     */
+    public ByteCursor putU16(final int index, final int value) {
+        store16(check(index, 2), value);
+        return this;
+    }
+
+    /**
+     * Store the low 24 bits of <code>value</code> at <code>index</code>
+     */
+    public ByteCursor putU24(final int index, final int value) {
+        store24(check(index, 3), value);
+        return this;
+    }
+
+    /**
+     * Store the low 32 bits of <code>value</code> at <code>index</code>
+     */
+    public ByteCursor putU32(final int index, final long value) {
+        store32(check(index, 4), (int) value);
+        return this;
+    }
+
+    /**
+     * Store the low 48 bits of <code>value</code> at <code>index</code>
+     */
+    public ByteCursor putU48(final int index, final long value) {
+        store48(check(index, 6), value);
+        return this;
+    }
+
+    /**
+     * Store <code>value</code> at <code>index</code>
+     */
+    public ByteCursor putU64(final int index, final long value) {
+        store64(check(index, 8), value);
+        return this;
+    }
+
+    /**
+     * Store the low <code>bytes</code> bytes of <code>value</code> at <code>index</code>
+     * 
+     * @throws IllegalArgumentException if <code>bytes</code> is not between 1 and 8
+     */
+    public ByteCursor putUnsigned(final int index, final int bytes, final long value) {
+        store(check(index, checkBytes(bytes)), bytes, value);
+        return this;
+    }
+
+    /**
+     * Read an unsigned byte at the cursor
+     */
+    public int readU8() {
+        return load8(advanceRead(1));
+    }
+
+    /**
+     * Read an unsigned 16-bit field at the cursor
+     */
+    public int readU16() {
+        return load16(advanceRead(2));
+    }
+
+    /**
+     * Read an unsigned 24-bit field at the cursor
+     */
+    public int readU24() {
+        return load24(advanceRead(3));
+    }
+
+    /**
+     * Read an unsigned 32-bit field at the cursor
+     */
+    public long readU32() {
+        return load32(advanceRead(4)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Read an unsigned 48-bit field at the cursor
+     */
+    public long readU48() {
+        return load48(advanceRead(6));
+    }
+
+    /**
+     * Read a 64-bit field at the cursor
+     */
+    public long readU64() {
+        return load64(advanceRead(8));
+    }
+
+    /**
+     * Read an unsigned field of <code>bytes</code> bytes at the cursor
+     * 
+     * @throws IllegalArgumentException if <code>bytes</code> is not between 1 and 8
+     */
+    public long readUnsigned(final int bytes) {
+        return load(advanceRead(checkBytes(bytes)), bytes);
+    }
+
+    /**
+     * Write the low 8 bits of <code>value</code> at the cursor
+     */
+    public ByteCursor writeU8(final int value) {
+        store8(advanceWrite(1), value);
+        return this;
+    }
+
+    /**
+     * Write the low 16 bits of <code>value</code> at the cursor
+     */
+    public ByteCursor writeU16(final int value) {
+        store16(advanceWrite(2), value);
+        return this;
+    }
+
+    /**
+     * Write the low 24 bits of <code>value</code> at the cursor
+     */
+    public ByteCursor writeU24(final int value) {
+        store24(advanceWrite(3), value);
+        return this;
+    }
+
+    /**
+     * Write the low 32 bits of <code>value</code> at the cursor
+     */
+    public ByteCursor writeU32(final long value) {
+        store32(advanceWrite(4), (int) value);
+        return this;
+    }
+
+    /**
+     * Write the low 48 bits of <code>value</code> at the cursor
+     */
+    public ByteCursor writeU48(final long value) {
+        store48(advanceWrite(6), value);
+        return this;
+    }
+
+    /**
+     * Write <code>value</code> at the cursor
+     */
+    public ByteCursor writeU64(final long value) {
+        store64(advanceWrite(8), value);
+        return this;
+    }
+
+    /**
+     * Write the low <code>bytes</code> bytes of <code>value</code> at the cursor
+     * 
+     * @throws IllegalArgumentException if <code>bytes</code> is not between 1 and 8
+     */
+    public ByteCursor writeUnsigned(final int bytes, final long value) {
+        store(advanceWrite(checkBytes(bytes)), bytes, value);
+        return this;
+    }
+
+    /*
+     * Check that size bytes at index lie in the range and return the backing index
+     */
+    private int check(final int index, final int size) {
+        return base + Objects.checkFromIndexSize(index, size, length);
+    }
+
+    private int advanceRead(final int size) {
+        if (size > length - position) {
+            throw new BufferUnderflowException();
+        }
+        final int at = base + position;
+        position += size;
+        return at;
+    }
+
+    private int advanceWrite(final int size) {
+        if (size > length - position) {
+            throw new BufferOverflowException();
+        }
+        final int at = base + position;
+        position += size;
+        return at;
+    }
+
+    private static int checkBytes(final int bytes) {
+        if (bytes < 1 || bytes > 8) {
+            throw new IllegalArgumentException("bytes must be between 1 and 8: " + bytes);
+        }
+        return bytes;
+    }
+
+    /*
+     * The loads and stores below take backing indices that have already been checked
+     */
+
+    private int load8(final int at) {
+        return (array != null ? array[at] : buffer.get(at)) & 0xFF;
+    }
+
+    private int load16(final int at) {
+        short x = array != null ? (short) ARRAY_SHORT.get(array, at)
+                : (short) BUFFER_SHORT.get(buffer, at);
+        return (little ? Short.reverseBytes(x) : x) & 0xFFFF;
+    }
+
+    private int load24(final int at) {
+        if (little) {
+            return load16(at) | (load8(at + 2) << 16);
+        }
+        return (load16(at) << 8) | load8(at + 2);
+    }
+
+    private int load32(final int at) {
+        int x = array != null ? (int) ARRAY_INT.get(array, at) : (int) BUFFER_INT.get(buffer, at);
+        return little ? Integer.reverseBytes(x) : x;
+    }
+
+    private long load48(final int at) {
+        final long wide = load32(at) & 0xFFFFFFFFL;
+        if (little) {
+            return wide | ((long) load16(at + 4) << 32);
+        }
+        return (wide << 16) | load16(at + 4);
+    }
+
+    private long load64(final int at) {
+        long x = array != null ? (long) ARRAY_LONG.get(array, at)
+                : (long) BUFFER_LONG.get(buffer, at);
+        return little ? Long.reverseBytes(x) : x;
+    }
+
+    private long load(final int at, final int bytes) {
+        switch (bytes) {
+        case 1:
+            return load8(at);
+        case 2:
+            return load16(at);
+        case 3:
+            return load24(at);
+        case 4:
+            return load32(at) & 0xFFFFFFFFL;
+        case 6:
+            return load48(at);
+        case 8:
+            return load64(at);
+        default:
+            long x = 0;
+            for (int k = 0; k < bytes; k++) {
+                final long b = load8(at + k);
+                x |= little ? b << (k << 3) : b << ((bytes - 1 - k) << 3);
+            }
+            return x;
+        }
+    }
+
+    private void store8(final int at, final int value) {
+        if (array != null) {
+            array[at] = (byte) value;
+        } else {
+            buffer.put(at, (byte) value);
+        }
+    }
+
+    private void store16(final int at, final int value) {
+        final short x = little ? Short.reverseBytes((short) value) : (short) value;
+        if (array != null) {
+            ARRAY_SHORT.set(array, at, x);
+        } else {
+            BUFFER_SHORT.set(buffer, at, x);
+        }
+    }
+
+    private void store24(final int at, final int value) {
+        if (little) {
+            store16(at, value);
+            store8(at + 2, value >>> 16);
+        } else {
+            store16(at, value >>> 8);
+            store8(at + 2, value);
+        }
+    }
+
+    private void store32(final int at, final int value) {
+        final int x = little ? Integer.reverseBytes(value) : value;
+        if (array != null) {
+            ARRAY_INT.set(array, at, x);
+        } else {
+            BUFFER_INT.set(buffer, at, x);
+        }
+    }
+
+    private void store48(final int at, final long value) {
+        if (little) {
+            store32(at, (int) value);
+            store16(at + 4, (int) (value >>> 32));
+        } else {
+            store32(at, (int) (value >>> 16));
+            store16(at + 4, (int) value);
+        }
+    }
+
+    private void store64(final int at, final long value) {
+        final long x = little ? Long.reverseBytes(value) : value;
+        if (array != null) {
+            ARRAY_LONG.set(array, at, x);
+        } else {
+            BUFFER_LONG.set(buffer, at, x);
+        }
+    }
+
+    private void store(final int at, final int bytes, final long value) {
+        switch (bytes) {
+        case 1:
+            store8(at, (int) value);
+            break;
+        case 2:
+            store16(at, (int) value);
+            break;
+        case 3:
+            store24(at, (int) value);
+            break;
+        case 4:
+            store32(at, (int) value);
+            break;
+        case 6:
+            store48(at, value);
+            break;
+        case 8:
+            store64(at, value);
+            break;
+        default:
+            for (int k = 0; k < bytes; k++) {
+                final int shift = little ? k << 3 : (bytes - 1 - k) << 3;
+                store8(at + k, (int) (value >>> shift));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,280 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Arrays;
+
+/**
+ * A map from unsigned byte keys to <code>int</code> values, for use in place of
+ * <code>Map&lt;Byte, Integer&gt;</code>. Every possible key has its own slot in a dense array
+ * of 256 values, so lookups and updates index the array directly, and a {@link ByteSet} tracks
+ * which keys are present. Keys are given as a <code>byte</code> or as the low eight bits of an
+ * <code>int</code>, matching the <code>B0xHH</code> constants of {@link ByteOps}.
+ * 
+ * Absent keys read as a configurable default value, zero unless given to the constructor. That
+ * makes the map a natural byte histogram:
+ * 
+ * <pre>
+ * ByteIntMap counts = ByteIntMap.histogram(data, 0, data.length);
+ * int spaces = counts.get(' ');
+ * </pre>
+ * 
+ * This class is not thread safe.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ByteIntMap {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * Callback for {@link ByteIntMap#forEach(EntryConsumer)}
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * Accept one entry, with <code>key</code> unsigned
+         */
+        void accept(int key, int value);
+
+    }
+
+    private final int[] values = new int[256];
+    private final ByteSet keys = new ByteSet();
+    private final int defaultValue;
+
+    /**
+     * Create an empty map whose absent keys read as zero
+     */
+    public ByteIntMap() {
+        this(0);
+    }
+
+    /**
+     * Create an empty map whose absent keys read as <code>defaultValue</code>
+     */
+    public ByteIntMap(final int defaultValue) {
+        this.defaultValue = defaultValue;
+        Arrays.fill(values, defaultValue);
+    }
+
+    /**
+     * Returns a map from each byte value to the number of times it occurs in <code>len</code>
+     * bytes of <code>src</code> starting at <code>off</code>. Only values that occur are
+     * present.
+     */
+    public static ByteIntMap histogram(final byte[] src, final int off, final int len) {
+        ByteOps.checkRange(src, off, len);
+        ByteIntMap map = new ByteIntMap();
+        // four interleaved tables so repeated bytes don't serialize on one counter
+        final int[][] counts = new int[4][256];
+        int i = 0;
+        for (; i <= len - 4; i += 4) {
+            counts[0][src[off + i] & BYTE_MASK]++;
+            counts[1][src[off + i + 1] & BYTE_MASK]++;
+            counts[2][src[off + i + 2] & BYTE_MASK]++;
+            counts[3][src[off + i + 3] & BYTE_MASK]++;
+        }
+        for (; i < len; i++) {
+            counts[0][src[off + i] & BYTE_MASK]++;
+        }
+        for (int b = 0; b < 256; b++) {
+            final int count = counts[0][b] + counts[1][b] + counts[2][b] + counts[3][b];
+            if (count != 0) {
+                map.put(b, count);
+            }
+        }
+        return map;
+    }
+
+    public int getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Returns the value for <code>key</code>, or the default value if it is absent
+     */
+    public int get(final byte key) {
+        return values[key & BYTE_MASK];
+    }
+
+    /**
+     * Returns the value for the low eight bits of <code>key</code>, or the default value if it
+     * is absent
+     */
+    public int get(final int key) {
+        return values[key & BYTE_MASK];
+    }
+
+    /**
+     * Returns true if <code>key</code> has a value
+     */
+    public boolean containsKey(final byte key) {
+        return keys.contains(key);
+    }
+
+    /**
+     * Returns true if the low eight bits of <code>key</code> have a value
+     */
+    public boolean containsKey(final int key) {
+        return keys.contains(key);
+    }
+
+    /**
+     * Set the value for <code>key</code>, returning the previous value or the default value if
+     * it was absent
+     */
+    public int put(final byte key, final int value) {
+        return put((int) key, value);
+    }
+
+    /**
+     * Set the value for the low eight bits of <code>key</code>, returning the previous value or
+     * the default value if it was absent
+     */
+    public int put(final int key, final int value) {
+        final int k = key & BYTE_MASK;
+        final int old = values[k];
+        values[k] = value;
+        keys.add(k);
+        return old;
+    }
+
+    /**
+     * Add <code>delta</code> to the value for <code>key</code>, starting from the default value
+     * if it is absent, and return the new value
+     */
+    public int add(final byte key, final int delta) {
+        return add((int) key, delta);
+    }
+
+    /**
+     * Add <code>delta</code> to the value for the low eight bits of <code>key</code>, starting
+     * from the default value if it is absent, and return the new value
+     */
+    public int add(final int key, final int delta) {
+        final int k = key & BYTE_MASK;
+        keys.add(k);
+        return values[k] += delta;
+    }
+
+    /**
+     * Remove <code>key</code>, returning its value or the default value if it was absent
+     */
+    public int remove(final byte key) {
+        return remove((int) key);
+    }
+
+    /**
+     * Remove the low eight bits of <code>key</code>, returning its value or the default value
+     * if it was absent
+     */
+    public int remove(final int key) {
+        final int k = key & BYTE_MASK;
+        final int old = values[k];
+        values[k] = defaultValue;
+        keys.remove(k);
+        return old;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    public void clear() {
+        Arrays.fill(values, defaultValue);
+        keys.clear();
+    }
+
+    /**
+     * Returns a copy of the set of keys that have values
+     */
+    public ByteSet keySet() {
+        return keys.copy();
+    }
+
+    /**
+     * Call <code>action</code> with each entry in ascending key order
+     */
+    public void forEach(final EntryConsumer action) {
+        keys.forEach(k -> action.accept(k, values[k]));
+    }
+
+    /**
+     * Returns the values of all 256 keys indexed by unsigned key, absent keys holding the
+     * default value
+     */
+    public int[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * Two maps are equal when they have the same keys with the same values. The default values
+     * don't take part.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof ByteIntMap)) {
+            return false;
+        }
+        ByteIntMap other = (ByteIntMap) obj;
+        if (!keys.equals(other.keys)) {
+            return false;
+        }
+        for (int k = keys.next(0); k >= 0; k = keys.next(k + 1)) {
+            if (values[k] != other.values[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int k = keys.next(0); k >= 0; k = keys.next(k + 1)) {
+            hash += k ^ values[k];
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the entries with keys in hex, such as <code>{0x00=3, 0xFF=1}</code>
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> sb.append(sb.length() > 1 ? ", " : "")
+                .append(String.format("0x%02X=%d", k, v)));
+        return sb.append('}').toString();
+    }
+
+}
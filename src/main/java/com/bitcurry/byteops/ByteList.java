@@ -0,0 +1,347 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * A growable list of bytes backed by a single <code>byte[]</code>, for use in place of
+ * <code>List&lt;Byte&gt;</code>. Elements are read back as unsigned values from 0x00 to 0xFF,
+ * matching the <code>B0xHH</code> constants of {@link ByteOps}, and are written from the low
+ * eight bits of an <code>int</code> or from a <code>byte</code>.
+ * 
+ * Bulk appends copy straight into the backing array, and can apply a {@link BulkOp} on the way
+ * in so that data is transformed in the same pass that copies it. {@link #transform(BulkOp)}
+ * applies an operation to the whole list in place.
+ * 
+ * This class is not thread safe.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ByteList {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /* Largest array size that every JVM will allocate */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private byte[] elements;
+    private int size;
+
+    /**
+     * Create an empty list
+     */
+    public ByteList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty list with room for <code>capacity</code> bytes before it has to grow
+     */
+    public ByteList(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("negative capacity: " + capacity);
+        }
+        elements = new byte[capacity];
+    }
+
+    /**
+     * Returns a list holding a copy of <code>bytes</code>
+     */
+    public static ByteList of(final byte... bytes) {
+        ByteList list = new ByteList(bytes.length);
+        list.addAll(bytes);
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the element at <code>index</code> as an unsigned value
+     */
+    public int get(final int index) {
+        return getByte(index) & BYTE_MASK;
+    }
+
+    /**
+     * Returns the element at <code>index</code>
+     */
+    public byte getByte(final int index) {
+        Objects.checkIndex(index, size);
+        return elements[index];
+    }
+
+    /**
+     * Replace the element at <code>index</code>, returning the old element as an unsigned value
+     */
+    public int set(final int index, final byte value) {
+        final int old = get(index);
+        elements[index] = value;
+        return old;
+    }
+
+    /**
+     * Replace the element at <code>index</code> with the low eight bits of <code>value</code>,
+     * returning the old element as an unsigned value
+     */
+    public int set(final int index, final int value) {
+        return set(index, (byte) value);
+    }
+
+    /**
+     * Append <code>value</code> to the end of the list
+     */
+    public void add(final byte value) {
+        ensureRoom(1);
+        elements[size++] = value;
+    }
+
+    /**
+     * Append the low eight bits of <code>value</code> to the end of the list
+     */
+    public void add(final int value) {
+        add((byte) value);
+    }
+
+    /**
+     * Append all of <code>bytes</code> to the end of the list
+     */
+    public void addAll(final byte[] bytes) {
+        addAll(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Append <code>len</code> bytes of <code>src</code> starting at <code>off</code> to the end
+     * of the list
+     */
+    public void addAll(final byte[] src, final int off, final int len) {
+        ByteOps.checkRange(src, off, len);
+        ensureRoom(len);
+        System.arraycopy(src, off, elements, size, len);
+        size += len;
+    }
+
+    /**
+     * Append <code>len</code> bytes of <code>src</code> starting at <code>off</code> to the end
+     * of the list, transformed by <code>op</code> as they are copied
+     */
+    public void addAll(final byte[] src, final int off, final int len, final BulkOp op) {
+        ByteOps.checkRange(src, off, len);
+        ensureRoom(len);
+        op.apply(src, off, elements, size, len);
+        size += len;
+    }
+
+    /**
+     * Append the remaining bytes of <code>src</code> to the end of the list. The position and
+     * limit of <code>src</code> are left untouched.
+     */
+    public void addAll(final ByteBuffer src) {
+        final int len = src.remaining();
+        ensureRoom(len);
+        src.get(src.position(), elements, size, len);
+        size += len;
+    }
+
+    /**
+     * Append all of <code>other</code> to the end of the list
+     */
+    public void addAll(final ByteList other) {
+        addAll(other.elements, 0, other.size);
+    }
+
+    /**
+     * Apply <code>op</code> to every element in place
+     */
+    public void transform(final BulkOp op) {
+        op.apply(elements, 0, size);
+    }
+
+    /**
+     * Apply <code>op</code> in place to the <code>len</code> elements starting at
+     * <code>from</code>
+     */
+    public void transform(final int from, final int len, final BulkOp op) {
+        Objects.checkFromIndexSize(from, len, size);
+        op.apply(elements, from, len);
+    }
+
+    /**
+     * Returns the index of the first occurrence of the low eight bits of <code>value</code>, or
+     * -1 if the list doesn't contain it
+     */
+    public int indexOf(final int value) {
+        final byte b = (byte) value;
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the list contains the low eight bits of <code>value</code>
+     */
+    public boolean contains(final int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Remove the <code>len</code> elements starting at <code>from</code>, shifting any later
+     * elements down
+     */
+    public void removeRange(final int from, final int len) {
+        Objects.checkFromIndexSize(from, len, size);
+        System.arraycopy(elements, from + len, elements, from, size - from - len);
+        size -= len;
+    }
+
+    /**
+     * Shorten the list to <code>newSize</code> elements
+     */
+    public void truncate(final int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException("size " + newSize + " for length " + size);
+        }
+        size = newSize;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Call <code>action</code> with each element as an unsigned value, in order
+     */
+    public void forEach(final IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i] & BYTE_MASK);
+        }
+    }
+
+    /**
+     * Returns a copy of the elements
+     */
+    public byte[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Returns a buffer over the elements without copying them. Changes through either one are
+     * visible in the other until the list next grows.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(elements, 0, size).slice();
+    }
+
+    /**
+     * Make sure there is room for at least <code>capacity</code> elements without growing
+     */
+    public void ensureCapacity(final int capacity) {
+        if (capacity > elements.length) {
+            grow(capacity - size);
+        }
+    }
+
+    /**
+     * Shrink the backing array to the size of the list
+     */
+    public void trimToSize() {
+        if (elements.length > size) {
+            elements = Arrays.copyOf(elements, size);
+        }
+    }
+
+    /**
+     * Two lists are equal when they hold the same bytes in the same order
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof ByteList)) {
+            return false;
+        }
+        ByteList other = (ByteList) obj;
+        return Arrays.equals(elements, 0, size, other.elements, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + elements[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the elements in hex, such as <code>[0x00, 0x7F, 0xFF]</code>
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(2 + 6 * size);
+        sb.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format("0x%02X", elements[i] & BYTE_MASK));
+        }
+        return sb.append(']').toString();
+    }
+
+    /*
+     * Grow by half again, or by enough for the extra elements if that is more
+     */
+    private void grow(final int extra) {
+        final int required = size + extra;
+        if (required < 0 || required > MAX_CAPACITY) {
+            throw new OutOfMemoryError("ByteList cannot hold " + ((long) size + extra) + " bytes");
+        }
+        int capacity = elements.length + (elements.length >> 1) + 1;
+        if (capacity < required || capacity < 0 || capacity > MAX_CAPACITY) {
+            capacity = Math.max(required, Math.min(capacity, MAX_CAPACITY));
+        }
+        elements = Arrays.copyOf(elements, capacity);
+    }
+
+    private void ensureRoom(final int extra) {
+        if (extra > elements.length - size) {
+            grow(extra);
+        }
+    }
+
+}
@@ -25,6 +25,13 @@
 
 package com.bitcurry.byteops;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
 /**
  * Collection of helper methods that take some of the pain out of working with the native
  * <code>byte</code> type in Java. Each bitwise operation is provided in four different flavors -
@@ -36,6 +43,21 @@ package com.bitcurry.byteops;
  * Each of the 256 values of <code>byte</code> are also provided as constants of the form
  * <code>B0xHH</code> where HH is the two-digit hex value.
  * 
+ * The bitwise, shift and rotate operations also come in bulk versions that work on a range of a
+ * <code>byte[]</code>, either in place or from a source array into a destination array. These
+ * process eight bytes at a time as <code>long</code> words rather than calling the single-byte
+ * version once per element. Their results match the single-byte versions except for shift and
+ * rotate counts outside 0 to 7. The single-byte versions follow Java's <code>int</code> shift
+ * rules, while the bulk ones take rotate counts modulo 8 and clear every byte for any other
+ * shift count. See {@link BulkEngine} for a backend that can use SIMD instructions instead. The
+ * same word tricks swap the byte order of arrays of 16, 32 and 64-bit
+ * values with <code>reverseBytes16</code> and friends.
+ * 
+ * The same operations accept <code>ByteBuffer</code>s, including direct buffers, and work on the
+ * bytes between position and limit without copying or allocating. Positions and limits are
+ * never modified. Off-heap memory segments can be passed through their
+ * <code>asByteBuffer()</code> view.
+ * 
  * Note that this class does not <i>eliminate</i> the casts that Java makes from <code>byte</code>
  * to <code>int</code> and visa versa when bitwise operations are performed, it simply hides the
  * operations so the programmer doesn't have to clutter code with them.
@@ -46,6 +68,12 @@ public class ByteOps {
 
     private final static int BYTE_MASK = 0x000000FF;
 
+    /* A one in every byte lane of a long */
+    private final static long LANES = 0x0101010101010101L;
+
+    private final static VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
     /**
      * Perform bitwise AND of <code>op1</code> and <code>op2</code>
      */
@@ -74,6 +102,184 @@ public class ByteOps {
         return (byte) (op1 & op2 & BYTE_MASK);
     }
 
+    /**
+     * Perform bitwise AND of each byte in <code>dst</code> with the corresponding byte in
+     * <code>src</code>, storing the result back into <code>dst</code>. Eight bytes are processed
+     * per step as <code>long</code> words. If <code>src</code> and <code>dst</code> are the same
+     * array the two ranges must either be identical or not overlap.
+     */
+    public static final void and(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            long a = (long) LONGS.get(dst, dstOff + i);
+            long b = (long) LONGS.get(src, srcOff + i);
+            LONGS.set(dst, dstOff + i, a & b);
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (dst[dstOff + i] & src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Perform bitwise AND of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public static final void and(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte op2) {
+        and(src, srcOff, dst, dstOff, len, (int) op2);
+    }
+
+    /**
+     * Perform bitwise AND of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public static final void and(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int op2) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        andWords(src, srcOff, dst, dstOff, len, broadcast(op2));
+    }
+
+    /**
+     * Perform bitwise AND of each byte in <code>buf</code> with <code>op2</code> in place
+     */
+    public static final void and(final byte[] buf, final int off, final int len, final byte op2) {
+        and(buf, off, len, (int) op2);
+    }
+
+    /**
+     * Perform bitwise AND of each byte in <code>buf</code> with <code>op2</code> in place
+     */
+    public static final void and(final byte[] buf, final int off, final int len, final int op2) {
+        and(buf, off, buf, off, len, op2);
+    }
+
+    /**
+     * Perform bitwise AND of each remaining byte in <code>dst</code> with the corresponding
+     * remaining byte in <code>src</code>, storing the result back into <code>dst</code>. The
+     * positions and limits of both buffers are left untouched.
+     */
+    public static final void and(final ByteBuffer src, final ByteBuffer dst) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            and(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining());
+        } else {
+            BufferKernels.combine(src, dst, BufferKernels.AND);
+        }
+    }
+
+    /**
+     * Perform bitwise AND of each remaining byte in <code>src</code> with <code>op2</code>,
+     * storing the results into <code>dst</code> starting at its position. The positions and
+     * limits of both buffers are left untouched.
+     */
+    public static final void and(final ByteBuffer src, final ByteBuffer dst, final byte op2) {
+        and(src, dst, (int) op2);
+    }
+
+    /**
+     * Perform bitwise AND of each remaining byte in <code>src</code> with <code>op2</code>,
+     * storing the results into <code>dst</code> starting at its position. The positions and
+     * limits of both buffers are left untouched.
+     */
+    public static final void and(final ByteBuffer src, final ByteBuffer dst, final int op2) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            and(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), op2);
+        } else {
+            BufferKernels.map(src, dst, 0, 8, op2, 0);
+        }
+    }
+
+    /**
+     * Perform bitwise AND of each remaining byte in <code>buf</code> with <code>op2</code> in
+     * place
+     */
+    public static final void and(final ByteBuffer buf, final byte op2) {
+        and(buf, buf, (int) op2);
+    }
+
+    /**
+     * Perform bitwise AND of each remaining byte in <code>buf</code> with <code>op2</code> in
+     * place
+     */
+    public static final void and(final ByteBuffer buf, final int op2) {
+        and(buf, buf, op2);
+    }
+
+    /**
+     * Returns the number of one bits in <code>op1</code>
+     */
+    public static final int bitCount(final byte op1) {
+        return bitCount((int) op1);
+    }
+
+    /**
+     * Returns the number of one bits in the low eight bits of <code>op1</code>
+     */
+    public static final int bitCount(final int op1) {
+        return Integer.bitCount(op1 & BYTE_MASK);
+    }
+
+    /**
+     * Copy the bits of <code>src</code> into <code>dst</code> wherever <code>mask</code> has a
+     * one bit, leaving the other bits of <code>dst</code> as they are. This is
+     * <code>select(mask, src, dst)</code> stored back into <code>dst</code>.
+     */
+    public static final void blend(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte[] mask, final int maskOff) {
+        select(mask, maskOff, src, srcOff, dst, dstOff, dst, dstOff, len);
+    }
+
+    /**
+     * Copy the bits of the remaining bytes of <code>src</code> into <code>dst</code> wherever
+     * <code>mask</code> has a one bit, leaving the other bits of <code>dst</code> as they are
+     */
+    public static final void blend(final ByteBuffer src, final ByteBuffer dst,
+            final ByteBuffer mask) {
+        select(mask, src, dst, dst);
+    }
+
+    /**
+     * Returns the <code>width</code> bits of <code>op1</code> starting at bit <code>index</code>,
+     * shifted down to bit 0
+     */
+    public static final int extractBits(final byte op1, final int index, final int width) {
+        return extractBits((int) op1, index, width);
+    }
+
+    /**
+     * Returns the <code>width</code> bits of <code>op1</code> starting at bit <code>index</code>,
+     * shifted down to bit 0
+     */
+    public static final int extractBits(final int op1, final int index, final int width) {
+        return ((op1 & BYTE_MASK) >>> index) & ((1 << width) - 1);
+    }
+
+    /**
+     * Returns <code>op1</code> with the <code>width</code> bits starting at bit
+     * <code>index</code> replaced by the low bits of <code>value</code>
+     */
+    public static final byte insertBits(final byte op1, final int index, final int width,
+            final int value) {
+        return insertBits((int) op1, index, width, value);
+    }
+
+    /**
+     * Returns <code>op1</code> with the <code>width</code> bits starting at bit
+     * <code>index</code> replaced by the low bits of <code>value</code>
+     */
+    public static final byte insertBits(final int op1, final int index, final int width,
+            final int value) {
+        int mask = ((1 << width) - 1) << index;
+        return (byte) ((op1 & ~mask) | ((value << index) & mask));
+    }
+
     /**
      * Returns true if the bit at <code>index</code> is 0, false if bit is 1
      */
@@ -85,8 +291,7 @@ public class ByteOps {
      * Returns true if the bit at <code>index</code> is 1, false if bit is 0
      */
     public static final boolean isBitSet(final byte op1, final int index) {
-        int mask = 0x01 << index;
-        return (and(op1, mask) == mask);
+        return (op1 & (0x01 << index)) != 0;
     }
 
     /**
@@ -119,6 +324,88 @@ public class ByteOps {
         return (byte) ((top | bottom) & BYTE_MASK);
     }
 
+    /**
+     * Rotate each byte in <code>src</code> by <code>n</code> bits to the left, storing the results
+     * into <code>dst</code>. The count is taken modulo 8, so a negative count rotates the other
+     * way.
+     */
+    public static final void lrotate(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte n) {
+        lrotate(src, srcOff, dst, dstOff, len, (int) n);
+    }
+
+    /**
+     * Rotate each byte in <code>src</code> by <code>n</code> bits to the left, storing the results
+     * into <code>dst</code>. The count is taken modulo 8, so a negative count rotates the other
+     * way.
+     */
+    public static final void lrotate(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        int r = n & 7;
+        shiftWords(src, srcOff, dst, dstOff, len, r, 8 - r);
+    }
+
+    /**
+     * Rotate each byte in <code>buf</code> by <code>n</code> bits to the left in place. The count
+     * is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void lrotate(final byte[] buf, final int off, final int len, final byte n) {
+        lrotate(buf, off, len, (int) n);
+    }
+
+    /**
+     * Rotate each byte in <code>buf</code> by <code>n</code> bits to the left in place. The count
+     * is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void lrotate(final byte[] buf, final int off, final int len, final int n) {
+        lrotate(buf, off, buf, off, len, n);
+    }
+
+    /**
+     * Rotate each remaining byte in <code>src</code> by <code>n</code> bits to the left, storing
+     * the results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. The count is taken modulo 8, so a negative count rotates the
+     * other way.
+     */
+    public static final void lrotate(final ByteBuffer src, final ByteBuffer dst, final byte n) {
+        lrotate(src, dst, (int) n);
+    }
+
+    /**
+     * Rotate each remaining byte in <code>src</code> by <code>n</code> bits to the left, storing
+     * the results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. The count is taken modulo 8, so a negative count rotates the
+     * other way.
+     */
+    public static final void lrotate(final ByteBuffer src, final ByteBuffer dst, final int n) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            lrotate(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), n);
+        } else {
+            int r = n & 7;
+            BufferKernels.map(src, dst, r, 8 - r, BYTE_MASK, 0);
+        }
+    }
+
+    /**
+     * Rotate each remaining byte in <code>buf</code> by <code>n</code> bits to the left in place.
+     * The count is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void lrotate(final ByteBuffer buf, final byte n) {
+        lrotate(buf, buf, (int) n);
+    }
+
+    /**
+     * Rotate each remaining byte in <code>buf</code> by <code>n</code> bits to the left in place.
+     * The count is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void lrotate(final ByteBuffer buf, final int n) {
+        lrotate(buf, buf, n);
+    }
+
     /**
      * Shift <code>op1</code> by <code>n</code> bits to the left. Zeroes are shifted into the lowest
      * bit.
@@ -151,6 +438,82 @@ public class ByteOps {
         return (byte) ((op1 & BYTE_MASK) << n);
     }
 
+    /**
+     * Shift each byte in <code>src</code> by <code>n</code> bits to the left, storing the results
+     * into <code>dst</code>. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte n) {
+        lshift(src, srcOff, dst, dstOff, len, (int) n);
+    }
+
+    /**
+     * Shift each byte in <code>src</code> by <code>n</code> bits to the left, storing the results
+     * into <code>dst</code>. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        shiftWords(src, srcOff, dst, dstOff, len, shiftCount(n), 8);
+    }
+
+    /**
+     * Shift each byte in <code>buf</code> by <code>n</code> bits to the left in place. Counts
+     * outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final byte[] buf, final int off, final int len, final byte n) {
+        lshift(buf, off, len, (int) n);
+    }
+
+    /**
+     * Shift each byte in <code>buf</code> by <code>n</code> bits to the left in place. Counts
+     * outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final byte[] buf, final int off, final int len, final int n) {
+        lshift(buf, off, buf, off, len, n);
+    }
+
+    /**
+     * Shift each remaining byte in <code>src</code> by <code>n</code> bits to the left, storing the
+     * results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final ByteBuffer src, final ByteBuffer dst, final byte n) {
+        lshift(src, dst, (int) n);
+    }
+
+    /**
+     * Shift each remaining byte in <code>src</code> by <code>n</code> bits to the left, storing the
+     * results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final ByteBuffer src, final ByteBuffer dst, final int n) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            lshift(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), n);
+        } else {
+            BufferKernels.map(src, dst, shiftCount(n), 8, BYTE_MASK, 0);
+        }
+    }
+
+    /**
+     * Shift each remaining byte in <code>buf</code> by <code>n</code> bits to the left in place.
+     * Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final ByteBuffer buf, final byte n) {
+        lshift(buf, buf, (int) n);
+    }
+
+    /**
+     * Shift each remaining byte in <code>buf</code> by <code>n</code> bits to the left in place.
+     * Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void lshift(final ByteBuffer buf, final int n) {
+        lshift(buf, buf, n);
+    }
+
     /**
      * Bitwise invert <code>op1</code>
      */
@@ -165,6 +528,45 @@ public class ByteOps {
         return (byte) (~op1 & BYTE_MASK);
     }
 
+    /**
+     * Bitwise invert each byte in <code>src</code>, storing the results into <code>dst</code>
+     */
+    public static final void not(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        xorWords(src, srcOff, dst, dstOff, len, -1L);
+    }
+
+    /**
+     * Bitwise invert each byte in <code>buf</code> in place
+     */
+    public static final void not(final byte[] buf, final int off, final int len) {
+        not(buf, off, buf, off, len);
+    }
+
+    /**
+     * Bitwise invert each remaining byte in <code>src</code>, storing the results into
+     * <code>dst</code> starting at its position. The positions and limits of both buffers are
+     * left untouched.
+     */
+    public static final void not(final ByteBuffer src, final ByteBuffer dst) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            not(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining());
+        } else {
+            BufferKernels.map(src, dst, 0, 8, BYTE_MASK, BYTE_MASK);
+        }
+    }
+
+    /**
+     * Bitwise invert each remaining byte in <code>buf</code> in place
+     */
+    public static final void not(final ByteBuffer buf) {
+        not(buf, buf);
+    }
+
     /**
      * Perform bitwise OR of <code>op1</code> and <code>op2</code>
      */
@@ -193,6 +595,299 @@ public class ByteOps {
         return (byte) (op1 | op2 & BYTE_MASK);
     }
 
+    /**
+     * Perform bitwise OR of each byte in <code>dst</code> with the corresponding byte in
+     * <code>src</code>, storing the result back into <code>dst</code>. Eight bytes are processed
+     * per step as <code>long</code> words. If <code>src</code> and <code>dst</code> are the same
+     * array the two ranges must either be identical or not overlap.
+     */
+    public static final void or(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            long a = (long) LONGS.get(dst, dstOff + i);
+            long b = (long) LONGS.get(src, srcOff + i);
+            LONGS.set(dst, dstOff + i, a | b);
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (dst[dstOff + i] | src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Perform bitwise OR of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public static final void or(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte op2) {
+        or(src, srcOff, dst, dstOff, len, (int) op2);
+    }
+
+    /**
+     * Perform bitwise OR of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public static final void or(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int op2) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        orWords(src, srcOff, dst, dstOff, len, broadcast(op2));
+    }
+
+    /**
+     * Perform bitwise OR of each byte in <code>buf</code> with <code>op2</code> in place
+     */
+    public static final void or(final byte[] buf, final int off, final int len, final byte op2) {
+        or(buf, off, len, (int) op2);
+    }
+
+    /**
+     * Perform bitwise OR of each byte in <code>buf</code> with <code>op2</code> in place
+     */
+    public static final void or(final byte[] buf, final int off, final int len, final int op2) {
+        or(buf, off, buf, off, len, op2);
+    }
+
+    /**
+     * Perform bitwise OR of each remaining byte in <code>dst</code> with the corresponding
+     * remaining byte in <code>src</code>, storing the result back into <code>dst</code>. The
+     * positions and limits of both buffers are left untouched.
+     */
+    public static final void or(final ByteBuffer src, final ByteBuffer dst) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            or(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining());
+        } else {
+            BufferKernels.combine(src, dst, BufferKernels.OR);
+        }
+    }
+
+    /**
+     * Perform bitwise OR of each remaining byte in <code>src</code> with <code>op2</code>,
+     * storing the results into <code>dst</code> starting at its position. The positions and
+     * limits of both buffers are left untouched.
+     */
+    public static final void or(final ByteBuffer src, final ByteBuffer dst, final byte op2) {
+        or(src, dst, (int) op2);
+    }
+
+    /**
+     * Perform bitwise OR of each remaining byte in <code>src</code> with <code>op2</code>,
+     * storing the results into <code>dst</code> starting at its position. The positions and
+     * limits of both buffers are left untouched.
+     */
+    public static final void or(final ByteBuffer src, final ByteBuffer dst, final int op2) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            or(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), op2);
+        } else {
+            BufferKernels.map(src, dst, 0, 8, ~op2, op2);
+        }
+    }
+
+    /**
+     * Perform bitwise OR of each remaining byte in <code>buf</code> with <code>op2</code> in
+     * place
+     */
+    public static final void or(final ByteBuffer buf, final byte op2) {
+        or(buf, buf, (int) op2);
+    }
+
+    /**
+     * Perform bitwise OR of each remaining byte in <code>buf</code> with <code>op2</code> in
+     * place
+     */
+    public static final void or(final ByteBuffer buf, final int op2) {
+        or(buf, buf, op2);
+    }
+
+    /**
+     * Reverse the order of the bits in <code>op1</code>, so that bit 0 becomes bit 7
+     */
+    public static final byte reverseBits(final byte op1) {
+        return reverseBits((int) op1);
+    }
+
+    /**
+     * Reverse the order of the bits in <code>op1</code>, so that bit 0 becomes bit 7
+     */
+    public static final byte reverseBits(final int op1) {
+        return (byte) (Integer.reverse(op1) >>> 24);
+    }
+
+    /**
+     * Reverse the order of the bits in each byte in <code>src</code>, storing the results into
+     * <code>dst</code>
+     */
+    public static final void reverseBits(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            LONGS.set(dst, dstOff + i, reverseBitsWord((long) LONGS.get(src, srcOff + i)));
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = reverseBits(src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Reverse the order of the bits in each byte in <code>buf</code> in place
+     */
+    public static final void reverseBits(final byte[] buf, final int off, final int len) {
+        reverseBits(buf, off, buf, off, len);
+    }
+
+    /**
+     * Reverse the order of the bits in each remaining byte in <code>src</code>, storing the
+     * results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched.
+     */
+    public static final void reverseBits(final ByteBuffer src, final ByteBuffer dst) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            reverseBits(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining());
+        } else {
+            BufferKernels.reverseBits(src, dst);
+        }
+    }
+
+    /**
+     * Reverse the order of the bits in each remaining byte in <code>buf</code> in place
+     */
+    public static final void reverseBits(final ByteBuffer buf) {
+        reverseBits(buf, buf);
+    }
+
+    /**
+     * Swap the byte order of each 16-bit value in <code>src</code>, storing the results into
+     * <code>dst</code>. This converts an array of <code>short</code>s between big and
+     * little endian.
+     * 
+     * @throws IllegalArgumentException if <code>len</code> is not a multiple of 2
+     */
+    public static final void reverseBytes16(final byte[] src, final int srcOff,
+            final byte[] dst, final int dstOff, final int len) {
+        reverseBytes(src, srcOff, dst, dstOff, len, 2);
+    }
+
+    /**
+     * Swap the byte order of each 16-bit value in <code>buf</code> in place
+     * 
+     * @throws IllegalArgumentException if <code>len</code> is not a multiple of 2
+     */
+    public static final void reverseBytes16(final byte[] buf, final int off, final int len) {
+        reverseBytes(buf, off, buf, off, len, 2);
+    }
+
+    /**
+     * Swap the byte order of each 16-bit value remaining in <code>src</code>, storing the
+     * results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched.
+     * 
+     * @throws IllegalArgumentException if the bytes remaining are not a multiple of 2
+     */
+    public static final void reverseBytes16(final ByteBuffer src, final ByteBuffer dst) {
+        reverseBytes(src, dst, 2);
+    }
+
+    /**
+     * Swap the byte order of each 16-bit value remaining in <code>buf</code> in place
+     * 
+     * @throws IllegalArgumentException if the bytes remaining are not a multiple of 2
+     */
+    public static final void reverseBytes16(final ByteBuffer buf) {
+        reverseBytes(buf, buf, 2);
+    }
+
+    /**
+     * Swap the byte order of each 32-bit value in <code>src</code>, storing the results into
+     * <code>dst</code>. This converts an array of <code>int</code>s between big and
+     * little endian.
+     * 
+     * @throws IllegalArgumentException if <code>len</code> is not a multiple of 4
+     */
+    public static final void reverseBytes32(final byte[] src, final int srcOff,
+            final byte[] dst, final int dstOff, final int len) {
+        reverseBytes(src, srcOff, dst, dstOff, len, 4);
+    }
+
+    /**
+     * Swap the byte order of each 32-bit value in <code>buf</code> in place
+     * 
+     * @throws IllegalArgumentException if <code>len</code> is not a multiple of 4
+     */
+    public static final void reverseBytes32(final byte[] buf, final int off, final int len) {
+        reverseBytes(buf, off, buf, off, len, 4);
+    }
+
+    /**
+     * Swap the byte order of each 32-bit value remaining in <code>src</code>, storing the
+     * results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched.
+     * 
+     * @throws IllegalArgumentException if the bytes remaining are not a multiple of 4
+     */
+    public static final void reverseBytes32(final ByteBuffer src, final ByteBuffer dst) {
+        reverseBytes(src, dst, 4);
+    }
+
+    /**
+     * Swap the byte order of each 32-bit value remaining in <code>buf</code> in place
+     * 
+     * @throws IllegalArgumentException if the bytes remaining are not a multiple of 4
+     */
+    public static final void reverseBytes32(final ByteBuffer buf) {
+        reverseBytes(buf, buf, 4);
+    }
+
+    /**
+     * Swap the byte order of each 64-bit value in <code>src</code>, storing the results into
+     * <code>dst</code>. This converts an array of <code>long</code>s between big and
+     * little endian.
+     * 
+     * @throws IllegalArgumentException if <code>len</code> is not a multiple of 8
+     */
+    public static final void reverseBytes64(final byte[] src, final int srcOff,
+            final byte[] dst, final int dstOff, final int len) {
+        reverseBytes(src, srcOff, dst, dstOff, len, 8);
+    }
+
+    /**
+     * Swap the byte order of each 64-bit value in <code>buf</code> in place
+     * 
+     * @throws IllegalArgumentException if <code>len</code> is not a multiple of 8
+     */
+    public static final void reverseBytes64(final byte[] buf, final int off, final int len) {
+        reverseBytes(buf, off, buf, off, len, 8);
+    }
+
+    /**
+     * Swap the byte order of each 64-bit value remaining in <code>src</code>, storing the
+     * results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched.
+     * 
+     * @throws IllegalArgumentException if the bytes remaining are not a multiple of 8
+     */
+    public static final void reverseBytes64(final ByteBuffer src, final ByteBuffer dst) {
+        reverseBytes(src, dst, 8);
+    }
+
+    /**
+     * Swap the byte order of each 64-bit value remaining in <code>buf</code> in place
+     * 
+     * @throws IllegalArgumentException if the bytes remaining are not a multiple of 8
+     */
+    public static final void reverseBytes64(final ByteBuffer buf) {
+        reverseBytes(buf, buf, 8);
+    }
+
     /**
      * Rotate <code>op1</code> by <code>n</code> bits to the right
      */
@@ -223,6 +918,88 @@ public class ByteOps {
         return (byte) (top | bottom);
     }
 
+    /**
+     * Rotate each byte in <code>src</code> by <code>n</code> bits to the right, storing the results
+     * into <code>dst</code>. The count is taken modulo 8, so a negative count rotates the other
+     * way.
+     */
+    public static final void rrotate(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte n) {
+        rrotate(src, srcOff, dst, dstOff, len, (int) n);
+    }
+
+    /**
+     * Rotate each byte in <code>src</code> by <code>n</code> bits to the right, storing the results
+     * into <code>dst</code>. The count is taken modulo 8, so a negative count rotates the other
+     * way.
+     */
+    public static final void rrotate(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        int r = n & 7;
+        shiftWords(src, srcOff, dst, dstOff, len, 8 - r, r);
+    }
+
+    /**
+     * Rotate each byte in <code>buf</code> by <code>n</code> bits to the right in place. The count
+     * is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void rrotate(final byte[] buf, final int off, final int len, final byte n) {
+        rrotate(buf, off, len, (int) n);
+    }
+
+    /**
+     * Rotate each byte in <code>buf</code> by <code>n</code> bits to the right in place. The count
+     * is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void rrotate(final byte[] buf, final int off, final int len, final int n) {
+        rrotate(buf, off, buf, off, len, n);
+    }
+
+    /**
+     * Rotate each remaining byte in <code>src</code> by <code>n</code> bits to the right, storing
+     * the results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. The count is taken modulo 8, so a negative count rotates the
+     * other way.
+     */
+    public static final void rrotate(final ByteBuffer src, final ByteBuffer dst, final byte n) {
+        rrotate(src, dst, (int) n);
+    }
+
+    /**
+     * Rotate each remaining byte in <code>src</code> by <code>n</code> bits to the right, storing
+     * the results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. The count is taken modulo 8, so a negative count rotates the
+     * other way.
+     */
+    public static final void rrotate(final ByteBuffer src, final ByteBuffer dst, final int n) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            rrotate(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), n);
+        } else {
+            int r = n & 7;
+            BufferKernels.map(src, dst, 8 - r, r, BYTE_MASK, 0);
+        }
+    }
+
+    /**
+     * Rotate each remaining byte in <code>buf</code> by <code>n</code> bits to the right in place.
+     * The count is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void rrotate(final ByteBuffer buf, final byte n) {
+        rrotate(buf, buf, (int) n);
+    }
+
+    /**
+     * Rotate each remaining byte in <code>buf</code> by <code>n</code> bits to the right in place.
+     * The count is taken modulo 8, so a negative count rotates the other way.
+     */
+    public static final void rrotate(final ByteBuffer buf, final int n) {
+        rrotate(buf, buf, n);
+    }
+
     /**
      * Shift <code>op1</code> by <code>n</code> bits to the right. Zeroes are shifted into the
      * highest bit.
@@ -255,6 +1032,278 @@ public class ByteOps {
         return (byte) ((op1 & BYTE_MASK) >>> n);
     }
 
+    /**
+     * Shift each byte in <code>src</code> by <code>n</code> bits to the right, storing the results
+     * into <code>dst</code>. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte n) {
+        rshift(src, srcOff, dst, dstOff, len, (int) n);
+    }
+
+    /**
+     * Shift each byte in <code>src</code> by <code>n</code> bits to the right, storing the results
+     * into <code>dst</code>. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int n) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        shiftWords(src, srcOff, dst, dstOff, len, 8, shiftCount(n));
+    }
+
+    /**
+     * Shift each byte in <code>buf</code> by <code>n</code> bits to the right in place. Counts
+     * outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final byte[] buf, final int off, final int len, final byte n) {
+        rshift(buf, off, len, (int) n);
+    }
+
+    /**
+     * Shift each byte in <code>buf</code> by <code>n</code> bits to the right in place. Counts
+     * outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final byte[] buf, final int off, final int len, final int n) {
+        rshift(buf, off, buf, off, len, n);
+    }
+
+    /**
+     * Shift each remaining byte in <code>src</code> by <code>n</code> bits to the right, storing
+     * the results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final ByteBuffer src, final ByteBuffer dst, final byte n) {
+        rshift(src, dst, (int) n);
+    }
+
+    /**
+     * Shift each remaining byte in <code>src</code> by <code>n</code> bits to the right, storing
+     * the results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched. Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final ByteBuffer src, final ByteBuffer dst, final int n) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            rshift(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), n);
+        } else {
+            BufferKernels.map(src, dst, 8, shiftCount(n), BYTE_MASK, 0);
+        }
+    }
+
+    /**
+     * Shift each remaining byte in <code>buf</code> by <code>n</code> bits to the right in place.
+     * Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final ByteBuffer buf, final byte n) {
+        rshift(buf, buf, (int) n);
+    }
+
+    /**
+     * Shift each remaining byte in <code>buf</code> by <code>n</code> bits to the right in place.
+     * Counts outside 0 to 7, negative ones included, clear every byte.
+     */
+    public static final void rshift(final ByteBuffer buf, final int n) {
+        rshift(buf, buf, n);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final byte mask, final byte op1, final byte op2) {
+        return select((int) mask, (int) op1, (int) op2);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final byte mask, final byte op1, final int op2) {
+        return select((int) mask, (int) op1, op2);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final byte mask, final int op1, final byte op2) {
+        return select((int) mask, op1, (int) op2);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final byte mask, final int op1, final int op2) {
+        return select((int) mask, op1, op2);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final int mask, final byte op1, final byte op2) {
+        return select(mask, (int) op1, (int) op2);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final int mask, final byte op1, final int op2) {
+        return select(mask, (int) op1, op2);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final int mask, final int op1, final byte op2) {
+        return select(mask, op1, (int) op2);
+    }
+
+    /**
+     * Select bits from <code>op1</code> where <code>mask</code> has a one bit and from
+     * <code>op2</code> where it has a zero bit
+     */
+    public static final byte select(final int mask, final int op1, final int op2) {
+        return (byte) (op2 ^ ((op1 ^ op2) & mask));
+    }
+
+    /**
+     * Select bits from <code>a</code> where <code>mask</code> has a one bit and from
+     * <code>b</code> where it has a zero bit, byte by byte, storing the results into
+     * <code>dst</code>. <code>dst</code> may be the same range as <code>a</code> or
+     * <code>b</code>.
+     */
+    public static final void select(final byte[] mask, final int maskOff, final byte[] a,
+            final int aOff, final byte[] b, final int bOff, final byte[] dst, final int dstOff,
+            final int len) {
+        checkRange(mask, maskOff, len);
+        checkRange(a, aOff, len);
+        checkRange(b, bOff, len);
+        checkRange(dst, dstOff, len);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            final long m = (long) LONGS.get(mask, maskOff + i);
+            final long x = (long) LONGS.get(a, aOff + i);
+            final long y = (long) LONGS.get(b, bOff + i);
+            LONGS.set(dst, dstOff + i, y ^ ((x ^ y) & m));
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = select(mask[maskOff + i], a[aOff + i], b[bOff + i]);
+        }
+    }
+
+    /**
+     * Select bits from <code>a</code> where <code>mask</code> has a one bit and from
+     * <code>b</code> where it has a zero bit, for every byte, storing the results into
+     * <code>dst</code>
+     */
+    public static final void select(final byte mask, final byte[] a, final int aOff,
+            final byte[] b, final int bOff, final byte[] dst, final int dstOff, final int len) {
+        select((int) mask, a, aOff, b, bOff, dst, dstOff, len);
+    }
+
+    /**
+     * Select bits from <code>a</code> where <code>mask</code> has a one bit and from
+     * <code>b</code> where it has a zero bit, for every byte, storing the results into
+     * <code>dst</code>
+     */
+    public static final void select(final int mask, final byte[] a, final int aOff,
+            final byte[] b, final int bOff, final byte[] dst, final int dstOff, final int len) {
+        checkRange(a, aOff, len);
+        checkRange(b, bOff, len);
+        checkRange(dst, dstOff, len);
+        final long m = broadcast(mask);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            final long x = (long) LONGS.get(a, aOff + i);
+            final long y = (long) LONGS.get(b, bOff + i);
+            LONGS.set(dst, dstOff + i, y ^ ((x ^ y) & m));
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = select(mask, a[aOff + i], b[bOff + i]);
+        }
+    }
+
+    /**
+     * Select bits from the remaining bytes of <code>a</code> where the bytes of
+     * <code>mask</code> have a one bit and from <code>b</code> where they have a zero bit,
+     * storing the results into <code>dst</code>. Each buffer is used from its position; the
+     * positions and limits are left untouched.
+     */
+    public static final void select(final ByteBuffer mask, final ByteBuffer a,
+            final ByteBuffer b, final ByteBuffer dst) {
+        BufferKernels.checkTarget(a, dst);
+        if (mask.remaining() < a.remaining() || b.remaining() < a.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (mask.hasArray() && a.hasArray() && b.hasArray() && dst.hasArray()) {
+            select(mask.array(), BufferKernels.arrayIndex(mask), a.array(),
+                    BufferKernels.arrayIndex(a), b.array(), BufferKernels.arrayIndex(b),
+                    dst.array(), BufferKernels.arrayIndex(dst), a.remaining());
+        } else {
+            BufferKernels.select(mask, a, b, dst);
+        }
+    }
+
+    /**
+     * Swap the high and low nibbles of <code>op1</code>
+     */
+    public static final byte swapNibbles(final byte op1) {
+        return swapNibbles((int) op1);
+    }
+
+    /**
+     * Swap the high and low nibbles of <code>op1</code>
+     */
+    public static final byte swapNibbles(final int op1) {
+        return (byte) (((op1 & 0x0F) << 4) | ((op1 & 0xF0) >>> 4));
+    }
+
+    /**
+     * Swap the high and low nibbles of each byte in <code>src</code>, storing the results into
+     * <code>dst</code>
+     */
+    public static final void swapNibbles(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        shiftWords(src, srcOff, dst, dstOff, len, 4, 4);
+    }
+
+    /**
+     * Swap the high and low nibbles of each byte in <code>buf</code> in place
+     */
+    public static final void swapNibbles(final byte[] buf, final int off, final int len) {
+        swapNibbles(buf, off, buf, off, len);
+    }
+
+    /**
+     * Swap the high and low nibbles of each remaining byte in <code>src</code>, storing the
+     * results into <code>dst</code> starting at its position. The positions and limits of both
+     * buffers are left untouched.
+     */
+    public static final void swapNibbles(final ByteBuffer src, final ByteBuffer dst) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            swapNibbles(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining());
+        } else {
+            BufferKernels.map(src, dst, 4, 4, BYTE_MASK, 0);
+        }
+    }
+
+    /**
+     * Swap the high and low nibbles of each remaining byte in <code>buf</code> in place
+     */
+    public static final void swapNibbles(final ByteBuffer buf) {
+        swapNibbles(buf, buf);
+    }
+
     /**
      * Perform bitwise XOR of <code>op1</code> and <code>op2</code>
      */
@@ -283,6 +1332,265 @@ public class ByteOps {
         return (byte) ((op1 ^ op2) & BYTE_MASK);
     }
 
+    /**
+     * Perform bitwise XOR of each byte in <code>dst</code> with the corresponding byte in
+     * <code>src</code>, storing the result back into <code>dst</code>. Eight bytes are processed
+     * per step as <code>long</code> words. If <code>src</code> and <code>dst</code> are the same
+     * array the two ranges must either be identical or not overlap.
+     */
+    public static final void xor(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            long a = (long) LONGS.get(dst, dstOff + i);
+            long b = (long) LONGS.get(src, srcOff + i);
+            LONGS.set(dst, dstOff + i, a ^ b);
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (dst[dstOff + i] ^ src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Perform bitwise XOR of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public static final void xor(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final byte op2) {
+        xor(src, srcOff, dst, dstOff, len, (int) op2);
+    }
+
+    /**
+     * Perform bitwise XOR of each byte in <code>src</code> with <code>op2</code>, storing the
+     * results into <code>dst</code>
+     */
+    public static final void xor(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int op2) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        xorWords(src, srcOff, dst, dstOff, len, broadcast(op2));
+    }
+
+    /**
+     * Perform bitwise XOR of each byte in <code>buf</code> with <code>op2</code> in place
+     */
+    public static final void xor(final byte[] buf, final int off, final int len, final byte op2) {
+        xor(buf, off, len, (int) op2);
+    }
+
+    /**
+     * Perform bitwise XOR of each byte in <code>buf</code> with <code>op2</code> in place
+     */
+    public static final void xor(final byte[] buf, final int off, final int len, final int op2) {
+        xor(buf, off, buf, off, len, op2);
+    }
+
+    /**
+     * Perform bitwise XOR of each remaining byte in <code>dst</code> with the corresponding
+     * remaining byte in <code>src</code>, storing the result back into <code>dst</code>. The
+     * positions and limits of both buffers are left untouched.
+     */
+    public static final void xor(final ByteBuffer src, final ByteBuffer dst) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            xor(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining());
+        } else {
+            BufferKernels.combine(src, dst, BufferKernels.XOR);
+        }
+    }
+
+    /**
+     * Perform bitwise XOR of each remaining byte in <code>src</code> with <code>op2</code>,
+     * storing the results into <code>dst</code> starting at its position. The positions and
+     * limits of both buffers are left untouched.
+     */
+    public static final void xor(final ByteBuffer src, final ByteBuffer dst, final byte op2) {
+        xor(src, dst, (int) op2);
+    }
+
+    /**
+     * Perform bitwise XOR of each remaining byte in <code>src</code> with <code>op2</code>,
+     * storing the results into <code>dst</code> starting at its position. The positions and
+     * limits of both buffers are left untouched.
+     */
+    public static final void xor(final ByteBuffer src, final ByteBuffer dst, final int op2) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            xor(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), op2);
+        } else {
+            BufferKernels.map(src, dst, 0, 8, BYTE_MASK, op2);
+        }
+    }
+
+    /**
+     * Perform bitwise XOR of each remaining byte in <code>buf</code> with <code>op2</code> in
+     * place
+     */
+    public static final void xor(final ByteBuffer buf, final byte op2) {
+        xor(buf, buf, (int) op2);
+    }
+
+    /**
+     * Perform bitwise XOR of each remaining byte in <code>buf</code> with <code>op2</code> in
+     * place
+     */
+    public static final void xor(final ByteBuffer buf, final int op2) {
+        xor(buf, buf, op2);
+    }
+
+    /*
+     * Bulk kernels. Arrays are viewed as native-order long words so that eight bytes are handled
+     * per step; the bitwise operations don't care about byte order since every byte lane is
+     * independent. Whatever doesn't fill a whole word is finished one byte at a time.
+     */
+
+    /**
+     * Replicate the low byte of <code>op</code> into all eight byte lanes of a long
+     */
+    static long broadcast(final int op) {
+        return (op & BYTE_MASK) * LANES;
+    }
+
+    static void checkRange(final byte[] array, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, array.length);
+    }
+
+    private static void andWords(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final long pattern) {
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            LONGS.set(dst, dstOff + i, (long) LONGS.get(src, srcOff + i) & pattern);
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] & pattern);
+        }
+    }
+
+    private static void orWords(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final long pattern) {
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            LONGS.set(dst, dstOff + i, (long) LONGS.get(src, srcOff + i) | pattern);
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] | pattern);
+        }
+    }
+
+    private static void xorWords(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final long pattern) {
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            LONGS.set(dst, dstOff + i, (long) LONGS.get(src, srcOff + i) ^ pattern);
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] ^ pattern);
+        }
+    }
+
+    /**
+     * Clamp a per-byte shift count so that anything outside 0 to 7 shifts every bit out
+     */
+    static int shiftCount(final int n) {
+        return (n >= 0 && n < 8) ? n : 8;
+    }
+
+    /*
+     * Combined kernel for the per-byte shifts and rotates. Each byte becomes
+     * <code>(b << left) | (b >>> right)</code> truncated to eight bits, where a count of 8 drops
+     * that half entirely. Masking after the word-wide shift stops bits from leaking into the
+     * neighbouring byte lane.
+     */
+    private static void shiftWords(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int left, final int right) {
+        final int leftMask = (BYTE_MASK << left) & BYTE_MASK;
+        final int rightMask = BYTE_MASK >>> right;
+        final long leftLanes = broadcast(leftMask);
+        final long rightLanes = broadcast(rightMask);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            long w = (long) LONGS.get(src, srcOff + i);
+            w = ((w << left) & leftLanes) | ((w >>> right) & rightLanes);
+            LONGS.set(dst, dstOff + i, w);
+        }
+        for (; i < len; i++) {
+            int b = src[srcOff + i] & BYTE_MASK;
+            dst[dstOff + i] = (byte) (((b << left) & leftMask) | ((b >>> right) & rightMask));
+        }
+    }
+
+    /**
+     * Reverse the bits within each byte lane of <code>w</code> by swapping neighbouring bits,
+     * then bit pairs, then nibbles
+     */
+    static long reverseBitsWord(long w) {
+        w = ((w >>> 1) & 0x5555555555555555L) | ((w & 0x5555555555555555L) << 1);
+        w = ((w >>> 2) & 0x3333333333333333L) | ((w & 0x3333333333333333L) << 2);
+        return ((w >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((w & 0x0F0F0F0F0F0F0F0FL) << 4);
+    }
+
+    /**
+     * Reverse the bytes within each <code>width</code> byte lane of <code>w</code>. Each of
+     * these is its own mirror image, so the result is the same whatever order <code>w</code>
+     * was loaded in.
+     */
+    static long reverseBytesWord(final long w, final int width) {
+        switch (width) {
+        case 2:
+            return ((w >>> 8) & 0x00FF00FF00FF00FFL) | ((w & 0x00FF00FF00FF00FFL) << 8);
+        case 4:
+            return Long.rotateLeft(Long.reverseBytes(w), 32);
+        default:
+            return Long.reverseBytes(w);
+        }
+    }
+
+    /**
+     * Check that <code>len</code> is a whole number of <code>width</code> byte lanes
+     */
+    static void checkLanes(final int len, final int width) {
+        if (len % width != 0) {
+            throw new IllegalArgumentException(
+                    "length " + len + " is not a multiple of " + width + " bytes");
+        }
+    }
+
+    private static void reverseBytes(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len, final int width) {
+        checkRange(src, srcOff, len);
+        checkRange(dst, dstOff, len);
+        checkLanes(len, width);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            LONGS.set(dst, dstOff + i, reverseBytesWord((long) LONGS.get(src, srcOff + i), width));
+        }
+        // swap mirrored pairs so that the tail also works in place
+        for (; i < len; i += width) {
+            for (int lo = 0, hi = width - 1; lo < hi; lo++, hi--) {
+                byte a = src[srcOff + i + lo];
+                byte b = src[srcOff + i + hi];
+                dst[dstOff + i + lo] = b;
+                dst[dstOff + i + hi] = a;
+            }
+        }
+    }
+
+    private static void reverseBytes(final ByteBuffer src, final ByteBuffer dst,
+            final int width) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            reverseBytes(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), width);
+        } else {
+            checkLanes(src.remaining(), width);
+            BufferKernels.reverseBytes(src, dst, width);
+        }
+    }
+
     /* Below here are all bytes 0-255 as constants */
     public static final byte B0x00 = (byte) 0x00;
     public static final byte B0x01 = (byte) 0x01;
@@ -0,0 +1,162 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A byte sequence compiled for repeated searching with the Boyer-Moore-Horspool algorithm. The
+ * search compares the last byte of each candidate window first and, on a mismatch, skips ahead
+ * by how far that byte sits from the end of the pattern, so long patterns are found while
+ * reading only a fraction of the input. The skip table is built once by
+ * {@link #compile(byte[])} and searching allocates nothing.
+ * 
+ * Indices and buffers are handled as in {@link ByteSearch}. A pattern is immutable and can be
+ * shared between threads.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BytePattern {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private final byte[] pattern;
+    private final int[] skip = new int[256];
+
+    private BytePattern(final byte[] pattern) {
+        this.pattern = pattern;
+        final int m = pattern.length;
+        Arrays.fill(skip, Math.max(m, 1));
+        for (int i = 0; i < m - 1; i++) {
+            skip[pattern[i] & BYTE_MASK] = m - 1 - i;
+        }
+    }
+
+    /**
+     * Returns <code>pattern</code> compiled for searching. The array is copied.
+     */
+    public static BytePattern compile(final byte[] pattern) {
+        return new BytePattern(pattern.clone());
+    }
+
+    public int length() {
+        return pattern.length;
+    }
+
+    /**
+     * Returns a copy of the pattern's bytes
+     */
+    public byte[] toArray() {
+        return pattern.clone();
+    }
+
+    /**
+     * Returns the index of the first occurrence of the pattern in <code>len</code> bytes of
+     * <code>src</code> starting at <code>off</code>, or -1. An empty pattern matches at
+     * <code>off</code>.
+     */
+    public int indexIn(final byte[] src, final int off, final int len) {
+        ByteOps.checkRange(src, off, len);
+        final int m = pattern.length;
+        if (m <= 1) {
+            return m == 0 ? off : ByteSearch.indexOf(src, off, len, pattern[0]);
+        }
+        final byte last = pattern[m - 1];
+        final int lastStart = off + len - m;
+        int i = off;
+        while (i <= lastStart) {
+            final byte b = src[i + m - 1];
+            if (b == last && Arrays.equals(src, i, i + m - 1, pattern, 0, m - 1)) {
+                return i;
+            }
+            i += skip[b & BYTE_MASK];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the pattern between the position and limit
+     * of <code>buf</code>, or -1
+     */
+    public int indexIn(final ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return ByteSearch.toBuffer(buf,
+                    indexIn(buf.array(), BufferKernels.arrayIndex(buf), buf.remaining()));
+        }
+        final int m = pattern.length;
+        if (m <= 1) {
+            return m == 0 ? buf.position() : ByteSearch.indexOf(buf, pattern[0]);
+        }
+        final byte last = pattern[m - 1];
+        final int lastStart = buf.limit() - m;
+        int i = buf.position();
+        while (i <= lastStart) {
+            final byte b = buf.get(i + m - 1);
+            if (b == last && ByteSearch.matches(buf, i, pattern)) {
+                return i;
+            }
+            i += skip[b & BYTE_MASK];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of non-overlapping occurrences of the pattern in <code>len</code>
+     * bytes of <code>src</code> starting at <code>off</code>
+     * 
+     * @throws IllegalStateException if the pattern is empty
+     */
+    public int countIn(final byte[] src, final int off, final int len) {
+        ByteOps.checkRange(src, off, len);
+        if (pattern.length == 0) {
+            throw new IllegalStateException("empty pattern");
+        }
+        final int end = off + len;
+        int count = 0;
+        for (int i = indexIn(src, off, len); i >= 0; i = indexIn(src, i, end - i)) {
+            count++;
+            i += pattern.length;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof BytePattern && Arrays.equals(pattern, ((BytePattern) obj).pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pattern);
+    }
+
+    @Override
+    public String toString() {
+        return "BytePattern[" + HexCodec.upperCase().encode(pattern) + "]";
+    }
+
+}
@@ -0,0 +1,262 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A set of byte sequences searched for all at once with the Aho-Corasick algorithm. The
+ * patterns are compiled into a deterministic automaton with a full 256-entry transition row per
+ * state, so the search reads each input byte exactly once and does one table lookup for it, no
+ * matter how many patterns there are or how they overlap.
+ * 
+ * {@link #indexIn(byte[], int, int)} finds where the earliest-ending match starts, which is
+ * all a resync needs. {@link #search(byte[], int, int, MatchHandler)} reports every match,
+ * including overlapping ones and patterns that end inside others, to a callback that can stop
+ * the search early. Neither allocates. Indices and buffers are handled as in
+ * {@link ByteSearch}.
+ * 
+ * The automaton takes 1 KB per pattern byte. A set is immutable and can be shared between
+ * threads.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class BytePatternSet {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * Receives the matches found by {@link BytePatternSet#search}
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+
+        /**
+         * Called for each match of pattern number <code>pattern</code>, which occupies the
+         * indices from <code>start</code> up to but not including <code>end</code>. Matches are
+         * reported in order of <code>end</code>, longest first for matches that end together.
+         * 
+         * @return true to continue searching, false to stop
+         */
+        boolean onMatch(int pattern, int start, int end);
+
+    }
+
+    private final byte[][] patterns;
+
+    /* next[(state << 8) | b] is the state after reading b in state */
+    private final int[] next;
+
+    /* Patterns ending in each state, longest first, or null for none */
+    private final int[][] outputs;
+
+    private BytePatternSet(final byte[][] patterns) {
+        this.patterns = patterns;
+        int capacity = 1;
+        for (byte[] pattern : patterns) {
+            if (pattern.length == 0) {
+                throw new IllegalArgumentException("empty pattern");
+            }
+            capacity += pattern.length;
+        }
+        int[] delta = new int[capacity << 8];
+        Arrays.fill(delta, -1);
+        int[][] out = new int[capacity][];
+        int states = 1;
+        for (int p = 0; p < patterns.length; p++) {
+            int state = 0;
+            for (byte b : patterns[p]) {
+                final int edge = (state << 8) | (b & BYTE_MASK);
+                if (delta[edge] < 0) {
+                    delta[edge] = states++;
+                }
+                state = delta[edge];
+            }
+            out[state] = append(out[state], p);
+        }
+
+        // breadth first, so the failure state of every state is complete before it is used
+        final int[] fail = new int[states];
+        final int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int b = 0; b < 256; b++) {
+            if (delta[b] < 0) {
+                delta[b] = 0;
+            } else {
+                queue[tail++] = delta[b];
+            }
+        }
+        while (head < tail) {
+            final int state = queue[head++];
+            final int[] inherited = out[fail[state]];
+            if (inherited != null) {
+                out[state] = out[state] == null ? inherited : concat(out[state], inherited);
+            }
+            for (int b = 0; b < 256; b++) {
+                final int edge = (state << 8) | b;
+                final int fallback = delta[(fail[state] << 8) | b];
+                if (delta[edge] < 0) {
+                    delta[edge] = fallback;
+                } else {
+                    fail[delta[edge]] = fallback;
+                    queue[tail++] = delta[edge];
+                }
+            }
+        }
+        this.next = Arrays.copyOf(delta, states << 8);
+        this.outputs = Arrays.copyOf(out, states);
+    }
+
+    /**
+     * Returns a set of the given patterns, numbered in the order given. The arrays are copied.
+     * 
+     * @throws IllegalArgumentException if any pattern is empty
+     */
+    public static BytePatternSet of(final byte[]... patterns) {
+        byte[][] copies = new byte[patterns.length][];
+        for (int i = 0; i < patterns.length; i++) {
+            copies[i] = patterns[i].clone();
+        }
+        return new BytePatternSet(copies);
+    }
+
+    /**
+     * Returns the number of patterns in the set
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns a copy of pattern number <code>index</code>
+     */
+    public byte[] pattern(final int index) {
+        return patterns[index].clone();
+    }
+
+    /**
+     * Returns the start of the first match to end in <code>len</code> bytes of
+     * <code>src</code> starting at <code>off</code>, or -1 if no pattern occurs. If several
+     * matches end at the same byte the longest wins.
+     */
+    public int indexIn(final byte[] src, final int off, final int len) {
+        ByteOps.checkRange(src, off, len);
+        int state = 0;
+        for (int i = off; i < off + len; i++) {
+            state = next[(state << 8) | (src[i] & BYTE_MASK)];
+            if (outputs[state] != null) {
+                return i + 1 - patterns[outputs[state][0]].length;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the start of the first match to end between the position and limit of
+     * <code>buf</code>, or -1 if no pattern occurs
+     */
+    public int indexIn(final ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return ByteSearch.toBuffer(buf,
+                    indexIn(buf.array(), BufferKernels.arrayIndex(buf), buf.remaining()));
+        }
+        int state = 0;
+        for (int i = buf.position(); i < buf.limit(); i++) {
+            state = next[(state << 8) | (buf.get(i) & BYTE_MASK)];
+            if (outputs[state] != null) {
+                return i + 1 - patterns[outputs[state][0]].length;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Report every match in <code>len</code> bytes of <code>src</code> starting at
+     * <code>off</code> to <code>handler</code>, until it asks to stop
+     * 
+     * @return the number of matches reported
+     */
+    public int search(final byte[] src, final int off, final int len,
+            final MatchHandler handler) {
+        ByteOps.checkRange(src, off, len);
+        int state = 0;
+        int count = 0;
+        for (int i = off; i < off + len; i++) {
+            state = next[(state << 8) | (src[i] & BYTE_MASK)];
+            if (outputs[state] != null) {
+                for (int p : outputs[state]) {
+                    count++;
+                    if (!handler.onMatch(p, i + 1 - patterns[p].length, i + 1)) {
+                        return count;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Report every match between the position and limit of <code>buf</code> to
+     * <code>handler</code>, until it asks to stop. Indices are absolute indices into
+     * <code>buf</code>.
+     * 
+     * @return the number of matches reported
+     */
+    public int search(final ByteBuffer buf, final MatchHandler handler) {
+        int state = 0;
+        int count = 0;
+        for (int i = buf.position(); i < buf.limit(); i++) {
+            state = next[(state << 8) | (buf.get(i) & BYTE_MASK)];
+            if (outputs[state] != null) {
+                for (int p : outputs[state]) {
+                    count++;
+                    if (!handler.onMatch(p, i + 1 - patterns[p].length, i + 1)) {
+                        return count;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int[] append(final int[] array, final int value) {
+        if (array == null) {
+            return new int[] { value };
+        }
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static int[] concat(final int[] a, final int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+}
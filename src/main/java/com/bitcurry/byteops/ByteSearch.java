@@ -0,0 +1,415 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Searches for single bytes, sets of bytes and short byte sequences in arrays and buffers. The
+ * single-byte and small-set searches read eight bytes at a time as a <code>long</code> and use
+ * the classic "has zero byte" trick: XORing a word with the target repeated in every lane
+ * leaves a zero byte wherever they match, and a few adds and masks turn each zero byte into a
+ * flag bit whose position gives the offset of the match.
+ * 
+ * Every method works on <code>len</code> bytes of an array starting at <code>off</code>, or on
+ * the bytes between a buffer's position and limit, and returns the index of the match in the
+ * same array or buffer, or -1 if there is none. Nothing is allocated and buffer positions are
+ * left untouched. Direct and memory-mapped buffers are read in place without copying.
+ * 
+ * To search for the same sequence many times, or for many sequences at once, compile it once
+ * into a {@link BytePattern} or a {@link BytePatternSet}.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ByteSearch {
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    /* Sets up to this size are matched with word compares, larger ones byte by byte */
+    private static final int WORD_SET_SIZE = 3;
+
+    /* Little endian so that lane i of a word is byte i of the array */
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ByteSearch() {
+    }
+
+    /**
+     * Returns the index of the first occurrence of the low eight bits of <code>value</code> in
+     * <code>len</code> bytes of <code>src</code> starting at <code>off</code>, or -1
+     */
+    public static int indexOf(final byte[] src, final int off, final int len, final int value) {
+        ByteOps.checkRange(src, off, len);
+        final long pattern = ByteOps.broadcast(value);
+        final int end = off + len;
+        int i = off;
+        for (; i <= end - 8; i += 8) {
+            final long flags = zeroBytes((long) LONGS.get(src, i) ^ pattern);
+            if (flags != 0) {
+                return i + first(flags);
+            }
+        }
+        final byte b = (byte) value;
+        for (; i < end; i++) {
+            if (src[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the low eight bits of <code>value</code>
+     * between the position and limit of <code>buf</code>, or -1
+     */
+    public static int indexOf(final ByteBuffer buf, final int value) {
+        if (buf.hasArray()) {
+            return toBuffer(buf, indexOf(buf.array(), BufferKernels.arrayIndex(buf),
+                    buf.remaining(), value));
+        }
+        return indexOf(buf, buf.position(), buf.limit(), value);
+    }
+
+    /*
+     * First occurrence of value between the absolute indexes from and end of a buffer without
+     * an accessible array
+     */
+    private static int indexOf(final ByteBuffer buf, final int from, final int end,
+            final int value) {
+        final long pattern = ByteOps.broadcast(value);
+        int i = from;
+        for (; i <= end - 8; i += 8) {
+            final long flags = zeroBytes((long) BUFFER_LONGS.get(buf, i) ^ pattern);
+            if (flags != 0) {
+                return i + first(flags);
+            }
+        }
+        final byte b = (byte) value;
+        for (; i < end; i++) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the low eight bits of <code>value</code> in
+     * <code>len</code> bytes of <code>src</code> starting at <code>off</code>, or -1
+     */
+    public static int lastIndexOf(final byte[] src, final int off, final int len,
+            final int value) {
+        ByteOps.checkRange(src, off, len);
+        final long pattern = ByteOps.broadcast(value);
+        int i = off + len;
+        for (; i - 8 >= off; i -= 8) {
+            final long flags = zeroBytes((long) LONGS.get(src, i - 8) ^ pattern);
+            if (flags != 0) {
+                return i - 1 - last(flags);
+            }
+        }
+        final byte b = (byte) value;
+        while (--i >= off) {
+            if (src[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the low eight bits of <code>value</code>
+     * between the position and limit of <code>buf</code>, or -1
+     */
+    public static int lastIndexOf(final ByteBuffer buf, final int value) {
+        if (buf.hasArray()) {
+            return toBuffer(buf, lastIndexOf(buf.array(), BufferKernels.arrayIndex(buf),
+                    buf.remaining(), value));
+        }
+        final long pattern = ByteOps.broadcast(value);
+        final int start = buf.position();
+        int i = buf.limit();
+        for (; i - 8 >= start; i -= 8) {
+            final long flags = zeroBytes((long) BUFFER_LONGS.get(buf, i - 8) ^ pattern);
+            if (flags != 0) {
+                return i - 1 - last(flags);
+            }
+        }
+        final byte b = (byte) value;
+        while (--i >= start) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first byte that is a member of <code>set</code> in
+     * <code>len</code> bytes of <code>src</code> starting at <code>off</code>, or -1
+     */
+    public static int indexOfAny(final byte[] src, final int off, final int len,
+            final ByteSet set) {
+        ByteOps.checkRange(src, off, len);
+        final int size = set.size();
+        if (size == 1) {
+            return indexOf(src, off, len, set.next(0));
+        }
+        final int end = off + len;
+        int i = off;
+        if (size <= WORD_SET_SIZE && size > 0) {
+            final int lowest = set.next(0);
+            final int middle = set.next(lowest + 1);
+            final long a = ByteOps.broadcast(lowest);
+            final long b = ByteOps.broadcast(middle);
+            final long c = size == 3 ? ByteOps.broadcast(set.next(middle + 1)) : b;
+            for (; i <= end - 8; i += 8) {
+                final long w = (long) LONGS.get(src, i);
+                final long flags = zeroBytes(w ^ a) | zeroBytes(w ^ b) | zeroBytes(w ^ c);
+                if (flags != 0) {
+                    return i + first(flags);
+                }
+            }
+        }
+        for (; i < end; i++) {
+            if (set.contains(src[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first byte that is a member of <code>set</code> between the
+     * position and limit of <code>buf</code>, or -1
+     */
+    public static int indexOfAny(final ByteBuffer buf, final ByteSet set) {
+        if (buf.hasArray()) {
+            return toBuffer(buf, indexOfAny(buf.array(), BufferKernels.arrayIndex(buf),
+                    buf.remaining(), set));
+        }
+        final int size = set.size();
+        if (size == 1) {
+            return indexOf(buf, set.next(0));
+        }
+        final int end = buf.limit();
+        int i = buf.position();
+        if (size <= WORD_SET_SIZE && size > 0) {
+            final int lowest = set.next(0);
+            final int middle = set.next(lowest + 1);
+            final long a = ByteOps.broadcast(lowest);
+            final long b = ByteOps.broadcast(middle);
+            final long c = size == 3 ? ByteOps.broadcast(set.next(middle + 1)) : b;
+            for (; i <= end - 8; i += 8) {
+                final long w = (long) BUFFER_LONGS.get(buf, i);
+                final long flags = zeroBytes(w ^ a) | zeroBytes(w ^ b) | zeroBytes(w ^ c);
+                if (flags != 0) {
+                    return i + first(flags);
+                }
+            }
+        }
+        for (; i < end; i++) {
+            if (set.contains(buf.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last byte that is a member of <code>set</code> in
+     * <code>len</code> bytes of <code>src</code> starting at <code>off</code>, or -1
+     */
+    public static int lastIndexOfAny(final byte[] src, final int off, final int len,
+            final ByteSet set) {
+        ByteOps.checkRange(src, off, len);
+        final int size = set.size();
+        if (size == 1) {
+            return lastIndexOf(src, off, len, set.next(0));
+        }
+        int i = off + len;
+        if (size <= WORD_SET_SIZE && size > 0) {
+            final int lowest = set.next(0);
+            final int middle = set.next(lowest + 1);
+            final long a = ByteOps.broadcast(lowest);
+            final long b = ByteOps.broadcast(middle);
+            final long c = size == 3 ? ByteOps.broadcast(set.next(middle + 1)) : b;
+            for (; i - 8 >= off; i -= 8) {
+                final long w = (long) LONGS.get(src, i - 8);
+                final long flags = zeroBytes(w ^ a) | zeroBytes(w ^ b) | zeroBytes(w ^ c);
+                if (flags != 0) {
+                    return i - 1 - last(flags);
+                }
+            }
+        }
+        while (--i >= off) {
+            if (set.contains(src[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last byte that is a member of <code>set</code> between the
+     * position and limit of <code>buf</code>, or -1
+     */
+    public static int lastIndexOfAny(final ByteBuffer buf, final ByteSet set) {
+        if (buf.hasArray()) {
+            return toBuffer(buf, lastIndexOfAny(buf.array(), BufferKernels.arrayIndex(buf),
+                    buf.remaining(), set));
+        }
+        final int size = set.size();
+        if (size == 1) {
+            return lastIndexOf(buf, set.next(0));
+        }
+        final int start = buf.position();
+        int i = buf.limit();
+        if (size <= WORD_SET_SIZE && size > 0) {
+            final int lowest = set.next(0);
+            final int middle = set.next(lowest + 1);
+            final long a = ByteOps.broadcast(lowest);
+            final long b = ByteOps.broadcast(middle);
+            final long c = size == 3 ? ByteOps.broadcast(set.next(middle + 1)) : b;
+            for (; i - 8 >= start; i -= 8) {
+                final long w = (long) BUFFER_LONGS.get(buf, i - 8);
+                final long flags = zeroBytes(w ^ a) | zeroBytes(w ^ b) | zeroBytes(w ^ c);
+                if (flags != 0) {
+                    return i - 1 - last(flags);
+                }
+            }
+        }
+        while (--i >= start) {
+            if (set.contains(buf.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of <code>pattern</code> in <code>len</code>
+     * bytes of <code>src</code> starting at <code>off</code>, or -1. An empty pattern matches
+     * at <code>off</code>. This scans for the first byte of the pattern and compares the rest
+     * at each hit, which suits short patterns such as magic numbers; compile a
+     * {@link BytePattern} for longer ones.
+     */
+    public static int indexOf(final byte[] src, final int off, final int len,
+            final byte[] pattern) {
+        ByteOps.checkRange(src, off, len);
+        final int m = pattern.length;
+        if (m == 0) {
+            return off;
+        }
+        final int lastStart = off + len - m;
+        int i = off;
+        while (i <= lastStart) {
+            i = indexOf(src, i, lastStart - i + 1, pattern[0]);
+            if (i < 0) {
+                return -1;
+            }
+            if (Arrays.equals(src, i + 1, i + m, pattern, 1, m)) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of <code>pattern</code> between the position
+     * and limit of <code>buf</code>, or -1
+     */
+    public static int indexOf(final ByteBuffer buf, final byte[] pattern) {
+        if (buf.hasArray()) {
+            return toBuffer(buf, indexOf(buf.array(), BufferKernels.arrayIndex(buf),
+                    buf.remaining(), pattern));
+        }
+        final int m = pattern.length;
+        if (m == 0) {
+            return buf.position();
+        }
+        final int lastStart = buf.limit() - m;
+        int i = buf.position();
+        while (i <= lastStart) {
+            i = indexOf(buf, i, lastStart + 1, pattern[0]);
+            if (i < 0) {
+                return -1;
+            }
+            if (matches(buf, i, pattern)) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if <code>pattern</code> occurs in <code>buf</code> at absolute index
+     * <code>index</code>
+     */
+    static boolean matches(final ByteBuffer buf, final int index, final byte[] pattern) {
+        for (int j = 0; j < pattern.length; j++) {
+            if (buf.get(index + j) != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Convert an index into a buffer's backing array, or -1, into an index into the buffer
+     */
+    static int toBuffer(final ByteBuffer buf, final int arrayIndex) {
+        return arrayIndex < 0 ? -1 : arrayIndex - buf.arrayOffset();
+    }
+
+    /*
+     * The high bit of each byte lane is set where that byte of x is zero. Unlike the shorter
+     * (x - 0x01..01) & ~x & 0x80..80 there are no false positives above a zero byte, so the
+     * last flag is as exact as the first.
+     */
+    private static long zeroBytes(final long x) {
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    private static int first(final long flags) {
+        return Long.numberOfTrailingZeros(flags) >>> 3;
+    }
+
+    /* Lanes from the top of the word down to the last flag */
+    private static int last(final long flags) {
+        return Long.numberOfLeadingZeros(flags) >>> 3;
+    }
+
+}
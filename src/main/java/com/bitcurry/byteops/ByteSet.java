@@ -0,0 +1,319 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of unsigned byte values from 0x00 to 0xFF, stored as a 256-bit bitmap in four
+ * <code>long</code>s, for use in place of <code>Set&lt;Byte&gt;</code>. Membership tests and
+ * updates are a shift and a mask, and the set operations work a whole word at a time. Values
+ * are given as a <code>byte</code> or as the low eight bits of an <code>int</code>, and always
+ * come back unsigned, matching the <code>B0xHH</code> constants of {@link ByteOps}.
+ * 
+ * Members are iterated in ascending order with {@link #forEach(IntConsumer)} or with
+ * {@link #next(int)}:
+ * 
+ * <pre>
+ * for (int b = set.next(0); b &gt;= 0; b = set.next(b + 1)) {
+ *     ...
+ * }
+ * </pre>
+ * 
+ * This class is not thread safe.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ByteSet {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private final long[] bits = new long[4];
+
+    /**
+     * Create an empty set
+     */
+    public ByteSet() {
+    }
+
+    /**
+     * Returns a set holding the given bytes
+     */
+    public static ByteSet of(final byte... values) {
+        ByteSet set = new ByteSet();
+        for (byte value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    /**
+     * Returns a set holding the low eight bits of each of the given values
+     */
+    public static ByteSet of(final int... values) {
+        ByteSet set = new ByteSet();
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    /**
+     * Returns a set holding every byte value that occurs in <code>len</code> bytes of
+     * <code>src</code> starting at <code>off</code>
+     */
+    public static ByteSet of(final byte[] src, final int off, final int len) {
+        ByteOps.checkRange(src, off, len);
+        ByteSet set = new ByteSet();
+        for (int i = 0; i < len; i++) {
+            set.add(src[off + i]);
+        }
+        return set;
+    }
+
+    /**
+     * Returns a set holding the values from <code>from</code> to <code>to</code> inclusive,
+     * both unsigned
+     */
+    public static ByteSet range(final int from, final int to) {
+        ByteSet set = new ByteSet();
+        for (int b = from & BYTE_MASK; b <= (to & BYTE_MASK); b++) {
+            set.add(b);
+        }
+        return set;
+    }
+
+    /**
+     * Returns a set holding all 256 byte values
+     */
+    public static ByteSet all() {
+        ByteSet set = new ByteSet();
+        Arrays.fill(set.bits, -1L);
+        return set;
+    }
+
+    /**
+     * Add <code>value</code>, returning true if it was not already a member
+     */
+    public boolean add(final byte value) {
+        return add((int) value);
+    }
+
+    /**
+     * Add the low eight bits of <code>value</code>, returning true if it was not already a
+     * member
+     */
+    public boolean add(final int value) {
+        final int b = value & BYTE_MASK;
+        final long old = bits[b >>> 6];
+        bits[b >>> 6] = old | (1L << b);
+        return (old & (1L << b)) == 0;
+    }
+
+    /**
+     * Remove <code>value</code>, returning true if it was a member
+     */
+    public boolean remove(final byte value) {
+        return remove((int) value);
+    }
+
+    /**
+     * Remove the low eight bits of <code>value</code>, returning true if it was a member
+     */
+    public boolean remove(final int value) {
+        final int b = value & BYTE_MASK;
+        final long old = bits[b >>> 6];
+        bits[b >>> 6] = old & ~(1L << b);
+        return (old & (1L << b)) != 0;
+    }
+
+    /**
+     * Returns true if <code>value</code> is a member
+     */
+    public boolean contains(final byte value) {
+        return contains((int) value);
+    }
+
+    /**
+     * Returns true if the low eight bits of <code>value</code> are a member
+     */
+    public boolean contains(final int value) {
+        final int b = value & BYTE_MASK;
+        return (bits[b >>> 6] & (1L << b)) != 0;
+    }
+
+    public int size() {
+        return Long.bitCount(bits[0]) + Long.bitCount(bits[1]) + Long.bitCount(bits[2])
+                + Long.bitCount(bits[3]);
+    }
+
+    public boolean isEmpty() {
+        return (bits[0] | bits[1] | bits[2] | bits[3]) == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    /**
+     * Add every member of <code>other</code> to this set
+     */
+    public void addAll(final ByteSet other) {
+        for (int i = 0; i < 4; i++) {
+            bits[i] |= other.bits[i];
+        }
+    }
+
+    /**
+     * Remove every member that is not also in <code>other</code>
+     */
+    public void retainAll(final ByteSet other) {
+        for (int i = 0; i < 4; i++) {
+            bits[i] &= other.bits[i];
+        }
+    }
+
+    /**
+     * Remove every member of <code>other</code> from this set
+     */
+    public void removeAll(final ByteSet other) {
+        for (int i = 0; i < 4; i++) {
+            bits[i] &= ~other.bits[i];
+        }
+    }
+
+    /**
+     * Replace the set with its complement, the byte values that were not members
+     */
+    public void complement() {
+        for (int i = 0; i < 4; i++) {
+            bits[i] = ~bits[i];
+        }
+    }
+
+    /**
+     * Returns true if every member of <code>other</code> is also a member of this set
+     */
+    public boolean containsAll(final ByteSet other) {
+        for (int i = 0; i < 4; i++) {
+            if ((other.bits[i] & ~bits[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the smallest member that is at least <code>from</code>, or -1 if there is none.
+     * <code>from</code> is not masked, so that <code>next(b + 1)</code> finishes cleanly after
+     * 0xFF.
+     */
+    public int next(final int from) {
+        if (from < 0) {
+            return next(0);
+        }
+        if (from > BYTE_MASK) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long w = bits[word] & (-1L << from);
+        while (w == 0) {
+            if (++word == 4) {
+                return -1;
+            }
+            w = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    /**
+     * Call <code>action</code> with each member in ascending order
+     */
+    public void forEach(final IntConsumer action) {
+        for (int word = 0; word < 4; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                action.accept((word << 6) + Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the members in ascending order
+     */
+    public byte[] toArray() {
+        final byte[] members = new byte[size()];
+        int i = 0;
+        for (int word = 0; word < 4; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                members[i++] = (byte) ((word << 6) + Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Returns an independent copy of this set
+     */
+    public ByteSet copy() {
+        ByteSet copy = new ByteSet();
+        System.arraycopy(bits, 0, copy.bits, 0, 4);
+        return copy;
+    }
+
+    /**
+     * Returns the bitmap as four <code>long</code>s, member <code>b</code> being bit
+     * <code>b % 64</code> of word <code>b / 64</code>
+     */
+    public long[] toLongArray() {
+        return bits.clone();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof ByteSet && Arrays.equals(bits, ((ByteSet) obj).bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+
+    /**
+     * Returns the members in hex, such as <code>{0x00, 0x7F, 0xFF}</code>
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(b -> sb.append(sb.length() > 1 ? ", " : "").append(String.format("0x%02X", b)));
+        return sb.append('}').toString();
+    }
+
+}
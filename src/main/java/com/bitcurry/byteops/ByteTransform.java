@@ -0,0 +1,333 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable chain of single-byte {@link ByteOps} operations compiled into one 256-entry
+ * lookup table. Since every step maps a byte to a byte, any chain of them is fully described by
+ * its result for each of the 256 inputs, so applying a chain of any length costs one table
+ * lookup per byte. For example
+ * 
+ * <pre>
+ * ByteTransform scramble = ByteTransform.identity().not().lrotate(3).xor(0x5A);
+ * scramble.apply(packet, 0, packet.length);
+ * </pre>
+ * 
+ * computes <code>xor(lrotate(not(b), 3), 0x5A)</code> for every byte of the packet in a single
+ * pass. Each step method returns a new transform and leaves the original untouched, so
+ * transforms can be shared freely between threads.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ByteTransform implements BulkOp {
+
+    private final static int BYTE_MASK = 0x000000FF;
+    private final static int STREAM_BUFFER_SIZE = 8192;
+
+    private static final ByteTransform IDENTITY =
+            new ByteTransform(new BasicOp[0], identityTable());
+
+    private final BasicOp[] steps;
+    private final byte[] table;
+
+    private ByteTransform(final BasicOp[] steps, final byte[] table) {
+        this.steps = steps;
+        this.table = table;
+    }
+
+    /**
+     * Returns the transform that leaves every byte unchanged, the starting point for building a
+     * chain
+     */
+    public static ByteTransform identity() {
+        return IDENTITY;
+    }
+
+    private static byte[] identityTable() {
+        byte[] table = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (byte) i;
+        }
+        return table;
+    }
+
+    /**
+     * Returns this transform followed by an AND with <code>op2</code>
+     */
+    public ByteTransform and(final byte op2) {
+        return then(OpCode.AND, op2 & BYTE_MASK);
+    }
+
+    /**
+     * Returns this transform followed by an AND with <code>op2</code>
+     */
+    public ByteTransform and(final int op2) {
+        return then(OpCode.AND, op2);
+    }
+
+    /**
+     * Returns this transform followed by an OR with <code>op2</code>
+     */
+    public ByteTransform or(final byte op2) {
+        return then(OpCode.OR, op2 & BYTE_MASK);
+    }
+
+    /**
+     * Returns this transform followed by an OR with <code>op2</code>
+     */
+    public ByteTransform or(final int op2) {
+        return then(OpCode.OR, op2);
+    }
+
+    /**
+     * Returns this transform followed by an XOR with <code>op2</code>
+     */
+    public ByteTransform xor(final byte op2) {
+        return then(OpCode.XOR, op2 & BYTE_MASK);
+    }
+
+    /**
+     * Returns this transform followed by an XOR with <code>op2</code>
+     */
+    public ByteTransform xor(final int op2) {
+        return then(OpCode.XOR, op2);
+    }
+
+    /**
+     * Returns this transform followed by a bitwise inversion
+     */
+    public ByteTransform not() {
+        return then(OpCode.NOT, 0);
+    }
+
+    /**
+     * Returns this transform followed by a left shift by <code>n</code> bits
+     */
+    public ByteTransform lshift(final byte n) {
+        return then(OpCode.LSHIFT, n);
+    }
+
+    /**
+     * Returns this transform followed by a left shift by <code>n</code> bits
+     */
+    public ByteTransform lshift(final int n) {
+        return then(OpCode.LSHIFT, n);
+    }
+
+    /**
+     * Returns this transform followed by a right shift by <code>n</code> bits
+     */
+    public ByteTransform rshift(final byte n) {
+        return then(OpCode.RSHIFT, n);
+    }
+
+    /**
+     * Returns this transform followed by a right shift by <code>n</code> bits
+     */
+    public ByteTransform rshift(final int n) {
+        return then(OpCode.RSHIFT, n);
+    }
+
+    /**
+     * Returns this transform followed by a left rotation by <code>n</code> bits
+     */
+    public ByteTransform lrotate(final byte n) {
+        return then(OpCode.LROTATE, n);
+    }
+
+    /**
+     * Returns this transform followed by a left rotation by <code>n</code> bits
+     */
+    public ByteTransform lrotate(final int n) {
+        return then(OpCode.LROTATE, n);
+    }
+
+    /**
+     * Returns this transform followed by a right rotation by <code>n</code> bits
+     */
+    public ByteTransform rrotate(final byte n) {
+        return then(OpCode.RROTATE, n);
+    }
+
+    /**
+     * Returns this transform followed by a right rotation by <code>n</code> bits
+     */
+    public ByteTransform rrotate(final int n) {
+        return then(OpCode.RROTATE, n);
+    }
+
+    /**
+     * Returns this transform followed by every step of <code>next</code>
+     */
+    public ByteTransform then(final ByteTransform next) {
+        BasicOp[] chained = Arrays.copyOf(steps, steps.length + next.steps.length);
+        System.arraycopy(next.steps, 0, chained, steps.length, next.steps.length);
+        byte[] composed = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            composed[i] = next.table[table[i] & BYTE_MASK];
+        }
+        return new ByteTransform(chained, composed);
+    }
+
+    ByteTransform then(final OpCode code, final int operand) {
+        BasicOp[] chained = Arrays.copyOf(steps, steps.length + 1);
+        chained[steps.length] = new BasicOp(code, operand);
+        byte[] composed = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            composed[i] = code.apply(table[i], operand);
+        }
+        return new ByteTransform(chained, composed);
+    }
+
+    /**
+     * Compile this transform into a specialized loop, see {@link TransformKernel}
+     */
+    public TransformKernel compile() {
+        return TransformKernel.compile(this);
+    }
+
+    /**
+     * Returns the closed form of this chain
+     */
+    MaskedRotation fold() {
+        return MaskedRotation.of(steps);
+    }
+
+    /**
+     * Returns the number of steps in this chain
+     */
+    public int size() {
+        return steps.length;
+    }
+
+    /**
+     * Returns a copy of the compiled table, indexed by the unsigned value of the input byte
+     */
+    public byte[] toTable() {
+        return table.clone();
+    }
+
+    /**
+     * Apply this transform to <code>op1</code>
+     */
+    public byte apply(final byte op1) {
+        return table[op1 & BYTE_MASK];
+    }
+
+    /**
+     * Apply this transform to the low eight bits of <code>op1</code>
+     */
+    public byte apply(final int op1) {
+        return table[op1 & BYTE_MASK];
+    }
+
+    @Override
+    public void apply(final byte[] src, final int srcOff, final byte[] dst, final int dstOff,
+            final int len) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        final byte[] table = this.table;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = table[src[srcOff + i] & BYTE_MASK];
+        }
+    }
+
+    @Override
+    public void apply(final ByteBuffer src, final ByteBuffer dst) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            apply(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining());
+            return;
+        }
+        final byte[] table = this.table;
+        final int s = src.position();
+        final int d = dst.position();
+        final int len = src.remaining();
+        for (int i = 0; i < len; i++) {
+            dst.put(d + i, table[src.get(s + i) & BYTE_MASK]);
+        }
+    }
+
+    /**
+     * Transform <code>len</code> bytes of <code>buf</code> in place, changing only the bits
+     * where the corresponding byte of <code>mask</code> has a one bit. The table lookup and
+     * the select are done together in one pass.
+     */
+    @Override
+    public void applyMasked(final byte[] mask, final int maskOff, final byte[] buf,
+            final int off, final int len) {
+        ByteOps.checkRange(mask, maskOff, len);
+        ByteOps.checkRange(buf, off, len);
+        final byte[] table = this.table;
+        for (int i = 0; i < len; i++) {
+            final int b = buf[off + i];
+            buf[off + i] = (byte) (b ^ ((table[b & BYTE_MASK] ^ b) & mask[maskOff + i]));
+        }
+    }
+
+    /**
+     * Copy everything from <code>in</code> to <code>out</code>, applying this transform on the
+     * way, and return the number of bytes copied. Neither stream is closed.
+     */
+    public long transform(final InputStream in, final OutputStream out) throws IOException {
+        final byte[] buf = new byte[STREAM_BUFFER_SIZE];
+        long total = 0;
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            apply(buf, 0, n);
+            out.write(buf, 0, n);
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Two transforms are equal when they map every byte to the same value, even if they were
+     * built from different chains
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof ByteTransform && Arrays.equals(table, ((ByteTransform) obj).table);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(table);
+    }
+
+    @Override
+    public String toString() {
+        return "ByteTransform" + Arrays.toString(steps);
+    }
+
+}
@@ -0,0 +1,321 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A read-only view of a range of a <code>byte[]</code> or <code>ByteBuffer</code> with a
+ * pending {@link ByteTransform}. Nothing is transformed or copied when the view is created or
+ * when steps are added to its chain; a byte read with {@link #get(int)} is transformed on its
+ * own with one table lookup, and {@link #materialize(byte[], int)} runs the whole range through
+ * the {@link TransformKernel} compiled from the chain. So
+ * 
+ * <pre>
+ * ByteView payload = ByteView.of(packet, 20, len).xor(key).rrotate(3);
+ * int type = payload.getUnsigned(0);
+ * </pre>
+ * 
+ * decodes only the byte that is looked at, and slices of the view share its source and chain
+ * without copying either. The view reads the source every time, so changes to the source are
+ * visible through it. A <code>ByteBuffer</code> is viewed from its position to its limit, which
+ * are left untouched.
+ * 
+ * Views are immutable and can be shared between threads as long as the source isn't written
+ * concurrently.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ByteView {
+
+    /* Exactly one of array and buffer is set; base is the index of the view's first byte */
+    private final byte[] array;
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int length;
+    private final ByteTransform transform;
+
+    /* Compiled on first use. A race only compiles the same kernel twice. */
+    private TransformKernel kernel;
+
+    private ByteView(final byte[] array, final ByteBuffer buffer, final int base,
+            final int length, final ByteTransform transform) {
+        this.array = array;
+        this.buffer = buffer;
+        this.base = base;
+        this.length = length;
+        this.transform = transform;
+    }
+
+    /**
+     * Returns an untransformed view of all of <code>buf</code>
+     */
+    public static ByteView of(final byte[] buf) {
+        return of(buf, 0, buf.length);
+    }
+
+    /**
+     * Returns an untransformed view of <code>len</code> bytes of <code>buf</code> starting at
+     * <code>off</code>
+     */
+    public static ByteView of(final byte[] buf, final int off, final int len) {
+        ByteOps.checkRange(buf, off, len);
+        return new ByteView(buf, null, off, len, ByteTransform.identity());
+    }
+
+    /**
+     * Returns an untransformed view of the remaining bytes of <code>buf</code>
+     */
+    public static ByteView of(final ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return new ByteView(buf.array(), null, BufferKernels.arrayIndex(buf),
+                    buf.remaining(), ByteTransform.identity());
+        }
+        return new ByteView(null, buf, buf.position(), buf.remaining(),
+                ByteTransform.identity());
+    }
+
+    /**
+     * Returns the number of bytes in the view
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the chain applied to the source bytes
+     */
+    public ByteTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Returns the transformed byte at <code>index</code>
+     */
+    public byte get(final int index) {
+        return transform.apply(source(Objects.checkIndex(index, length)));
+    }
+
+    /**
+     * Returns the transformed byte at <code>index</code> as an unsigned value
+     */
+    public int getUnsigned(final int index) {
+        return get(index) & 0xFF;
+    }
+
+    /**
+     * Returns a view of <code>len</code> bytes of this view starting at <code>from</code>,
+     * sharing its source and chain
+     */
+    public ByteView slice(final int from, final int len) {
+        Objects.checkFromIndexSize(from, len, length);
+        final ByteView slice = new ByteView(array, buffer, base + from, len, transform);
+        slice.kernel = kernel;
+        return slice;
+    }
+
+    /**
+     * Returns a view of the same bytes with <code>next</code> appended to the chain
+     */
+    public ByteView then(final ByteTransform next) {
+        return with(transform.then(next));
+    }
+
+    /**
+     * Returns a view of the same bytes with an AND with <code>op2</code> appended to the chain
+     */
+    public ByteView and(final byte op2) {
+        return with(transform.and(op2));
+    }
+
+    /**
+     * Returns a view of the same bytes with an AND with <code>op2</code> appended to the chain
+     */
+    public ByteView and(final int op2) {
+        return with(transform.and(op2));
+    }
+
+    /**
+     * Returns a view of the same bytes with an OR with <code>op2</code> appended to the chain
+     */
+    public ByteView or(final byte op2) {
+        return with(transform.or(op2));
+    }
+
+    /**
+     * Returns a view of the same bytes with an OR with <code>op2</code> appended to the chain
+     */
+    public ByteView or(final int op2) {
+        return with(transform.or(op2));
+    }
+
+    /**
+     * Returns a view of the same bytes with an XOR with <code>op2</code> appended to the chain
+     */
+    public ByteView xor(final byte op2) {
+        return with(transform.xor(op2));
+    }
+
+    /**
+     * Returns a view of the same bytes with an XOR with <code>op2</code> appended to the chain
+     */
+    public ByteView xor(final int op2) {
+        return with(transform.xor(op2));
+    }
+
+    /**
+     * Returns a view of the same bytes with a bitwise inversion appended to the chain
+     */
+    public ByteView not() {
+        return with(transform.not());
+    }
+
+    /**
+     * Returns a view of the same bytes with a left shift by <code>n</code> appended to the chain
+     */
+    public ByteView lshift(final byte n) {
+        return with(transform.lshift(n));
+    }
+
+    /**
+     * Returns a view of the same bytes with a left shift by <code>n</code> appended to the chain
+     */
+    public ByteView lshift(final int n) {
+        return with(transform.lshift(n));
+    }
+
+    /**
+     * Returns a view of the same bytes with a right shift by <code>n</code> appended to the
+     * chain
+     */
+    public ByteView rshift(final byte n) {
+        return with(transform.rshift(n));
+    }
+
+    /**
+     * Returns a view of the same bytes with a right shift by <code>n</code> appended to the
+     * chain
+     */
+    public ByteView rshift(final int n) {
+        return with(transform.rshift(n));
+    }
+
+    /**
+     * Returns a view of the same bytes with a left rotation by <code>n</code> appended to the
+     * chain
+     */
+    public ByteView lrotate(final byte n) {
+        return with(transform.lrotate(n));
+    }
+
+    /**
+     * Returns a view of the same bytes with a left rotation by <code>n</code> appended to the
+     * chain
+     */
+    public ByteView lrotate(final int n) {
+        return with(transform.lrotate(n));
+    }
+
+    /**
+     * Returns a view of the same bytes with a right rotation by <code>n</code> appended to the
+     * chain
+     */
+    public ByteView rrotate(final byte n) {
+        return with(transform.rrotate(n));
+    }
+
+    /**
+     * Returns a view of the same bytes with a right rotation by <code>n</code> appended to the
+     * chain
+     */
+    public ByteView rrotate(final int n) {
+        return with(transform.rrotate(n));
+    }
+
+    /**
+     * Write the transformed bytes of the view into <code>dst</code> starting at
+     * <code>dstOff</code>. If <code>dst</code> is the source array the two ranges must either
+     * be identical or not overlap.
+     */
+    public void materialize(final byte[] dst, final int dstOff) {
+        ByteOps.checkRange(dst, dstOff, length);
+        if (array != null) {
+            kernel().apply(array, base, dst, dstOff, length);
+        } else {
+            kernel().apply(sourceBuffer(), ByteBuffer.wrap(dst, dstOff, length));
+        }
+    }
+
+    /**
+     * Write the transformed bytes of the view into <code>dst</code> starting at its position.
+     * The position and limit of <code>dst</code> are left untouched.
+     */
+    public void materialize(final ByteBuffer dst) {
+        kernel().apply(sourceBuffer(), dst);
+    }
+
+    /**
+     * Returns the transformed bytes of the view in a new array
+     */
+    public byte[] toArray() {
+        final byte[] copy = new byte[length];
+        materialize(copy, 0);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteView[length=" + length + ", " + transform + "]";
+    }
+
+    private ByteView with(final ByteTransform chained) {
+        return new ByteView(array, buffer, base, length, chained);
+    }
+
+    private byte source(final int index) {
+        return array != null ? array[base + index] : buffer.get(base + index);
+    }
+
+    private ByteBuffer sourceBuffer() {
+        if (array != null) {
+            return ByteBuffer.wrap(array, base, length);
+        }
+        final ByteBuffer view = buffer.duplicate();
+        view.limit(base + length).position(base);
+        return view;
+    }
+
+    private TransformKernel kernel() {
+        TransformKernel k = kernel;
+        if (k == null) {
+            k = transform.compile();
+            kernel = k;
+        }
+        return k;
+    }
+
+}
@@ -0,0 +1,389 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * A fixed-size array of bits that many threads can update at once without locking. Bits are
+ * packed 64 to a <code>long</code>, and every update is a single atomic read-modify-write of
+ * the word holding the bit, made through a <code>VarHandle</code> (<code>lock or</code> and
+ * friends on x86, a compare-and-set loop elsewhere). Threads touching different bits of the
+ * same word never lose each other's updates, and threads touching different words never
+ * contend at all.
+ * 
+ * Bit <code>i</code> is bit <code>i % 64</code> of word <code>i / 64</code>, which is also bit
+ * <code>i % 8</code> of byte <code>i / 8</code> of {@link #toByteArray()}, so the numbering
+ * matches {@link ByteOps#isBitSet(byte, int)} on a <code>byte[]</code> status map.
+ * 
+ * Single-bit and single-word operations are atomic. Operations over many words, including
+ * {@link #snapshot()}, {@link #cardinality()} and iteration, are atomic word by word: they
+ * never block writers and never see a torn word, but may see some updates made while they run
+ * and not others.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ConcurrentBitArray {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final int length;
+
+    /**
+     * Create an array of <code>length</code> bits, all clear
+     */
+    public ConcurrentBitArray(final int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("negative length: " + length);
+        }
+        this.length = length;
+        this.words = new long[(length + 63) >>> 6];
+    }
+
+    /**
+     * Returns an array holding the bits of <code>bytes</code>, bit <code>j</code> of byte
+     * <code>i</code> becoming bit <code>8 * i + j</code>
+     */
+    public static ConcurrentBitArray fromByteArray(final byte[] bytes) {
+        ConcurrentBitArray array = new ConcurrentBitArray(bytes.length * 8);
+        for (int i = 0; i < bytes.length; i++) {
+            array.words[i >>> 3] |= (bytes[i] & 0xFFL) << ((i & 7) << 3);
+        }
+        VarHandle.releaseFence();
+        return array;
+    }
+
+    /**
+     * Returns the number of bits in the array
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the number of 64-bit words backing the array
+     */
+    public int wordCount() {
+        return words.length;
+    }
+
+    /**
+     * Returns true if bit <code>index</code> is set
+     */
+    public boolean get(final int index) {
+        Objects.checkIndex(index, length);
+        return ((long) WORDS.getAcquire(words, index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Atomically set bit <code>index</code>
+     */
+    public void setBit(final int index) {
+        testAndSet(index);
+    }
+
+    /**
+     * Atomically clear bit <code>index</code>
+     */
+    public void clearBit(final int index) {
+        testAndClear(index);
+    }
+
+    /**
+     * Atomically invert bit <code>index</code>, returning its new value
+     */
+    public boolean flipBit(final int index) {
+        Objects.checkIndex(index, length);
+        final long bit = 1L << index;
+        return ((long) WORDS.getAndBitwiseXor(words, index >>> 6, bit) & bit) == 0;
+    }
+
+    /**
+     * Atomically set bit <code>index</code> to <code>value</code>
+     */
+    public void set(final int index, final boolean value) {
+        if (value) {
+            testAndSet(index);
+        } else {
+            testAndClear(index);
+        }
+    }
+
+    /**
+     * Atomically set bit <code>index</code>, returning true if it was already set. Exactly one
+     * of several threads racing to set the same clear bit sees false, which makes this a
+     * claim or try-lock on the bit.
+     */
+    public boolean testAndSet(final int index) {
+        Objects.checkIndex(index, length);
+        final long bit = 1L << index;
+        return ((long) WORDS.getAndBitwiseOr(words, index >>> 6, bit) & bit) != 0;
+    }
+
+    /**
+     * Atomically clear bit <code>index</code>, returning true if it was set
+     */
+    public boolean testAndClear(final int index) {
+        Objects.checkIndex(index, length);
+        final long bit = 1L << index;
+        return ((long) WORDS.getAndBitwiseAnd(words, index >>> 6, ~bit) & bit) != 0;
+    }
+
+    /**
+     * Returns word <code>wordIndex</code>
+     */
+    public long getWord(final int wordIndex) {
+        return (long) WORDS.getAcquire(words, wordIndex);
+    }
+
+    /**
+     * Atomically OR <code>mask</code> into word <code>wordIndex</code>, returning the old word
+     */
+    public long orWord(final int wordIndex, final long mask) {
+        return (long) WORDS.getAndBitwiseOr(words, wordIndex, mask & wordMask(wordIndex));
+    }
+
+    /**
+     * Atomically AND word <code>wordIndex</code> with <code>mask</code>, returning the old
+     * word
+     */
+    public long andWord(final int wordIndex, final long mask) {
+        return (long) WORDS.getAndBitwiseAnd(words, wordIndex, mask);
+    }
+
+    /**
+     * Atomically XOR <code>mask</code> into word <code>wordIndex</code>, returning the old word
+     */
+    public long xorWord(final int wordIndex, final long mask) {
+        return (long) WORDS.getAndBitwiseXor(words, wordIndex, mask & wordMask(wordIndex));
+    }
+
+    /**
+     * Atomically replace word <code>wordIndex</code> with <code>value</code> if it still holds
+     * <code>expected</code>, for updates that depend on several bits at once
+     */
+    public boolean compareAndSetWord(final int wordIndex, final long expected, final long value) {
+        return WORDS.compareAndSet(words, wordIndex, expected, value & wordMask(wordIndex));
+    }
+
+    /**
+     * Set every bit that is set in <code>mask</code>, whose word <code>i</code> applies to
+     * word <code>fromWord + i</code>. Each word is updated atomically, and words whose mask is
+     * zero are not written at all.
+     */
+    public void or(final long[] mask, final int fromWord) {
+        Objects.checkFromIndexSize(fromWord, mask.length, words.length);
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i] != 0) {
+                orWord(fromWord + i, mask[i]);
+            }
+        }
+    }
+
+    /**
+     * Clear every bit that is set in <code>mask</code>, whose word <code>i</code> applies to
+     * word <code>fromWord + i</code>. Each word is updated atomically, and words whose mask is
+     * zero are not written at all.
+     */
+    public void andNot(final long[] mask, final int fromWord) {
+        Objects.checkFromIndexSize(fromWord, mask.length, words.length);
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i] != 0) {
+                andWord(fromWord + i, ~mask[i]);
+            }
+        }
+    }
+
+    /**
+     * Set the bits from <code>from</code> up to but not including <code>to</code>, each word
+     * atomically
+     */
+    public void setRange(final int from, final int to) {
+        Objects.checkFromToIndex(from, to, length);
+        if (from == to) {
+            return;
+        }
+        for (int w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+            orWord(w, rangeMask(w, from, to));
+        }
+    }
+
+    /**
+     * Clear the bits from <code>from</code> up to but not including <code>to</code>, each word
+     * atomically
+     */
+    public void clearRange(final int from, final int to) {
+        Objects.checkFromToIndex(from, to, length);
+        if (from == to) {
+            return;
+        }
+        for (int w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+            andWord(w, ~rangeMask(w, from, to));
+        }
+    }
+
+    /**
+     * Clear every bit, each word atomically
+     */
+    public void clear() {
+        for (int w = 0; w < words.length; w++) {
+            WORDS.setRelease(words, w, 0L);
+        }
+    }
+
+    /**
+     * Returns the number of set bits
+     */
+    public int cardinality() {
+        int count = 0;
+        for (int w = 0; w < words.length; w++) {
+            count += Long.bitCount((long) WORDS.getAcquire(words, w));
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index of the first set bit at or after <code>from</code>, or -1 if there is
+     * none
+     */
+    public int nextSetBit(final int from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("negative index: " + from);
+        }
+        if (from >= length) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = (long) WORDS.getAcquire(words, w) & (-1L << from);
+        while (word == 0) {
+            if (++w == words.length) {
+                return -1;
+            }
+            word = (long) WORDS.getAcquire(words, w);
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the index of the first clear bit at or after <code>from</code>, or -1 if every
+     * bit from there to the end is set
+     */
+    public int nextClearBit(final int from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("negative index: " + from);
+        }
+        if (from >= length) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = ~(long) WORDS.getAcquire(words, w) & (-1L << from);
+        while (word == 0) {
+            if (++w == words.length) {
+                return -1;
+            }
+            word = ~(long) WORDS.getAcquire(words, w);
+        }
+        final int index = (w << 6) + Long.numberOfTrailingZeros(word);
+        return index < length ? index : -1;
+    }
+
+    /**
+     * Call <code>action</code> with the index of each set bit in ascending order. Each word is
+     * read once, so a bit is reported according to the state of its word at that moment.
+     */
+    public void forEachSetBit(final IntConsumer action) {
+        for (int w = 0; w < words.length; w++) {
+            long word = (long) WORDS.getAcquire(words, w);
+            while (word != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the words, each read atomically
+     */
+    public long[] snapshot() {
+        final long[] copy = new long[words.length];
+        snapshot(copy, 0);
+        return copy;
+    }
+
+    /**
+     * Copy the words, each read atomically, into <code>dst</code> starting at
+     * <code>dstOff</code>, so that repeated snapshots need not allocate
+     */
+    public void snapshot(final long[] dst, final int dstOff) {
+        Objects.checkFromIndexSize(dstOff, words.length, dst.length);
+        for (int w = 0; w < words.length; w++) {
+            dst[dstOff + w] = (long) WORDS.getAcquire(words, w);
+        }
+    }
+
+    /**
+     * Returns a copy of the bits as bytes, bit <code>8 * i + j</code> becoming bit
+     * <code>j</code> of byte <code>i</code>. Each word is read atomically.
+     */
+    public byte[] toByteArray() {
+        final byte[] bytes = new byte[(length + 7) >>> 3];
+        for (int w = 0; w < words.length; w++) {
+            final long word = (long) WORDS.getAcquire(words, w);
+            for (int b = 0; b < 8 && (w << 3) + b < bytes.length; b++) {
+                bytes[(w << 3) + b] = (byte) (word >>> (b << 3));
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEachSetBit(i -> sb.append(sb.length() > 1 ? ", " : "").append(i));
+        return sb.append('}').toString();
+    }
+
+    /*
+     * The bits of word w that lie inside the array, so whole-word operations can't set bits
+     * past the end
+     */
+    private long wordMask(final int w) {
+        final int bits = length - (w << 6);
+        return bits >= 64 ? -1L : (1L << bits) - 1;
+    }
+
+    private static long rangeMask(final int w, final int from, final int to) {
+        final int start = Math.max(from - (w << 6), 0);
+        final int end = Math.min(to - (w << 6), 64);
+        final long upTo = end == 64 ? -1L : (1L << end) - 1;
+        return upTo & (-1L << start);
+    }
+
+}
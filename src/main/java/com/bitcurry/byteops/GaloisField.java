@@ -0,0 +1,481 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Arrays;
+
+/**
+ * Arithmetic in the finite field GF(2^8), the field that Reed-Solomon and other erasure codes
+ * work in. Bytes are the elements of the field; addition and subtraction are both
+ * {@link ByteOps#xor(byte, byte) XOR}, and multiplication is polynomial multiplication modulo
+ * the field's reducing polynomial. Any irreducible polynomial of degree 8 can be used;
+ * {@link #REED_SOLOMON} and {@link #AES} cover the usual two.
+ * 
+ * Single multiplications, divisions and inverses go through log and exp tables of a
+ * generator of the field, found when the field is created. Like the bitwise operations in
+ * {@link ByteOps} they come in the four <code>byte</code>/<code>int</code> flavors, and only the
+ * low eight bits of <code>int</code> arguments are used.
+ * 
+ * The bulk methods multiply a whole range by a constant coefficient, optionally adding
+ * (XORing) the product into the destination, which is the inner loop of encoding and
+ * decoding. For every coefficient the field keeps its 256 products as well as two split nibble
+ * tables, the products of the 16 low nibbles and the 16 high nibbles, so that
+ * <code>c * b = low[b & 0xF] ^ high[b >>> 4]</code>. Sixteen-entry tables fit in a single
+ * vector register, which lets the {@link BulkEngine} look up a whole vector of bytes with two
+ * byte shuffles; the scalar engine uses the 256-entry products. {@link #encode} multiplies a
+ * coding matrix by a set of shards in cache-sized blocks, and {@link #invert(byte[][])} gives
+ * the matrix for recovering lost shards.
+ * 
+ * A field is immutable and thread safe. Building one computes about 80 KB of tables, so share
+ * instances rather than creating them per operation.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class GaloisField {
+
+    /**
+     * The field with reducing polynomial <code>x^8 + x^4 + x^3 + x^2 + 1</code> (0x11D),
+     * used by most Reed-Solomon erasure codes
+     */
+    public static final GaloisField REED_SOLOMON = new GaloisField(0x11D);
+
+    /**
+     * The field with reducing polynomial <code>x^8 + x^4 + x^3 + x + 1</code> (0x11B), used by
+     * AES
+     */
+    public static final GaloisField AES = new GaloisField(0x11B);
+
+    private static final int BYTE_MASK = 0xFF;
+
+    /* Entries in each of the nibble tables */
+    static final int NIBBLE_TABLE = 16;
+
+    /* Bytes of each shard encoded per pass over the coding matrix */
+    private static final int ENCODE_BLOCK = 4096;
+
+    private final int polynomial;
+    private final int generator;
+
+    /* exp is doubled so that exp[log[a] + log[b]] never needs reducing */
+    private final int[] exp = new int[510];
+    private final int[] log = new int[256];
+    private final Coefficient[] coefficients = new Coefficient[256];
+
+    /**
+     * Everything the bulk kernels need to multiply by one coefficient: the products of all 256
+     * bytes, and the products of the 16 low and 16 high nibbles
+     */
+    static final class Coefficient {
+
+        final byte[] products = new byte[256];
+        final byte[] low = new byte[NIBBLE_TABLE];
+        final byte[] high = new byte[NIBBLE_TABLE];
+
+    }
+
+    /**
+     * Create the field with the given reducing polynomial, written with its <code>x^8</code>
+     * term as a 9-bit value such as <code>0x11D</code>
+     * 
+     * @throws IllegalArgumentException if <code>polynomial</code> is not an irreducible
+     *             polynomial of degree 8
+     */
+    public GaloisField(final int polynomial) {
+        if (polynomial < 0x100 || polynomial > 0x1FF) {
+            throw new IllegalArgumentException(
+                    "polynomial must be of degree 8: 0x" + Integer.toHexString(polynomial));
+        }
+        this.polynomial = polynomial;
+        this.generator = findGenerator(polynomial);
+        int x = 1;
+        for (int i = 0; i < 255; i++) {
+            exp[i] = x;
+            exp[i + 255] = x;
+            log[x] = i;
+            x = multiply(x, generator, polynomial);
+        }
+        for (int c = 0; c < 256; c++) {
+            Coefficient coefficient = new Coefficient();
+            for (int b = 0; b < 256; b++) {
+                coefficient.products[b] = mul(c, b);
+            }
+            for (int i = 0; i < NIBBLE_TABLE; i++) {
+                coefficient.low[i] = coefficient.products[i];
+                coefficient.high[i] = coefficient.products[i << 4];
+            }
+            coefficients[c] = coefficient;
+        }
+    }
+
+    public int getPolynomial() {
+        return polynomial;
+    }
+
+    /**
+     * Returns the generator whose powers the log and exp tables are built from, the smallest
+     * element that generates every non-zero element of the field
+     */
+    public int getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Returns the generator raised to the power <code>n</code>, for any <code>n</code>
+     */
+    public byte exp(final int n) {
+        return (byte) exp[Math.floorMod(n, 255)];
+    }
+
+    /**
+     * Returns the discrete logarithm of <code>op1</code> to the base of the generator, between
+     * 0 and 254
+     * 
+     * @throws ArithmeticException if <code>op1</code> is zero
+     */
+    public int log(final byte op1) {
+        return log((int) op1);
+    }
+
+    /**
+     * Returns the discrete logarithm of <code>op1</code> to the base of the generator, between
+     * 0 and 254
+     * 
+     * @throws ArithmeticException if <code>op1</code> is zero
+     */
+    public int log(final int op1) {
+        final int a = op1 & BYTE_MASK;
+        if (a == 0) {
+            throw new ArithmeticException("log of zero");
+        }
+        return log[a];
+    }
+
+    /**
+     * Multiply <code>op1</code> by <code>op2</code>
+     */
+    public byte mul(final byte op1, final byte op2) {
+        return mul((int) op1, (int) op2);
+    }
+
+    /**
+     * Multiply <code>op1</code> by <code>op2</code>
+     */
+    public byte mul(final byte op1, final int op2) {
+        return mul((int) op1, op2);
+    }
+
+    /**
+     * Multiply <code>op1</code> by <code>op2</code>
+     */
+    public byte mul(final int op1, final byte op2) {
+        return mul(op1, (int) op2);
+    }
+
+    /**
+     * Multiply <code>op1</code> by <code>op2</code>
+     */
+    public byte mul(final int op1, final int op2) {
+        final int a = op1 & BYTE_MASK;
+        final int b = op2 & BYTE_MASK;
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        return (byte) exp[log[a] + log[b]];
+    }
+
+    /**
+     * Divide <code>op1</code> by <code>op2</code>
+     * 
+     * @throws ArithmeticException if <code>op2</code> is zero
+     */
+    public byte div(final byte op1, final byte op2) {
+        return div((int) op1, (int) op2);
+    }
+
+    /**
+     * Divide <code>op1</code> by <code>op2</code>
+     * 
+     * @throws ArithmeticException if <code>op2</code> is zero
+     */
+    public byte div(final byte op1, final int op2) {
+        return div((int) op1, op2);
+    }
+
+    /**
+     * Divide <code>op1</code> by <code>op2</code>
+     * 
+     * @throws ArithmeticException if <code>op2</code> is zero
+     */
+    public byte div(final int op1, final byte op2) {
+        return div(op1, (int) op2);
+    }
+
+    /**
+     * Divide <code>op1</code> by <code>op2</code>
+     * 
+     * @throws ArithmeticException if <code>op2</code> is zero
+     */
+    public byte div(final int op1, final int op2) {
+        final int a = op1 & BYTE_MASK;
+        final int b = op2 & BYTE_MASK;
+        if (b == 0) {
+            throw new ArithmeticException("division by zero");
+        }
+        if (a == 0) {
+            return 0;
+        }
+        return (byte) exp[log[a] + 255 - log[b]];
+    }
+
+    /**
+     * Returns the multiplicative inverse of <code>op1</code>
+     * 
+     * @throws ArithmeticException if <code>op1</code> is zero
+     */
+    public byte inverse(final byte op1) {
+        return div(1, op1);
+    }
+
+    /**
+     * Returns the multiplicative inverse of <code>op1</code>
+     * 
+     * @throws ArithmeticException if <code>op1</code> is zero
+     */
+    public byte inverse(final int op1) {
+        return div(1, op1);
+    }
+
+    /**
+     * Raise <code>op1</code> to the power <code>n</code>, which may be negative for non-zero
+     * <code>op1</code>. Zero to the power zero is one.
+     */
+    public byte pow(final int op1, final int n) {
+        final int a = op1 & BYTE_MASK;
+        if (n == 0) {
+            return 1;
+        }
+        if (a == 0) {
+            if (n < 0) {
+                throw new ArithmeticException("negative power of zero");
+            }
+            return 0;
+        }
+        return (byte) exp[(int) Math.floorMod((long) log[a] * n, 255L)];
+    }
+
+    /**
+     * Multiply each byte of <code>src</code> by <code>coeff</code>, storing the results into
+     * <code>dst</code>
+     */
+    public void mul(final int coeff, final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        final int c = coeff & BYTE_MASK;
+        if (c == 0) {
+            Arrays.fill(dst, dstOff, dstOff + len, (byte) 0);
+        } else if (c == 1) {
+            System.arraycopy(src, srcOff, dst, dstOff, len);
+        } else {
+            BulkEngine.getDefault().gfMul(coefficients[c], src, srcOff, dst, dstOff, len);
+        }
+    }
+
+    /**
+     * Multiply each byte of <code>src</code> by <code>coeff</code> and add (XOR) the products
+     * into <code>dst</code>
+     */
+    public void mulAdd(final int coeff, final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        final int c = coeff & BYTE_MASK;
+        if (c == 1) {
+            BulkEngine.getDefault().xor(src, srcOff, dst, dstOff, len);
+        } else if (c != 0) {
+            BulkEngine.getDefault().gfMulAdd(coefficients[c], src, srcOff, dst, dstOff, len);
+        }
+    }
+
+    /**
+     * Multiply every byte of <code>src</code> by <code>coeff</code> and add (XOR) the products
+     * into the start of <code>dst</code>
+     */
+    public void mulAdd(final byte coeff, final byte[] src, final byte[] dst) {
+        mulAdd(coeff, src, 0, dst, 0, src.length);
+    }
+
+    /**
+     * Multiply the coding <code>matrix</code> by the <code>inputs</code> shards, writing one
+     * output shard per row of the matrix: byte <code>i</code> of <code>outputs[r]</code> becomes
+     * the sum over <code>c</code> of <code>matrix[r][c] * inputs[c][i]</code>. Each shard is
+     * processed from <code>off</code> for <code>len</code> bytes. The shards are walked in
+     * blocks small enough for all of them to stay in cache while every row of the matrix is
+     * applied.
+     * 
+     * @throws IllegalArgumentException if the matrix is not <code>outputs.length</code> rows
+     *             of <code>inputs.length</code> columns
+     */
+    public void encode(final byte[][] matrix, final byte[][] inputs, final byte[][] outputs,
+            final int off, final int len) {
+        if (matrix.length != outputs.length) {
+            throw new IllegalArgumentException("matrix has " + matrix.length + " rows for "
+                    + outputs.length + " outputs");
+        }
+        for (byte[] row : matrix) {
+            if (row.length != inputs.length) {
+                throw new IllegalArgumentException("matrix has " + row.length
+                        + " columns for " + inputs.length + " inputs");
+            }
+        }
+        for (int from = 0; from < len; from += ENCODE_BLOCK) {
+            final int n = Math.min(ENCODE_BLOCK, len - from);
+            for (int r = 0; r < outputs.length; r++) {
+                if (inputs.length == 0) {
+                    Arrays.fill(outputs[r], off + from, off + from + n, (byte) 0);
+                    continue;
+                }
+                mul(matrix[r][0], inputs[0], off + from, outputs[r], off + from, n);
+                for (int c = 1; c < inputs.length; c++) {
+                    mulAdd(matrix[r][c], inputs[c], off + from, outputs[r], off + from, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the inverse of the square <code>matrix</code>, which is left unchanged
+     * 
+     * @throws IllegalArgumentException if the matrix is not square or is singular
+     */
+    public byte[][] invert(final byte[][] matrix) {
+        final int n = matrix.length;
+        byte[][] work = new byte[n][];
+        byte[][] inverse = new byte[n][n];
+        for (int r = 0; r < n; r++) {
+            if (matrix[r].length != n) {
+                throw new IllegalArgumentException("matrix is not square");
+            }
+            work[r] = matrix[r].clone();
+            inverse[r][r] = 1;
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            while (pivot < n && work[pivot][col] == 0) {
+                pivot++;
+            }
+            if (pivot == n) {
+                throw new IllegalArgumentException("matrix is singular");
+            }
+            swap(work, col, pivot);
+            swap(inverse, col, pivot);
+            final byte scale = inverse(work[col][col]);
+            mul(scale, work[col], 0, work[col], 0, n);
+            mul(scale, inverse[col], 0, inverse[col], 0, n);
+            for (int r = 0; r < n; r++) {
+                final byte factor = work[r][col];
+                if (r != col && factor != 0) {
+                    mulAdd(factor, work[col], 0, work[r], 0, n);
+                    mulAdd(factor, inverse[col], 0, inverse[r], 0, n);
+                }
+            }
+        }
+        return inverse;
+    }
+
+    @Override
+    public String toString() {
+        return "GF(2^8)[0x" + Integer.toHexString(polynomial) + "]";
+    }
+
+    /**
+     * Scalar kernel for {@link BulkEngine#gfMul}
+     */
+    static void mul(final Coefficient c, final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        final byte[] products = c.products;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = products[src[srcOff + i] & BYTE_MASK];
+        }
+    }
+
+    /**
+     * Scalar kernel for {@link BulkEngine#gfMulAdd}
+     */
+    static void mulAdd(final Coefficient c, final byte[] src, final int srcOff,
+            final byte[] dst, final int dstOff, final int len) {
+        final byte[] products = c.products;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] ^= products[src[srcOff + i] & BYTE_MASK];
+        }
+    }
+
+    private static void swap(final byte[][] rows, final int a, final int b) {
+        byte[] tmp = rows[a];
+        rows[a] = rows[b];
+        rows[b] = tmp;
+    }
+
+    /*
+     * Carry-less multiplication modulo the polynomial, one bit at a time. Only used while
+     * building the tables.
+     */
+    private static int multiply(int a, int b, final int polynomial) {
+        int result = 0;
+        while (b != 0) {
+            if ((b & 1) != 0) {
+                result ^= a;
+            }
+            b >>>= 1;
+            a <<= 1;
+            if ((a & 0x100) != 0) {
+                a ^= polynomial;
+            }
+        }
+        return result;
+    }
+
+    /*
+     * The multiplicative group of the field is cyclic of order 255, so some element has order
+     * 255. If none does the polynomial is reducible and there is no field.
+     */
+    private static int findGenerator(final int polynomial) {
+        for (int g = 2; g < 256; g++) {
+            int x = g;
+            int order = 1;
+            while (x != 1 && order < 255) {
+                x = multiply(x, g, polynomial);
+                order++;
+            }
+            if (x == 1 && order == 255) {
+                return g;
+            }
+        }
+        throw new IllegalArgumentException(
+                "polynomial is not irreducible: 0x" + Integer.toHexString(polynomial));
+    }
+
+}
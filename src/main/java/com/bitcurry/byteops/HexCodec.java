@@ -0,0 +1,502 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Table-driven hex encoding and decoding of byte ranges, producing and accepting the same
+ * two-digit form as the <code>B0xHH</code> constants of {@link ByteOps}. A codec is immutable
+ * and is configured with the case of the digits it writes and an optional separator between
+ * bytes, so that for example <code>HexCodec.upperCase().withSeparator(" ")</code> reads and
+ * writes <code>"0F A0 FF"</code>. Decoding accepts either case.
+ * 
+ * The encode and decode methods write into a caller-supplied <code>char[]</code>,
+ * <code>byte[]</code> (as ASCII), <code>ByteBuffer</code> or <code>Appendable</code> and
+ * allocate nothing. {@link #encodedLength(int)} and {@link #decodedLength(int)} give the size a
+ * target needs. Buffers are addressed with absolute indices so their positions and limits are
+ * never modified. Malformed input is reported with an <code>IllegalArgumentException</code>
+ * giving the index of the offending character.
+ * 
+ * ASCII input without a separator is decoded sixteen characters at a time: each half is loaded
+ * as a <code>long</code>, validated with SWAR range checks, converted to nibbles and packed into
+ * bytes without branching or table lookups. Only a block that fails validation falls back to
+ * the per-character path, which then finds the bad character.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class HexCodec {
+
+    private final static int BYTE_MASK = 0x000000FF;
+
+    /* Masks with a value in every byte lane of a long */
+    private final static long LANES = 0x0101010101010101L;
+    private final static long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private final static long HIGH_BITS = 0x8080808080808080L;
+
+    private final static VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /* Value of each ASCII hex digit, -1 for any other character */
+    private final static byte[] DIGITS = digits();
+
+    private final static char[] UPPER_HIGH = high("0123456789ABCDEF");
+    private final static char[] UPPER_LOW = low("0123456789ABCDEF");
+    private final static char[] LOWER_HIGH = high("0123456789abcdef");
+    private final static char[] LOWER_LOW = low("0123456789abcdef");
+
+    private final static HexCodec UPPER = new HexCodec(true, "");
+    private final static HexCodec LOWER = new HexCodec(false, "");
+
+    private final boolean upperCase;
+    private final String separator;
+    private final char[] sep;
+    private final char[] high;
+    private final char[] low;
+
+    private HexCodec(final boolean upperCase, final String separator) {
+        this.upperCase = upperCase;
+        this.separator = separator;
+        this.sep = separator.toCharArray();
+        this.high = upperCase ? UPPER_HIGH : LOWER_HIGH;
+        this.low = upperCase ? UPPER_LOW : LOWER_LOW;
+    }
+
+    /**
+     * Returns a codec that writes upper case digits with no separator
+     */
+    public static HexCodec upperCase() {
+        return UPPER;
+    }
+
+    /**
+     * Returns a codec that writes lower case digits with no separator
+     */
+    public static HexCodec lowerCase() {
+        return LOWER;
+    }
+
+    /**
+     * Returns a codec like this one that puts <code>separator</code> between bytes when
+     * encoding and expects it between bytes when decoding
+     */
+    public HexCodec withSeparator(final String separator) {
+        if (separator == null) {
+            throw new NullPointerException("separator");
+        }
+        return new HexCodec(upperCase, separator);
+    }
+
+    /**
+     * Returns a codec like this one that writes upper case digits
+     */
+    public HexCodec withUpperCase() {
+        return upperCase ? this : new HexCodec(true, separator);
+    }
+
+    /**
+     * Returns a codec like this one that writes lower case digits
+     */
+    public HexCodec withLowerCase() {
+        return upperCase ? new HexCodec(false, separator) : this;
+    }
+
+    public boolean isUpperCase() {
+        return upperCase;
+    }
+
+    public String getSeparator() {
+        return separator;
+    }
+
+    /**
+     * Returns the number of characters that encoding <code>len</code> bytes produces
+     */
+    public int encodedLength(final int len) {
+        if (len < 0) {
+            throw new IllegalArgumentException("negative length: " + len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        long chars = 2L * len + (long) (len - 1) * sep.length;
+        if (chars > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many bytes to encode: " + len);
+        }
+        return (int) chars;
+    }
+
+    /**
+     * Returns the number of bytes that decoding <code>chars</code> characters produces
+     * 
+     * @throws IllegalArgumentException if no encoded string has that length
+     */
+    public int decodedLength(final int chars) {
+        if (chars < 0) {
+            throw new IllegalArgumentException("negative length: " + chars);
+        }
+        final long unit = 2 + sep.length;
+        if ((chars + (long) sep.length) % unit != 0 && chars != 0) {
+            throw new IllegalArgumentException("invalid hex length: " + chars);
+        }
+        return (int) ((chars + (long) sep.length) / unit);
+    }
+
+    /**
+     * Returns the hex encoding of <code>bytes</code>
+     */
+    public String encode(final byte[] bytes) {
+        char[] chars = new char[encodedLength(bytes.length)];
+        encode(bytes, 0, bytes.length, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Encode <code>len</code> bytes of <code>src</code> into <code>dst</code>. Returns the
+     * number of characters written.
+     */
+    public int encode(final byte[] src, final int srcOff, final int len, final char[] dst,
+            final int dstOff) {
+        ByteOps.checkRange(src, srcOff, len);
+        final int n = encodedLength(len);
+        Objects.checkFromIndexSize(dstOff, n, dst.length);
+        int j = dstOff;
+        for (int i = 0; i < len; i++) {
+            if (i > 0) {
+                for (char c : sep) {
+                    dst[j++] = c;
+                }
+            }
+            int b = src[srcOff + i] & BYTE_MASK;
+            dst[j++] = high[b];
+            dst[j++] = low[b];
+        }
+        return n;
+    }
+
+    /**
+     * Encode <code>len</code> bytes of <code>src</code> into <code>dst</code> as ASCII. Returns
+     * the number of bytes written.
+     * 
+     * @throws IllegalArgumentException if the separator is not ASCII
+     */
+    public int encode(final byte[] src, final int srcOff, final int len, final byte[] dst,
+            final int dstOff) {
+        ByteOps.checkRange(src, srcOff, len);
+        final int n = encodedLength(len);
+        ByteOps.checkRange(dst, dstOff, n);
+        checkAscii();
+        int j = dstOff;
+        for (int i = 0; i < len; i++) {
+            if (i > 0) {
+                for (char c : sep) {
+                    dst[j++] = (byte) c;
+                }
+            }
+            int b = src[srcOff + i] & BYTE_MASK;
+            dst[j++] = (byte) high[b];
+            dst[j++] = (byte) low[b];
+        }
+        return n;
+    }
+
+    /**
+     * Encode the remaining bytes of <code>src</code> into <code>dst</code> as ASCII starting at
+     * its position. Returns the number of bytes written. The positions and limits of both
+     * buffers are left untouched.
+     * 
+     * @throws IllegalArgumentException if the separator is not ASCII
+     */
+    public int encode(final ByteBuffer src, final ByteBuffer dst) {
+        final int len = src.remaining();
+        final int n = encodedLength(len);
+        checkTarget(dst, n);
+        if (src.hasArray() && dst.hasArray()) {
+            return encode(src.array(), BufferKernels.arrayIndex(src), len, dst.array(),
+                    BufferKernels.arrayIndex(dst));
+        }
+        checkAscii();
+        final int s = src.position();
+        int j = dst.position();
+        for (int i = 0; i < len; i++) {
+            if (i > 0) {
+                for (char c : sep) {
+                    dst.put(j++, (byte) c);
+                }
+            }
+            int b = src.get(s + i) & BYTE_MASK;
+            dst.put(j++, (byte) high[b]);
+            dst.put(j++, (byte) low[b]);
+        }
+        return n;
+    }
+
+    /**
+     * Append the encoding of <code>len</code> bytes of <code>src</code> to <code>out</code>
+     * and return <code>out</code>
+     */
+    public <A extends Appendable> A encode(final byte[] src, final int srcOff, final int len,
+            final A out) throws IOException {
+        ByteOps.checkRange(src, srcOff, len);
+        for (int i = 0; i < len; i++) {
+            if (i > 0 && sep.length > 0) {
+                out.append(separator);
+            }
+            int b = src[srcOff + i] & BYTE_MASK;
+            out.append(high[b]).append(low[b]);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the bytes encoded by <code>hex</code>
+     */
+    public byte[] decode(final CharSequence hex) {
+        byte[] bytes = new byte[decodedLength(hex.length())];
+        decode(hex, 0, hex.length(), bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Decode <code>len</code> characters of <code>src</code> into <code>dst</code>. Returns the
+     * number of bytes written.
+     */
+    public int decode(final CharSequence src, final int srcOff, final int len, final byte[] dst,
+            final int dstOff) {
+        Objects.checkFromIndexSize(srcOff, len, src.length());
+        final int n = decodedLength(len);
+        ByteOps.checkRange(dst, dstOff, n);
+        final int step = 2 + sep.length;
+        for (int i = 0, p = srcOff; i < n; i++, p += step) {
+            if (i > 0) {
+                for (int k = 0; k < sep.length; k++) {
+                    checkSeparator(src.charAt(p - sep.length + k), k, p - sep.length + k);
+                }
+            }
+            dst[dstOff + i] = (byte) ((digit(src.charAt(p), p) << 4)
+                    | digit(src.charAt(p + 1), p + 1));
+        }
+        return n;
+    }
+
+    /**
+     * Decode <code>len</code> characters of <code>src</code> into <code>dst</code>. Returns the
+     * number of bytes written.
+     */
+    public int decode(final char[] src, final int srcOff, final int len, final byte[] dst,
+            final int dstOff) {
+        Objects.checkFromIndexSize(srcOff, len, src.length);
+        final int n = decodedLength(len);
+        ByteOps.checkRange(dst, dstOff, n);
+        final int step = 2 + sep.length;
+        for (int i = 0, p = srcOff; i < n; i++, p += step) {
+            if (i > 0) {
+                for (int k = 0; k < sep.length; k++) {
+                    checkSeparator(src[p - sep.length + k], k, p - sep.length + k);
+                }
+            }
+            dst[dstOff + i] = (byte) ((digit(src[p], p) << 4) | digit(src[p + 1], p + 1));
+        }
+        return n;
+    }
+
+    /**
+     * Decode <code>len</code> ASCII characters of <code>src</code> into <code>dst</code>.
+     * Returns the number of bytes written. <code>src</code> and <code>dst</code> may be the same
+     * array with <code>dstOff <= srcOff</code>, so that hex text can be decoded in place.
+     */
+    public int decode(final byte[] src, final int srcOff, final int len, final byte[] dst,
+            final int dstOff) {
+        ByteOps.checkRange(src, srcOff, len);
+        final int n = decodedLength(len);
+        ByteOps.checkRange(dst, dstOff, n);
+        final int step = 2 + sep.length;
+        int i = 0;
+        if (sep.length == 0) {
+            for (; i <= n - 8; i += 8) {
+                final int p = srcOff + 2 * i;
+                final long a = (long) LONGS.get(src, p);
+                final long b = (long) LONGS.get(src, p + 8);
+                if (!isHex(a) || !isHex(b)) {
+                    break;
+                }
+                LONGS.set(dst, dstOff + i, pack(a) | (pack(b) << 32));
+            }
+        }
+        for (int p = srcOff + i * step; i < n; i++, p += step) {
+            if (i > 0) {
+                for (int k = 0; k < sep.length; k++) {
+                    checkSeparator(src[p - sep.length + k] & BYTE_MASK, k, p - sep.length + k);
+                }
+            }
+            dst[dstOff + i] = (byte) ((digit(src[p] & BYTE_MASK, p) << 4)
+                    | digit(src[p + 1] & BYTE_MASK, p + 1));
+        }
+        return n;
+    }
+
+    /**
+     * Decode the remaining ASCII characters of <code>src</code> into <code>dst</code> starting
+     * at its position. Returns the number of bytes written. The positions and limits of both
+     * buffers are left untouched.
+     */
+    public int decode(final ByteBuffer src, final ByteBuffer dst) {
+        final int len = src.remaining();
+        final int n = decodedLength(len);
+        checkTarget(dst, n);
+        if (src.hasArray() && dst.hasArray()) {
+            return decode(src.array(), BufferKernels.arrayIndex(src), len, dst.array(),
+                    BufferKernels.arrayIndex(dst));
+        }
+        final int step = 2 + sep.length;
+        final int s = src.position();
+        final int d = dst.position();
+        for (int i = 0, p = 0; i < n; i++, p += step) {
+            if (i > 0) {
+                for (int k = 0; k < sep.length; k++) {
+                    int q = p - sep.length + k;
+                    checkSeparator(src.get(s + q) & BYTE_MASK, k, q);
+                }
+            }
+            dst.put(d + i, (byte) ((digit(src.get(s + p) & BYTE_MASK, p) << 4)
+                    | digit(src.get(s + p + 1) & BYTE_MASK, p + 1)));
+        }
+        return n;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof HexCodec)) {
+            return false;
+        }
+        HexCodec other = (HexCodec) obj;
+        return upperCase == other.upperCase && separator.equals(other.separator);
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.hashCode(upperCase) * 31 + separator.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "HexCodec[" + (upperCase ? "upperCase" : "lowerCase") + ", separator=\""
+                + separator + "\"]";
+    }
+
+    private static int digit(final int c, final int index) {
+        int d = c < DIGITS.length ? DIGITS[c] : -1;
+        if (d < 0) {
+            throw new IllegalArgumentException(
+                    "invalid hex digit '" + (char) c + "' at index " + index);
+        }
+        return d;
+    }
+
+    private void checkSeparator(final int c, final int k, final int index) {
+        if (c != sep[k]) {
+            throw new IllegalArgumentException(
+                    "expected separator \"" + separator + "\" at index " + (index - k));
+        }
+    }
+
+    private void checkAscii() {
+        for (char c : sep) {
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("separator is not ASCII: " + separator);
+            }
+        }
+    }
+
+    private static void checkTarget(final ByteBuffer dst, final int n) {
+        if (dst.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        if (dst.remaining() < n) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    /*
+     * Returns true if all eight bytes of w are ASCII hex digits. Each range test sets the high
+     * bit of a lane when the lane lies strictly between the two bounds and has its own high bit
+     * clear; ORing 0x20 into every lane folds upper case letters onto lower case.
+     */
+    private static boolean isHex(final long w) {
+        return (between(w, 0x2F, 0x3A) | between(w | (0x20 * LANES), 0x60, 0x67)) == HIGH_BITS;
+    }
+
+    private static long between(final long w, final int lower, final int upper) {
+        final long low = w & LOW_BITS;
+        return (LANES * (127 + upper) - low) & ~w & (low + LANES * (127 - lower)) & HIGH_BITS;
+    }
+
+    /*
+     * Pack eight validated digits, the first in the lowest lane, into four bytes. A digit's
+     * value is its low nibble, plus nine for letters, which are the characters with bit 6 set.
+     */
+    private static long pack(final long w) {
+        long d = (w & (0x0F * LANES)) + ((w >>> 6) & LANES) * 9;
+        d = ((d & 0x00FF00FF00FF00FFL) << 4) | ((d >>> 8) & 0x00FF00FF00FF00FFL);
+        d = (d | (d >>> 8)) & 0x0000FFFF0000FFFFL;
+        return (d | (d >>> 16)) & 0xFFFFFFFFL;
+    }
+
+    private static byte[] digits() {
+        byte[] digits = new byte[128];
+        Arrays.fill(digits, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            digits["0123456789ABCDEF".charAt(i)] = (byte) i;
+            digits["0123456789abcdef".charAt(i)] = (byte) i;
+        }
+        return digits;
+    }
+
+    private static char[] high(final String digits) {
+        char[] table = new char[256];
+        for (int b = 0; b < 256; b++) {
+            table[b] = digits.charAt(b >>> 4);
+        }
+        return table;
+    }
+
+    private static char[] low(final String digits) {
+        char[] table = new char[256];
+        for (int b = 0; b < 256; b++) {
+            table[b] = digits.charAt(b & 0xF);
+        }
+        return table;
+    }
+
+}
@@ -0,0 +1,216 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in counters for the bulk and streaming APIs. Instrumentation is switched on for the life
+ * of the JVM by setting the {@value #ENABLED_PROPERTY} system property to <code>true</code>.
+ * Otherwise {@link BulkOp#instrumented(String)} returns the operation unchanged and the
+ * transforming streams and channels use their operation directly, so the instrumentation
+ * costs nothing and can stay compiled in.
+ * 
+ * When enabled, every call to an instrumented operation adds to its {@link OperationStats}:
+ * the number of calls, the bytes processed and the nanoseconds spent, each kept in a
+ * <code>LongAdder</code> so that threads sharing an operation don't contend. The transforming
+ * streams and channels record under their class names. The counters are published through the
+ * {@link InstrumentationMXBean} registered as {@value #MBEAN_NAME}, and calls of at least
+ * {@value #THRESHOLD_PROPERTY} bytes (1 MB unless set) also emit a
+ * <code>com.bitcurry.byteops.Transform</code> JFR event with the operation, size and duration.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class Instrumentation {
+
+    /**
+     * System property that switches instrumentation on when set to <code>true</code>
+     */
+    public static final String ENABLED_PROPERTY = "com.bitcurry.byteops.instrumentation";
+
+    /**
+     * System property holding the size in bytes from which calls emit a JFR event
+     */
+    public static final String THRESHOLD_PROPERTY =
+            "com.bitcurry.byteops.instrumentation.eventThreshold";
+
+    /**
+     * Name the MBean is registered under
+     */
+    public static final String MBEAN_NAME = "com.bitcurry.byteops:type=Instrumentation";
+
+    /**
+     * Whether instrumentation is switched on, fixed when the class is loaded
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    static final int EVENT_THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 1 << 20);
+
+    private static final Map<String, OperationStats> STATS = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Returns the counters for the operation called <code>name</code>, created on first use
+     */
+    public static OperationStats stats(final String name) {
+        return STATS.computeIfAbsent(name, OperationStats::new);
+    }
+
+    /**
+     * Returns the counters of every operation recorded so far, sorted by name
+     */
+    public static SortedMap<String, OperationStats> operations() {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(STATS));
+    }
+
+    /**
+     * Set every counter back to zero
+     */
+    public static void reset() {
+        STATS.values().forEach(OperationStats::reset);
+    }
+
+    private static void register() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+        } catch (JMException e) {
+            // Another copy of the library registered first; its counters are the ones shown
+        }
+    }
+
+    /**
+     * Calls, bytes and time recorded for one named operation
+     */
+    public static final class OperationStats {
+
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private OperationStats(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public long getNanos() {
+            return nanos.sum();
+        }
+
+        /**
+         * Count one call that processed <code>len</code> bytes in <code>elapsed</code>
+         * nanoseconds
+         */
+        public void record(final long len, final long elapsed) {
+            calls.increment();
+            bytes.add(len);
+            nanos.add(elapsed);
+        }
+
+        void reset() {
+            calls.reset();
+            bytes.reset();
+            nanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + getCalls() + " calls, " + getBytes() + " bytes, " + getNanos()
+                    + " ns";
+        }
+
+    }
+
+    private static final class MXBean implements InstrumentationMXBean {
+
+        @Override
+        public String[] getOperations() {
+            return operations().keySet().toArray(new String[0]);
+        }
+
+        @Override
+        public Map<String, Long> getCalls() {
+            return collect(OperationStats::getCalls);
+        }
+
+        @Override
+        public Map<String, Long> getBytes() {
+            return collect(OperationStats::getBytes);
+        }
+
+        @Override
+        public Map<String, Long> getNanos() {
+            return collect(OperationStats::getNanos);
+        }
+
+        @Override
+        public void reset() {
+            Instrumentation.reset();
+        }
+
+        private static Map<String, Long> collect(final ToLongFunction<OperationStats> counter) {
+            final Map<String, Long> values = new TreeMap<>();
+            STATS.forEach((name, stats) -> values.put(name, counter.applyAsLong(stats)));
+            return values;
+        }
+
+    }
+
+}
@@ -0,0 +1,113 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link BulkOp} that records each completed call of the wrapped operation in its
+ * {@link Instrumentation.OperationStats}, and emits a {@link TransformEvent} for calls of at
+ * least the event threshold. Calls that throw are not counted.
+ */
+final class InstrumentedOp implements BulkOp {
+
+    private final BulkOp op;
+    private final Instrumentation.OperationStats stats;
+
+    InstrumentedOp(final BulkOp op, final String name) {
+        if (op == null || name == null) {
+            throw new NullPointerException();
+        }
+        this.op = op;
+        this.stats = Instrumentation.stats(name);
+    }
+
+    @Override
+    public void apply(final byte[] src, final int srcOff, final byte[] dst, final int dstOff,
+            final int len) {
+        final TransformEvent event = begin(len);
+        final long start = System.nanoTime();
+        op.apply(src, srcOff, dst, dstOff, len);
+        end(event, len, start);
+    }
+
+    @Override
+    public void apply(final ByteBuffer src, final ByteBuffer dst) {
+        final int len = src.remaining();
+        final TransformEvent event = begin(len);
+        final long start = System.nanoTime();
+        op.apply(src, dst);
+        end(event, len, start);
+    }
+
+    @Override
+    public void applyMasked(final byte[] mask, final int maskOff, final byte[] buf,
+            final int off, final int len) {
+        final TransformEvent event = begin(len);
+        final long start = System.nanoTime();
+        op.applyMasked(mask, maskOff, buf, off, len);
+        end(event, len, start);
+    }
+
+    /*
+     * Wrap the parallel operation rather than letting it split this one, so that a call is
+     * counted once however many tasks it is split into
+     */
+    @Override
+    public BulkOp parallel(final ForkJoinPool pool, final int threshold) {
+        return new InstrumentedOp(op.parallel(pool, threshold), stats.getName());
+    }
+
+    @Override
+    public BulkOp instrumented(final String name) {
+        return new InstrumentedOp(op, name);
+    }
+
+    @Override
+    public String toString() {
+        return op + ".instrumented(" + stats.getName() + ")";
+    }
+
+    private TransformEvent begin(final int len) {
+        if (len < Instrumentation.EVENT_THRESHOLD) {
+            return null;
+        }
+        final TransformEvent event = new TransformEvent();
+        event.begin();
+        return event;
+    }
+
+    private void end(final TransformEvent event, final int len, final long start) {
+        stats.record(len, System.nanoTime() - start);
+        if (event != null && event.shouldCommit()) {
+            event.operation = stats.getName();
+            event.bytes = len;
+            event.commit();
+        }
+    }
+
+}
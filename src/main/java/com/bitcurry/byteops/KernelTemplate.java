@@ -0,0 +1,79 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Bytecode template for {@link Kernel}s. This class is never loaded under its own name:
+ * {@link TransformKernel} defines a fresh hidden class from its bytes for every shape, passing
+ * <code>{ rotate, and }</code> as class data. The values land in static final fields, which the
+ * JIT treats as constants, so each hidden class compiles to a loop with the shift counts and
+ * lane masks folded in. The loop works a long at a time the same way the bulk methods in
+ * {@link ByteOps} do; the masks keep bits from crossing between the bytes of a word.
+ */
+final class KernelTemplate implements Kernel {
+
+    private static final int[] SHAPE = shape();
+    private static final int LEFT = SHAPE[0];
+    private static final int RIGHT = 8 - LEFT;
+    private static final int LEFT_MASK = (0xFF << LEFT) & SHAPE[1];
+    private static final int RIGHT_MASK = (0xFF >>> RIGHT) & SHAPE[1];
+    private static final long LEFT_LANES = ByteOps.broadcast(LEFT_MASK);
+    private static final long RIGHT_LANES = ByteOps.broadcast(RIGHT_MASK);
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static int[] shape() {
+        try {
+            return MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME,
+                    int[].class);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public void apply(final byte[] src, final int srcOff, final byte[] dst, final int dstOff,
+            final int len, final int xor) {
+        final long xorLanes = ByteOps.broadcast(xor);
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            long w = (long) LONGS.get(src, srcOff + i);
+            w = ((w << LEFT) & LEFT_LANES) | ((w >>> RIGHT) & RIGHT_LANES);
+            LONGS.set(dst, dstOff + i, w ^ xorLanes);
+        }
+        for (; i < len; i++) {
+            int b = src[srcOff + i] & 0xFF;
+            dst[dstOff + i] = (byte) ((((b << LEFT) & LEFT_MASK) | ((b >>> RIGHT) & RIGHT_MASK))
+                    ^ xor);
+        }
+    }
+
+}
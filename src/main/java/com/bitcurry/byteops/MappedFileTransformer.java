@@ -0,0 +1,184 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Applies a {@link BulkOp} to a file, or a region of one, through memory mappings instead of
+ * reading into and writing out of heap arrays. A single mapping can't exceed 2 GB, so the file
+ * is walked in chunks of at most {@link #getChunkSize()} bytes, each mapped and transformed in
+ * turn. Files of any size can be processed this way.
+ * 
+ * Java offers no supported way to unmap a buffer, so each chunk stays mapped until its
+ * <code>MappedByteBuffer</code> is garbage collected. Over a large file the mapped address space,
+ * and the dirty pages not yet written back, can grow well beyond one chunk during a call.
+ * 
+ * Changes to a mapped file reach the disk whenever the operating system writes the dirty pages
+ * back. Call {@link FileChannel#force(boolean)} on the channel afterwards if they need to be
+ * durable immediately.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public class MappedFileTransformer {
+
+    /**
+     * Default chunk size of 64 MB, large enough to amortize the cost of each mapping. It does not
+     * bound the working set, since earlier chunks stay mapped until they are collected.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+    private final BulkOp op;
+
+    /* op itself, or op counted under this class's name when instrumentation is on */
+    private final BulkOp applied;
+
+    private final int chunkSize;
+
+    /**
+     * Create a transformer that applies <code>op</code> in chunks of
+     * {@link #DEFAULT_CHUNK_SIZE} bytes
+     */
+    public MappedFileTransformer(final BulkOp op) {
+        this(op, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a transformer that applies <code>op</code> in chunks of <code>chunkSize</code>
+     * bytes
+     */
+    public MappedFileTransformer(final BulkOp op, final int chunkSize) {
+        if (op == null) {
+            throw new NullPointerException("op");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.op = op;
+        this.applied = op.instrumented("MappedFileTransformer");
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkOp getOp() {
+        return op;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Transform the whole of <code>file</code> in place
+     */
+    public void transform(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            transform(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Transform <code>size</code> bytes of <code>file</code> starting at <code>position</code>
+     * in place
+     */
+    public void transform(final Path file, final long position, final long size)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            transform(channel, position, size);
+        }
+    }
+
+    /**
+     * Write the transformed contents of <code>src</code> to <code>dst</code>, which is created
+     * or replaced. <code>src</code> is not modified, unless <code>dst</code> is the same file, in
+     * which case it is transformed in place.
+     */
+    public void transform(final Path src, final Path dst) throws IOException {
+        // Opening dst would truncate the input before it is read
+        if (Files.exists(dst) && Files.isSameFile(src, dst)) {
+            transform(src);
+            return;
+        }
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(dst, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            transform(in, 0, out, 0, in.size());
+        }
+    }
+
+    /**
+     * Transform <code>size</code> bytes of <code>channel</code> starting at
+     * <code>position</code> in place. The channel must be open for both reading and writing.
+     */
+    public void transform(final FileChannel channel, final long position, final long size)
+            throws IOException {
+        checkRegion(channel, position, size);
+        for (long done = 0; done < size; done += chunkSize) {
+            int len = (int) Math.min(chunkSize, size - done);
+            MappedByteBuffer buf = channel.map(MapMode.READ_WRITE, position + done, len);
+            applied.apply(buf);
+        }
+    }
+
+    /**
+     * Write the transformed contents of <code>size</code> bytes of <code>src</code> starting at
+     * <code>srcPos</code> to <code>dst</code> starting at <code>dstPos</code>. The destination
+     * must be open for both reading and writing and is extended if needed.
+     */
+    public void transform(final FileChannel src, final long srcPos, final FileChannel dst,
+            final long dstPos, final long size) throws IOException {
+        checkRegion(src, srcPos, size);
+        if (dstPos < 0) {
+            throw new IllegalArgumentException("Negative position: " + dstPos);
+        }
+        for (long done = 0; done < size; done += chunkSize) {
+            int len = (int) Math.min(chunkSize, size - done);
+            MappedByteBuffer in = src.map(MapMode.READ_ONLY, srcPos + done, len);
+            MappedByteBuffer out = dst.map(MapMode.READ_WRITE, dstPos + done, len);
+            applied.apply(in, out);
+        }
+    }
+
+    private static void checkRegion(final FileChannel channel, final long position,
+            final long size) throws IOException {
+        if (position < 0 || size < 0 || position + size < 0) {
+            throw new IllegalArgumentException("Invalid region: " + position + "+" + size);
+        }
+        if (position + size > channel.size()) {
+            throw new IllegalArgumentException("Region " + position + "+" + size
+                    + " extends past the end of the file (" + channel.size() + " bytes)");
+        }
+    }
+
+}
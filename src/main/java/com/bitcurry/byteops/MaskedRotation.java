@@ -0,0 +1,135 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+/**
+ * Closed form of any chain of {@link OpCode} steps. Every step moves bits around without mixing
+ * them, then forces some to a constant or inverts them, so a whole chain maps each byte
+ * <code>b</code> to
+ * 
+ * <pre>
+ * lrotate(b, rotate) &amp; and ^ xor
+ * </pre>
+ * 
+ * Rotates commute with the masking steps once the masks are rotated along, shifts are a rotate
+ * followed by an AND, OR with <code>c</code> is <code>&amp; ~c ^ c</code> and NOT is
+ * <code>^ 0xFF</code>. Instances are immutable.
+ */
+final class MaskedRotation {
+
+    private final static int BYTE_MASK = 0x000000FF;
+
+    static final MaskedRotation IDENTITY = new MaskedRotation(0, BYTE_MASK, 0);
+
+    final int rotate;
+    final int and;
+    final int xor;
+
+    private MaskedRotation(final int rotate, final int and, final int xor) {
+        // the rotation is irrelevant once every bit is masked off
+        this.rotate = (and & BYTE_MASK) == 0 ? 0 : rotate & 7;
+        this.and = and & BYTE_MASK;
+        this.xor = xor & BYTE_MASK;
+    }
+
+    /**
+     * Fold every step in <code>steps</code>, in order, onto the identity
+     */
+    static MaskedRotation of(final BasicOp[] steps) {
+        MaskedRotation folded = IDENTITY;
+        for (BasicOp step : steps) {
+            folded = folded.then(step.getCode(), step.getOperand());
+        }
+        return folded;
+    }
+
+    /**
+     * Returns this form followed by <code>code</code> applied with <code>operand</code>
+     */
+    MaskedRotation then(final OpCode code, final int operand) {
+        switch (code) {
+        case AND:
+            return new MaskedRotation(rotate, and & operand, xor & operand);
+        case OR:
+            return new MaskedRotation(rotate, and & ~operand, xor | operand);
+        case XOR:
+            return new MaskedRotation(rotate, and, xor ^ operand);
+        case NOT:
+            return new MaskedRotation(rotate, and, ~xor);
+        case LSHIFT: {
+            int n = ByteOps.shiftCount(operand);
+            return rotateLeft(n).then(OpCode.AND, BYTE_MASK << n);
+        }
+        case RSHIFT: {
+            int n = ByteOps.shiftCount(operand);
+            return rotateLeft(8 - n).then(OpCode.AND, BYTE_MASK >>> n);
+        }
+        case LROTATE:
+            return rotateLeft(operand & 7);
+        default:
+            return rotateLeft(8 - (operand & 7));
+        }
+    }
+
+    private MaskedRotation rotateLeft(final int n) {
+        return new MaskedRotation(rotate + n, ByteOps.lrotate(and, n & 7),
+                ByteOps.lrotate(xor, n & 7));
+    }
+
+    /**
+     * Apply this form to the low eight bits of <code>op1</code>
+     */
+    byte apply(final int op1) {
+        return (byte) (ByteOps.lrotate(op1, rotate) & and ^ xor);
+    }
+
+    /**
+     * Returns true if the result doesn't depend on the input at all
+     */
+    boolean isConstant() {
+        return and == 0;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof MaskedRotation)) {
+            return false;
+        }
+        MaskedRotation other = (MaskedRotation) obj;
+        return rotate == other.rotate && and == other.and && xor == other.xor;
+    }
+
+    @Override
+    public int hashCode() {
+        return (rotate << 16) | (and << 8) | xor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("lrotate(b, %d) & 0x%02X ^ 0x%02X", rotate, and, xor);
+    }
+
+}
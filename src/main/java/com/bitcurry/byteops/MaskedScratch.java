@@ -0,0 +1,58 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+/**
+ * Per-thread scratch blocks for the default {@link BulkOp#applyMasked}, so that masked updates
+ * don't allocate. A block is taken out of the thread's slot while it is in use, so a transform
+ * that ends up back in <code>applyMasked</code> on the same thread, for example by running
+ * another fork-join task while it waits, gets a block of its own instead of sharing one.
+ */
+final class MaskedScratch {
+
+    private static final ThreadLocal<byte[]> BLOCKS = new ThreadLocal<>();
+
+    private MaskedScratch() {
+    }
+
+    /**
+     * Returns a block of {@link BulkOp#MASKED_BLOCK_SIZE} bytes for the calling thread to use
+     * until it is handed back with {@link #release}
+     */
+    static byte[] acquire() {
+        final byte[] block = BLOCKS.get();
+        if (block == null) {
+            return new byte[BulkOp.MASKED_BLOCK_SIZE];
+        }
+        BLOCKS.set(null);
+        return block;
+    }
+
+    static void release(final byte[] block) {
+        BLOCKS.set(block);
+    }
+
+}
@@ -0,0 +1,61 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+/**
+ * The single-byte operations of {@link ByteOps} that take at most one constant operand
+ */
+enum OpCode {
+
+    AND, OR, XOR, NOT, LSHIFT, RSHIFT, LROTATE, RROTATE;
+
+    /**
+     * Apply this operation to <code>op1</code> with <code>operand</code> as the second operand
+     * or shift count. Counts are treated the same way as by the bulk kernels: rotates use the
+     * count modulo 8 and shifts outside 0 to 7 clear the byte.
+     */
+    byte apply(final int op1, final int operand) {
+        switch (this) {
+        case AND:
+            return ByteOps.and(op1, operand);
+        case OR:
+            return ByteOps.or(op1, operand);
+        case XOR:
+            return ByteOps.xor(op1, operand);
+        case NOT:
+            return ByteOps.not(op1);
+        case LSHIFT:
+            return ByteOps.lshift(op1, ByteOps.shiftCount(operand));
+        case RSHIFT:
+            return ByteOps.rshift(op1, ByteOps.shiftCount(operand));
+        case LROTATE:
+            return ByteOps.lrotate(op1, operand & 7);
+        default:
+            return ByteOps.rrotate(op1, operand & 7);
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link BulkOp} that splits large ranges across a <code>ForkJoinPool</code>. Ranges are halved
+ * until they are no longer than the threshold. When the destination is a direct buffer every
+ * split point falls on a cache line boundary in memory, so neighbouring tasks never write to the
+ * same line. The address of an array can't be known, so array ranges are instead split a whole
+ * number of lines from the start of the range and neighbouring tasks may share a line at their
+ * boundary. Ranges shorter than the threshold are handed straight to the wrapped operation on
+ * the calling thread. Since every operation works byte by byte the results are identical to the
+ * sequential ones.
+ */
+final class ParallelOp implements BulkOp {
+
+    private static final int CACHE_LINE = 64;
+
+    private final BulkOp op;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    ParallelOp(final BulkOp op, final ForkJoinPool pool, final int threshold) {
+        if (op == null || pool == null) {
+            throw new NullPointerException();
+        }
+        this.op = op;
+        this.pool = pool;
+        this.threshold = Math.max(threshold, 2 * CACHE_LINE);
+    }
+
+    @Override
+    public void apply(final byte[] src, final int srcOff, final byte[] dst, final int dstOff,
+            final int len) {
+        if (len < threshold) {
+            op.apply(src, srcOff, dst, dstOff, len);
+            return;
+        }
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        pool.invoke(new Split((from, to) -> op.apply(src, srcOff + from, dst, dstOff + from,
+                to - from), 0, len, 0));
+    }
+
+    @Override
+    public void apply(final ByteBuffer src, final ByteBuffer dst) {
+        final int len = src.remaining();
+        if (len < threshold) {
+            op.apply(src, dst);
+            return;
+        }
+        BufferKernels.checkTarget(src, dst);
+        pool.invoke(new Split((from, to) -> op.apply(slice(src, from, to), slice(dst, from, to)),
+                0, len, lineStart(dst)));
+    }
+
+    @Override
+    public void applyMasked(final byte[] mask, final int maskOff, final byte[] buf,
+            final int off, final int len) {
+        if (len < threshold) {
+            op.applyMasked(mask, maskOff, buf, off, len);
+            return;
+        }
+        ByteOps.checkRange(mask, maskOff, len);
+        ByteOps.checkRange(buf, off, len);
+        pool.invoke(new Split((from, to) -> op.applyMasked(mask, maskOff + from, buf, off + from,
+                to - from), 0, len, 0));
+    }
+
+    @Override
+    public BulkOp parallel(final ForkJoinPool pool, final int threshold) {
+        return new ParallelOp(op, pool, threshold);
+    }
+
+    @Override
+    public String toString() {
+        return op + ".parallel()";
+    }
+
+    /*
+     * Offset from the buffer's position of the first byte that starts a cache line in memory, or
+     * 0 when the address isn't known
+     */
+    private static int lineStart(final ByteBuffer buf) {
+        if (!buf.isDirect()) {
+            return 0;
+        }
+        return -buf.alignmentOffset(buf.position(), CACHE_LINE) & (CACHE_LINE - 1);
+    }
+
+    /*
+     * View of the bytes from..to relative to the buffer's position
+     */
+    private static ByteBuffer slice(final ByteBuffer buf, final int from, final int to) {
+        ByteBuffer view = buf.duplicate();
+        view.position(buf.position() + from);
+        view.limit(buf.position() + to);
+        return view;
+    }
+
+    /*
+     * Work to do on the bytes from..to of the range being split
+     */
+    private interface Leaf {
+        void apply(int from, int to);
+    }
+
+    /*
+     * Recursive halving of the range from..to down to leaves of at most threshold bytes, with
+     * every split point a whole number of cache lines from lineStart
+     */
+    private final class Split extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Leaf leaf;
+        private final int from;
+        private final int to;
+        private final int lineStart;
+
+        Split(final Leaf leaf, final int from, final int to, final int lineStart) {
+            this.leaf = leaf;
+            this.from = from;
+            this.to = to;
+            this.lineStart = lineStart;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                leaf.apply(from, to);
+                return;
+            }
+            // The last line boundary at or before the midpoint. The range is at least two lines
+            // long, so this is always strictly inside it.
+            final int half = from + ((to - from) >>> 1);
+            final int mid = ((half - lineStart) & -CACHE_LINE) + lineStart;
+            invokeAll(new Split(leaf, from, mid, lineStart), new Split(leaf, mid, to, lineStart));
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+/**
+ * Engine that hands everything straight to the word-at-a-time kernels in {@link ByteOps}
+ */
+final class ScalarBulkEngine extends BulkEngine {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void and(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        ByteOps.and(src, srcOff, dst, dstOff, len);
+    }
+
+    @Override
+    public void and(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2) {
+        ByteOps.and(src, srcOff, dst, dstOff, len, op2);
+    }
+
+    @Override
+    public void or(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        ByteOps.or(src, srcOff, dst, dstOff, len);
+    }
+
+    @Override
+    public void or(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2) {
+        ByteOps.or(src, srcOff, dst, dstOff, len, op2);
+    }
+
+    @Override
+    public void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        ByteOps.xor(src, srcOff, dst, dstOff, len);
+    }
+
+    @Override
+    public void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2) {
+        ByteOps.xor(src, srcOff, dst, dstOff, len, op2);
+    }
+
+    @Override
+    public void not(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        ByteOps.not(src, srcOff, dst, dstOff, len);
+    }
+
+    @Override
+    public void lshift(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        ByteOps.lshift(src, srcOff, dst, dstOff, len, n);
+    }
+
+    @Override
+    public void rshift(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        ByteOps.rshift(src, srcOff, dst, dstOff, len, n);
+    }
+
+    @Override
+    public void lrotate(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        ByteOps.lrotate(src, srcOff, dst, dstOff, len, n);
+    }
+
+    @Override
+    public void rrotate(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        ByteOps.rrotate(src, srcOff, dst, dstOff, len, n);
+    }
+
+    @Override
+    void gfMul(GaloisField.Coefficient c, byte[] src, int srcOff, byte[] dst, int dstOff,
+            int len) {
+        GaloisField.mul(c, src, srcOff, dst, dstOff, len);
+    }
+
+    @Override
+    void gfMulAdd(GaloisField.Coefficient c, byte[] src, int srcOff, byte[] dst, int dstOff,
+            int len) {
+        GaloisField.mulAdd(c, src, srcOff, dst, dstOff, len);
+    }
+
+}
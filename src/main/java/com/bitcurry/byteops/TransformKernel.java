@@ -0,0 +1,189 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link ByteTransform} compiled into a specialized bulk loop instead of a table lookup.
+ * 
+ * Any chain of the single-byte operations collapses to <code>lrotate(b, r) & a ^ x</code> for
+ * some constants <code>r</code>, <code>a</code> and <code>x</code>. For each distinct
+ * <code>(r, a)</code> shape a hidden class is defined at runtime with both values baked in as
+ * constants, giving a loop that works eight bytes at a time instead of looking each byte up in
+ * a table. Kernels are cached by shape, so compiling the same shape again is cheap and at most
+ * 2048 classes are ever defined.
+ * 
+ * The XOR constant is passed to the kernel on every call, which is what allows a key that only
+ * becomes known at runtime, such as a per-packet XOR key, to be folded in as well. A keyed
+ * kernel computes <code>after(before(b) ^ key)</code>:
+ * 
+ * <pre>
+ * TransformKernel kernel = TransformKernel.compileKeyed(
+ *         ByteTransform.identity().not(), ByteTransform.identity().lrotate(3));
+ * kernel.apply(packet, 0, packet, 0, packet.length, packetKey);
+ * </pre>
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class TransformKernel implements BulkOp {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final byte[] TEMPLATE = readTemplate();
+    private static final ConcurrentMap<Integer, Kernel> KERNELS = new ConcurrentHashMap<>();
+
+    private final MaskedRotation body;
+    private final MaskedRotation keyPath;
+    private final Kernel kernel;
+
+    private TransformKernel(final MaskedRotation body, final MaskedRotation keyPath) {
+        this.body = body;
+        this.keyPath = keyPath;
+        this.kernel = kernel(body.rotate, body.and);
+    }
+
+    /**
+     * Compile <code>transform</code>. The keyed <code>apply</code> methods XOR the key into the
+     * result of the transform.
+     */
+    public static TransformKernel compile(final ByteTransform transform) {
+        return compileKeyed(transform, ByteTransform.identity());
+    }
+
+    /**
+     * Compile a transform that runs <code>before</code>, XORs in the key passed to the keyed
+     * <code>apply</code> methods, and then runs <code>after</code>. The plain
+     * <code>BulkOp</code> methods use a key of zero.
+     */
+    public static TransformKernel compileKeyed(final ByteTransform before,
+            final ByteTransform after) {
+        MaskedRotation tail = after.fold();
+        return new TransformKernel(before.then(after).fold(), tail);
+    }
+
+    /**
+     * Transform <code>len</code> bytes of <code>src</code> into <code>dst</code> using
+     * <code>key</code>
+     */
+    public void apply(final byte[] src, final int srcOff, final byte[] dst, final int dstOff,
+            final int len, final int key) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+        kernel.apply(src, srcOff, dst, dstOff, len, xor(key));
+    }
+
+    /**
+     * Transform the remaining bytes of <code>src</code> into <code>dst</code> starting at its
+     * position using <code>key</code>. The positions and limits of both buffers are left
+     * untouched.
+     */
+    public void apply(final ByteBuffer src, final ByteBuffer dst, final int key) {
+        BufferKernels.checkTarget(src, dst);
+        if (BufferKernels.hasArrays(src, dst)) {
+            kernel.apply(src.array(), BufferKernels.arrayIndex(src), dst.array(),
+                    BufferKernels.arrayIndex(dst), src.remaining(), xor(key));
+        } else {
+            BufferKernels.map(src, dst, body.rotate, 8 - body.rotate, body.and, xor(key));
+        }
+    }
+
+    @Override
+    public void apply(final byte[] src, final int srcOff, final byte[] dst, final int dstOff,
+            final int len) {
+        apply(src, srcOff, dst, dstOff, len, 0);
+    }
+
+    @Override
+    public void apply(final ByteBuffer src, final ByteBuffer dst) {
+        apply(src, dst, 0);
+    }
+
+    /**
+     * Apply this kernel to the low eight bits of <code>op1</code> using <code>key</code>
+     */
+    public byte apply(final int op1, final int key) {
+        return (byte) (ByteOps.lrotate(op1, body.rotate) & body.and ^ xor(key));
+    }
+
+    /*
+     * The XOR constant for a call: the folded constant plus the key as it appears after
+     * passing through the steps that follow it
+     */
+    private int xor(final int key) {
+        return body.xor ^ (ByteOps.lrotate(key, keyPath.rotate) & keyPath.and);
+    }
+
+    Kernel getKernel() {
+        return kernel;
+    }
+
+    @Override
+    public String toString() {
+        return "TransformKernel[" + body + "]";
+    }
+
+    private static Kernel kernel(final int rotate, final int and) {
+        return KERNELS.computeIfAbsent((rotate << 8) | and, shape -> define(rotate, and));
+    }
+
+    /*
+     * Define a hidden class from the template bytes with this shape as its class data. If the
+     * class can't be defined or created fall back to an unspecialized loop, which gives the same
+     * results. Only those failures are caught; any other error propagates.
+     */
+    private static Kernel define(final int rotate, final int and) {
+        if (TEMPLATE != null) {
+            try {
+                MethodHandles.Lookup hidden =
+                        LOOKUP.defineHiddenClassWithClassData(TEMPLATE, new int[] { rotate, and },
+                                true);
+                return (Kernel) hidden.lookupClass().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | IllegalArgumentException | LinkageError e) {
+                // fall through to the generic loop
+            }
+        }
+        return (src, srcOff, dst, dstOff, len, xor) -> {
+            for (int i = 0; i < len; i++) {
+                int b = src[srcOff + i] & 0xFF;
+                dst[dstOff + i] = (byte) ((((b << rotate) | (b >>> (8 - rotate))) & and) ^ xor);
+            }
+        };
+    }
+
+    private static byte[] readTemplate() {
+        try (InputStream in = KernelTemplate.class.getResourceAsStream("KernelTemplate.class")) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that applies a {@link BulkOp} to everything read from the underlying stream.
+ * Bytes are transformed in place in the caller's array as they arrive, so reads cost no
+ * allocation and no extra copy. Use <code>BulkOp.xor(key)</code> to undo a keyed XOR on the fly.
+ * 
+ * Because a <code>BulkOp</code> treats every byte on its own, skipping, marking and resetting
+ * are passed straight through to the underlying stream.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public class TransformingInputStream extends FilterInputStream {
+
+    private final BulkOp op;
+
+    /* op itself, or op counted under this class's name when instrumentation is on */
+    private final BulkOp applied;
+
+    private final byte[] single = new byte[1];
+
+    /**
+     * Create a stream that applies <code>op</code> to the bytes read from <code>in</code>
+     */
+    public TransformingInputStream(final InputStream in, final BulkOp op) {
+        super(in);
+        if (op == null) {
+            throw new NullPointerException("op");
+        }
+        this.op = op;
+        this.applied = op.instrumented("TransformingInputStream");
+    }
+
+    public BulkOp getOp() {
+        return op;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            return b;
+        }
+        single[0] = (byte) b;
+        applied.apply(single, 0, 1);
+        return single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            applied.apply(b, off, n);
+        }
+        return n;
+    }
+
+}
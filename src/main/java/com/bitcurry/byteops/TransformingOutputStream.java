@@ -0,0 +1,127 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that applies a {@link BulkOp} to everything written before passing it to
+ * the underlying stream. The caller's arrays are never modified: bytes are transformed into an
+ * internal buffer, allocated once, which is written out whenever it fills up and on
+ * {@link #flush()} or {@link #close()}. Use <code>BulkOp.xor(key)</code> to apply a keyed XOR
+ * on the fly.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public class TransformingOutputStream extends FilterOutputStream {
+
+    /**
+     * Default buffer size of 8 KB
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final BulkOp op;
+
+    /* op itself, or op counted under this class's name when instrumentation is on */
+    private final BulkOp applied;
+
+    private final byte[] buf;
+    private int count;
+
+    /**
+     * Create a stream that applies <code>op</code> to the bytes written to <code>out</code>
+     * using a buffer of {@link #DEFAULT_BUFFER_SIZE} bytes
+     */
+    public TransformingOutputStream(final OutputStream out, final BulkOp op) {
+        this(out, op, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a stream that applies <code>op</code> to the bytes written to <code>out</code>
+     * using a buffer of <code>bufferSize</code> bytes
+     */
+    public TransformingOutputStream(final OutputStream out, final BulkOp op,
+            final int bufferSize) {
+        super(out);
+        if (op == null) {
+            throw new NullPointerException("op");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.op = op;
+        this.applied = op.instrumented("TransformingOutputStream");
+        this.buf = new byte[bufferSize];
+    }
+
+    public BulkOp getOp() {
+        return op;
+    }
+
+    public int getBufferSize() {
+        return buf.length;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        buf[count] = (byte) b;
+        applied.apply(buf, count, 1);
+        if (++count == buf.length) {
+            flushBuffer();
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ByteOps.checkRange(b, off, len);
+        int done = 0;
+        while (done < len) {
+            int n = Math.min(len - done, buf.length - count);
+            applied.apply(b, off + done, buf, count, n);
+            count += n;
+            done += n;
+            if (count == buf.length) {
+                flushBuffer();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A channel that applies a {@link BulkOp} to everything read from an underlying channel. Bytes
+ * are transformed in place in the caller's buffer as they arrive, so reads cost no allocation
+ * and no extra copy. Use <code>BulkOp.xor(key)</code> to undo a keyed XOR on the fly.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public class TransformingReadableChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel channel;
+    private final BulkOp op;
+
+    /* op itself, or op counted under this class's name when instrumentation is on */
+    private final BulkOp applied;
+
+    /**
+     * Create a channel that applies <code>op</code> to the bytes read from <code>channel</code>
+     */
+    public TransformingReadableChannel(final ReadableByteChannel channel, final BulkOp op) {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (op == null) {
+            throw new NullPointerException("op");
+        }
+        this.channel = channel;
+        this.op = op;
+        this.applied = op.instrumented("TransformingReadableChannel");
+    }
+
+    public BulkOp getOp() {
+        return op;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        final int start = dst.position();
+        int n = channel.read(dst);
+        if (n > 0) {
+            ByteBuffer arrived = dst.duplicate();
+            arrived.limit(start + n).position(start);
+            applied.apply(arrived);
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,154 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A channel that applies a {@link BulkOp} to everything written before passing it to an
+ * underlying channel. The caller's buffers are never modified: bytes are transformed into a
+ * direct buffer, allocated once, and written from there. Use <code>BulkOp.xor(key)</code> to
+ * apply a keyed XOR on the fly.
+ * 
+ * The underlying channel may be non-blocking. Bytes that have been transformed but that it
+ * didn't accept yet are held back and written first on the next call, and
+ * {@link #write(ByteBuffer)} only reports bytes as written once they have been taken from the
+ * caller's buffer. {@link #hasPending()} tells whether anything is still held back, and
+ * {@link #flush()} tries to write it out without taking any more input.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public class TransformingWritableChannel implements WritableByteChannel {
+
+    /**
+     * Default buffer size of 8 KB
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final WritableByteChannel channel;
+    private final BulkOp op;
+
+    /* op itself, or op counted under this class's name when instrumentation is on */
+    private final BulkOp applied;
+
+    private final ByteBuffer buf;
+
+    /**
+     * Create a channel that applies <code>op</code> to the bytes written to
+     * <code>channel</code> using a buffer of {@link #DEFAULT_BUFFER_SIZE} bytes
+     */
+    public TransformingWritableChannel(final WritableByteChannel channel, final BulkOp op) {
+        this(channel, op, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a channel that applies <code>op</code> to the bytes written to
+     * <code>channel</code> using a buffer of <code>bufferSize</code> bytes
+     */
+    public TransformingWritableChannel(final WritableByteChannel channel, final BulkOp op,
+            final int bufferSize) {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (op == null) {
+            throw new NullPointerException("op");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.channel = channel;
+        this.op = op;
+        this.applied = op.instrumented("TransformingWritableChannel");
+        this.buf = ByteBuffer.allocateDirect(bufferSize);
+        buf.limit(0);
+    }
+
+    public BulkOp getOp() {
+        return op;
+    }
+
+    public int getBufferSize() {
+        return buf.capacity();
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        int written = 0;
+        while (flush() && src.hasRemaining()) {
+            final int n = Math.min(src.remaining(), buf.capacity());
+            ByteBuffer chunk = src.duplicate();
+            chunk.limit(chunk.position() + n);
+            buf.clear();
+            applied.apply(chunk, buf);
+            buf.limit(n);
+            src.position(src.position() + n);
+            written += n;
+        }
+        return written;
+    }
+
+    /**
+     * Returns <code>true</code> if transformed bytes are waiting to be written to the
+     * underlying channel
+     */
+    public boolean hasPending() {
+        return buf.hasRemaining();
+    }
+
+    /**
+     * Write as many of the pending bytes as the underlying channel will take. Returns
+     * <code>true</code> if none are left.
+     */
+    public boolean flush() throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.write(buf) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Write any pending bytes and close the underlying channel. Pending bytes that a
+     * non-blocking channel won't take are discarded.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
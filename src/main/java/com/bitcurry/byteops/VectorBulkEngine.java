@@ -0,0 +1,271 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Engine built on the incubating Vector API. Whole vectors of the platform's preferred species
+ * are processed with a single lane-wise operation and whatever is left over is handed to the
+ * word-at-a-time kernels in {@link ByteOps}.
+ * 
+ * Each operation has its own loop so that the lane-wise operator is a constant at the point of
+ * use; the Vector API is only compiled to SIMD instructions when it can see which operator is
+ * being applied.
+ * 
+ * This class must only be loaded when the <code>jdk.incubator.vector</code> module is present;
+ * {@link BulkEngine} takes care of that.
+ */
+final class VectorBulkEngine extends BulkEngine {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector";
+    }
+
+    @Override
+    public void and(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector a = ByteVector.fromArray(SPECIES, dst, dstOff + i);
+            ByteVector b = ByteVector.fromArray(SPECIES, src, srcOff + i);
+            a.and(b).intoArray(dst, dstOff + i);
+        }
+        ByteOps.and(src, srcOff + i, dst, dstOff + i, len - i);
+    }
+
+    @Override
+    public void and(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, src, srcOff + i)
+                    .and((byte) op2)
+                    .intoArray(dst, dstOff + i);
+        }
+        ByteOps.and(src, srcOff + i, dst, dstOff + i, len - i, op2);
+    }
+
+    @Override
+    public void or(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector a = ByteVector.fromArray(SPECIES, dst, dstOff + i);
+            ByteVector b = ByteVector.fromArray(SPECIES, src, srcOff + i);
+            a.or(b).intoArray(dst, dstOff + i);
+        }
+        ByteOps.or(src, srcOff + i, dst, dstOff + i, len - i);
+    }
+
+    @Override
+    public void or(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, src, srcOff + i)
+                    .or((byte) op2)
+                    .intoArray(dst, dstOff + i);
+        }
+        ByteOps.or(src, srcOff + i, dst, dstOff + i, len - i, op2);
+    }
+
+    @Override
+    public void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector a = ByteVector.fromArray(SPECIES, dst, dstOff + i);
+            ByteVector b = ByteVector.fromArray(SPECIES, src, srcOff + i);
+            a.lanewise(VectorOperators.XOR, b).intoArray(dst, dstOff + i);
+        }
+        ByteOps.xor(src, srcOff + i, dst, dstOff + i, len - i);
+    }
+
+    @Override
+    public void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int op2) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, src, srcOff + i)
+                    .lanewise(VectorOperators.XOR, (byte) op2)
+                    .intoArray(dst, dstOff + i);
+        }
+        ByteOps.xor(src, srcOff + i, dst, dstOff + i, len - i, op2);
+    }
+
+    @Override
+    public void not(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, src, srcOff + i)
+                    .not()
+                    .intoArray(dst, dstOff + i);
+        }
+        ByteOps.not(src, srcOff + i, dst, dstOff + i, len - i);
+    }
+
+    @Override
+    public void lshift(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        // byte lanes mask the shift count to 3 bits, so leave wide shifts to ByteOps
+        int i = 0;
+        if (ByteOps.shiftCount(n) < 8) {
+            final int bound = SPECIES.loopBound(len);
+            for (; i < bound; i += SPECIES.length()) {
+                ByteVector.fromArray(SPECIES, src, srcOff + i)
+                        .lanewise(VectorOperators.LSHL, n)
+                        .intoArray(dst, dstOff + i);
+            }
+        }
+        ByteOps.lshift(src, srcOff + i, dst, dstOff + i, len - i, n);
+    }
+
+    @Override
+    public void rshift(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        // byte lanes mask the shift count to 3 bits, so leave wide shifts to ByteOps
+        int i = 0;
+        if (ByteOps.shiftCount(n) < 8) {
+            final int bound = SPECIES.loopBound(len);
+            for (; i < bound; i += SPECIES.length()) {
+                ByteVector.fromArray(SPECIES, src, srcOff + i)
+                        .lanewise(VectorOperators.LSHR, n)
+                        .intoArray(dst, dstOff + i);
+            }
+        }
+        ByteOps.rshift(src, srcOff + i, dst, dstOff + i, len - i, n);
+    }
+
+    @Override
+    public void lrotate(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int r = n & 7;
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, src, srcOff + i)
+                    .lanewise(VectorOperators.ROL, r)
+                    .intoArray(dst, dstOff + i);
+        }
+        ByteOps.lrotate(src, srcOff + i, dst, dstOff + i, len - i, n);
+    }
+
+    @Override
+    public void rrotate(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int n) {
+        checkRanges(src, srcOff, dst, dstOff, len);
+        final int r = n & 7;
+        final int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, src, srcOff + i)
+                    .lanewise(VectorOperators.ROR, r)
+                    .intoArray(dst, dstOff + i);
+        }
+        ByteOps.rrotate(src, srcOff + i, dst, dstOff + i, len - i, n);
+    }
+
+    @Override
+    void gfMul(GaloisField.Coefficient c, byte[] src, int srcOff, byte[] dst, int dstOff,
+            int len) {
+        gfMul(SPECIES, c, src, srcOff, dst, dstOff, len);
+    }
+
+    @Override
+    void gfMulAdd(GaloisField.Coefficient c, byte[] src, int srcOff, byte[] dst, int dstOff,
+            int len) {
+        gfMulAdd(SPECIES, c, src, srcOff, dst, dstOff, len);
+    }
+
+    /*
+     * Each byte is looked up in the coefficient's two 16-entry nibble tables with a shuffle,
+     * which needs vectors of at least 16 lanes to hold the tables. The tables are loaded into
+     * the first 16 lanes only, so any wider species works too. The species is a parameter so
+     * that the tests can run the kernels at every width; the engine always passes the constant
+     * SPECIES.
+     */
+    static void gfMul(VectorSpecies<Byte> species, GaloisField.Coefficient c, byte[] src,
+            int srcOff, byte[] dst, int dstOff, int len) {
+        int i = 0;
+        if (species.length() >= GaloisField.NIBBLE_TABLE) {
+            final ByteVector low = nibbleTable(species, c.low);
+            final ByteVector high = nibbleTable(species, c.high);
+            final int bound = species.loopBound(len);
+            for (; i < bound; i += species.length()) {
+                ByteVector s = ByteVector.fromArray(species, src, srcOff + i);
+                s.and((byte) 0x0F).selectFrom(low)
+                        .lanewise(VectorOperators.XOR,
+                                s.lanewise(VectorOperators.LSHR, 4).selectFrom(high))
+                        .intoArray(dst, dstOff + i);
+            }
+        }
+        GaloisField.mul(c, src, srcOff + i, dst, dstOff + i, len - i);
+    }
+
+    static void gfMulAdd(VectorSpecies<Byte> species, GaloisField.Coefficient c, byte[] src,
+            int srcOff, byte[] dst, int dstOff, int len) {
+        int i = 0;
+        if (species.length() >= GaloisField.NIBBLE_TABLE) {
+            final ByteVector low = nibbleTable(species, c.low);
+            final ByteVector high = nibbleTable(species, c.high);
+            final int bound = species.loopBound(len);
+            for (; i < bound; i += species.length()) {
+                ByteVector s = ByteVector.fromArray(species, src, srcOff + i);
+                ByteVector.fromArray(species, dst, dstOff + i)
+                        .lanewise(VectorOperators.XOR, s.and((byte) 0x0F).selectFrom(low))
+                        .lanewise(VectorOperators.XOR,
+                                s.lanewise(VectorOperators.LSHR, 4).selectFrom(high))
+                        .intoArray(dst, dstOff + i);
+            }
+        }
+        GaloisField.mulAdd(c, src, srcOff + i, dst, dstOff + i, len - i);
+    }
+
+    private static ByteVector nibbleTable(final VectorSpecies<Byte> species, final byte[] table) {
+        return ByteVector.fromArray(species, table, 0,
+                species.indexInRange(0, GaloisField.NIBBLE_TABLE));
+    }
+
+    private static void checkRanges(final byte[] src, final int srcOff, final byte[] dst,
+            final int dstOff, final int len) {
+        ByteOps.checkRange(src, srcOff, len);
+        ByteOps.checkRange(dst, dstOff, len);
+    }
+
+}
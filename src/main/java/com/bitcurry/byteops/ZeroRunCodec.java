@@ -0,0 +1,220 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Run-length coding of packed flags, laid out as in {@link BitPacking}. The flags are
+ * described as alternating runs of clear and set bits, starting with a (possibly empty) run of
+ * clear bits, and each run length is written as an unsigned LEB128 varint after a varint
+ * header holding the number of flags. Mostly-clear flags with scattered or clustered set bits
+ * shrink to a byte or two per cluster, and long runs of set bits compress just as well.
+ * Random dense data can grow, by up to two bytes per bit that differs from its predecessor.
+ * 
+ * Encoding reads 64 flags at a time and finds the next run boundary in a word with
+ * <code>Long.numberOfTrailingZeros</code>, so whole words of zeros (or of ones inside a set
+ * run) are passed over in one step and the cost grows with the number of runs rather than the
+ * number of flags. Decoding fills set runs with <code>Arrays.fill</code>.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class ZeroRunCodec {
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ZeroRunCodec() {
+    }
+
+    /**
+     * Returns the encoding of <code>len</code> flags packed in <code>src</code> from
+     * <code>off</code>
+     */
+    public static byte[] encode(final byte[] src, final int off, final int len) {
+        final ByteList out = new ByteList();
+        encode(src, off, len, out);
+        return out.toArray();
+    }
+
+    /**
+     * Append the encoding of <code>len</code> flags packed in <code>src</code> from
+     * <code>off</code> to <code>out</code>. Bits of the last byte beyond <code>len</code> are
+     * ignored.
+     */
+    public static void encode(final byte[] src, final int off, final int len,
+            final ByteList out) {
+        if (len < 0) {
+            throw new IllegalArgumentException("negative length: " + len);
+        }
+        ByteOps.checkRange(src, off, BitPacking.packedLength(len));
+        writeVarint(out, len);
+        int pos = 0;
+        boolean ones = false;
+        while (pos < len) {
+            final int start = pos;
+            while (pos < len) {
+                long w = word(src, off, len, pos >>> 6) >>> (pos & 63);
+                if (ones) {
+                    w = ~w;
+                }
+                final int available = 64 - (pos & 63);
+                final int run = Math.min(Long.numberOfTrailingZeros(w), available);
+                pos += run;
+                if (run < available) {
+                    break;
+                }
+            }
+            pos = Math.min(pos, len);
+            writeVarint(out, pos - start);
+            ones = !ones;
+        }
+    }
+
+    /**
+     * Returns the number of flags encoded in <code>src</code> from <code>off</code>, read from
+     * the header
+     */
+    public static int decodedLength(final byte[] src, final int off) {
+        return (int) readVarint(src, off, src.length);
+    }
+
+    /**
+     * Decode <code>len</code> bytes of <code>src</code> from <code>off</code>, writing the
+     * packed flags into <code>dst</code> from <code>dstOff</code>, and return the number of
+     * flags. <code>dst</code> needs room for
+     * <code>BitPacking.packedLength(decodedLength(src, off))</code> bytes; unused bits of the
+     * last byte are cleared.
+     * 
+     * @throws IllegalArgumentException if the encoding is malformed
+     */
+    public static int decode(final byte[] src, final int off, final int len, final byte[] dst,
+            final int dstOff) {
+        ByteOps.checkRange(src, off, len);
+        final int end = off + len;
+        long header = readVarint(src, off, end);
+        int in = (int) (header >>> 32);
+        final int flags = (int) header;
+        final int bytes = BitPacking.packedLength(flags);
+        ByteOps.checkRange(dst, dstOff, bytes);
+        Arrays.fill(dst, dstOff, dstOff + bytes, (byte) 0);
+        int pos = 0;
+        boolean ones = false;
+        while (pos < flags) {
+            final long run = readVarint(src, in, end);
+            in = (int) (run >>> 32);
+            final int n = (int) run;
+            if (n > flags - pos) {
+                throw new IllegalArgumentException("run of " + n + " passes the end");
+            }
+            if (ones) {
+                setRange(dst, dstOff, pos, pos + n);
+            }
+            pos += n;
+            ones = !ones;
+        }
+        return flags;
+    }
+
+    /**
+     * Returns the flags encoded in <code>src</code>, packed into a new array
+     */
+    public static byte[] decode(final byte[] src) {
+        final byte[] packed = new byte[BitPacking.packedLength(decodedLength(src, 0))];
+        decode(src, 0, src.length, packed, 0);
+        return packed;
+    }
+
+    /*
+     * Word w of the packed flags, with any bits at or beyond len cleared
+     */
+    private static long word(final byte[] src, final int off, final int len, final int w) {
+        final int bytes = BitPacking.packedLength(len);
+        final int at = w << 3;
+        long x;
+        if (at + 8 <= bytes) {
+            x = (long) LONGS.get(src, off + at);
+        } else {
+            x = 0;
+            for (int k = 0; at + k < bytes; k++) {
+                x |= (src[off + at + k] & 0xFFL) << (k << 3);
+            }
+        }
+        final int bits = len - (w << 6);
+        return bits >= 64 ? x : x & ((1L << bits) - 1);
+    }
+
+    private static void setRange(final byte[] dst, final int dstOff, final int from,
+            final int to) {
+        if (from == to) {
+            return;
+        }
+        final int first = from >>> 3;
+        final int last = (to - 1) >>> 3;
+        final int head = 0xFF << (from & 7);
+        final int tail = 0xFF >>> (7 - ((to - 1) & 7));
+        if (first == last) {
+            dst[dstOff + first] |= (byte) (head & tail);
+        } else {
+            dst[dstOff + first] |= (byte) head;
+            Arrays.fill(dst, dstOff + first + 1, dstOff + last, (byte) 0xFF);
+            dst[dstOff + last] |= (byte) tail;
+        }
+    }
+
+    private static void writeVarint(final ByteList out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.add((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.add(value);
+    }
+
+    /*
+     * Returns the value in the low half and the index after it in the high half
+     */
+    private static long readVarint(final byte[] src, int in, final int end) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (in >= end) {
+                throw new IllegalArgumentException("truncated varint at index " + in);
+            }
+            final int b = src[in++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("varint out of range");
+                }
+                return ((long) in << 32) | value;
+            }
+        }
+        throw new IllegalArgumentException("varint too long at index " + in);
+    }
+
+}
@@ -0,0 +1,136 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops.checksum;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * The simple one-byte checksums found alongside CRCs in serial protocols: XOR of all bytes
+ * (BCC), the 8-bit sum, the longitudinal redundancy check of Modbus ASCII and friends, and
+ * parity. Each works eight bytes at a time as <code>long</code> words and folds the lanes
+ * together at the end.
+ * 
+ * All of these can be computed incrementally: the XOR of a message is the XOR of the values of
+ * its pieces, and likewise the sum adds up, so <code>lrc</code> of the whole is
+ * <code>-(sum(a) + sum(b))</code>.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class Checksums {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    /* The even bytes of a long, each in a 16-bit lane */
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+
+    /* Words that can be summed into 16-bit lanes before a lane could overflow */
+    private static final int SUM_BLOCK = 128;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private Checksums() {
+    }
+
+    /**
+     * Returns the XOR of <code>len</code> bytes of <code>buf</code> starting at
+     * <code>off</code>
+     */
+    public static byte xor(final byte[] buf, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, buf.length);
+        long x = 0;
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            x ^= (long) LONGS.get(buf, off + i);
+        }
+        x ^= x >>> 32;
+        x ^= x >>> 16;
+        x ^= x >>> 8;
+        int result = (int) x;
+        for (; i < len; i++) {
+            result ^= buf[off + i];
+        }
+        return (byte) result;
+    }
+
+    /**
+     * Returns the sum of <code>len</code> bytes of <code>buf</code> starting at
+     * <code>off</code>, modulo 256
+     */
+    public static byte sum(final byte[] buf, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, buf.length);
+        int sum = 0;
+        int i = 0;
+        while (i <= len - 8) {
+            long lanes = 0;
+            for (int end = i + Math.min(len - 7 - i, 8 * SUM_BLOCK); i < end; i += 8) {
+                long w = (long) LONGS.get(buf, off + i);
+                lanes += (w & EVEN_BYTES) + ((w >>> 8) & EVEN_BYTES);
+            }
+            sum += (int) (lanes + (lanes >>> 16) + (lanes >>> 32) + (lanes >>> 48));
+        }
+        for (; i < len; i++) {
+            sum += buf[off + i];
+        }
+        return (byte) sum;
+    }
+
+    /**
+     * Returns the longitudinal redundancy check of <code>len</code> bytes of <code>buf</code>
+     * starting at <code>off</code>: the two's complement of their sum, so that the bytes plus
+     * the check sum to zero
+     */
+    public static byte lrc(final byte[] buf, final int off, final int len) {
+        return (byte) -sum(buf, off, len);
+    }
+
+    /**
+     * Returns 1 if <code>b</code> has an odd number of bits set, 0 if even
+     */
+    public static int parity(final byte b) {
+        return parity((int) b);
+    }
+
+    /**
+     * Returns 1 if the low eight bits of <code>b</code> have an odd number of bits set, 0 if
+     * even
+     */
+    public static int parity(final int b) {
+        return Integer.bitCount(b & BYTE_MASK) & 1;
+    }
+
+    /**
+     * Returns 1 if <code>len</code> bytes of <code>buf</code> starting at <code>off</code> have
+     * an odd number of bits set in total, 0 if even
+     */
+    public static int parity(final byte[] buf, final int off, final int len) {
+        return parity(xor(buf, off, len));
+    }
+
+}
@@ -0,0 +1,95 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops.checksum;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * A running CRC computation for a {@link CrcModel}. Data can be fed in any number of
+ * {@link #update(byte[], int, int)} calls as it is read or received, and
+ * {@link #getValue()} gives the CRC of everything so far without ending the computation.
+ * Implements <code>java.util.zip.Checksum</code>, so it can be used with
+ * <code>CheckedInputStream</code> and <code>CheckedOutputStream</code>.
+ * 
+ * The register is a single <code>int</code> and updates allocate nothing, including for
+ * direct buffers. A <code>Crc</code> is not thread safe; use one per stream.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class Crc implements Checksum {
+
+    private final CrcModel model;
+    private int register;
+
+    Crc(final CrcModel model) {
+        this.model = model;
+        this.register = model.initRegister();
+    }
+
+    public CrcModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void update(final int b) {
+        register = model.update(register, b);
+    }
+
+    @Override
+    public void update(final byte[] b, final int off, final int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        register = model.update(register, b, off, len);
+    }
+
+    /**
+     * Update the CRC with the remaining bytes of <code>buffer</code>. As required by
+     * <code>Checksum</code>, the position of the buffer is moved to its limit.
+     */
+    @Override
+    public void update(final ByteBuffer buffer) {
+        register = model.update(register, buffer, buffer.position(), buffer.limit());
+        buffer.position(buffer.limit());
+    }
+
+    @Override
+    public long getValue() {
+        return model.value(register);
+    }
+
+    @Override
+    public void reset() {
+        register = model.initRegister();
+    }
+
+    @Override
+    public String toString() {
+        return model + "[" + Long.toHexString(getValue()) + "]";
+    }
+
+}
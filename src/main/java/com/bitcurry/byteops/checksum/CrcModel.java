@@ -0,0 +1,367 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops.checksum;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * The parameters of a CRC algorithm in the usual Rocksoft model - width, polynomial, initial
+ * value, input and output reflection and final XOR - together with the lookup tables that
+ * compute it. Constants are provided for the common 8 and 16 bit protocols; any other CRC of
+ * 1 to 32 bits can be described with the constructor. Values are given unreflected and without
+ * the implicit top bit, as in CRC catalogues.
+ * 
+ * Building a model computes eight tables of 256 entries. They allow a {@link Crc} to work
+ * through its input eight bytes at a time (slicing-by-8), using four bytes (slicing-by-4) and
+ * then single bytes for what is left, so that the per-byte dependency on the previous register
+ * value that limits a plain table lookup is broken up. A model is immutable and its tables are
+ * shared by every <code>Crc</code> created from it, so keep models around rather than building
+ * them per message.
+ * 
+ * @author Nick Stevens <nick@bitcurry.com>
+ */
+public final class CrcModel {
+
+    /**
+     * CRC-8/SMBUS, used by SMBus packet error checking
+     */
+    public static final CrcModel CRC8_SMBUS =
+            new CrcModel("CRC-8/SMBUS", 8, 0x07, 0x00, false, false, 0x00);
+
+    /**
+     * CRC-8/MAXIM-DOW, used by Maxim/Dallas 1-Wire devices
+     */
+    public static final CrcModel CRC8_MAXIM =
+            new CrcModel("CRC-8/MAXIM-DOW", 8, 0x31, 0x00, true, true, 0x00);
+
+    /**
+     * CRC-16/MODBUS, used by Modbus RTU
+     */
+    public static final CrcModel CRC16_MODBUS =
+            new CrcModel("CRC-16/MODBUS", 16, 0x8005, 0xFFFF, true, true, 0x0000);
+
+    /**
+     * CRC-16/CCITT-FALSE, also catalogued as CRC-16/IBM-3740
+     */
+    public static final CrcModel CRC16_CCITT_FALSE =
+            new CrcModel("CRC-16/CCITT-FALSE", 16, 0x1021, 0xFFFF, false, false, 0x0000);
+
+    /**
+     * CRC-16/XMODEM, used by XMODEM and many CCITT-based protocols
+     */
+    public static final CrcModel CRC16_XMODEM =
+            new CrcModel("CRC-16/XMODEM", 16, 0x1021, 0x0000, false, false, 0x0000);
+
+    /**
+     * CRC-16/KERMIT, the reflected CCITT CRC
+     */
+    public static final CrcModel CRC16_KERMIT =
+            new CrcModel("CRC-16/KERMIT", 16, 0x1021, 0x0000, true, true, 0x0000);
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final VarHandle BIG_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LITTLE_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BIG_INTS =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LITTLE_INTS =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BIG_BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LITTLE_BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final String name;
+    private final int width;
+    private final int poly;
+    private final int init;
+    private final boolean reflectIn;
+    private final boolean reflectOut;
+    private final int xorOut;
+
+    /*
+     * Eight tables of 256 entries, one after the other. Reflected models keep the register in
+     * the low bits of an int, reflected; the others keep it in the high bits so that the top
+     * byte is always the one to look up.
+     */
+    private final int[] table;
+    private final int initRegister;
+
+    /**
+     * Describe a CRC of <code>width</code> bits. Only the low <code>width</code> bits of
+     * <code>poly</code>, <code>init</code> and <code>xorOut</code> are used.
+     * 
+     * @throws IllegalArgumentException if <code>width</code> is not between 1 and 32
+     */
+    public CrcModel(final String name, final int width, final int poly, final int init,
+            final boolean reflectIn, final boolean reflectOut, final int xorOut) {
+        if (width < 1 || width > 32) {
+            throw new IllegalArgumentException("width must be between 1 and 32: " + width);
+        }
+        this.name = Objects.requireNonNull(name, "name");
+        this.width = width;
+        this.poly = poly & mask(width);
+        this.init = init & mask(width);
+        this.reflectIn = reflectIn;
+        this.reflectOut = reflectOut;
+        this.xorOut = xorOut & mask(width);
+        this.table = reflectIn ? reflectedTable(reflect(this.poly, width))
+                : table(this.poly << (32 - width));
+        this.initRegister = reflectIn ? reflect(this.init, width) : this.init << (32 - width);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getPoly() {
+        return poly;
+    }
+
+    public int getInit() {
+        return init;
+    }
+
+    public boolean isReflectIn() {
+        return reflectIn;
+    }
+
+    public boolean isReflectOut() {
+        return reflectOut;
+    }
+
+    public int getXorOut() {
+        return xorOut;
+    }
+
+    /**
+     * Returns a new checksum computation using this model
+     */
+    public Crc newCrc() {
+        return new Crc(this);
+    }
+
+    /**
+     * Returns the CRC of <code>len</code> bytes of <code>buf</code> starting at
+     * <code>off</code>
+     */
+    public long compute(final byte[] buf, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, buf.length);
+        return value(update(initRegister, buf, off, len));
+    }
+
+    /**
+     * Returns the CRC of the remaining bytes of <code>buf</code>. The position of the buffer is
+     * left untouched.
+     */
+    public long compute(final ByteBuffer buf) {
+        return value(update(initRegister, buf, buf.position(), buf.limit()));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    int initRegister() {
+        return initRegister;
+    }
+
+    /**
+     * Turn a register into the CRC value it represents
+     */
+    long value(final int register) {
+        int crc = reflectIn ? register : register >>> (32 - width);
+        if (reflectIn != reflectOut) {
+            crc = reflect(crc, width);
+        }
+        return (crc ^ xorOut) & (-1L >>> (64 - width));
+    }
+
+    /**
+     * Returns <code>register</code> updated with <code>len</code> bytes of <code>buf</code>
+     */
+    int update(final int register, final byte[] buf, final int off, final int len) {
+        return reflectIn ? updateReflected(register, buf, off, len)
+                : updateNormal(register, buf, off, len);
+    }
+
+    /**
+     * Returns <code>register</code> updated with the bytes of <code>buf</code> from
+     * <code>from</code> up to <code>to</code>
+     */
+    int update(final int register, final ByteBuffer buf, final int from, final int to) {
+        if (buf.hasArray()) {
+            return update(register, buf.array(), buf.arrayOffset() + from, to - from);
+        }
+        return reflectIn ? updateReflected(register, buf, from, to)
+                : updateNormal(register, buf, from, to);
+    }
+
+    /**
+     * Returns <code>register</code> updated with the single byte <code>b</code>
+     */
+    int update(final int register, final int b) {
+        if (reflectIn) {
+            return (register >>> 8) ^ table[(register ^ b) & BYTE_MASK];
+        }
+        return (register << 8) ^ table[((register >>> 24) ^ b) & BYTE_MASK];
+    }
+
+    private int updateReflected(int crc, final byte[] buf, final int off, final int len) {
+        final int[] t = table;
+        final int end = off + len;
+        int i = off;
+        for (; i <= end - 8; i += 8) {
+            long w = (long) LITTLE_LONGS.get(buf, i);
+            crc = sliceReflected(t, (int) w ^ crc, (int) (w >>> 32));
+        }
+        if (i <= end - 4) {
+            int one = (int) LITTLE_INTS.get(buf, i) ^ crc;
+            crc = t[0x300 + (one & BYTE_MASK)] ^ t[0x200 + ((one >>> 8) & BYTE_MASK)]
+                    ^ t[0x100 + ((one >>> 16) & BYTE_MASK)] ^ t[one >>> 24];
+            i += 4;
+        }
+        for (; i < end; i++) {
+            crc = (crc >>> 8) ^ t[(crc ^ buf[i]) & BYTE_MASK];
+        }
+        return crc;
+    }
+
+    private int updateReflected(int crc, final ByteBuffer buf, final int from, final int to) {
+        final int[] t = table;
+        int i = from;
+        for (; i <= to - 8; i += 8) {
+            long w = (long) LITTLE_BUFFER_LONGS.get(buf, i);
+            crc = sliceReflected(t, (int) w ^ crc, (int) (w >>> 32));
+        }
+        for (; i < to; i++) {
+            crc = (crc >>> 8) ^ t[(crc ^ buf.get(i)) & BYTE_MASK];
+        }
+        return crc;
+    }
+
+    private static int sliceReflected(final int[] t, final int one, final int two) {
+        return t[0x700 + (one & BYTE_MASK)] ^ t[0x600 + ((one >>> 8) & BYTE_MASK)]
+                ^ t[0x500 + ((one >>> 16) & BYTE_MASK)] ^ t[0x400 + (one >>> 24)]
+                ^ t[0x300 + (two & BYTE_MASK)] ^ t[0x200 + ((two >>> 8) & BYTE_MASK)]
+                ^ t[0x100 + ((two >>> 16) & BYTE_MASK)] ^ t[two >>> 24];
+    }
+
+    private int updateNormal(int crc, final byte[] buf, final int off, final int len) {
+        final int[] t = table;
+        final int end = off + len;
+        int i = off;
+        for (; i <= end - 8; i += 8) {
+            long w = (long) BIG_LONGS.get(buf, i);
+            crc = sliceNormal(t, (int) (w >>> 32) ^ crc, (int) w);
+        }
+        if (i <= end - 4) {
+            int one = (int) BIG_INTS.get(buf, i) ^ crc;
+            crc = t[0x300 + (one >>> 24)] ^ t[0x200 + ((one >>> 16) & BYTE_MASK)]
+                    ^ t[0x100 + ((one >>> 8) & BYTE_MASK)] ^ t[one & BYTE_MASK];
+            i += 4;
+        }
+        for (; i < end; i++) {
+            crc = (crc << 8) ^ t[((crc >>> 24) ^ buf[i]) & BYTE_MASK];
+        }
+        return crc;
+    }
+
+    private int updateNormal(int crc, final ByteBuffer buf, final int from, final int to) {
+        final int[] t = table;
+        int i = from;
+        for (; i <= to - 8; i += 8) {
+            long w = (long) BIG_BUFFER_LONGS.get(buf, i);
+            crc = sliceNormal(t, (int) (w >>> 32) ^ crc, (int) w);
+        }
+        for (; i < to; i++) {
+            crc = (crc << 8) ^ t[((crc >>> 24) ^ buf.get(i)) & BYTE_MASK];
+        }
+        return crc;
+    }
+
+    private static int sliceNormal(final int[] t, final int one, final int two) {
+        return t[0x700 + (one >>> 24)] ^ t[0x600 + ((one >>> 16) & BYTE_MASK)]
+                ^ t[0x500 + ((one >>> 8) & BYTE_MASK)] ^ t[0x400 + (one & BYTE_MASK)]
+                ^ t[0x300 + (two >>> 24)] ^ t[0x200 + ((two >>> 16) & BYTE_MASK)]
+                ^ t[0x100 + ((two >>> 8) & BYTE_MASK)] ^ t[two & BYTE_MASK];
+    }
+
+    /*
+     * Table k gives the effect of a byte followed by k zero bytes
+     */
+    private static int[] reflectedTable(final int poly) {
+        int[] t = new int[8 * 256];
+        for (int i = 0; i < 256; i++) {
+            int c = i;
+            for (int bit = 0; bit < 8; bit++) {
+                c = (c & 1) != 0 ? (c >>> 1) ^ poly : c >>> 1;
+            }
+            t[i] = c;
+        }
+        for (int i = 256; i < t.length; i++) {
+            int c = t[i - 256];
+            t[i] = (c >>> 8) ^ t[c & BYTE_MASK];
+        }
+        return t;
+    }
+
+    private static int[] table(final int poly) {
+        int[] t = new int[8 * 256];
+        for (int i = 0; i < 256; i++) {
+            int c = i << 24;
+            for (int bit = 0; bit < 8; bit++) {
+                c = c < 0 ? (c << 1) ^ poly : c << 1;
+            }
+            t[i] = c;
+        }
+        for (int i = 256; i < t.length; i++) {
+            int c = t[i - 256];
+            t[i] = (c << 8) ^ t[c >>> 24];
+        }
+        return t;
+    }
+
+    private static int mask(final int width) {
+        return -1 >>> (32 - width);
+    }
+
+    private static int reflect(final int value, final int width) {
+        return Integer.reverse(value) >>> (32 - width);
+    }
+
+}
@@ -0,0 +1,135 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/*
+ * Everything is checked against ByteOps.bitCount applied one byte at a time.
+ */
+public class BitCountsTest {
+
+	private static final int[] LENGTHS = { 0, 1, 7, 8, 31, 32, 33, 64, 100, 512 };
+
+	private static long naiveXor(byte[] a, int aOff, byte[] b, int bOff, int len) {
+		long count = 0;
+		for (int i = 0; i < len; i++) {
+			count += ByteOps.bitCount(ByteOps.xor(a[aOff + i], b[bOff + i]));
+		}
+		return count;
+	}
+
+	@Test
+	public void testCounts() {
+		for (int len : LENGTHS) {
+			byte[] a = randomBytes(len + 3, len);
+			byte[] b = randomBytes(len + 5, ~len);
+			long ones = 0;
+			long and = 0;
+			for (int i = 0; i < len; i++) {
+				ones += ByteOps.bitCount(a[3 + i]);
+				and += ByteOps.bitCount(ByteOps.and(a[3 + i], b[5 + i]));
+			}
+			assertEquals(ones, BitCounts.popcount(a, 3, len));
+			assertEquals(ones, BitCounts.popcount(ByteBuffer.wrap(a, 3, len)));
+			ByteBuffer direct = ByteBuffer.allocateDirect(len + 1);
+			direct.position(1);
+			direct.put(a, 3, len).position(1);
+			assertEquals(ones, BitCounts.popcount(direct));
+			assertEquals(1, direct.position());
+			assertEquals(and, BitCounts.andCount(a, 3, b, 5, len));
+			assertEquals(naiveXor(a, 3, b, 5, len), BitCounts.xorCount(a, 3, b, 5, len));
+			assertEquals(naiveXor(a, 3, b, 5, len), BitCounts.hammingDistance(a, 3, b, 5, len));
+		}
+		byte[] ones = new byte[4096 / 8];
+		Arrays.fill(ones, (byte) 0xFF);
+		assertEquals(4096, BitCounts.popcount(ones, 0, ones.length));
+		assertEquals(4096, BitCounts.hammingDistance(ones, new byte[ones.length]));
+	}
+
+	@Test
+	public void testMismatch() {
+		byte[] a = randomBytes(40, 1);
+		assertEquals(-1, BitCounts.mismatch(a, 0, a.clone(), 0, 40, BitOrder.MSB_FIRST));
+		for (int bit = 0; bit < 8 * 39; bit += 13) {
+			byte[] b = a.clone();
+			b[1 + bit / 8] ^= (byte) (0x80 >>> (bit % 8));
+			b[39] ^= 0x01;
+			assertEquals(bit, BitCounts.mismatch(a, 1, b, 1, 39, BitOrder.MSB_FIRST));
+			b = a.clone();
+			b[1 + bit / 8] ^= (byte) (0x01 << (bit % 8));
+			b[39] ^= 0x80;
+			assertEquals(bit, BitCounts.mismatch(a, 1, b, 1, 39, BitOrder.LSB_FIRST));
+		}
+	}
+
+	@Test
+	public void testOneVsMany() {
+		final int len = 64;
+		final int count = 50;
+		byte[] query = randomBytes(len + 2, 7);
+		byte[] candidates = randomBytes(len * count + 4, 8);
+		// plant a near copy of the query so the early exit has something to beat
+		System.arraycopy(query, 2, candidates, 4 + 17 * len, len);
+		candidates[4 + 17 * len + 9] ^= 0x11;
+		int[] distances = new int[count + 1];
+		BitCounts.hammingDistances(query, 2, candidates, 4, len, count, distances, 1);
+		int[] expected = new int[count + 1];
+		int best = -1;
+		for (int c = 0; c < count; c++) {
+			expected[c + 1] = (int) naiveXor(query, 2, candidates, 4 + c * len, len);
+			if (best < 0 || expected[c + 1] < expected[best + 1]) {
+				best = c;
+			}
+		}
+		assertArrayEquals(expected, distances);
+		assertEquals(17, best);
+		assertEquals(best, BitCounts.nearest(query, 2, candidates, 4, len, count));
+		assertEquals(-1, BitCounts.nearest(query, 2, candidates, 4, len, 0));
+		// an odd length goes through the tail
+		best = 0;
+		for (int c = 1; c < 80; c++) {
+			if (naiveXor(query, 2, candidates, 4 + c * 37, 37) < naiveXor(query, 2, candidates,
+					4 + best * 37, 37)) {
+				best = c;
+			}
+		}
+		assertEquals(best, BitCounts.nearest(query, 2, candidates, 4, 37, 80));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testBatchOutOfBounds() {
+		BitCounts.nearest(new byte[8], 0, new byte[63], 0, 8, 8);
+	}
+
+}
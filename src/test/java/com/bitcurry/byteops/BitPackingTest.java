@@ -0,0 +1,103 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BitPackingTest {
+
+	private static boolean[] randomFlags(Random random, int len, double density) {
+		boolean[] flags = new boolean[len];
+		for (int i = 0; i < len; i++) {
+			flags[i] = random.nextDouble() < density;
+		}
+		return flags;
+	}
+
+	@Test
+	public void testPackUnpack() {
+		Random random = new Random(22);
+		for (int len : new int[] { 0, 1, 7, 8, 9, 63, 64, 65, 200, 1000 }) {
+			boolean[] flags = randomFlags(random, len, 0.5);
+			byte[] packed = BitPacking.pack(flags);
+			assertEquals(BitPacking.packedLength(len), packed.length);
+			for (int i = 0; i < len; i++) {
+				assertEquals(flags[i], ByteOps.isBitSet(packed[i >>> 3], i & 7));
+			}
+			boolean[] unpacked = new boolean[len + 3];
+			BitPacking.unpack(packed, 0, unpacked, 2, len);
+			for (int i = 0; i < len; i++) {
+				assertEquals(flags[i], unpacked[i + 2]);
+			}
+		}
+	}
+
+	@Test
+	public void testPackClearsPaddingBits() {
+		boolean[] flags = new boolean[11];
+		Arrays.fill(flags, true);
+		byte[] dst = { -1, -1, -1 };
+		BitPacking.pack(flags, 0, dst, 0, 11);
+		assertArrayEquals(new byte[] { -1, 0x07, -1 }, dst);
+	}
+
+	@Test
+	public void testIndices() {
+		Random random = new Random(23);
+		for (int len : new int[] { 0, 5, 64, 130, 777 }) {
+			boolean[] flags = randomFlags(random, len, 0.1);
+			byte[] packed = BitPacking.pack(flags);
+			int[] indices = BitPacking.toIndices(packed, 0, len);
+			int n = 0;
+			for (int i = 0; i < len; i++) {
+				if (flags[i]) {
+					assertEquals(i, indices[n++]);
+				}
+			}
+			assertEquals(n, indices.length);
+			assertArrayEquals(packed, BitPacking.fromIndices(indices, len));
+		}
+	}
+
+	@Test
+	public void testToIndicesIgnoresTailBits() {
+		byte[] packed = { (byte) 0x81 };
+		assertArrayEquals(new int[] { 0 }, BitPacking.toIndices(packed, 0, 7));
+		assertArrayEquals(new int[] { 0, 7 }, BitPacking.toIndices(packed, 0, 8));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testFromIndicesOutOfRange() {
+		BitPacking.fromIndices(new int[] { 3, 10 }, 10);
+	}
+
+}
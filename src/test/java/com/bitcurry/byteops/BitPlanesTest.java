@@ -0,0 +1,117 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BitPlanesTest {
+
+	private static boolean bit(long x, int index) {
+		return ((x >>> index) & 1) != 0;
+	}
+
+	@Test
+	public void testTranspose() {
+		Random random = new Random(21);
+		for (int trial = 0; trial < 1000; trial++) {
+			long x = random.nextLong();
+			long t = BitPlanes.transpose8x8(x);
+			for (int r = 0; r < 8; r++) {
+				for (int c = 0; c < 8; c++) {
+					assertEquals(bit(x, 8 * r + c), bit(t, 8 * c + r));
+				}
+			}
+			assertEquals(x, BitPlanes.transpose8x8(t));
+		}
+		// the identity matrix is its own transpose, a single row becomes a column
+		assertEquals(0x8040201008040201L, BitPlanes.transpose8x8(0x8040201008040201L));
+		assertEquals(0x0101010101010101L, BitPlanes.transpose8x8(0xFFL));
+	}
+
+	@Test
+	public void testTransposeBlocks() {
+		byte[] src = new byte[8 * 5 + 1];
+		new Random(8).nextBytes(src);
+		byte[] dst = new byte[8 * 5];
+		BitPlanes.transpose8x8(src, 1, dst, 0, 5);
+		for (int block = 0; block < 5; block++) {
+			for (int r = 0; r < 8; r++) {
+				for (int c = 0; c < 8; c++) {
+					assertEquals(ByteOps.isBitSet(src[1 + 8 * block + r], c),
+							ByteOps.isBitSet(dst[8 * block + c], r));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPlanesRoundTrip() {
+		for (int len : new int[] { 0, 1, 7, 8, 9, 64, 100 }) {
+			byte[] samples = new byte[len + 2];
+			new Random(len).nextBytes(samples);
+			byte[][] planes = new byte[8][(len + 7) / 8 + 1];
+			BitPlanes.toBitPlanes(samples, 2, len, planes, 1);
+			for (int p = 0; p < 8; p++) {
+				for (int i = 0; i < len; i++) {
+					assertEquals(ByteOps.isBitSet(samples[2 + i], p),
+							ByteOps.isBitSet(planes[p][1 + i / 8], i % 8));
+				}
+				for (int i = len; i < 8 * ((len + 7) / 8); i++) {
+					assertEquals(false, ByteOps.isBitSet(planes[p][1 + i / 8], i % 8));
+				}
+			}
+			byte[] joined = new byte[len + 2];
+			joined[len + 1] = 0x5A;
+			BitPlanes.fromBitPlanes(planes, 1, joined, 2, len);
+			byte[] expected = samples.clone();
+			expected[0] = 0;
+			expected[1] = 0;
+			if (len == 0) {
+				expected[1] = 0x5A;
+			}
+			assertArrayEquals(expected, joined);
+		}
+		byte[] samples = { 1, 2, 3, 4, 5, 6, 7, (byte) 0xFF };
+		byte[][] planes = new byte[8][1];
+		BitPlanes.toBitPlanes(samples, planes);
+		assertEquals((byte) 0xD5, planes[0][0]);
+		assertEquals((byte) 0x80, planes[7][0]);
+		byte[] back = new byte[8];
+		BitPlanes.fromBitPlanes(planes, back);
+		assertArrayEquals(samples, back);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongPlaneCount() {
+		BitPlanes.toBitPlanes(new byte[8], new byte[7][1]);
+	}
+
+}
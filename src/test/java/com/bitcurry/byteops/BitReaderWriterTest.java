@@ -0,0 +1,189 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * BitReader and BitWriter are checked against each other and against a reference that walks
+ * the bits one at a time with ByteOps.isBitSet.
+ */
+public class BitReaderWriterTest {
+
+	private static final int FIELDS = 500;
+
+	private static boolean bitAt(byte[] bytes, long i, BitOrder order) {
+		int index = (int) (i & 7);
+		return ByteOps.isBitSet(bytes[(int) (i >>> 3)],
+				order == BitOrder.MSB_FIRST ? 7 - index : index);
+	}
+
+	private static long reference(byte[] bytes, long position, int width, BitOrder order) {
+		long value = 0;
+		for (int i = 0; i < width; i++) {
+			if (bitAt(bytes, position + i, order)) {
+				value |= order == BitOrder.MSB_FIRST ? 1L << (width - 1 - i) : 1L << i;
+			}
+		}
+		return value;
+	}
+
+	private static long mask(long value, int width) {
+		return value & (-1L >>> (64 - width));
+	}
+
+	@Test
+	public void testReader() {
+		Random random = new Random(1);
+		byte[] bytes = new byte[4000];
+		random.nextBytes(bytes);
+		for (BitOrder order : BitOrder.values()) {
+			BitReader reader = new BitReader(bytes, 3, bytes.length - 3, order);
+			long position = 24;
+			while (reader.bitsRemaining() > 0) {
+				int width = (int) Math.min(1 + random.nextInt(64), reader.bitsRemaining());
+				assertEquals(order + " at " + position, reference(bytes, position, width, order),
+						reader.readBits(width));
+				position += width;
+				assertEquals(position - 24, reader.bitPosition());
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(2);
+		for (BitOrder order : BitOrder.values()) {
+			int[] widths = new int[FIELDS];
+			long[] values = new long[FIELDS];
+			for (int i = 0; i < FIELDS; i++) {
+				widths[i] = 1 + random.nextInt(64);
+				values[i] = random.nextLong();
+			}
+			byte[] bytes = new byte[FIELDS * 8 + 1];
+			BitWriter writer = new BitWriter(bytes, 1, bytes.length - 1, order);
+			long total = 0;
+			for (int i = 0; i < FIELDS; i++) {
+				writer.writeBits(values[i], widths[i]);
+				total += widths[i];
+			}
+			assertEquals(total, writer.bitPosition());
+			assertEquals((total + 7) / 8, writer.finish());
+
+			long position = 8;
+			for (int i = 0; i < FIELDS; i++) {
+				assertEquals(mask(values[i], widths[i]),
+						reference(bytes, position, widths[i], order));
+				position += widths[i];
+			}
+
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+			direct.put(bytes).position(1);
+			BitReader reader = new BitReader(direct, order);
+			for (int i = 0; i < FIELDS; i++) {
+				assertEquals(mask(values[i], widths[i]), reader.readBits(widths[i]));
+			}
+			assertEquals(1, direct.position());
+		}
+	}
+
+	@Test
+	public void testDirectWriter() {
+		byte[] expected = new byte[100];
+		ByteBuffer direct = ByteBuffer.allocateDirect(100);
+		BitWriter heap = new BitWriter(expected, 0, expected.length, BitOrder.LSB_FIRST);
+		BitWriter writer = new BitWriter(direct, BitOrder.LSB_FIRST);
+		for (int i = 0; i < 60; i++) {
+			heap.writeBits(i * 0x9E3779B97F4A7C15L, 13);
+			writer.writeBits(i * 0x9E3779B97F4A7C15L, 13);
+		}
+		assertEquals(heap.finish(), writer.finish());
+		byte[] actual = new byte[100];
+		direct.get(actual);
+		assertArrayEquals(expected, actual);
+	}
+
+	@Test
+	public void testKnownLayout() {
+		byte[] bytes = new byte[2];
+		BitWriter writer = new BitWriter(bytes, 0, 2, BitOrder.MSB_FIRST);
+		writer.writeBits(0x5, 3);
+		writer.writeBit(true);
+		writer.writeBits(0xAB, 8);
+		assertEquals(2, writer.finish());
+		assertArrayEquals(new byte[] { (byte) 0xBA, (byte) 0xB0 }, bytes);
+
+		writer = new BitWriter(bytes, 0, 2, BitOrder.LSB_FIRST);
+		writer.writeBits(0x5, 3);
+		writer.writeBit(true);
+		writer.writeBits(0xAB, 8);
+		assertEquals(2, writer.finish());
+		assertArrayEquals(new byte[] { (byte) 0xBD, (byte) 0x0A }, bytes);
+	}
+
+	@Test
+	public void testAlignAndSkip() {
+		byte[] bytes = { (byte) 0xF0, 0x12, 0x34, 0x56 };
+		BitReader reader = new BitReader(bytes, 0, bytes.length, BitOrder.MSB_FIRST);
+		assertTrue(reader.readBit());
+		reader.alignToByte();
+		assertEquals(0x12, reader.readInt(8));
+		reader.skip(4);
+		assertEquals(0x456, reader.readInt(12));
+		assertEquals(0, reader.bitsRemaining());
+		assertFalse(new BitReader(bytes, 0, 1, BitOrder.LSB_FIRST).readBit());
+	}
+
+	@Test(expected = BufferUnderflowException.class)
+	public void testUnderflow() {
+		BitReader reader = new BitReader(new byte[2], 0, 2, BitOrder.MSB_FIRST);
+		reader.readBits(10);
+		reader.readBits(7);
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void testOverflow() {
+		BitWriter writer = new BitWriter(new byte[2], 0, 2, BitOrder.LSB_FIRST);
+		writer.writeBits(0, 10);
+		writer.writeBits(0, 7);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadWidth() {
+		new BitReader(new byte[16], 0, 16, BitOrder.MSB_FIRST).readBits(65);
+	}
+
+}
@@ -0,0 +1,169 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * Results are checked against BigInteger arithmetic on the same bit string read as an unsigned
+ * big-endian (MSB_FIRST) or little-endian (LSB_FIRST) integer.
+ */
+public class BitStringsTest {
+
+	private static final int[] LENGTHS = { 0, 1, 2, 7, 8, 9, 16, 17, 31, 64, 100 };
+
+	private final Random random = new Random(42);
+
+	private static BigInteger toInteger(byte[] bytes, BitOrder order) {
+		byte[] big = bytes.clone();
+		if (order == BitOrder.LSB_FIRST) {
+			reverse(big);
+		}
+		return new BigInteger(1, big);
+	}
+
+	private static byte[] toBytes(BigInteger value, int len, BitOrder order) {
+		byte[] bytes = new byte[len];
+		byte[] big = value.toByteArray();
+		for (int i = 0; i < Math.min(len, big.length); i++) {
+			bytes[len - 1 - i] = big[big.length - 1 - i];
+		}
+		if (order == BitOrder.LSB_FIRST) {
+			reverse(bytes);
+		}
+		return bytes;
+	}
+
+	private static void reverse(byte[] bytes) {
+		for (int i = 0, j = bytes.length - 1; i < j; i++, j--) {
+			byte tmp = bytes[i];
+			bytes[i] = bytes[j];
+			bytes[j] = tmp;
+		}
+	}
+
+	private static byte[] expected(String op, byte[] bytes, int n, BitOrder order) {
+		int bits = 8 * bytes.length;
+		BigInteger value = toInteger(bytes, order);
+		BigInteger mask = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+		if (op.endsWith("shift") && (n < 0 || n >= bits)) {
+			return new byte[bytes.length];
+		}
+		int r = bits == 0 ? 0 : Math.floorMod(n, bits);
+		switch (op) {
+		case "lshift":
+			return toBytes(value.shiftLeft(n).and(mask), bytes.length, order);
+		case "rshift":
+			return toBytes(value.shiftRight(n), bytes.length, order);
+		case "lrotate":
+			return toBytes(value.shiftLeft(r).or(value.shiftRight(bits - r)).and(mask),
+					bytes.length, order);
+		default:
+			return toBytes(value.shiftRight(r).or(value.shiftLeft(bits - r)).and(mask),
+					bytes.length, order);
+		}
+	}
+
+	private static void apply(String op, byte[] src, int srcOff, byte[] dst, int dstOff,
+			int len, int n, BitOrder order) {
+		switch (op) {
+		case "lshift":
+			BitStrings.lshift(src, srcOff, dst, dstOff, len, n, order);
+			break;
+		case "rshift":
+			BitStrings.rshift(src, srcOff, dst, dstOff, len, n, order);
+			break;
+		case "lrotate":
+			BitStrings.lrotate(src, srcOff, dst, dstOff, len, n, order);
+			break;
+		default:
+			BitStrings.rrotate(src, srcOff, dst, dstOff, len, n, order);
+		}
+	}
+
+	private void check(String op) {
+		for (BitOrder order : BitOrder.values()) {
+			for (int len : LENGTHS) {
+				int bits = 8 * len;
+				int[] counts = { 0, 1, 7, 8, 9, 63, 64, 65, bits - 1, bits, bits + 3, -1, -9,
+						random.nextInt(bits + 1) };
+				for (int n : counts) {
+					byte[] bytes = new byte[len];
+					random.nextBytes(bytes);
+					byte[] expected = expected(op, bytes, n, order);
+					String message = op + " " + order + " len=" + len + " n=" + n;
+
+					byte[] src = new byte[len + 5];
+					System.arraycopy(bytes, 0, src, 3, len);
+					byte[] dst = new byte[len + 2];
+					apply(op, src, 3, dst, 1, len, n, order);
+					assertArrayEquals(message, expected, Arrays.copyOfRange(dst, 1, len + 1));
+
+					apply(op, src, 3, src, 3, len, n, order);
+					assertArrayEquals(message + " in place", expected,
+							Arrays.copyOfRange(src, 3, len + 3));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLshift() {
+		check("lshift");
+	}
+
+	@Test
+	public void testRshift() {
+		check("rshift");
+	}
+
+	@Test
+	public void testLrotate() {
+		check("lrotate");
+	}
+
+	@Test
+	public void testRrotate() {
+		check("rrotate");
+	}
+
+	@Test
+	public void testCarryAcrossBytes() {
+		byte[] buf = { 0x01, (byte) 0x80, 0x00 };
+		BitStrings.lshift(buf, 0, 3, 1, BitOrder.MSB_FIRST);
+		assertArrayEquals(new byte[] { 0x03, 0x00, 0x00 }, buf);
+		buf = new byte[] { (byte) 0x80, 0x01, 0x00 };
+		BitStrings.lshift(buf, 0, 3, 1, BitOrder.LSB_FIRST);
+		assertArrayEquals(new byte[] { 0x00, 0x03, 0x00 }, buf);
+	}
+
+}
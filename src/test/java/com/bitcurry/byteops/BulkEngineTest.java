@@ -0,0 +1,185 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/*
+ * Every engine is checked against the single-byte ByteOps methods, which are
+ * themselves checked against the generated test sets in ByteOpsTest. The test
+ * JVM is started with the vector module so both backends get exercised.
+ */
+public class BulkEngineTest {
+
+	private static final BulkEngine[] ENGINES = {
+			BulkEngine.scalar(), BulkEngine.getDefault(), new VectorBulkEngine() };
+
+	// odd lengths and offsets so vector loops, word loops and tails all run
+	private static final int[] LENGTHS = { 0, 1, 15, 16, 31, 33, 64, 100, 4099 };
+	private static final int OFFSET = 5;
+
+	// the same rules as the selection: the vector engine unless it is missing or ruled out
+	@Test
+	public void testDefaultEngine() {
+		boolean vector = !"scalar".equals(System.getProperty(BulkEngine.ENGINE_PROPERTY))
+				&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+		assertEquals(vector ? "vector" : "scalar", BulkEngine.getDefault().getName());
+		assertEquals("scalar", BulkEngine.scalar().getName());
+	}
+
+	@Test
+	public void testBinaryArrays() {
+		for (BulkEngine engine : ENGINES) {
+			for (int len : LENGTHS) {
+				byte[] src = randomBytes(len + OFFSET, len);
+				byte[] orig = randomBytes(len, -len);
+				byte[] and = new byte[len];
+				byte[] or = new byte[len];
+				byte[] xor = new byte[len];
+				for (int i = 0; i < len; i++) {
+					and[i] = ByteOps.and(orig[i], src[i + OFFSET]);
+					or[i] = ByteOps.or(orig[i], src[i + OFFSET]);
+					xor[i] = ByteOps.xor(orig[i], src[i + OFFSET]);
+				}
+				byte[] dst = orig.clone();
+				engine.and(src, OFFSET, dst, 0, len);
+				assertArrayEquals(engine.getName(), and, dst);
+				dst = orig.clone();
+				engine.or(src, OFFSET, dst, 0, len);
+				assertArrayEquals(engine.getName(), or, dst);
+				dst = orig.clone();
+				engine.xor(src, OFFSET, dst, 0, len);
+				assertArrayEquals(engine.getName(), xor, dst);
+			}
+		}
+	}
+
+	@Test
+	public void testScalarOperand() {
+		for (BulkEngine engine : ENGINES) {
+			for (int len : LENGTHS) {
+				byte[] src = randomBytes(len + OFFSET, len);
+				byte[] and = new byte[len];
+				byte[] or = new byte[len];
+				byte[] xor = new byte[len];
+				byte[] not = new byte[len];
+				for (int i = 0; i < len; i++) {
+					and[i] = ByteOps.and(src[i + OFFSET], 0x3C);
+					or[i] = ByteOps.or(src[i + OFFSET], 0x3C);
+					xor[i] = ByteOps.xor(src[i + OFFSET], 0x3C);
+					not[i] = ByteOps.not(src[i + OFFSET]);
+				}
+				byte[] dst = new byte[len];
+				engine.and(src, OFFSET, dst, 0, len, 0x3C);
+				assertArrayEquals(engine.getName(), and, dst);
+				engine.or(src, OFFSET, dst, 0, len, 0x3C);
+				assertArrayEquals(engine.getName(), or, dst);
+				engine.xor(src, OFFSET, dst, 0, len, 0x3C);
+				assertArrayEquals(engine.getName(), xor, dst);
+				engine.not(src, OFFSET, dst, 0, len);
+				assertArrayEquals(engine.getName(), not, dst);
+			}
+		}
+	}
+
+	@Test
+	public void testShiftsAndRotates() {
+		for (BulkEngine engine : ENGINES) {
+			for (int len : LENGTHS) {
+				byte[] src = randomBytes(len + OFFSET, len);
+				for (int n = 0; n < 8; n++) {
+					byte[] lshift = new byte[len];
+					byte[] rshift = new byte[len];
+					byte[] lrotate = new byte[len];
+					byte[] rrotate = new byte[len];
+					for (int i = 0; i < len; i++) {
+						lshift[i] = ByteOps.lshift(src[i + OFFSET], n);
+						rshift[i] = ByteOps.rshift(src[i + OFFSET], n);
+						lrotate[i] = ByteOps.lrotate(src[i + OFFSET], n);
+						rrotate[i] = ByteOps.rrotate(src[i + OFFSET], n);
+					}
+					byte[] dst = new byte[len];
+					engine.lshift(src, OFFSET, dst, 0, len, n);
+					assertArrayEquals(engine.getName(), lshift, dst);
+					engine.rshift(src, OFFSET, dst, 0, len, n);
+					assertArrayEquals(engine.getName(), rshift, dst);
+					engine.lrotate(src, OFFSET, dst, 0, len, n);
+					assertArrayEquals(engine.getName(), lrotate, dst);
+					engine.rrotate(src, OFFSET, dst, 0, len, n);
+					assertArrayEquals(engine.getName(), rrotate, dst);
+				}
+			}
+		}
+	}
+
+	// rotate counts are taken modulo 8 and other shift counts clear, unlike the single-byte ops
+	@Test
+	public void testCountsOutsideByte() {
+		byte[] src = randomBytes(100, 3);
+		for (BulkEngine engine : ENGINES) {
+			for (int n : new int[] { -1, 9, 33 }) {
+				byte[] lrotate = new byte[src.length];
+				byte[] rrotate = new byte[src.length];
+				for (int i = 0; i < src.length; i++) {
+					lrotate[i] = ByteOps.lrotate(src[i], n & 7);
+					rrotate[i] = ByteOps.rrotate(src[i], n & 7);
+				}
+				String message = engine.getName() + " " + n;
+				byte[] dst = new byte[src.length];
+				engine.lshift(src, 0, dst, 0, src.length, n);
+				assertArrayEquals(message, new byte[src.length], dst);
+				engine.rshift(src, 0, dst, 0, src.length, n);
+				assertArrayEquals(message, new byte[src.length], dst);
+				engine.lrotate(src, 0, dst, 0, src.length, n);
+				assertArrayEquals(message, lrotate, dst);
+				engine.rrotate(src, 0, dst, 0, src.length, n);
+				assertArrayEquals(message, rrotate, dst);
+			}
+		}
+	}
+
+	@Test
+	public void testWideShiftClears() {
+		for (BulkEngine engine : ENGINES) {
+			byte[] buf = randomBytes(100, 1);
+			engine.lshift(buf, 0, buf, 0, 100, 9);
+			assertArrayEquals(engine.getName(), new byte[100], buf);
+			buf = randomBytes(100, 2);
+			engine.rshift(buf, 0, buf, 0, 100, 8);
+			assertArrayEquals(engine.getName(), new byte[100], buf);
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		BulkEngine.getDefault().xor(new byte[64], 0, new byte[64], 1, 64);
+	}
+
+}
@@ -0,0 +1,114 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BulkOpTest {
+
+	private static final BulkOp[] OPS = { BulkOp.and(0xC3), BulkOp.or(0x18), BulkOp.xor(0x5A),
+			BulkOp.not(), BulkOp.lshift(3), BulkOp.rshift(5), BulkOp.lrotate(1), BulkOp.rrotate(7) };
+
+	private static final OpCode[] CODES = { OpCode.AND, OpCode.OR, OpCode.XOR, OpCode.NOT,
+			OpCode.LSHIFT, OpCode.RSHIFT, OpCode.LROTATE, OpCode.RROTATE };
+
+	private static final int[] OPERANDS = { 0xC3, 0x18, 0x5A, 0, 3, 5, 1, 7 };
+
+	@Test
+	public void testMatchesScalar() {
+		byte[] src = new byte[1031];
+		new Random(42).nextBytes(src);
+		for (int op = 0; op < OPS.length; op++) {
+			byte[] expected = new byte[src.length];
+			for (int i = 0; i < src.length; i++) {
+				expected[i] = CODES[op].apply(src[i], OPERANDS[op]);
+			}
+			byte[] dst = new byte[src.length];
+			OPS[op].apply(src, 0, dst, 0, src.length);
+			assertArrayEquals(OPS[op].toString(), expected, dst);
+
+			ByteBuffer buf = ByteBuffer.allocateDirect(src.length);
+			buf.put(src).flip();
+			OPS[op].apply(buf);
+			buf.get(dst);
+			assertArrayEquals(OPS[op].toString(), expected, dst);
+		}
+	}
+
+	@Test
+	public void testApplyMasked() {
+		byte[] src = new byte[2500];
+		byte[] mask = new byte[2501];
+		new Random(20).nextBytes(src);
+		new Random(21).nextBytes(mask);
+		BulkOp[] ops = { BulkOp.xor(0x5A), BulkOp.lrotate(3),
+				ByteTransform.identity().not().rshift(1), BulkOp.not().parallel() };
+		for (BulkOp op : ops) {
+			byte[] transformed = new byte[src.length];
+			op.apply(src, 0, transformed, 0, src.length);
+			byte[] expected = src.clone();
+			for (int i = 1; i < src.length; i++) {
+				expected[i] = ByteOps.select(mask[i], transformed[i], src[i]);
+			}
+			byte[] buf = src.clone();
+			op.applyMasked(mask, 1, buf, 1, src.length - 1);
+			assertArrayEquals(op.toString(), expected, buf);
+		}
+	}
+
+	@Test
+	public void testInPlaceRange() {
+		byte[] buf = { 1, 2, 3, 4, 5 };
+		BulkOp.xor(0xFF).apply(buf, 1, 3);
+		assertArrayEquals(new byte[] { 1, ~2, ~3, ~4, 5 }, buf);
+	}
+
+	/* the build runs everything except InstrumentationTest with instrumentation off */
+	@Test
+	public void testInstrumentedOffByDefault() {
+		assertFalse(Instrumentation.ENABLED);
+		for (BulkOp op : OPS) {
+			assertSame(op, op.instrumented("testInstrumentedOffByDefault"));
+		}
+		BulkOp transform = ByteTransform.identity().not();
+		assertSame(transform, transform.instrumented("testInstrumentedOffByDefault"));
+	}
+
+	@Test
+	public void testToString() {
+		assertEquals("xor(90)", BulkOp.xor(0x5A).toString());
+		assertEquals("not", BulkOp.not().toString());
+	}
+
+}
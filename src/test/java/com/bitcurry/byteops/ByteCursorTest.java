@@ -0,0 +1,193 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteCursorTest {
+
+	private static final byte[] DATA = { (byte) 0x81, 0x02, (byte) 0x83, 0x04, (byte) 0x85, 0x06,
+			(byte) 0x87, 0x08, (byte) 0x89 };
+
+	private static ByteCursor[] cursors(byte[] data, ByteOrder order) {
+		ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 2);
+		direct.position(1);
+		direct.put(data).flip().position(1);
+		byte[] backing = new byte[data.length + 3];
+		System.arraycopy(data, 0, backing, 2, data.length);
+		ByteBuffer heap = ByteBuffer.wrap(backing, 1, data.length + 1).slice();
+		heap.position(1);
+		return new ByteCursor[] { new ByteCursor(data.clone(), order),
+				new ByteCursor(direct, order), new ByteCursor(heap, order) };
+	}
+
+	@Test
+	public void testBigEndian() {
+		for (ByteCursor c : cursors(DATA, ByteOrder.BIG_ENDIAN)) {
+			assertEquals(9, c.length());
+			assertEquals(0x81, c.getU8(0));
+			assertEquals(0x8102, c.getU16(0));
+			assertEquals(0x810283, c.getU24(0));
+			assertEquals(0x81028304L, c.getU32(0));
+			assertEquals(0x810283048506L, c.getU48(0));
+			assertEquals(0x8102830485068708L, c.getU64(0));
+			assertEquals(0x0283048506870889L, c.getU64(1));
+			assertEquals(0x0485068708L, c.getUnsigned(3, 5));
+			assertEquals(0x02830485068708L, c.getUnsigned(1, 7));
+		}
+	}
+
+	@Test
+	public void testLittleEndian() {
+		for (ByteCursor c : cursors(DATA, ByteOrder.LITTLE_ENDIAN)) {
+			assertEquals(0x0281, c.getU16(0));
+			assertEquals(0x830281, c.getU24(0));
+			assertEquals(0x04830281L, c.getU32(0));
+			assertEquals(0x068504830281L, c.getU48(0));
+			assertEquals(0x0887068504830281L, c.getU64(0));
+			assertEquals(0x0887068504L, c.getUnsigned(3, 5));
+			assertEquals(0x08870685048302L, c.getUnsigned(1, 7));
+		}
+	}
+
+	@Test
+	public void testAgainstByteBuffer() {
+		Random random = new Random(23);
+		byte[] data = new byte[64];
+		random.nextBytes(data);
+		for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+			ByteBuffer expected = ByteBuffer.wrap(data).order(order);
+			for (ByteCursor c : cursors(data, order)) {
+				for (int i = 0; i + 8 <= data.length; i++) {
+					assertEquals(Short.toUnsignedInt(expected.getShort(i)), c.getU16(i));
+					assertEquals(Integer.toUnsignedLong(expected.getInt(i)), c.getU32(i));
+					assertEquals(expected.getLong(i), c.getU64(i));
+					for (int bytes = 1; bytes <= 8; bytes++) {
+						long x = c.getUnsigned(i, bytes);
+						if (bytes < 8) {
+							assertEquals(0, x >>> (8 * bytes));
+						}
+						assertEquals(x, c.getUnsigned(i, bytes));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(24);
+		for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+			for (ByteCursor c : cursors(new byte[40], order)) {
+				long x = random.nextLong();
+				c.writeU8(0x1FF).writeU16(0x12345).writeU24(0xABCDEF12).writeU32(x)
+						.writeU48(x).writeU64(x).writeUnsigned(5, x).writeUnsigned(7, x);
+				assertEquals(36, c.position());
+				c.position(0);
+				assertEquals(0xFF, c.readU8());
+				assertEquals(0x2345, c.readU16());
+				assertEquals(0xCDEF12, c.readU24());
+				assertEquals(x & 0xFFFFFFFFL, c.readU32());
+				assertEquals(x & 0xFFFFFFFFFFFFL, c.readU48());
+				assertEquals(x, c.readU64());
+				assertEquals(x & 0xFFFFFFFFFFL, c.readUnsigned(5));
+				assertEquals(x & 0xFFFFFFFFFFFFFFL, c.readUnsigned(7));
+				assertEquals(4, c.remaining());
+				c.putU16(38, 0xBEEF).putU24(1, 0x010203);
+				assertEquals(0xBEEF, c.getU16(38));
+				assertEquals(0x010203, c.getU24(1));
+			}
+		}
+	}
+
+	@Test
+	public void testByteOrderOfWrites() {
+		byte[] data = new byte[6];
+		new ByteCursor(data, ByteOrder.BIG_ENDIAN).putU48(0, 0x010203040506L);
+		assertArrayEquals(new byte[] { 1, 2, 3, 4, 5, 6 }, data);
+		new ByteCursor(data, ByteOrder.LITTLE_ENDIAN).putU24(0, 0x010203);
+		assertArrayEquals(new byte[] { 3, 2, 1, 4, 5, 6 }, data);
+	}
+
+	@Test
+	public void testSubrange() {
+		ByteCursor c = new ByteCursor(DATA.clone(), 2, 4, ByteOrder.BIG_ENDIAN);
+		assertEquals(0x83048506L, c.getU32(0));
+		assertEquals(0x8304, c.skip(0).readU16());
+		assertEquals(2, c.remaining());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetPastRange() {
+		new ByteCursor(DATA, 2, 4, ByteOrder.BIG_ENDIAN).getU16(3);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNegativeIndex() {
+		new ByteCursor(DATA, 2, 4, ByteOrder.BIG_ENDIAN).getU8(-1);
+	}
+
+	@Test
+	public void testUnderflowLeavesPosition() {
+		ByteCursor c = new ByteCursor(DATA, ByteOrder.BIG_ENDIAN).position(6);
+		try {
+			c.readU32();
+		} catch (BufferUnderflowException e) {
+			assertEquals(6, c.position());
+			return;
+		}
+		throw new AssertionError("expected underflow");
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void testOverflow() {
+		new ByteCursor(new byte[5], ByteOrder.BIG_ENDIAN).writeU48(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadWidth() {
+		new ByteCursor(DATA, ByteOrder.BIG_ENDIAN).getUnsigned(0, 9);
+	}
+
+	@Test(expected = ReadOnlyBufferException.class)
+	public void testReadOnly() {
+		ByteBuffer buf = ByteBuffer.wrap(new byte[8]).asReadOnlyBuffer();
+		ByteCursor c = new ByteCursor(buf, ByteOrder.BIG_ENDIAN);
+		assertEquals(0, c.getU64(0));
+		c.putU32(0, 1);
+	}
+
+}
@@ -0,0 +1,102 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteIntMapTest {
+
+	@Test
+	public void testMatchesBoxedMap() {
+		Random random = new Random(0xFF);
+		ByteIntMap map = new ByteIntMap(-1);
+		Map<Integer, Integer> boxed = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			int key = random.nextInt(256);
+			int value = random.nextInt(1000);
+			switch (random.nextInt(3)) {
+			case 0:
+				assertEquals((int) boxed.getOrDefault(key, -1), map.put((byte) key, value));
+				boxed.put(key, value);
+				break;
+			case 1:
+				int sum = boxed.getOrDefault(key, -1) + value;
+				boxed.put(key, sum);
+				assertEquals(sum, map.add(key, value));
+				break;
+			default:
+				assertEquals((int) boxed.getOrDefault(key, -1), map.remove(key));
+				boxed.remove(key);
+				break;
+			}
+			assertEquals(boxed.size(), map.size());
+		}
+		for (int b = 0; b < 256; b++) {
+			assertEquals(boxed.containsKey(b), map.containsKey((byte) b));
+			assertEquals((int) boxed.getOrDefault(b, -1), map.get(b));
+			assertEquals((int) boxed.getOrDefault(b, -1), map.get((byte) b));
+		}
+		Map<Integer, Integer> visited = new HashMap<>();
+		map.forEach((k, v) -> visited.put(k, v));
+		assertEquals(boxed, visited);
+		assertEquals(boxed.size(), map.keySet().size());
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertEquals(-1, map.get(0x42));
+	}
+
+	@Test
+	public void testHistogram() {
+		byte[] data = new byte[1003];
+		new Random(3).nextBytes(data);
+		int[] expected = new int[256];
+		for (int i = 1; i < data.length; i++) {
+			expected[data[i] & 0xFF]++;
+		}
+		ByteIntMap counts = ByteIntMap.histogram(data, 1, data.length - 1);
+		assertArrayEquals(expected, counts.toArray());
+		for (int b = 0; b < 256; b++) {
+			assertEquals(expected[b] != 0, counts.containsKey(b));
+		}
+
+		ByteIntMap text = ByteIntMap.histogram("abba".getBytes(), 0, 4);
+		assertEquals("{0x61=2, 0x62=2}", text.toString());
+		ByteIntMap same = new ByteIntMap(7);
+		same.add('b', 2 - 7);
+		same.put((byte) 'a', 2);
+		assertEquals(text, same);
+		assertEquals(text.hashCode(), same.hashCode());
+	}
+
+}
@@ -0,0 +1,123 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteListTest {
+
+	@Test
+	public void testMatchesBoxedList() {
+		Random random = new Random(16);
+		ByteList list = new ByteList(0);
+		List<Byte> boxed = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			int value = random.nextInt();
+			list.add(value);
+			boxed.add((byte) value);
+		}
+		assertEquals(boxed.size(), list.size());
+		for (int i = 0; i < boxed.size(); i++) {
+			assertEquals(boxed.get(i) & 0xFF, list.get(i));
+			assertEquals((byte) boxed.get(i), list.getByte(i));
+		}
+		assertEquals(boxed.indexOf((byte) 0x80), list.indexOf(0x80));
+		assertEquals(boxed.contains((byte) 0x42), list.contains(0x42));
+
+		list.removeRange(10, 100);
+		boxed.subList(10, 110).clear();
+		assertEquals(boxed.size(), list.size());
+		for (int i = 0; i < boxed.size(); i++) {
+			assertEquals(boxed.get(i) & 0xFF, list.get(i));
+		}
+	}
+
+	@Test
+	public void testUnsignedValues() {
+		ByteList list = ByteList.of(ByteOps.B0x00, ByteOps.B0x7F, ByteOps.B0xFF);
+		list.add(0x180);
+		assertEquals(0xFF, list.get(2));
+		assertEquals(0x80, list.get(3));
+		assertEquals(0xFF, list.set(2, 0x01));
+		assertEquals(1, list.get(2));
+		assertEquals("[0x00, 0x7F, 0x01, 0x80]", list.toString());
+		int[] sum = new int[1];
+		list.forEach(b -> sum[0] += b);
+		assertEquals(0x7F + 0x01 + 0x80, sum[0]);
+	}
+
+	@Test
+	public void testBulkAppendAndTransform() {
+		byte[] src = new byte[100];
+		new Random(7).nextBytes(src);
+		ByteList list = new ByteList(4);
+		list.addAll(src, 0, 50);
+		list.addAll(ByteBuffer.wrap(src, 50, 25));
+		list.addAll(src, 75, 25, BulkOp.xor(0x5A));
+		byte[] expected = src.clone();
+		ByteOps.xor(expected, 75, 25, 0x5A);
+		assertArrayEquals(expected, list.toArray());
+
+		list.transform(75, 25, BulkOp.xor(0x5A));
+		list.transform(ByteTransform.identity().not());
+		ByteOps.not(src, 0, src.length);
+		assertArrayEquals(src, list.toArray());
+		assertEquals(ByteBuffer.wrap(src), list.asByteBuffer());
+
+		ByteList copy = new ByteList();
+		copy.addAll(list);
+		assertEquals(list, copy);
+		assertEquals(list.hashCode(), copy.hashCode());
+		copy.truncate(99);
+		assertFalse(list.equals(copy));
+		copy.trimToSize();
+		copy.clear();
+		assertTrue(copy.isEmpty());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfBounds() {
+		ByteList list = new ByteList(10);
+		list.add(1);
+		list.get(1);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testRemoveRangeOutOfBounds() {
+		ByteList.of(new byte[4]).removeRange(2, 3);
+	}
+
+}
@@ -25,12 +25,20 @@
 
 package com.bitcurry.byteops;
 
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 import org.junit.Test;
@@ -196,4 +204,499 @@ public class ByteOpsTest {
 		}
 	}
 
+	// the lengths cover empty ranges, tails only, whole words and words plus a tail
+	private static final int[] BULK_LENGTHS = { 0, 1, 7, 8, 9, 15, 16, 63, 64, 65, 1000 };
+	private static final int BULK_OFFSET = 3;
+
+	@Test
+	public void testBulkAnd() {
+		for (int len : BULK_LENGTHS) {
+			byte[] src = randomBytes(len + BULK_OFFSET, len);
+			byte[] dst = randomBytes(len + 1, ~len);
+			byte[] expected = dst.clone();
+			for (int i = 0; i < len; i++) {
+				expected[i + 1] = ByteOps.and(dst[i + 1], src[i + BULK_OFFSET]);
+			}
+			ByteOps.and(src, BULK_OFFSET, dst, 1, len);
+			assertArrayEquals(expected, dst);
+
+			expected = new byte[len];
+			for (int i = 0; i < len; i++) {
+				expected[i] = ByteOps.and(src[i + BULK_OFFSET], 0xA5);
+			}
+			dst = new byte[len];
+			ByteOps.and(src, BULK_OFFSET, dst, 0, len, 0xA5);
+			assertArrayEquals(expected, dst);
+			ByteOps.and(src, BULK_OFFSET, len, ByteOps.B0xA5);
+			assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+		}
+	}
+
+	@Test
+	public void testBulkOr() {
+		for (int len : BULK_LENGTHS) {
+			byte[] src = randomBytes(len + BULK_OFFSET, len);
+			byte[] dst = randomBytes(len + 1, ~len);
+			byte[] expected = dst.clone();
+			for (int i = 0; i < len; i++) {
+				expected[i + 1] = ByteOps.or(dst[i + 1], src[i + BULK_OFFSET]);
+			}
+			ByteOps.or(src, BULK_OFFSET, dst, 1, len);
+			assertArrayEquals(expected, dst);
+
+			expected = new byte[len];
+			for (int i = 0; i < len; i++) {
+				expected[i] = ByteOps.or(src[i + BULK_OFFSET], 0xA5);
+			}
+			dst = new byte[len];
+			ByteOps.or(src, BULK_OFFSET, dst, 0, len, 0xA5);
+			assertArrayEquals(expected, dst);
+			ByteOps.or(src, BULK_OFFSET, len, ByteOps.B0xA5);
+			assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+		}
+	}
+
+	@Test
+	public void testBulkXor() {
+		for (int len : BULK_LENGTHS) {
+			byte[] src = randomBytes(len + BULK_OFFSET, len);
+			byte[] dst = randomBytes(len + 1, ~len);
+			byte[] expected = dst.clone();
+			for (int i = 0; i < len; i++) {
+				expected[i + 1] = ByteOps.xor(dst[i + 1], src[i + BULK_OFFSET]);
+			}
+			ByteOps.xor(src, BULK_OFFSET, dst, 1, len);
+			assertArrayEquals(expected, dst);
+
+			expected = new byte[len];
+			for (int i = 0; i < len; i++) {
+				expected[i] = ByteOps.xor(src[i + BULK_OFFSET], 0xA5);
+			}
+			dst = new byte[len];
+			ByteOps.xor(src, BULK_OFFSET, dst, 0, len, 0xA5);
+			assertArrayEquals(expected, dst);
+			ByteOps.xor(src, BULK_OFFSET, len, ByteOps.B0xA5);
+			assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+		}
+	}
+
+	@Test
+	public void testBulkNot() {
+		for (int len : BULK_LENGTHS) {
+			byte[] src = randomBytes(len + BULK_OFFSET, len);
+			byte[] expected = new byte[len];
+			for (int i = 0; i < len; i++) {
+				expected[i] = ByteOps.not(src[i + BULK_OFFSET]);
+			}
+			byte[] dst = new byte[len];
+			ByteOps.not(src, BULK_OFFSET, dst, 0, len);
+			assertArrayEquals(expected, dst);
+			ByteOps.not(src, BULK_OFFSET, len);
+			assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+		}
+	}
+
+	@Test
+	public void testBulkLrotate() {
+		for (int len : BULK_LENGTHS) {
+			for (int n = 0; n < 8; n++) {
+				byte[] src = randomBytes(len + BULK_OFFSET, len * 8 + n);
+				byte[] expected = new byte[len];
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.lrotate(src[i + BULK_OFFSET], n);
+				}
+				byte[] dst = new byte[len];
+				ByteOps.lrotate(src, BULK_OFFSET, dst, 0, len, n);
+				assertArrayEquals(expected, dst);
+				ByteOps.lrotate(src, BULK_OFFSET, len, (byte) n);
+				assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+			}
+		}
+	}
+
+	@Test
+	public void testBulkLshift() {
+		for (int len : BULK_LENGTHS) {
+			for (int n = 0; n < 8; n++) {
+				byte[] src = randomBytes(len + BULK_OFFSET, len * 8 + n);
+				byte[] expected = new byte[len];
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.lshift(src[i + BULK_OFFSET], n);
+				}
+				byte[] dst = new byte[len];
+				ByteOps.lshift(src, BULK_OFFSET, dst, 0, len, n);
+				assertArrayEquals(expected, dst);
+				ByteOps.lshift(src, BULK_OFFSET, len, (byte) n);
+				assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+			}
+		}
+	}
+
+	@Test
+	public void testBulkRrotate() {
+		for (int len : BULK_LENGTHS) {
+			for (int n = 0; n < 8; n++) {
+				byte[] src = randomBytes(len + BULK_OFFSET, len * 8 + n);
+				byte[] expected = new byte[len];
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.rrotate(src[i + BULK_OFFSET], n);
+				}
+				byte[] dst = new byte[len];
+				ByteOps.rrotate(src, BULK_OFFSET, dst, 0, len, n);
+				assertArrayEquals(expected, dst);
+				ByteOps.rrotate(src, BULK_OFFSET, len, (byte) n);
+				assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+			}
+		}
+	}
+
+	@Test
+	public void testBulkRshift() {
+		for (int len : BULK_LENGTHS) {
+			for (int n = 0; n < 8; n++) {
+				byte[] src = randomBytes(len + BULK_OFFSET, len * 8 + n);
+				byte[] expected = new byte[len];
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.rshift(src[i + BULK_OFFSET], n);
+				}
+				byte[] dst = new byte[len];
+				ByteOps.rshift(src, BULK_OFFSET, dst, 0, len, n);
+				assertArrayEquals(expected, dst);
+				ByteOps.rshift(src, BULK_OFFSET, len, (byte) n);
+				assertArrayEquals(expected, Arrays.copyOfRange(src, BULK_OFFSET, len + BULK_OFFSET));
+			}
+		}
+	}
+
+	@Test
+	public void testBulkWideShift() {
+		byte[] buf = randomBytes(100, 100);
+		ByteOps.lshift(buf, 0, 50, 8);
+		ByteOps.rshift(buf, 50, 50, 12);
+		assertArrayEquals(new byte[100], buf);
+	}
+
+	// the bulk versions take rotate counts modulo 8 and clear for shift counts outside 0 to 7,
+	// where the single-byte versions follow Java's int shift rules
+	@Test
+	public void testBulkCountsOutsideByte() {
+		byte[] src = randomBytes(100, 7);
+		for (int n : new int[] { -1, 9, 33 }) {
+			byte[] cleared = new byte[src.length];
+			byte[] lrotate = new byte[src.length];
+			byte[] rrotate = new byte[src.length];
+			for (int i = 0; i < src.length; i++) {
+				lrotate[i] = ByteOps.lrotate(src[i], n & 7);
+				rrotate[i] = ByteOps.rrotate(src[i], n & 7);
+			}
+			byte[] dst = new byte[src.length];
+			ByteOps.lshift(src, 0, dst, 0, src.length, n);
+			assertArrayEquals(cleared, dst);
+			ByteOps.rshift(src, 0, dst, 0, src.length, n);
+			assertArrayEquals(cleared, dst);
+			ByteOps.lrotate(src, 0, dst, 0, src.length, n);
+			assertArrayEquals(lrotate, dst);
+			ByteOps.rrotate(src, 0, dst, 0, src.length, n);
+			assertArrayEquals(rrotate, dst);
+			for (boolean isDirect : new boolean[] { true, false }) {
+				// a direct buffer and a heap buffer, for the word kernels and the array path
+				ByteBuffer[] bufs = new ByteBuffer[4];
+				for (int op = 0; op < 4; op++) {
+					bufs[op] = isDirect ? direct(src, op + 1) : ByteBuffer.wrap(src.clone());
+				}
+				ByteOps.lshift(bufs[0], n);
+				ByteOps.rshift(bufs[1], n);
+				ByteOps.lrotate(bufs[2], n);
+				ByteOps.rrotate(bufs[3], n);
+				assertArrayEquals(cleared, remaining(bufs[0]));
+				assertArrayEquals(cleared, remaining(bufs[1]));
+				assertArrayEquals(lrotate, remaining(bufs[2]));
+				assertArrayEquals(rrotate, remaining(bufs[3]));
+			}
+		}
+	}
+
+	// copy bytes into a direct buffer whose remaining region starts at position
+	private static ByteBuffer direct(byte[] bytes, int position) {
+		ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length + position + 2);
+		buf.position(position);
+		buf.put(bytes);
+		buf.position(position).limit(position + bytes.length);
+		return buf;
+	}
+
+	private static byte[] remaining(ByteBuffer buf) {
+		byte[] bytes = new byte[buf.remaining()];
+		buf.duplicate().get(bytes);
+		return bytes;
+	}
+
+	@Test
+	public void testBufferUnary() {
+		for (int len : BULK_LENGTHS) {
+			// every starting alignment, so the aligned head of the direct kernel is covered
+			for (int position = 0; position < 8; position++) {
+				byte[] src = randomBytes(len, len + position);
+				byte[] expected = new byte[len];
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.xor(ByteOps.lrotate(ByteOps.or(
+							ByteOps.and(ByteOps.not(src[i]), 0xF3), 0x11), 3), 0x5A);
+				}
+				ByteBuffer buf = direct(src, position);
+				ByteOps.not(buf);
+				ByteOps.and(buf, 0xF3);
+				ByteOps.or(buf, ByteOps.B0x11);
+				ByteOps.lrotate(buf, 3);
+				ByteOps.xor(buf, 0x5A);
+				assertEquals(position, buf.position());
+				assertEquals(position + len, buf.limit());
+				assertArrayEquals(expected, remaining(buf));
+
+				ByteBuffer heap = ByteBuffer.wrap(new byte[len + 1], 1, len).slice();
+				ByteOps.rrotate(buf, heap, 3);
+				ByteOps.lshift(heap, 1);
+				ByteOps.rshift(heap, ByteOps.B0x01);
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.rshift(ByteOps.lshift(ByteOps.rrotate(expected[i], 3), 1), 1);
+				}
+				assertArrayEquals(expected, remaining(heap));
+
+				ByteBuffer dst = direct(new byte[len], 7 - position);
+				ByteOps.rshift(direct(src, position).asReadOnlyBuffer(), dst, 2);
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.rshift(src[i], 2);
+				}
+				assertArrayEquals(expected, remaining(dst));
+			}
+		}
+	}
+
+	@Test
+	public void testBufferBinary() {
+		for (int len : BULK_LENGTHS) {
+			for (int position = 0; position < 8; position++) {
+				byte[] a = randomBytes(len, len);
+				byte[] b = randomBytes(len, -position);
+				byte[] expected = new byte[len];
+				for (int i = 0; i < len; i++) {
+					expected[i] = ByteOps.xor(ByteOps.or(ByteOps.and(a[i], b[i]), b[i]), a[i]);
+				}
+				ByteBuffer dst = direct(a, position);
+				ByteBuffer src = direct(b, 3);
+				ByteOps.and(src, dst);
+				ByteOps.or(src.asReadOnlyBuffer(), dst);
+				ByteOps.xor(ByteBuffer.wrap(a), dst);
+				assertArrayEquals(expected, remaining(dst));
+			}
+		}
+	}
+
+	@Test(expected = ReadOnlyBufferException.class)
+	public void testBufferReadOnly() {
+		ByteOps.not(ByteBuffer.allocateDirect(16).asReadOnlyBuffer());
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void testBufferOverflow() {
+		ByteOps.xor(ByteBuffer.allocateDirect(16), ByteBuffer.allocateDirect(15), 0x01);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testBulkOutOfBounds() {
+		ByteOps.xor(new byte[16], 10, 7, 0xFF);
+	}
+
+	@Test
+	public void testBitCount() {
+		for (int b = 0; b < 256; b++) {
+			int count = 0;
+			for (int bit = 0; bit < 8; bit++) {
+				count += ByteOps.isBitSet((byte) b, bit) ? 1 : 0;
+			}
+			assertEquals(count, ByteOps.bitCount((byte) b));
+			assertEquals(count, ByteOps.bitCount(b | 0xFF00));
+		}
+	}
+
+	@Test
+	public void testSelect() {
+		for (int m = 0; m < 256; m += 7) {
+			for (int a = 0; a < 256; a += 3) {
+				for (int b = 0; b < 256; b += 5) {
+					byte expected = ByteOps.or(ByteOps.and(a, m), ByteOps.and(b, ByteOps.not(m)));
+					assertEquals(expected, ByteOps.select(m, a, b));
+					assertEquals(expected, ByteOps.select((byte) m, (byte) a, (byte) b));
+					assertEquals(expected, ByteOps.select((byte) m, a, (byte) b));
+					assertEquals(expected, ByteOps.select(m, (byte) a, b));
+				}
+			}
+		}
+		for (int len : BULK_LENGTHS) {
+			byte[] mask = randomBytes(len + 1, len);
+			byte[] a = randomBytes(len + 2, len + 1);
+			byte[] b = randomBytes(len + 3, len + 2);
+			byte[] expected = new byte[len];
+			byte[] constant = new byte[len];
+			for (int i = 0; i < len; i++) {
+				expected[i] = ByteOps.select(mask[1 + i], a[2 + i], b[3 + i]);
+				constant[i] = ByteOps.select(0x3C, a[2 + i], b[3 + i]);
+			}
+			byte[] dst = new byte[len];
+			ByteOps.select(mask, 1, a, 2, b, 3, dst, 0, len);
+			assertArrayEquals(expected, dst);
+			ByteOps.select(ByteOps.B0x3C, a, 2, b, 3, dst, 0, len);
+			assertArrayEquals(constant, dst);
+
+			byte[] blended = Arrays.copyOfRange(b, 3, len + 3);
+			ByteOps.blend(a, 2, blended, 0, len, mask, 1);
+			assertArrayEquals(expected, blended);
+
+			ByteBuffer out = direct(Arrays.copyOfRange(b, 3, len + 3), 5);
+			ByteOps.blend(ByteBuffer.wrap(a, 2, len), out, direct(Arrays.copyOfRange(mask, 1,
+					len + 1), 3));
+			assertArrayEquals(expected, remaining(out));
+			ByteBuffer heap = ByteBuffer.wrap(new byte[len]);
+			ByteOps.select(ByteBuffer.wrap(mask, 1, len), ByteBuffer.wrap(a, 2, len),
+					ByteBuffer.wrap(b, 3, len), heap);
+			assertArrayEquals(expected, heap.array());
+		}
+	}
+
+	@Test(expected = BufferUnderflowException.class)
+	public void testSelectShortMask() {
+		ByteOps.select(ByteBuffer.allocate(7), ByteBuffer.allocate(8), ByteBuffer.allocate(8),
+				ByteBuffer.allocate(8));
+	}
+
+	@Test
+	public void testReverseBitsAndNibbles() {
+		for (int b = 0; b < 256; b++) {
+			int reversed = 0;
+			for (int bit = 0; bit < 8; bit++) {
+				if (ByteOps.isBitSet((byte) b, bit)) {
+					reversed |= 0x80 >>> bit;
+				}
+			}
+			assertEquals((byte) reversed, ByteOps.reverseBits(b));
+			assertEquals((byte) reversed, ByteOps.reverseBits((byte) b));
+			assertEquals(ByteOps.lrotate(b, 4), ByteOps.swapNibbles(b));
+			assertEquals(ByteOps.lrotate(b, 4), ByteOps.swapNibbles((byte) b));
+		}
+		for (int len : BULK_LENGTHS) {
+			byte[] src = randomBytes(len + 3, len);
+			byte[] reversed = new byte[len];
+			byte[] swapped = new byte[len];
+			for (int i = 0; i < len; i++) {
+				reversed[i] = ByteOps.reverseBits(src[i + 3]);
+				swapped[i] = ByteOps.swapNibbles(src[i + 3]);
+			}
+			byte[] dst = new byte[len];
+			ByteOps.reverseBits(src, 3, dst, 0, len);
+			assertArrayEquals(reversed, dst);
+			ByteOps.swapNibbles(src, 3, dst, 0, len);
+			assertArrayEquals(swapped, dst);
+
+			for (int position = 0; position < 8; position++) {
+				ByteBuffer buf = direct(Arrays.copyOfRange(src, 3, len + 3), position);
+				ByteOps.reverseBits(buf);
+				assertEquals(position, buf.position());
+				assertArrayEquals(reversed, remaining(buf));
+				ByteOps.reverseBits(buf);
+				ByteOps.swapNibbles(buf);
+				assertArrayEquals(swapped, remaining(buf));
+			}
+			byte[] inPlace = src.clone();
+			ByteOps.reverseBits(inPlace, 3, len);
+			ByteOps.reverseBits(ByteBuffer.wrap(inPlace, 3, len));
+			ByteOps.swapNibbles(inPlace, 3, len);
+			ByteOps.swapNibbles(ByteBuffer.wrap(inPlace, 3, len));
+			assertArrayEquals(src, inPlace);
+		}
+	}
+
+	@Test
+	public void testReverseBytes() {
+		for (int lanes = 0; lanes < 20; lanes++) {
+			byte[] src = randomBytes(lanes * 8 + 1, lanes);
+			ByteBuffer in = ByteBuffer.wrap(src, 1, lanes * 8).slice();
+			byte[] shorts = new byte[lanes * 8];
+			byte[] ints = new byte[lanes * 8];
+			byte[] longs = new byte[lanes * 8];
+			ByteBuffer.wrap(shorts).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer()
+					.put(in.duplicate().asShortBuffer());
+			ByteBuffer.wrap(ints).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer()
+					.put(in.duplicate().asIntBuffer());
+			ByteBuffer.wrap(longs).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer()
+					.put(in.duplicate().asLongBuffer());
+
+			// lengths that aren't a multiple of eight exercise the tail
+			for (int len = lanes * 8 - 6; len <= lanes * 8; len += 2) {
+				if (len < 0) {
+					continue;
+				}
+				byte[] dst = new byte[len];
+				ByteOps.reverseBytes16(src, 1, dst, 0, len);
+				assertArrayEquals(Arrays.copyOf(shorts, len), dst);
+				if (len % 4 == 0) {
+					ByteOps.reverseBytes32(src, 1, dst, 0, len);
+					assertArrayEquals(Arrays.copyOf(ints, len), dst);
+					ByteBuffer buf = direct(Arrays.copyOfRange(src, 1, len + 1), 3);
+					ByteOps.reverseBytes32(buf);
+					assertArrayEquals(Arrays.copyOf(ints, len), remaining(buf));
+				}
+			}
+			byte[] dst = new byte[lanes * 8];
+			ByteOps.reverseBytes64(src, 1, dst, 0, dst.length);
+			assertArrayEquals(longs, dst);
+			ByteBuffer buf = direct(Arrays.copyOfRange(src, 1, dst.length + 1), 5);
+			ByteOps.reverseBytes64(buf);
+			assertArrayEquals(longs, remaining(buf));
+			ByteOps.reverseBytes16(in, buf);
+			assertArrayEquals(shorts, remaining(buf));
+
+			byte[] inPlace = src.clone();
+			ByteOps.reverseBytes16(inPlace, 1, lanes * 8);
+			ByteOps.reverseBytes16(ByteBuffer.wrap(inPlace, 1, lanes * 8));
+			ByteOps.reverseBytes64(inPlace, 1, lanes * 8);
+			ByteOps.reverseBytes64(inPlace, 1, lanes * 8);
+			assertArrayEquals(src, inPlace);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReverseBytesPartialLane() {
+		ByteOps.reverseBytes32(new byte[16], 0, 6);
+	}
+
+	@Test
+	public void testIsBitSet() {
+		for (int b = 0; b < 256; b++) {
+			for (int index = 0; index < 8; index++) {
+				boolean set = ((b >> index) & 1) == 1;
+				assertEquals(set, ByteOps.isBitSet((byte) b, index));
+				assertEquals(!set, ByteOps.isBitClear((byte) b, index));
+			}
+		}
+	}
+
+	@Test
+	public void testBitFields() {
+		for (int b = 0; b < 256; b++) {
+			for (int index = 0; index < 8; index++) {
+				for (int width = 1; index + width <= 8; width++) {
+					int expected = (b >> index) & ((1 << width) - 1);
+					assertEquals(expected, ByteOps.extractBits(b, index, width));
+					assertEquals(expected, ByteOps.extractBits((byte) b, index, width));
+					byte inserted = ByteOps.insertBits((byte) b, index, width, ~expected);
+					for (int bit = 0; bit < 8; bit++) {
+						boolean inField = bit >= index && bit < index + width;
+						assertEquals(inField != ByteOps.isBitSet((byte) b, bit),
+								ByteOps.isBitSet(inserted, bit));
+					}
+					assertEquals((byte) b, ByteOps.insertBits(b, index, width, expected));
+				}
+			}
+		}
+	}
+
 }
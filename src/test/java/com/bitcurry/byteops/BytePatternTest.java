@@ -0,0 +1,176 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * BytePattern and BytePatternSet are checked against a naive scan of random
+ * text over a small alphabet, with patterns cut out of the text itself so
+ * that they overlap and share prefixes and suffixes.
+ */
+public class BytePatternTest {
+
+	private static byte[] randomText(int len, long seed) {
+		Random random = new Random(seed);
+		byte[] text = new byte[len];
+		for (int i = 0; i < len; i++) {
+			text[i] = (byte) ('a' + random.nextInt(3));
+		}
+		return text;
+	}
+
+	private static boolean matchesAt(byte[] text, int at, byte[] pattern) {
+		if (at + pattern.length > text.length) {
+			return false;
+		}
+		for (int j = 0; j < pattern.length; j++) {
+			if (text[at + j] != pattern[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Test
+	public void testPatternMatchesNaive() {
+		byte[] text = randomText(2000, 1);
+		Random random = new Random(2);
+		for (int trial = 0; trial < 200; trial++) {
+			int m = 1 + random.nextInt(12);
+			int from = random.nextInt(text.length - m);
+			byte[] bytes = new byte[m];
+			System.arraycopy(text, from, bytes, 0, m);
+			if (trial % 3 == 0) {
+				bytes[m - 1] = (byte) 'd';
+			}
+			BytePattern pattern = BytePattern.compile(bytes);
+			int off = random.nextInt(100);
+			int len = text.length - off - random.nextInt(100);
+			int expected = -1;
+			int count = 0;
+			for (int i = off; i + m <= off + len; i++) {
+				if (matchesAt(text, i, bytes)) {
+					expected = expected < 0 ? i : expected;
+					count++;
+					i += m - 1;
+				}
+			}
+			assertEquals(expected, pattern.indexIn(text, off, len));
+			assertEquals(count, pattern.countIn(text, off, len));
+			ByteBuffer direct = ByteBuffer.allocateDirect(text.length).put(text);
+			direct.position(off).limit(off + len);
+			assertEquals(expected, pattern.indexIn(direct));
+			ByteBuffer heap = ByteBuffer.wrap(text, 1, text.length - 1).slice();
+			heap.position(off - 1 < 0 ? 0 : off - 1).limit(off + len - 1);
+			if (off > 0) {
+				assertEquals(expected < 0 ? -1 : expected - 1, pattern.indexIn(heap));
+			}
+		}
+		assertEquals(7, BytePattern.compile(new byte[0]).indexIn(text, 7, 10));
+	}
+
+	@Test
+	public void testPatternSetMatchesNaive() {
+		byte[] text = randomText(1000, 3);
+		Random random = new Random(4);
+		byte[][] patterns = new byte[20][];
+		for (int p = 0; p < patterns.length; p++) {
+			int m = 1 + random.nextInt(6);
+			int from = random.nextInt(text.length - m);
+			patterns[p] = new byte[m];
+			System.arraycopy(text, from, patterns[p], 0, m);
+		}
+		patterns[19] = patterns[3].clone();
+		BytePatternSet set = BytePatternSet.of(patterns);
+		assertEquals(20, set.size());
+
+		List<String> expected = new ArrayList<>();
+		for (int end = 1; end <= text.length; end++) {
+			List<int[]> ending = new ArrayList<>();
+			for (int p = 0; p < patterns.length; p++) {
+				int start = end - patterns[p].length;
+				if (start >= 0 && matchesAt(text, start, patterns[p])) {
+					ending.add(new int[] { p, start });
+				}
+			}
+			// longest first, then in pattern order for equal lengths
+			ending.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1])
+					: Integer.compare(a[0], b[0]));
+			for (int[] match : ending) {
+				expected.add(match[0] + "@" + match[1]);
+			}
+		}
+		List<String> actual = new ArrayList<>();
+		int count = set.search(text, 0, text.length, (p, start, end) -> {
+			assertEquals(start + patterns[p].length, end);
+			return actual.add(p + "@" + start);
+		});
+		assertEquals(expected.size(), count);
+		assertEquals(expected, actual);
+
+		List<String> fromBuffer = new ArrayList<>();
+		set.search(ByteBuffer.allocateDirect(text.length).put(text).flip(),
+				(p, start, end) -> fromBuffer.add(p + "@" + start));
+		assertEquals(expected, fromBuffer);
+
+		int first = Integer.parseInt(expected.get(0).split("@")[1]);
+		assertEquals(first, set.indexIn(text, 0, text.length));
+		assertEquals(first, set.indexIn(ByteBuffer.wrap(text)));
+		assertEquals(1, set.search(text, 0, text.length, (p, start, end) -> false));
+	}
+
+	@Test
+	public void testClassicExample() {
+		BytePatternSet set = BytePatternSet.of(bytes("he"), bytes("she"), bytes("his"),
+				bytes("hers"));
+		List<String> found = new ArrayList<>();
+		set.search(bytes("ushers"), 0, 6, (p, start, end) -> found.add(p + ":" + start));
+		assertEquals(List.of("1:1", "0:2", "3:2"), found);
+		assertEquals(1, set.indexIn(bytes("ushers"), 0, 6));
+		assertEquals(-1, set.indexIn(bytes("ushers"), 3, 3));
+		assertTrue(BytePatternSet.of().indexIn(bytes("abc"), 0, 3) < 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyPatternInSet() {
+		BytePatternSet.of(bytes("a"), new byte[0]);
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
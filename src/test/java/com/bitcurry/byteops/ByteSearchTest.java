@@ -0,0 +1,147 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/*
+ * Every search is checked against a plain loop over small alphabets, so that
+ * matches are dense enough to land in every lane of a word and in the tails.
+ */
+public class ByteSearchTest {
+
+	private static final int[] LENGTHS = { 0, 1, 7, 8, 9, 17, 64, 100 };
+
+	private static int naiveFirst(byte[] src, int off, int len, ByteSet set) {
+		for (int i = off; i < off + len; i++) {
+			if (set.contains(src[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int naiveLast(byte[] src, int off, int len, ByteSet set) {
+		for (int i = off + len - 1; i >= off; i--) {
+			if (set.contains(src[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/* the same bytes at position 3 of a direct buffer and of a heap slice */
+	private static ByteBuffer[] buffers(byte[] src, int off, int len) {
+		ByteBuffer direct = ByteBuffer.allocateDirect(len + 3);
+		direct.position(3);
+		direct.put(src, off, len).position(3);
+		ByteBuffer heap = ByteBuffer.wrap(new byte[len + 5], 2, len + 3).slice();
+		heap.position(3);
+		heap.duplicate().put(src, off, len);
+		return new ByteBuffer[] { direct, heap };
+	}
+
+	@Test
+	public void testIndexOfByte() {
+		for (int len : LENGTHS) {
+			for (int alphabet : new int[] { 2, 16, 200 }) {
+				byte[] src = randomBytes(len + 2, alphabet, len * alphabet);
+				for (int value = 0xF0; value < 0xF4; value++) {
+					ByteSet set = ByteSet.of(value);
+					assertEquals(naiveFirst(src, 1, len, set), ByteSearch.indexOf(src, 1, len, value));
+					assertEquals(naiveLast(src, 1, len, set),
+							ByteSearch.lastIndexOf(src, 1, len, (byte) value));
+					for (ByteBuffer buf : buffers(src, 1, len)) {
+						int first = naiveFirst(src, 1, len, set);
+						int last = naiveLast(src, 1, len, set);
+						assertEquals(first < 0 ? -1 : first + 2, ByteSearch.indexOf(buf, value));
+						assertEquals(last < 0 ? -1 : last + 2, ByteSearch.lastIndexOf(buf, value));
+						assertEquals(3, buf.position());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIndexOfAny() {
+		ByteSet[] sets = { new ByteSet(), ByteSet.of(0xF1), ByteSet.of(0xF1, 0xF3),
+				ByteSet.of(0xF0, 0xF2, 0xF5), ByteSet.range(0xF4, 0xFF), ByteSet.all() };
+		for (int len : LENGTHS) {
+			byte[] src = randomBytes(len + 2, 12, len);
+			for (ByteSet set : sets) {
+				int first = naiveFirst(src, 1, len, set);
+				int last = naiveLast(src, 1, len, set);
+				assertEquals(set.toString(), first, ByteSearch.indexOfAny(src, 1, len, set));
+				assertEquals(set.toString(), last, ByteSearch.lastIndexOfAny(src, 1, len, set));
+				for (ByteBuffer buf : buffers(src, 1, len)) {
+					assertEquals(first < 0 ? -1 : first + 2, ByteSearch.indexOfAny(buf, set));
+					assertEquals(last < 0 ? -1 : last + 2, ByteSearch.lastIndexOfAny(buf, set));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIndexOfSequence() {
+		byte[] src = randomBytes(300, 3, 1);
+		for (int m = 0; m < 6; m++) {
+			for (int at = 0; at + m <= 300; at += 37) {
+				byte[] pattern = new byte[m];
+				System.arraycopy(src, at, pattern, 0, m);
+				int expected = -1;
+				for (int i = 5; i + m <= 295 && expected < 0; i++) {
+					if (ByteBuffer.wrap(src, i, m).equals(ByteBuffer.wrap(pattern))) {
+						expected = i;
+					}
+				}
+				assertEquals(expected, ByteSearch.indexOf(src, 5, 290, pattern));
+				for (ByteBuffer buf : buffers(src, 5, 290)) {
+					assertEquals(expected < 0 ? -1 : expected - 2, ByteSearch.indexOf(buf, pattern));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testHdlcFlag() {
+		byte[] frame = { 0x01, 0x02, 0x7D, 0x5E, 0x7E, 0x03, 0x7E };
+		assertEquals(4, ByteSearch.indexOf(frame, 0, frame.length, ByteOps.B0x7E));
+		assertEquals(6, ByteSearch.lastIndexOf(frame, 0, frame.length, ByteOps.B0x7E));
+		assertEquals(-1, ByteSearch.indexOf(frame, 0, 4, 0x7E));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		ByteSearch.indexOf(new byte[8], 4, 5, 0);
+	}
+
+}
@@ -0,0 +1,103 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class ByteSetTest {
+
+	@Test
+	public void testMatchesBoxedSet() {
+		Random random = new Random(256);
+		ByteSet set = new ByteSet();
+		TreeSet<Integer> boxed = new TreeSet<>();
+		for (int i = 0; i < 500; i++) {
+			int value = random.nextInt(256);
+			if (random.nextBoolean()) {
+				assertEquals(boxed.add(value), set.add(value));
+			} else {
+				assertEquals(boxed.remove(value), set.remove((byte) value));
+			}
+			assertEquals(boxed.size(), set.size());
+		}
+		for (int b = 0; b < 256; b++) {
+			assertEquals(boxed.contains(b), set.contains(b));
+			assertEquals(boxed.contains(b), set.contains((byte) b));
+			Integer next = boxed.ceiling(b);
+			assertEquals(next == null ? -1 : next, set.next(b));
+		}
+		assertEquals(-1, set.next(256));
+
+		byte[] members = new byte[boxed.size()];
+		int i = 0;
+		for (int b : boxed) {
+			members[i++] = (byte) b;
+		}
+		assertArrayEquals(members, set.toArray());
+		TreeSet<Integer> visited = new TreeSet<>();
+		set.forEach(visited::add);
+		assertEquals(boxed, visited);
+	}
+
+	@Test
+	public void testSetOperations() {
+		ByteSet digits = ByteSet.range('0', '9');
+		ByteSet hex = ByteSet.range('a', 'f');
+		hex.addAll(digits);
+		assertEquals(16, hex.size());
+		assertTrue(hex.containsAll(digits));
+		assertFalse(digits.containsAll(hex));
+
+		ByteSet letters = hex.copy();
+		letters.removeAll(digits);
+		assertEquals(ByteSet.of('a', 'b', 'c', 'd', 'e', 'f'), letters);
+		letters.retainAll(ByteSet.of((byte) 'a', (byte) 'z'));
+		assertEquals("{0x61}", letters.toString());
+
+		ByteSet others = ByteSet.all();
+		others.removeAll(hex);
+		hex.complement();
+		assertEquals(others, hex);
+		assertEquals(240, hex.size());
+		hex.clear();
+		assertTrue(hex.isEmpty());
+
+		byte[] text = "hello".getBytes();
+		assertEquals(ByteSet.of('h', 'e', 'l', 'o'), ByteSet.of(text, 0, text.length));
+		assertEquals(ByteSet.of(0xFF, 0x80), ByteSet.of(ByteOps.B0x80, ByteOps.B0xFF));
+		assertArrayEquals(new long[] { 1L << 63, 0, 0, 1L << 63 },
+				ByteSet.of(0x3F, 0xFF).toLongArray());
+	}
+
+}
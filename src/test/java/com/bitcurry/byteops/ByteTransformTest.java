@@ -0,0 +1,144 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class ByteTransformTest {
+
+	private static final ByteTransform SCRAMBLE =
+			ByteTransform.identity().not().lrotate(3).xor(0x5A);
+
+	private static byte scramble(int b) {
+		return ByteOps.xor(ByteOps.lrotate(ByteOps.not(b), 3), 0x5A);
+	}
+
+	@Test
+	public void testIdentity() {
+		for (int i = 0; i < 256; i++) {
+			assertEquals((byte) i, ByteTransform.identity().apply(i));
+		}
+		assertEquals(0, ByteTransform.identity().size());
+	}
+
+	@Test
+	public void testEveryStep() {
+		ByteTransform all = ByteTransform.identity().and(0xF7).or(ByteOps.B0x11).xor(0x5A).not()
+				.lshift(1).rshift((byte) 2).lrotate(3).rrotate(ByteOps.B0x05).and(ByteOps.B0xFE)
+				.or(0x80).xor(ByteOps.B0x33).lshift((byte) 1).rshift(1).lrotate((byte) 6).rrotate(2);
+		for (int i = 0; i < 256; i++) {
+			byte b = (byte) i;
+			b = ByteOps.and(b, 0xF7);
+			b = ByteOps.or(b, 0x11);
+			b = ByteOps.xor(b, 0x5A);
+			b = ByteOps.not(b);
+			b = ByteOps.lshift(b, 1);
+			b = ByteOps.rshift(b, 2);
+			b = ByteOps.lrotate(b, 3);
+			b = ByteOps.rrotate(b, 5);
+			b = ByteOps.and(b, 0xFE);
+			b = ByteOps.or(b, 0x80);
+			b = ByteOps.xor(b, 0x33);
+			b = ByteOps.lshift(b, 1);
+			b = ByteOps.rshift(b, 1);
+			b = ByteOps.lrotate(b, 6);
+			b = ByteOps.rrotate(b, 2);
+			assertEquals(b, all.apply((byte) i));
+		}
+		assertEquals(15, all.size());
+	}
+
+	@Test
+	public void testArrays() {
+		byte[] src = randomBytes(1000, 7);
+		byte[] expected = new byte[997];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = scramble(src[i + 3]);
+		}
+		byte[] dst = new byte[997];
+		SCRAMBLE.apply(src, 3, dst, 0, 997);
+		assertArrayEquals(expected, dst);
+	}
+
+	@Test
+	public void testBuffers() {
+		byte[] src = randomBytes(1000, 7);
+		byte[] expected = new byte[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = scramble(src[i]);
+		}
+		ByteBuffer direct = ByteBuffer.allocateDirect(1000);
+		direct.put(src).flip();
+		SCRAMBLE.apply(direct);
+		assertEquals(ByteBuffer.wrap(expected), direct);
+
+		ByteBuffer heap = ByteBuffer.allocate(1000);
+		SCRAMBLE.apply(ByteBuffer.wrap(src), heap);
+		assertArrayEquals(expected, heap.array());
+	}
+
+	@Test
+	public void testStreams() throws IOException {
+		byte[] src = randomBytes(20000, 7);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(20000, SCRAMBLE.transform(new ByteArrayInputStream(src), out));
+		byte[] actual = out.toByteArray();
+		for (int i = 0; i < src.length; i++) {
+			assertEquals(scramble(src[i]), actual[i]);
+		}
+	}
+
+	@Test
+	public void testThen() {
+		ByteTransform first = ByteTransform.identity().not();
+		ByteTransform second = ByteTransform.identity().lrotate(3).xor(0x5A);
+		assertEquals(SCRAMBLE, first.then(second));
+		assertArrayEquals(SCRAMBLE.toTable(), first.then(second).toTable());
+		// not commutes with rotate and xor but not with shifts
+		assertEquals(SCRAMBLE, second.then(first));
+		ByteTransform shift = ByteTransform.identity().lshift(1);
+		assertNotEquals(first.then(shift), shift.then(first));
+	}
+
+	@Test
+	public void testImmutable() {
+		ByteTransform not = ByteTransform.identity().not();
+		not.xor(0xFF);
+		assertEquals(ByteOps.B0xFF, not.apply(0));
+		assertEquals("ByteTransform[not]", not.toString());
+	}
+
+}
@@ -0,0 +1,153 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.junit.Test;
+
+public class ByteViewTest {
+
+	private static ByteView[] views(byte[] data) {
+		ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 3);
+		direct.position(3);
+		direct.put(data).position(3);
+		byte[] padded = new byte[data.length + 4];
+		System.arraycopy(data, 0, padded, 2, data.length);
+		return new ByteView[] { ByteView.of(data), ByteView.of(padded, 2, data.length),
+				ByteView.of(direct), ByteView.of(ByteBuffer.wrap(padded, 2, data.length)) };
+	}
+
+	@Test
+	public void testGetMatchesTransform() {
+		byte[] data = randomBytes(300, 25);
+		ByteTransform expected = ByteTransform.identity().not().lrotate(3).xor(0x5A).and(0xF7);
+		for (ByteView base : views(data)) {
+			ByteView view = base.not().lrotate(3).xor(0x5A).and(0xF7);
+			assertEquals(expected, view.getTransform());
+			assertEquals(data.length, view.length());
+			for (int i = 0; i < data.length; i++) {
+				assertEquals(expected.apply(data[i]), view.get(i));
+				assertEquals(expected.apply(data[i]) & 0xFF, view.getUnsigned(i));
+			}
+			assertEquals(ByteTransform.identity(), base.getTransform());
+		}
+	}
+
+	@Test
+	public void testMaterialize() {
+		byte[] data = randomBytes(1000, 25);
+		ByteTransform chain = ByteTransform.identity().rrotate(1).or((byte) 0x11).rshift(1);
+		byte[] expected = new byte[data.length];
+		chain.apply(data, 0, expected, 0, data.length);
+		for (ByteView base : views(data)) {
+			ByteView view = base.then(chain);
+			assertArrayEquals(expected, view.toArray());
+			byte[] dst = new byte[data.length + 2];
+			view.materialize(dst, 1);
+			for (int i = 0; i < data.length; i++) {
+				assertEquals(expected[i], dst[i + 1]);
+			}
+			ByteBuffer out = ByteBuffer.allocateDirect(data.length + 1);
+			out.position(1);
+			view.materialize(out);
+			assertEquals(1, out.position());
+			for (int i = 0; i < data.length; i++) {
+				assertEquals(expected[i], out.get(i + 1));
+			}
+		}
+	}
+
+	@Test
+	public void testSlice() {
+		byte[] data = randomBytes(64, 25);
+		for (ByteView base : views(data)) {
+			ByteView view = base.xor(0xFF);
+			ByteView slice = view.slice(10, 20).slice(5, 10);
+			assertEquals(10, slice.length());
+			for (int i = 0; i < 10; i++) {
+				assertEquals((byte) ~data[15 + i], slice.get(i));
+			}
+			byte[] expected = new byte[10];
+			ByteOps.not(data, 15, expected, 0, 10);
+			assertArrayEquals(expected, slice.toArray());
+			assertEquals(0, view.slice(64, 0).toArray().length);
+		}
+	}
+
+	@Test
+	public void testLazyReadsSource() {
+		byte[] data = { 1, 2, 3 };
+		ByteView view = ByteView.of(data).xor((byte) 1);
+		assertEquals(0, view.get(0));
+		data[0] = 7;
+		assertEquals(6, view.get(0));
+		assertArrayEquals(new byte[] { 6, 3, 2 }, view.toArray());
+	}
+
+	@Test
+	public void testInPlace() {
+		byte[] data = { 1, 2, 3, 4 };
+		ByteView.of(data, 1, 2).lshift(1).materialize(data, 1);
+		assertArrayEquals(new byte[] { 1, 4, 6, 4 }, data);
+	}
+
+	@Test
+	public void testBufferPositionUntouched() {
+		ByteBuffer buf = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 });
+		buf.position(1);
+		ByteView view = ByteView.of(buf).not();
+		assertEquals(3, view.length());
+		assertArrayEquals(new byte[] { ~2, ~3, ~4 }, view.toArray());
+		assertEquals(1, buf.position());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfRange() {
+		ByteView.of(new byte[8], 2, 4).get(4);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSliceOutOfRange() {
+		ByteView.of(new byte[8]).slice(5, 4);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testMaterializeTooSmall() {
+		ByteView.of(new byte[8]).materialize(new byte[10], 3);
+	}
+
+	@Test(expected = ReadOnlyBufferException.class)
+	public void testMaterializeReadOnly() {
+		ByteView.of(new byte[8]).materialize(ByteBuffer.allocate(8).asReadOnlyBuffer());
+	}
+
+}
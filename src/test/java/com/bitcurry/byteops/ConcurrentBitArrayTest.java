@@ -0,0 +1,185 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ConcurrentBitArrayTest {
+
+	private static final int THREADS = 4;
+
+	/* run the same task on several threads at once and wait for them all */
+	private static void race(Task body) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				body.run(id);
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private interface Task {
+		void run(int thread);
+	}
+
+	@Test
+	public void testMatchesBitSet() {
+		Random random = new Random(19);
+		ConcurrentBitArray array = new ConcurrentBitArray(300);
+		BitSet expected = new BitSet(300);
+		for (int i = 0; i < 2000; i++) {
+			int index = random.nextInt(300);
+			switch (random.nextInt(4)) {
+			case 0:
+				assertEquals(expected.get(index), array.testAndSet(index));
+				expected.set(index);
+				break;
+			case 1:
+				assertEquals(expected.get(index), array.testAndClear(index));
+				expected.clear(index);
+				break;
+			case 2:
+				expected.flip(index);
+				assertEquals(expected.get(index), array.flipBit(index));
+				break;
+			default:
+				int to = index + random.nextInt(300 - index + 1);
+				if (random.nextBoolean()) {
+					array.setRange(index, to);
+					expected.set(index, to);
+				} else {
+					array.clearRange(index, to);
+					expected.clear(index, to);
+				}
+				break;
+			}
+		}
+		for (int i = 0; i < 300; i++) {
+			assertEquals(expected.get(i), array.get(i));
+			assertEquals(expected.nextSetBit(i), array.nextSetBit(i));
+			int clear = expected.nextClearBit(i);
+			assertEquals(clear < 300 ? clear : -1, array.nextClearBit(i));
+		}
+		assertEquals(expected.cardinality(), array.cardinality());
+		assertArrayEquals(expected.toLongArray(),
+				BitSet.valueOf(array.snapshot()).toLongArray());
+		assertArrayEquals(expected.toByteArray(),
+				BitSet.valueOf(array.toByteArray()).toByteArray());
+		BitSet visited = new BitSet();
+		array.forEachSetBit(visited::set);
+		assertEquals(expected, visited);
+		assertEquals(expected.toString(), array.toString());
+	}
+
+	@Test
+	public void testWordOperations() {
+		ConcurrentBitArray array = new ConcurrentBitArray(100);
+		assertEquals(2, array.wordCount());
+		assertEquals(0, array.orWord(1, -1L));
+		// bits past the end are never set
+		assertEquals(0xFFFFFFFFFL, array.getWord(1));
+		assertEquals(36, array.cardinality());
+		assertEquals(-1, array.nextClearBit(64));
+		array.andNot(new long[] { 0, 0xF0 }, 0);
+		assertEquals(0xFFFFFFF0FL, array.getWord(1));
+		array.or(new long[] { 0x11 }, 0);
+		assertTrue(array.get(0) && array.get(4) && !array.get(1));
+		assertTrue(array.compareAndSetWord(0, 0x11, 0x22));
+		assertFalse(array.compareAndSetWord(0, 0x11, 0x33));
+		assertEquals(0x22, array.xorWord(0, 0x22));
+		assertEquals(0, array.getWord(0));
+		array.clear();
+		assertEquals(0, array.cardinality());
+
+		byte[] status = { 0x01, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0x7E };
+		ConcurrentBitArray fromBytes = ConcurrentBitArray.fromByteArray(status);
+		assertEquals(72, fromBytes.length());
+		for (int i = 0; i < 72; i++) {
+			assertEquals(ByteOps.isBitSet(status[i / 8], i % 8), fromBytes.get(i));
+		}
+		assertArrayEquals(status, fromBytes.toByteArray());
+	}
+
+	@Test
+	public void testConcurrentClaims() throws InterruptedException {
+		final int bits = 10000;
+		ConcurrentBitArray array = new ConcurrentBitArray(bits);
+		AtomicInteger claimed = new AtomicInteger();
+		// every thread tries to claim every bit; each must be won exactly once
+		race(thread -> {
+			for (int i = 0; i < bits; i++) {
+				int index = (i * 7 + thread * 2503) % bits;
+				if (!array.testAndSet(index)) {
+					claimed.incrementAndGet();
+				}
+			}
+		});
+		assertEquals(bits, claimed.get());
+		assertEquals(bits, array.cardinality());
+	}
+
+	@Test
+	public void testConcurrentUpdatesToSharedWords() throws InterruptedException {
+		// each thread owns every fourth bit, so all threads hammer the same words
+		ConcurrentBitArray array = new ConcurrentBitArray(256);
+		race(thread -> {
+			for (int round = 0; round < 1001; round++) {
+				for (int i = thread; i < 256; i += THREADS) {
+					array.flipBit(i);
+				}
+			}
+			for (int i = thread; i < 256; i += THREADS * 2) {
+				array.clearBit(i);
+			}
+		});
+		for (int i = 0; i < 256; i++) {
+			assertEquals("bit " + i, (i % (THREADS * 2)) >= THREADS, array.get(i));
+		}
+	}
+
+}
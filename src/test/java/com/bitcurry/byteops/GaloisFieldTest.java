@@ -0,0 +1,311 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Table lookups are checked against a bitwise carry-less multiply, and the
+ * bulk kernels of every engine against the table lookups.
+ */
+public class GaloisFieldTest {
+
+	private static final GaloisField[] FIELDS = { GaloisField.REED_SOLOMON, GaloisField.AES,
+			new GaloisField(0x187) };
+
+	private static final BulkEngine[] ENGINES = {
+			BulkEngine.scalar(), new VectorBulkEngine() };
+
+	private static final int[] LENGTHS = { 0, 1, 15, 16, 33, 64, 100, 4099 };
+	private static final int OFFSET = 3;
+
+	private static int slowMul(int a, int b, int poly) {
+		int result = 0;
+		for (int i = 7; i >= 0; i--) {
+			result <<= 1;
+			if ((result & 0x100) != 0) {
+				result ^= poly;
+			}
+			if ((b & (1 << i)) != 0) {
+				result ^= a;
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testMulMatchesBitwise() {
+		for (GaloisField field : FIELDS) {
+			for (int a = 0; a < 256; a++) {
+				for (int b = 0; b < 256; b++) {
+					assertEquals(field + " " + a + "*" + b,
+							(byte) slowMul(a, b, field.getPolynomial()), field.mul(a, b));
+				}
+			}
+			assertEquals(field.mul(0x53, 0xCA), field.mul((byte) 0x53, (byte) 0xCA));
+			assertEquals(field.mul(0x53, 0xCA), field.mul((byte) 0x53, 0xCA));
+			assertEquals(field.mul(0x53, 0xCA), field.mul(0x53, (byte) 0xCA));
+		}
+		// FIPS-197 worked example
+		assertEquals((byte) 0xC1, GaloisField.AES.mul(0x57, 0x83));
+		assertEquals((byte) 0x01, GaloisField.AES.mul(0x53, 0xCA));
+	}
+
+	@Test
+	public void testDivisionAndInverse() {
+		for (GaloisField field : FIELDS) {
+			for (int a = 0; a < 256; a++) {
+				for (int b = 1; b < 256; b++) {
+					assertEquals((byte) a, field.mul(field.div(a, b), b));
+				}
+				if (a != 0) {
+					assertEquals(1, field.mul(a, field.inverse(a)));
+				}
+			}
+		}
+		assertEquals((byte) 0xCA, GaloisField.AES.inverse((byte) 0x53));
+	}
+
+	@Test
+	public void testLogExpPow() {
+		for (GaloisField field : FIELDS) {
+			for (int a = 1; a < 256; a++) {
+				assertEquals((byte) a, field.exp(field.log(a)));
+				assertEquals(field.mul(a, field.mul(a, a)), field.pow(a, 3));
+				assertEquals(field.inverse(a), field.pow(a, -1));
+			}
+			assertEquals(1, field.exp(255));
+			assertEquals(field.exp(-1), field.inverse(field.getGenerator()));
+			assertEquals(1, field.pow(0, 0));
+			assertEquals(0, field.pow(0, 5));
+		}
+		assertEquals(2, GaloisField.REED_SOLOMON.getGenerator());
+		assertEquals(3, GaloisField.AES.getGenerator());
+	}
+
+	@Test
+	public void testZeroErrors() {
+		GaloisField field = GaloisField.REED_SOLOMON;
+		try {
+			field.div(1, 0);
+			fail();
+		} catch (ArithmeticException e) {
+			// expected
+		}
+		try {
+			field.inverse(0);
+			fail();
+		} catch (ArithmeticException e) {
+			// expected
+		}
+		try {
+			field.log((byte) 0);
+			fail();
+		} catch (ArithmeticException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testReduciblePolynomialRejected() {
+		for (int poly : new int[] { 0x100, 0x101, 0x1FF, 0xFF, 0x200 }) {
+			try {
+				new GaloisField(poly);
+				fail("0x" + Integer.toHexString(poly));
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testBulkKernels() {
+		GaloisField field = GaloisField.REED_SOLOMON;
+		GaloisField.Coefficient[] coefficients = new GaloisField.Coefficient[256];
+		for (int len : LENGTHS) {
+			byte[] src = randomBytes(len + OFFSET, len);
+			byte[] initial = randomBytes(len + OFFSET, ~len);
+			for (int c : new int[] { 2, 0x1D, 0x80, 0xFF }) {
+				byte[] mul = new byte[len + OFFSET];
+				byte[] mulAdd = initial.clone();
+				for (int i = 0; i < len; i++) {
+					mul[OFFSET + i] = field.mul(c, src[i]);
+					mulAdd[OFFSET + i] ^= field.mul(c, src[i]);
+				}
+				for (BulkEngine engine : ENGINES) {
+					GaloisField.Coefficient coefficient = coefficientOf(field, c, coefficients);
+					byte[] dst = new byte[len + OFFSET];
+					engine.gfMul(coefficient, src, 0, dst, OFFSET, len);
+					assertArrayEquals(engine + " " + c + " " + len, mul, dst);
+					dst = initial.clone();
+					engine.gfMulAdd(coefficient, src, 0, dst, OFFSET, len);
+					assertArrayEquals(engine + " " + c + " " + len, mulAdd, dst);
+				}
+			}
+			for (int c : new int[] { 0, 1, 0x53 }) {
+				byte[] expected = initial.clone();
+				byte[] actual = initial.clone();
+				for (int i = 0; i < len; i++) {
+					expected[OFFSET + i] ^= field.mul(c, src[i]);
+				}
+				field.mulAdd(c, src, 0, actual, OFFSET, len);
+				assertArrayEquals(expected, actual);
+				for (int i = 0; i < len; i++) {
+					expected[OFFSET + i] = field.mul(c, src[i]);
+				}
+				field.mul(c, src, 0, actual, OFFSET, len);
+				assertArrayEquals(expected, actual);
+			}
+		}
+	}
+
+	/* the nibble tables hold 16 entries, so every species past 128 bits is wider than them */
+	@Test
+	public void testVectorKernelWidths() {
+		GaloisField field = GaloisField.AES;
+		GaloisField.Coefficient[] coefficients = new GaloisField.Coefficient[256];
+		List<VectorSpecies<Byte>> species = Arrays.asList(ByteVector.SPECIES_64,
+				ByteVector.SPECIES_128, ByteVector.SPECIES_256, ByteVector.SPECIES_512);
+		for (int len : LENGTHS) {
+			byte[] src = randomBytes(len, len);
+			byte[] initial = randomBytes(len + OFFSET, ~len);
+			for (int c : new int[] { 3, 0x8E, 0xFF }) {
+				GaloisField.Coefficient coefficient = coefficientOf(field, c, coefficients);
+				byte[] mul = new byte[len + OFFSET];
+				byte[] mulAdd = initial.clone();
+				for (int i = 0; i < len; i++) {
+					mul[OFFSET + i] = field.mul(c, src[i]);
+					mulAdd[OFFSET + i] ^= field.mul(c, src[i]);
+				}
+				for (VectorSpecies<Byte> s : species) {
+					byte[] dst = new byte[len + OFFSET];
+					VectorBulkEngine.gfMul(s, coefficient, src, 0, dst, OFFSET, len);
+					assertArrayEquals(s + " " + c + " " + len, mul, dst);
+					dst = initial.clone();
+					VectorBulkEngine.gfMulAdd(s, coefficient, src, 0, dst, OFFSET, len);
+					assertArrayEquals(s + " " + c + " " + len, mulAdd, dst);
+				}
+			}
+		}
+	}
+
+	/* the field keeps its coefficients private, so build the same tables here */
+	private static GaloisField.Coefficient coefficientOf(GaloisField field, int c,
+			GaloisField.Coefficient[] cache) {
+		if (cache[c] == null) {
+			GaloisField.Coefficient coefficient = new GaloisField.Coefficient();
+			for (int b = 0; b < 256; b++) {
+				coefficient.products[b] = field.mul(c, b);
+			}
+			for (int i = 0; i < coefficient.low.length; i++) {
+				coefficient.low[i] = coefficient.products[i];
+				coefficient.high[i] = coefficient.products[i << 4];
+			}
+			cache[c] = coefficient;
+		}
+		return cache[c];
+	}
+
+	@Test
+	public void testEncodeAndRecover() {
+		GaloisField field = GaloisField.REED_SOLOMON;
+		final int dataShards = 4;
+		final int parityShards = 2;
+		final int len = 10000;
+		// Vandermonde rows normalised so the top of the matrix is the identity;
+		// encode computes the matrix product when the inputs are the rows of B
+		byte[][] vandermonde = new byte[dataShards + parityShards][dataShards];
+		for (int r = 0; r < vandermonde.length; r++) {
+			for (int c = 0; c < dataShards; c++) {
+				vandermonde[r][c] = field.pow(r, c);
+			}
+		}
+		byte[][] top = new byte[dataShards][];
+		System.arraycopy(vandermonde, 0, top, 0, dataShards);
+		byte[][] topInverse = field.invert(top);
+		byte[][] coding = new byte[vandermonde.length][dataShards];
+		field.encode(vandermonde, topInverse, coding, 0, dataShards);
+		for (int r = 0; r < dataShards; r++) {
+			for (int c = 0; c < dataShards; c++) {
+				assertEquals(r == c ? 1 : 0, coding[r][c]);
+			}
+		}
+
+		byte[][] data = new byte[dataShards][];
+		for (int i = 0; i < dataShards; i++) {
+			data[i] = randomBytes(len, i);
+		}
+		byte[][] parity = new byte[parityShards][len];
+		byte[][] parityRows = new byte[parityShards][];
+		System.arraycopy(coding, dataShards, parityRows, 0, parityShards);
+		field.encode(parityRows, data, parity, 0, len);
+
+		// lose data shards 0 and 2, recover from 1, 3 and both parities
+		int[] present = { 1, 3, 4, 5 };
+		byte[][] subMatrix = new byte[dataShards][];
+		byte[][] shards = new byte[dataShards][];
+		for (int i = 0; i < dataShards; i++) {
+			subMatrix[i] = coding[present[i]];
+			shards[i] = present[i] < dataShards ? data[present[i]] : parity[present[i] - dataShards];
+		}
+		byte[][] decode = field.invert(subMatrix);
+		byte[][] recovered = new byte[dataShards][len];
+		field.encode(decode, shards, recovered, 0, len);
+		for (int i = 0; i < dataShards; i++) {
+			assertArrayEquals("shard " + i, data[i], recovered[i]);
+		}
+	}
+
+	@Test
+	public void testInvertSingular() {
+		byte[][] singular = { { 1, 2 }, { 2, 4 } };
+		// rows 1,2 and 2,4 are dependent since 2 * 2 = 4 in any of these fields
+		try {
+			GaloisField.REED_SOLOMON.invert(singular);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		byte[][] matrix = { { 3, 7 }, { 9, 1 } };
+		byte[][] inverse = GaloisField.REED_SOLOMON.invert(matrix);
+		byte[][] product = new byte[2][2];
+		GaloisField.REED_SOLOMON.encode(matrix, inverse, product, 0, 2);
+		assertArrayEquals(new byte[] { 1, 0 }, product[0]);
+		assertArrayEquals(new byte[] { 0, 1 }, product[1]);
+	}
+
+}
@@ -0,0 +1,178 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class HexCodecTest {
+
+	private static final HexCodec SPACED = HexCodec.upperCase().withSeparator(" ");
+
+	private static String reference(byte[] bytes, String format, String separator) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < bytes.length; i++) {
+			if (i > 0) {
+				sb.append(separator);
+			}
+			sb.append(String.format(format, bytes[i]));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testEncode() {
+		for (int size : new int[] { 0, 1, 7, 8, 17, 300 }) {
+			byte[] bytes = randomBytes(size, 11);
+			assertEquals(reference(bytes, "%02X", ""), HexCodec.upperCase().encode(bytes));
+			assertEquals(reference(bytes, "%02x", ""), HexCodec.lowerCase().encode(bytes));
+			assertEquals(reference(bytes, "%02X", " "), SPACED.encode(bytes));
+			assertEquals(reference(bytes, "%02x", ", "),
+					HexCodec.lowerCase().withSeparator(", ").encode(bytes));
+		}
+	}
+
+	@Test
+	public void testConstants() {
+		for (int i = 0; i < 256; i++) {
+			String hex = HexCodec.upperCase().encode(new byte[] { (byte) i });
+			assertEquals("B0x" + hex, "B0x" + String.format("%02X", i));
+			assertEquals((byte) i, HexCodec.lowerCase().decode(hex)[0]);
+		}
+	}
+
+	@Test
+	public void testTargets() throws IOException {
+		byte[] bytes = randomBytes(50, 11);
+		String expected = SPACED.encode(bytes);
+		byte[] ascii = expected.getBytes(StandardCharsets.US_ASCII);
+
+		char[] chars = new char[expected.length() + 2];
+		assertEquals(expected.length(), SPACED.encode(bytes, 0, bytes.length, chars, 1));
+		assertEquals(expected, new String(chars, 1, expected.length()));
+
+		byte[] out = new byte[ascii.length + 2];
+		assertEquals(ascii.length, SPACED.encode(bytes, 0, bytes.length, out, 2));
+		assertArrayEquals(ascii, Arrays.copyOfRange(out, 2, out.length));
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(ascii.length + 1).position(1);
+		assertEquals(ascii.length, SPACED.encode(ByteBuffer.wrap(bytes), direct));
+		assertEquals(1, direct.position());
+		byte[] fromDirect = new byte[ascii.length];
+		direct.get(fromDirect);
+		assertArrayEquals(ascii, fromDirect);
+
+		assertEquals("> " + expected, SPACED.encode(bytes, 0, bytes.length,
+				new StringBuilder("> ")).toString());
+	}
+
+	@Test
+	public void testDecode() {
+		for (int size : new int[] { 0, 1, 7, 8, 16, 17, 300 }) {
+			byte[] bytes = randomBytes(size, 11);
+			String upper = HexCodec.upperCase().encode(bytes);
+			String lower = HexCodec.lowerCase().encode(bytes);
+			assertArrayEquals(bytes, HexCodec.upperCase().decode(lower));
+			assertArrayEquals(bytes, HexCodec.lowerCase().decode(upper));
+			assertArrayEquals(bytes, SPACED.decode(SPACED.encode(bytes)));
+
+			byte[] decoded = new byte[size];
+			HexCodec.upperCase().decode(lower.toCharArray(), 0, lower.length(), decoded, 0);
+			assertArrayEquals(bytes, decoded);
+
+			byte[] ascii = (" " + upper).getBytes(StandardCharsets.US_ASCII);
+			decoded = new byte[size];
+			HexCodec.upperCase().decode(ascii, 1, upper.length(), decoded, 0);
+			assertArrayEquals(bytes, decoded);
+
+			HexCodec.upperCase().decode(ascii, 1, upper.length(), ascii, 0);
+			assertArrayEquals(bytes, Arrays.copyOf(ascii, size));
+
+			ByteBuffer src = ByteBuffer.allocateDirect(lower.length());
+			src.put(lower.getBytes(StandardCharsets.US_ASCII)).flip();
+			ByteBuffer dst = ByteBuffer.allocateDirect(size);
+			assertEquals(size, HexCodec.upperCase().decode(src, dst));
+			decoded = new byte[size];
+			dst.get(decoded);
+			assertArrayEquals(bytes, decoded);
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		String valid = HexCodec.upperCase().encode(randomBytes(40, 11));
+		for (int i = 0; i < valid.length(); i++) {
+			for (char c : new char[] { 'G', 'g', '/', ':', '@', '`', ' ', '\u00C1', '\u00E6' }) {
+				String hex = valid.substring(0, i) + c + valid.substring(i + 1);
+				byte[] ascii = hex.getBytes(StandardCharsets.ISO_8859_1);
+				try {
+					HexCodec.upperCase().decode(ascii, 0, ascii.length, new byte[40], 0);
+					fail(hex);
+				} catch (IllegalArgumentException e) {
+					assertEquals("invalid hex digit '" + (char) (ascii[i] & 0xFF) + "' at index "
+							+ i, e.getMessage());
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadSeparator() {
+		SPACED.decode("0A:0B");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadLength() {
+		HexCodec.upperCase().decode("ABC");
+	}
+
+	@Test
+	public void testTestSets() throws IOException {
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				getClass().getResourceAsStream("/and_testset.txt"), StandardCharsets.US_ASCII))) {
+			String line;
+			for (int op1 = 0; (line = in.readLine()) != null; op1++) {
+				byte[] row = SPACED.decode(line);
+				for (int op2 = 0; op2 < row.length; op2++) {
+					assertEquals(ByteOps.and(op1, op2), row[op2]);
+				}
+				assertEquals(line, SPACED.withLowerCase().encode(row));
+			}
+		}
+	}
+
+}
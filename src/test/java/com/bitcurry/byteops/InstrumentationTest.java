@@ -0,0 +1,138 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+/**
+ * Runs with instrumentation switched on by the build's instrumentationTest task. The rest of
+ * the suite runs with it off.
+ */
+public class InstrumentationTest {
+
+	@Test
+	public void testEnabled() {
+		assertTrue(Instrumentation.ENABLED);
+		BulkOp op = BulkOp.xor(1);
+		assertNotSame(op, op.instrumented("testEnabled"));
+	}
+
+	@Test
+	public void testCounts() {
+		BulkOp op = BulkOp.xor(0x0F).instrumented("testCounts");
+		byte[] buf = new byte[100];
+		op.apply(buf, 0, buf.length);
+		op.apply(ByteBuffer.wrap(buf, 10, 40));
+		op.applyMasked(new byte[30], 0, buf, 0, 30);
+		Instrumentation.OperationStats stats = Instrumentation.stats("testCounts");
+		assertEquals(3, stats.getCalls());
+		assertEquals(170, stats.getBytes());
+		assertTrue(stats.getNanos() >= 0);
+		assertEquals(0x0F, buf[0]);
+		assertEquals(0, buf[10]);
+		assertTrue(Instrumentation.operations().containsKey("testCounts"));
+	}
+
+	@Test
+	public void testParallelCountsOnce() {
+		BulkOp op = BulkOp.not().instrumented("testParallel").parallel(ForkJoinPool.commonPool(),
+				256);
+		byte[] buf = new byte[4096];
+		op.apply(buf, 0, buf.length);
+		assertEquals(1, Instrumentation.stats("testParallel").getCalls());
+		assertEquals(4096, Instrumentation.stats("testParallel").getBytes());
+		assertEquals(-1, buf[4095]);
+	}
+
+	@Test
+	public void testStreamCounts() throws IOException {
+		long before = Instrumentation.stats("TransformingInputStream").getBytes();
+		byte[] data = { 1, 2, 3, 4, 5 };
+		try (InputStream in = new TransformingInputStream(new ByteArrayInputStream(data),
+				BulkOp.xor(1))) {
+			byte[] got = new byte[5];
+			assertEquals(5, in.read(got));
+			assertArrayEquals(new byte[] { 0, 3, 2, 5, 4 }, got);
+		}
+		assertTrue(Instrumentation.stats("TransformingInputStream").getBytes() >= before + 5);
+	}
+
+	@Test
+	public void testMBean() throws Exception {
+		BulkOp.and(3).instrumented("testMBean").apply(new byte[7], 0, 7);
+		InstrumentationMXBean bean = JMX.newMXBeanProxy(
+				ManagementFactory.getPlatformMBeanServer(),
+				new ObjectName(Instrumentation.MBEAN_NAME), InstrumentationMXBean.class);
+		Map<String, Long> bytes = bean.getBytes();
+		assertEquals(Long.valueOf(7), bytes.get("testMBean"));
+		assertEquals(Long.valueOf(1), bean.getCalls().get("testMBean"));
+		assertTrue(List.of(bean.getOperations()).contains("testMBean"));
+	}
+
+	@Test
+	public void testEvent() throws IOException {
+		Path file = Files.createTempFile("byteops", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("com.bitcurry.byteops.Transform");
+			recording.start();
+			BulkOp op = BulkOp.rrotate(1).instrumented("testEvent");
+			op.apply(new byte[100], 0, 100);
+			op.apply(new byte[Instrumentation.EVENT_THRESHOLD], 0, Instrumentation.EVENT_THRESHOLD);
+			recording.stop();
+			recording.dump(file);
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			events.removeIf(e -> !"testEvent".equals(e.getString("operation")));
+			assertEquals(1, events.size());
+			assertEquals(Instrumentation.EVENT_THRESHOLD, events.get(0).getLong("bytes"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ * The chunk size is kept small and odd so that the tests cross several chunk
+ * boundaries, none of them on a page or word boundary.
+ */
+public class MappedFileTransformerTest {
+
+	private static final int CHUNK_SIZE = 4099;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path createFile(int size) throws IOException {
+		byte[] contents = new byte[size];
+		new Random(size).nextBytes(contents);
+		File file = folder.newFile();
+		Files.write(file.toPath(), contents);
+		return file.toPath();
+	}
+
+	private static byte[] not(byte[] bytes, int from, int to) {
+		byte[] result = bytes.clone();
+		for (int i = from; i < to; i++) {
+			result[i] = ByteOps.not(bytes[i]);
+		}
+		return result;
+	}
+
+	@Test
+	public void testInPlace() throws IOException {
+		Path file = createFile(5 * CHUNK_SIZE + 17);
+		byte[] original = Files.readAllBytes(file);
+		new MappedFileTransformer(BulkOp.not(), CHUNK_SIZE).transform(file);
+		assertArrayEquals(not(original, 0, original.length), Files.readAllBytes(file));
+	}
+
+	@Test
+	public void testRegion() throws IOException {
+		Path file = createFile(3 * CHUNK_SIZE);
+		byte[] original = Files.readAllBytes(file);
+		new MappedFileTransformer(BulkOp.not(), CHUNK_SIZE).transform(file, 1000, 2 * CHUNK_SIZE);
+		assertArrayEquals(not(original, 1000, 1000 + 2 * CHUNK_SIZE), Files.readAllBytes(file));
+	}
+
+	@Test
+	public void testToSecondFile() throws IOException {
+		Path src = createFile(2 * CHUNK_SIZE + 1);
+		Path dst = createFile(10 * CHUNK_SIZE);
+		byte[] original = Files.readAllBytes(src);
+		new MappedFileTransformer(BulkOp.lrotate(3), CHUNK_SIZE).transform(src, dst);
+
+		byte[] expected = new byte[original.length];
+		for (int i = 0; i < original.length; i++) {
+			expected[i] = ByteOps.lrotate(original[i], 3);
+		}
+		assertArrayEquals(expected, Files.readAllBytes(dst));
+		assertArrayEquals(original, Files.readAllBytes(src));
+	}
+
+	@Test
+	public void testToSameFile() throws IOException {
+		Path src = createFile(3 * CHUNK_SIZE + 5);
+		Path dst = src.getParent().resolve(".").resolve(src.getFileName());
+		byte[] original = Files.readAllBytes(src);
+		new MappedFileTransformer(BulkOp.not(), CHUNK_SIZE).transform(src, dst);
+		assertArrayEquals(not(original, 0, original.length), Files.readAllBytes(src));
+	}
+
+	@Test
+	public void testBetweenChannels() throws IOException {
+		Path src = createFile(CHUNK_SIZE * 2);
+		Path dst = folder.newFile().toPath();
+		byte[] original = Files.readAllBytes(src);
+		try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(dst, StandardOpenOption.READ,
+						StandardOpenOption.WRITE)) {
+			new MappedFileTransformer(BulkOp.xor(0x5A), CHUNK_SIZE).transform(in, 10, out, 3, 5000);
+		}
+		byte[] expected = new byte[5003];
+		for (int i = 0; i < 5000; i++) {
+			expected[i + 3] = ByteOps.xor(original[i + 10], 0x5A);
+		}
+		assertArrayEquals(expected, Files.readAllBytes(dst));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRegionPastEnd() throws IOException {
+		Path file = createFile(100);
+		new MappedFileTransformer(BulkOp.not()).transform(file, 50, 51);
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		Path file = createFile(0);
+		new MappedFileTransformer(BulkOp.not()).transform(file);
+		assertArrayEquals(new byte[0], Files.readAllBytes(file));
+	}
+
+}
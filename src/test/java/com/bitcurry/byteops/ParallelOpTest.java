@@ -0,0 +1,178 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelOpTest {
+
+	private static final int THRESHOLD = 1000;
+
+	private static ForkJoinPool pool;
+
+	@BeforeClass
+	public static void createPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterClass
+	public static void shutdownPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testArraysMatchSequential() {
+		BulkOp op = BulkOp.lrotate(3);
+		BulkOp parallel = op.parallel(pool, THRESHOLD);
+		for (int len : new int[] { 0, 999, 1000, 1001, 4097, 100003 }) {
+			byte[] src = randomBytes(len + 7, 5);
+			byte[] expected = new byte[len + 5];
+			byte[] actual = new byte[len + 5];
+			op.apply(src, 7, expected, 5, len);
+			parallel.apply(src, 7, actual, 5, len);
+			assertArrayEquals(expected, actual);
+
+			parallel.apply(src, 7, len);
+			assertArrayEquals(Arrays.copyOfRange(expected, 5, len + 5),
+					Arrays.copyOfRange(src, 7, len + 7));
+		}
+	}
+
+	@Test
+	public void testBuffersMatchSequential() {
+		BulkOp op = BulkOp.xor(0x5A);
+		BulkOp parallel = op.parallel(pool, THRESHOLD);
+		for (int len : new int[] { 0, 999, 1000, 1001, 4097, 100003 }) {
+			byte[] bytes = randomBytes(len + 3, 5);
+			ByteBuffer src = ByteBuffer.allocateDirect(len + 3);
+			src.put(bytes).position(3);
+			ByteBuffer expected = ByteBuffer.allocate(len);
+			ByteBuffer actual = ByteBuffer.allocateDirect(len + 1);
+			actual.position(1);
+			op.apply(src, expected);
+			parallel.apply(src, actual);
+			assertEquals(3, src.position());
+			assertEquals(1, actual.position());
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void testMaskedSplits() {
+		final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		final BulkOp xor = BulkOp.xor(0xA5);
+		BulkOp recorder = new BulkOp() {
+			@Override
+			public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+				threads.add(Thread.currentThread());
+				xor.apply(src, srcOff, dst, dstOff, len);
+			}
+
+			@Override
+			public void apply(ByteBuffer src, ByteBuffer dst) {
+				xor.apply(src, dst);
+			}
+		};
+		// above the block size, so that only splitting the whole range can reach the pool
+		int threshold = 4 * BulkOp.MASKED_BLOCK_SIZE;
+		int len = 20 * threshold + 3;
+		byte[] src = randomBytes(len + 1, 5);
+		byte[] mask = randomBytes(len, 6);
+		byte[] expected = src.clone();
+		xor.applyMasked(mask, 0, expected, 1, len);
+		byte[] actual = src.clone();
+		recorder.parallel(pool, threshold).applyMasked(mask, 0, actual, 1, len);
+		assertArrayEquals(expected, actual);
+		boolean pooled = false;
+		for (Thread thread : threads) {
+			pooled |= thread instanceof ForkJoinWorkerThread
+					&& ((ForkJoinWorkerThread) thread).getPool() == pool;
+		}
+		assertTrue(pooled);
+	}
+
+	@Test
+	public void testDirectSplitsOnCacheLines() {
+		// records where each piece after the first starts relative to a 64-byte line
+		final int start = 8;
+		final Set<Integer> offsets = ConcurrentHashMap.newKeySet();
+		final ByteBuffer whole = ByteBuffer.allocateDirect(20000 + 128);
+		BulkOp recorder = new BulkOp() {
+			@Override
+			public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+			}
+
+			@Override
+			public void apply(ByteBuffer src, ByteBuffer dst) {
+				if (dst.position() != start) {
+					offsets.add(dst.alignmentOffset(dst.position(), 64));
+				}
+			}
+		};
+		for (int misalign = 0; misalign < 64; misalign += 5) {
+			int base = -whole.alignmentOffset(0, 64) & 63;
+			ByteBuffer dst = whole.duplicate();
+			dst.position(base + misalign).limit(base + misalign + 20000);
+			dst = dst.slice();
+			dst.position(start);
+			ByteBuffer src = ByteBuffer.allocate(dst.remaining());
+			offsets.clear();
+			recorder.parallel(pool, THRESHOLD).apply(src, dst);
+			assertEquals(Collections.singleton(0), offsets);
+		}
+	}
+
+	@Test
+	public void testCommonPool() {
+		byte[] src = randomBytes(3 * BulkOp.DEFAULT_PARALLEL_THRESHOLD + 11, 5);
+		byte[] expected = new byte[src.length];
+		byte[] actual = new byte[src.length];
+		BulkOp.not().apply(src, 0, expected, 0, src.length);
+		BulkOp.not().parallel().apply(src, 0, actual, 0, src.length);
+		assertArrayEquals(expected, actual);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		BulkOp.not().parallel(pool, THRESHOLD).apply(new byte[5000], 1, 5000);
+	}
+
+}
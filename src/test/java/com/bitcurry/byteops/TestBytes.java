@@ -0,0 +1,56 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import java.util.Random;
+
+/**
+ * Shared fixtures for the tests. Everything is generated from a fixed seed so
+ * that failures are repeatable.
+ */
+final class TestBytes {
+
+	private TestBytes() {
+	}
+
+	// random bytes from a fixed seed
+	static byte[] randomBytes(int len, long seed) {
+		byte[] bytes = new byte[len];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	// bytes from the first alphabet values at 0xF0 and up, so that matches are
+	// common and every byte has its sign bit set
+	static byte[] randomBytes(int len, int alphabet, long seed) {
+		Random random = new Random(seed);
+		byte[] bytes = new byte[len];
+		for (int i = 0; i < len; i++) {
+			bytes[i] = (byte) (0xF0 + random.nextInt(alphabet));
+		}
+		return bytes;
+	}
+}
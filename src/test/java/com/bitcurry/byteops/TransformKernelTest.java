@@ -0,0 +1,127 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * Kernels are checked against the lookup tables of the ByteTransforms they were
+ * compiled from, which ByteTransformTest checks against ByteOps.
+ */
+public class TransformKernelTest {
+
+	// a random chain of steps, including shift counts outside 0 to 7
+	private static ByteTransform randomChain(Random random) {
+		ByteTransform transform = ByteTransform.identity();
+		for (int i = random.nextInt(12); i >= 0; i--) {
+			int operand = random.nextInt(256);
+			int n = random.nextInt(10);
+			switch (random.nextInt(8)) {
+			case 0: transform = transform.and(operand); break;
+			case 1: transform = transform.or(operand); break;
+			case 2: transform = transform.xor(operand); break;
+			case 3: transform = transform.not(); break;
+			case 4: transform = transform.lshift(n); break;
+			case 5: transform = transform.rshift(n); break;
+			case 6: transform = transform.lrotate(n); break;
+			default: transform = transform.rrotate(n); break;
+			}
+		}
+		return transform;
+	}
+
+	@Test
+	public void testRandomChains() {
+		Random random = new Random(8);
+		byte[] src = randomBytes(301, 301);
+		for (int chain = 0; chain < 500; chain++) {
+			ByteTransform transform = randomChain(random);
+			TransformKernel kernel = transform.compile();
+			byte[] expected = new byte[300];
+			transform.apply(src, 1, expected, 0, 300);
+			byte[] actual = new byte[300];
+			kernel.apply(src, 1, actual, 0, 300);
+			assertArrayEquals(transform.toString(), expected, actual);
+			for (int i = 0; i < 256; i++) {
+				assertEquals(transform.toString(), transform.apply(i), kernel.apply(i, 0));
+			}
+		}
+	}
+
+	@Test
+	public void testKeyed() {
+		ByteTransform before = ByteTransform.identity().not().or(0x0F);
+		ByteTransform after = ByteTransform.identity().lrotate(3).and(0x7E).rshift(1);
+		TransformKernel kernel = TransformKernel.compileKeyed(before, after);
+		byte[] src = randomBytes(1000, 1);
+		for (int key = 0; key < 256; key += 17) {
+			ByteTransform expected = before.xor(key).then(after);
+			byte[] dst = new byte[1000];
+			kernel.apply(src, 0, dst, 0, 1000, key);
+			for (int i = 0; i < src.length; i++) {
+				assertEquals(expected.apply(src[i]), dst[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testBuffers() {
+		ByteTransform transform = ByteTransform.identity().xor(0x33).rrotate(2);
+		TransformKernel kernel = TransformKernel.compile(transform);
+		byte[] src = randomBytes(1000, 2);
+		byte[] expected = new byte[1000];
+		for (int i = 0; i < src.length; i++) {
+			expected[i] = ByteOps.xor(transform.apply(src[i]), 0x5A);
+		}
+		ByteBuffer direct = ByteBuffer.allocateDirect(1000);
+		direct.put(src).flip();
+		kernel.apply(direct, direct, 0x5A);
+		assertEquals(ByteBuffer.wrap(expected), direct);
+
+		ByteBuffer heap = ByteBuffer.allocate(1000);
+		kernel.apply(ByteBuffer.wrap(src), heap);
+		transform.apply(src, 0, 1000);
+		assertArrayEquals(src, heap.array());
+	}
+
+	@Test
+	public void testHiddenClassesCachedByShape() {
+		TransformKernel first = ByteTransform.identity().lrotate(3).and(0x3C).compile();
+		TransformKernel second = ByteTransform.identity().xor(0x11).lrotate(3).and(0x3C).compile();
+		assertTrue(first.getKernel().getClass().isHidden());
+		assertSame(first.getKernel(), second.getKernel());
+	}
+
+}
@@ -0,0 +1,138 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.junit.Test;
+
+public class TransformingChannelTest {
+
+	private static final int BUFFER_SIZE = 37;
+
+	/*
+	 * Accepts at most a few bytes per call, and none at all every other call, like a
+	 * non-blocking socket with a full send buffer
+	 */
+	private static class TrickleChannel implements WritableByteChannel {
+
+		final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		boolean stalled;
+
+		@Override
+		public int write(ByteBuffer src) {
+			stalled = !stalled;
+			if (stalled) {
+				return 0;
+			}
+			int n = Math.min(src.remaining(), 5);
+			for (int i = 0; i < n; i++) {
+				sink.write(src.get());
+			}
+			return n;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+	private static byte[] not(byte[] bytes) {
+		byte[] result = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			result[i] = ByteOps.not(bytes[i]);
+		}
+		return result;
+	}
+
+	@Test
+	public void testReadable() throws IOException {
+		byte[] data = randomBytes(1000, 9);
+		ReadableByteChannel channel = new TransformingReadableChannel(
+				Channels.newChannel(new ByteArrayInputStream(data)), BulkOp.not());
+		ByteBuffer dst = ByteBuffer.allocateDirect(data.length + 3);
+		dst.put(new byte[3]);
+		while (dst.hasRemaining()) {
+			channel.read(dst);
+		}
+		byte[] result = new byte[data.length];
+		dst.flip().position(3);
+		dst.get(result);
+		assertArrayEquals(not(data), result);
+	}
+
+	@Test
+	public void testWritable() throws IOException {
+		byte[] data = randomBytes(1000, 9);
+		ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		ByteBuffer src = ByteBuffer.wrap(data.clone());
+		try (WritableByteChannel channel = new TransformingWritableChannel(
+				Channels.newChannel(sink), BulkOp.not(), BUFFER_SIZE)) {
+			assertEquals(data.length, channel.write(src));
+		}
+		assertFalse(src.hasRemaining());
+		assertArrayEquals(data, src.array());
+		assertArrayEquals(not(data), sink.toByteArray());
+	}
+
+	@Test
+	public void testNonBlocking() throws IOException {
+		byte[] data = randomBytes(1000, 9);
+		TrickleChannel trickle = new TrickleChannel();
+		TransformingWritableChannel channel = new TransformingWritableChannel(trickle,
+				BulkOp.not(), BUFFER_SIZE);
+		ByteBuffer src = ByteBuffer.wrap(data);
+		int written = 0;
+		while (src.hasRemaining()) {
+			int n = channel.write(src);
+			assertEquals(written + n, src.position());
+			written += n;
+		}
+		while (!channel.flush()) {
+		}
+		assertFalse(channel.hasPending());
+		assertEquals(data.length, written);
+		assertArrayEquals(not(data), trickle.sink.toByteArray());
+	}
+
+}
@@ -0,0 +1,118 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static com.bitcurry.byteops.TestBytes.randomBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+public class TransformingStreamTest {
+
+	private static final int BUFFER_SIZE = 37;
+
+	private static byte[] xor(byte[] bytes, int key) {
+		byte[] result = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			result[i] = ByteOps.xor(bytes[i], key);
+		}
+		return result;
+	}
+
+	@Test
+	public void testInputStream() throws IOException {
+		byte[] data = randomBytes(1000, 9);
+		InputStream in = new TransformingInputStream(new ByteArrayInputStream(data),
+				BulkOp.xor(0x5A));
+		assertArrayEquals(xor(data, 0x5A), in.readAllBytes());
+	}
+
+	@Test
+	public void testInputStreamSingleBytes() throws IOException {
+		byte[] data = randomBytes(10, 9);
+		InputStream in = new TransformingInputStream(new ByteArrayInputStream(data),
+				BulkOp.xor(0x5A));
+		byte[] expected = xor(data, 0x5A);
+		for (int i = 0; i < data.length; i++) {
+			assertEquals(expected[i] & 0xFF, in.read());
+		}
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testOutputStream() throws IOException {
+		byte[] data = randomBytes(1000, 9);
+		ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		byte[] copy = data.clone();
+		try (OutputStream out = new TransformingOutputStream(sink, BulkOp.xor(0x5A),
+				BUFFER_SIZE)) {
+			out.write(copy, 0, 10);
+			out.write(copy[10]);
+			out.write(copy, 11, copy.length - 11);
+		}
+		assertArrayEquals(data, copy);
+		assertArrayEquals(xor(data, 0x5A), sink.toByteArray());
+	}
+
+	@Test
+	public void testFlush() throws IOException {
+		ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		OutputStream out = new TransformingOutputStream(sink, BulkOp.not(), BUFFER_SIZE);
+		out.write(new byte[] { 1, 2, 3 });
+		assertEquals(0, sink.size());
+		out.flush();
+		assertArrayEquals(new byte[] { (byte) 0xFE, (byte) 0xFD, (byte) 0xFC },
+				sink.toByteArray());
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		byte[] data = randomBytes(5000, 9);
+		ByteTransform encode = ByteTransform.identity().xor(0x3C).lrotate(3);
+		ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		try (OutputStream out = new TransformingOutputStream(sink, encode.compile(),
+				BUFFER_SIZE)) {
+			out.write(data);
+		}
+		ByteTransform decode = ByteTransform.identity().rrotate(3).xor(0x3C);
+		InputStream in = new TransformingInputStream(
+				new ByteArrayInputStream(sink.toByteArray()), decode);
+		assertArrayEquals(data, in.readAllBytes());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadBufferSize() {
+		new TransformingOutputStream(new ByteArrayOutputStream(), BulkOp.not(), 0);
+	}
+
+}
@@ -0,0 +1,108 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ZeroRunCodecTest {
+
+	private static void assertRoundTrip(byte[] packed, int len) {
+		byte[] encoded = ZeroRunCodec.encode(packed, 0, len);
+		assertEquals(len, ZeroRunCodec.decodedLength(encoded, 0));
+		byte[] expected = packed.clone();
+		if ((len & 7) != 0) {
+			expected[len >>> 3] &= (1 << (len & 7)) - 1;
+		}
+		assertArrayEquals(expected, ZeroRunCodec.decode(encoded));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(24);
+		for (int len : new int[] { 0, 1, 7, 8, 63, 64, 65, 127, 500, 4099 }) {
+			for (double density : new double[] { 0.0, 0.01, 0.5, 0.99, 1.0 }) {
+				boolean[] flags = new boolean[len];
+				for (int i = 0; i < len; i++) {
+					flags[i] = random.nextDouble() < density;
+				}
+				assertRoundTrip(BitPacking.pack(flags), len);
+			}
+			byte[] noise = new byte[BitPacking.packedLength(len)];
+			random.nextBytes(noise);
+			assertRoundTrip(noise, len);
+		}
+	}
+
+	@Test
+	public void testFormat() {
+		// 10 flags, set at 3..5: runs of 3 zeros, 3 ones and 4 zeros
+		byte[] packed = BitPacking.fromIndices(new int[] { 3, 4, 5 }, 10);
+		assertArrayEquals(new byte[] { 10, 3, 3, 4 }, ZeroRunCodec.encode(packed, 0, 10));
+		// a leading set flag starts with an empty zero run
+		assertArrayEquals(new byte[] { 2, 0, 1, 1 },
+				ZeroRunCodec.encode(new byte[] { 1 }, 0, 2));
+		assertArrayEquals(new byte[] { 0 }, ZeroRunCodec.encode(new byte[0], 0, 0));
+	}
+
+	@Test
+	public void testSparseIsSmall() {
+		int len = 1 << 20;
+		byte[] packed = BitPacking.fromIndices(new int[] { 5, 100000, 100001, 900000 }, len);
+		byte[] encoded = ZeroRunCodec.encode(packed, 0, len);
+		assertTrue(encoded.length < 20);
+		assertArrayEquals(packed, ZeroRunCodec.decode(encoded));
+		byte[] ones = new byte[len >>> 3];
+		Arrays.fill(ones, (byte) -1);
+		assertEquals(3 + 1 + 3, ZeroRunCodec.encode(ones, 0, len).length);
+	}
+
+	@Test
+	public void testDecodeIntoRange() {
+		byte[] encoded = ZeroRunCodec.encode(new byte[] { (byte) 0xF0, 0x0F }, 0, 16);
+		byte[] dst = { 9, 9, 9, 9 };
+		assertEquals(16, ZeroRunCodec.decode(encoded, 0, encoded.length, dst, 1));
+		assertArrayEquals(new byte[] { 9, (byte) 0xF0, 0x0F, 9 }, dst);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecodeTruncated() {
+		byte[] encoded = ZeroRunCodec.encode(new byte[] { 0x18 }, 0, 8);
+		ZeroRunCodec.decode(Arrays.copyOf(encoded, encoded.length - 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecodeOverlongRun() {
+		ZeroRunCodec.decode(new byte[] { 4, 5 });
+	}
+
+}
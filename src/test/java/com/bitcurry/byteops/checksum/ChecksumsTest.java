@@ -0,0 +1,82 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops.checksum;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ChecksumsTest {
+
+	@Test
+	public void testAgainstLoops() {
+		Random random = new Random(8);
+		for (int len : new int[] { 0, 1, 7, 8, 9, 100, 1023, 1024, 1025, 5000 }) {
+			byte[] buf = new byte[len + 3];
+			random.nextBytes(buf);
+			int xor = 0;
+			int sum = 0;
+			int bits = 0;
+			for (int i = 3; i < buf.length; i++) {
+				xor ^= buf[i];
+				sum += buf[i] & 0xFF;
+				bits += Integer.bitCount(buf[i] & 0xFF);
+			}
+			assertEquals((byte) xor, Checksums.xor(buf, 3, len));
+			assertEquals((byte) sum, Checksums.sum(buf, 3, len));
+			assertEquals((byte) -sum, Checksums.lrc(buf, 3, len));
+			assertEquals(bits & 1, Checksums.parity(buf, 3, len));
+		}
+	}
+
+	@Test
+	public void testSaturatedLanes() {
+		byte[] buf = new byte[100000];
+		Arrays.fill(buf, (byte) 0xFF);
+		assertEquals((byte) (100000 * 0xFF), Checksums.sum(buf, 0, buf.length));
+	}
+
+	@Test
+	public void testLrcClosesFrame() {
+		// Modbus ASCII example frame: slave 0x11, read holding registers 0x006B, count 3
+		byte[] frame = { 0x11, 0x03, 0x00, 0x6B, 0x00, 0x03, 0 };
+		frame[6] = Checksums.lrc(frame, 0, 6);
+		assertEquals((byte) 0x7E, frame[6]);
+		assertEquals(0, Checksums.sum(frame, 0, frame.length));
+	}
+
+	@Test
+	public void testParity() {
+		assertEquals(0, Checksums.parity((byte) 0x00));
+		assertEquals(1, Checksums.parity((byte) 0x80));
+		assertEquals(0, Checksums.parity(0x1FF));
+		assertEquals(1, Checksums.parity(0x107));
+	}
+
+}
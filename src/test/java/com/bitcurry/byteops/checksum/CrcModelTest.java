@@ -0,0 +1,155 @@
+// This is free and unencumbered software released into the public domain.
+// 
+// Anyone is free to copy, modify, publish, use, compile, sell, or
+// distribute this software, either in source code form or as a compiled
+// binary, for any purpose, commercial or non-commercial, and by any
+// means.
+// 
+// In jurisdictions that recognize copyright laws, the author or authors
+// of this software dedicate any and all copyright interest in the
+// software to the public domain. We make this dedication for the benefit
+// of the public at large and to the detriment of our heirs and
+// successors. We intend this dedication to be an overt act of
+// relinquishment in perpetuity of all present and future rights to this
+// software under copyright law.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+// EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+// IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+// OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+// ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+// OTHER DEALINGS IN THE SOFTWARE.
+// 
+// For more information, please refer to <http://unlicense.org/>
+
+package com.bitcurry.byteops.checksum;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.Test;
+
+/*
+ * Check values are the CRC of the ASCII string "123456789" as listed in the CRC catalogues.
+ * Everything else is compared against a bit-at-a-time implementation of the Rocksoft model.
+ */
+public class CrcModelTest {
+
+	private static final byte[] CHECK = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+	private static long reference(CrcModel model, byte[] buf, int off, int len) {
+		int width = model.getWidth();
+		long top = 1L << (width - 1);
+		long mask = (top << 1) - 1;
+		long crc = model.getInit();
+		for (int i = off; i < off + len; i++) {
+			int b = buf[i] & 0xFF;
+			if (model.isReflectIn()) {
+				b = Integer.reverse(b) >>> 24;
+			}
+			for (int bit = 7; bit >= 0; bit--) {
+				boolean feedback = ((crc & top) != 0) ^ (((b >>> bit) & 1) != 0);
+				crc = (crc << 1) & mask;
+				if (feedback) {
+					crc ^= model.getPoly();
+				}
+			}
+		}
+		if (model.isReflectOut()) {
+			crc = Long.reverse(crc) >>> (64 - width);
+		}
+		return (crc ^ model.getXorOut()) & mask;
+	}
+
+	@Test
+	public void testCheckValues() {
+		assertEquals(0xF4, CrcModel.CRC8_SMBUS.compute(CHECK, 0, CHECK.length));
+		assertEquals(0xA1, CrcModel.CRC8_MAXIM.compute(CHECK, 0, CHECK.length));
+		assertEquals(0x4B37, CrcModel.CRC16_MODBUS.compute(CHECK, 0, CHECK.length));
+		assertEquals(0x29B1, CrcModel.CRC16_CCITT_FALSE.compute(CHECK, 0, CHECK.length));
+		assertEquals(0x31C3, CrcModel.CRC16_XMODEM.compute(CHECK, 0, CHECK.length));
+		assertEquals(0x2189, CrcModel.CRC16_KERMIT.compute(CHECK, 0, CHECK.length));
+	}
+
+	@Test
+	public void testAgainstReference() {
+		Random random = new Random(7);
+		byte[] buf = new byte[200];
+		random.nextBytes(buf);
+		for (int n = 0; n < 200; n++) {
+			int width = 1 + random.nextInt(32);
+			CrcModel model = new CrcModel("random", width, random.nextInt(), random.nextInt(),
+					random.nextBoolean(), random.nextBoolean(), random.nextInt());
+			int off = random.nextInt(20);
+			int len = random.nextInt(buf.length - off);
+			assertEquals(model + " width " + width, reference(model, buf, off, len),
+					model.compute(buf, off, len));
+		}
+	}
+
+	@Test
+	public void testCrc32() {
+		CrcModel model = new CrcModel("CRC-32", 32, 0x04C11DB7, 0xFFFFFFFF, true, true,
+				0xFFFFFFFF);
+		byte[] buf = new byte[1000];
+		new Random(32).nextBytes(buf);
+		CRC32 expected = new CRC32();
+		expected.update(buf, 3, 990);
+		assertEquals(expected.getValue(), model.compute(buf, 3, 990));
+		assertEquals(0xCBF43926L, model.compute(CHECK, 0, CHECK.length));
+	}
+
+	@Test
+	public void testIncremental() {
+		byte[] buf = new byte[300];
+		new Random(16).nextBytes(buf);
+		for (CrcModel model : new CrcModel[] { CrcModel.CRC8_SMBUS, CrcModel.CRC16_MODBUS }) {
+			long expected = model.compute(buf, 0, buf.length);
+			for (int split = 0; split <= buf.length; split += 13) {
+				Crc crc = model.newCrc();
+				crc.update(buf, 0, split);
+				if (split < buf.length) {
+					crc.update(buf[split]);
+					crc.update(buf, split + 1, buf.length - split - 1);
+				}
+				assertEquals(expected, crc.getValue());
+			}
+			Crc crc = model.newCrc();
+			crc.update(buf);
+			crc.reset();
+			crc.update(buf);
+			assertEquals(expected, crc.getValue());
+		}
+	}
+
+	@Test
+	public void testByteBuffers() {
+		byte[] buf = new byte[333];
+		new Random(3).nextBytes(buf);
+		for (CrcModel model : new CrcModel[] { CrcModel.CRC8_MAXIM,
+				CrcModel.CRC16_CCITT_FALSE }) {
+			long expected = model.compute(buf, 5, buf.length - 5);
+			ByteBuffer direct = ByteBuffer.allocateDirect(buf.length);
+			direct.put(buf).position(5);
+			assertEquals(expected, model.compute(direct));
+			assertEquals(5, direct.position());
+			assertEquals(expected, model.compute(ByteBuffer.wrap(buf).position(5).slice()));
+
+			Crc crc = model.newCrc();
+			crc.update(direct);
+			assertEquals(direct.limit(), direct.position());
+			assertEquals(expected, crc.getValue());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadWidth() {
+		new CrcModel("bad", 33, 0, 0, false, false, 0);
+	}
+
+}